@@ -0,0 +1,541 @@
+package org.jfree.chart;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.security.InvalidParameterException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jfree.chart.encoders.ImageEncoder;
+import org.jfree.chart.encoders.ImageEncoderFactory;
+import org.jfree.chart.encoders.ImageFormat;
+
+/**
+ * Renders charts to images and writes them to streams on background
+ * threads, for servers that export many charts.
+ * <P>
+ * Each export is drawn with {@link JFreeChart#draw(Graphics2D, Rectangle2D)}
+ * on a render thread, then handed to an encode thread, so the render thread
+ * can start on the next chart while the image is encoded.  Both stages run
+ * on fixed-size pools with bounded queues:
+ * <ul>
+ * <li>when the render queue is full, {@link #export} throws a
+ *     <code>RejectedExecutionException</code>, so callers see the overload
+ *     instead of queueing without limit;</li>
+ * <li>when the encode queue is full, the render thread encodes the image
+ *     itself, which slows rendering down to the speed of encoding.</li>
+ * </ul>
+ * Images are taken from a pool keyed by size and returned once they are
+ * encoded, so a steady stream of same-sized exports allocates no new
+ * images.  The encoded bytes are written straight to the caller's stream
+ * or channel, which is not closed.
+ * <P>
+ * The queue depths and the number, failures and latency of completed
+ * exports can be read at any time, for monitoring.
+ */
+public class ChartExportService {
+
+    /** The number of idle images kept for each size, per thread. */
+    private static final int IMAGES_PER_THREAD = 2;
+
+    /** The image format. */
+    private final String format;
+
+    /** Whether the encoder writes an alpha channel. */
+    private final boolean encodingAlpha;
+
+    /** The render pool. */
+    private final ThreadPoolExecutor renderExecutor;
+
+    /** The encode pool. */
+    private final ThreadPoolExecutor encodeExecutor;
+
+    /** Idle images, keyed by size. */
+    private final Map<Long, ArrayDeque<BufferedImage>> images;
+
+    /** The maximum number of idle images kept for each size. */
+    private final int imagesPerSize;
+
+    /** The number of exports that completed successfully. */
+    private final AtomicLong completed = new AtomicLong();
+
+    /** The number of exports that failed. */
+    private final AtomicLong failed = new AtomicLong();
+
+    /** The total time from submission to completion, in nanoseconds. */
+    private final AtomicLong totalLatency = new AtomicLong();
+
+    /** The longest time from submission to completion, in nanoseconds. */
+    private final AtomicLong maximumLatency = new AtomicLong();
+
+    /** The total time spent drawing, in nanoseconds. */
+    private final AtomicLong totalRenderTime = new AtomicLong();
+
+    /** The total time spent encoding and writing, in nanoseconds. */
+    private final AtomicLong totalEncodeTime = new AtomicLong();
+
+    /**
+     * Creates a new service that writes PNG images without an alpha
+     * channel.
+     *
+     * @param threads  the number of render threads, and of encode threads
+     *                 (at least 1).
+     * @param queueCapacity  the number of exports that may wait for each
+     *                       stage (at least 1).
+     */
+    public ChartExportService(int threads, int queueCapacity) {
+        this(ImageFormat.PNG, false, threads, queueCapacity);
+    }
+
+    /**
+     * Creates a new service.
+     *
+     * @param format  the image format, as passed to
+     *                <code>ImageEncoderFactory.newInstance</code>
+     *                (<code>null</code> not permitted).
+     * @param encodingAlpha  whether images are drawn and encoded with an
+     *                       alpha channel.
+     * @param threads  the number of render threads, and of encode threads
+     *                 (at least 1).
+     * @param queueCapacity  the number of exports that may wait for each
+     *                       stage (at least 1).
+     */
+    public ChartExportService(String format, boolean encodingAlpha,
+            int threads, int queueCapacity) {
+        if (format == null) {
+            throw new IllegalArgumentException("Null 'format' argument.");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Requires 'threads' >= 1.");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Requires 'queueCapacity' >= 1.");
+        }
+        // fails early for an unknown format
+        ImageEncoderFactory.newInstance(format);
+        this.format = format;
+        this.encodingAlpha = encodingAlpha;
+        this.renderExecutor = new ThreadPoolExecutor(threads, threads, 0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new DaemonThreadFactory("chart-export-render-"));
+        this.encodeExecutor = new ThreadPoolExecutor(threads, threads, 0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new DaemonThreadFactory("chart-export-encode-"),
+                new RejectedExecutionHandler() {
+                    public void rejectedExecution(Runnable task,
+                            ThreadPoolExecutor executor) {
+                        // encode on the render thread, even after shutdown,
+                        // so no rendered export is dropped
+                        task.run();
+                    }
+                });
+        this.images = new HashMap<Long, ArrayDeque<BufferedImage>>();
+        this.imagesPerSize = threads * IMAGES_PER_THREAD;
+    }
+
+    /**
+     * Returns the image format.
+     *
+     * @return The format.
+     */
+    public String getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Queues a chart to be drawn at the given size and written to a stream.
+     * The chart must not be changed until the export completes.
+     *
+     * @param chart  the chart (<code>null</code> not permitted).
+     * @param width  the image width (at least 1).
+     * @param height  the image height (at least 1).
+     * @param out  the stream, which is not closed (<code>null</code> not
+     *             permitted).
+     *
+     * @return A future that completes when the image has been written, or
+     *     fails with the exception thrown while drawing or writing it.
+     *
+     * @throws InvalidParameterException if <code>chart</code> is
+     *     <code>null</code>.
+     * @throws RejectedExecutionException if the render queue is full or the
+     *     service has been shut down.
+     */
+    public Future<Void> export(final JFreeChart chart, final int width,
+            final int height, final OutputStream out) {
+        if (chart == null) {
+            throw new InvalidParameterException("Null 'chart' argument.");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Null 'out' argument.");
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(
+                    "Requires 'width' >= 1 and 'height' >= 1.");
+        }
+        final long submitted = System.nanoTime();
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        this.renderExecutor.execute(new Runnable() {
+            public void run() {
+                render(chart, width, height, out, submitted, result);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queues a chart to be drawn at the given size and written to a
+     * channel.
+     *
+     * @param chart  the chart (<code>null</code> not permitted).
+     * @param width  the image width (at least 1).
+     * @param height  the image height (at least 1).
+     * @param channel  the channel, which is not closed (<code>null</code>
+     *                 not permitted).
+     *
+     * @return A future that completes when the image has been written.
+     *
+     * @throws RejectedExecutionException if the render queue is full or the
+     *     service has been shut down.
+     */
+    public Future<Void> export(JFreeChart chart, int width, int height,
+            final WritableByteChannel channel) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Null 'channel' argument.");
+        }
+        return export(chart, width, height, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Returns the number of exports waiting to be drawn.
+     *
+     * @return The render queue depth.
+     */
+    public int getQueueDepth() {
+        return this.renderExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of drawn images waiting to be encoded.
+     *
+     * @return The encode queue depth.
+     */
+    public int getEncodeQueueDepth() {
+        return this.encodeExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of exports that completed successfully.
+     *
+     * @return The count.
+     */
+    public long getCompletedCount() {
+        return this.completed.get();
+    }
+
+    /**
+     * Returns the number of exports that failed.
+     *
+     * @return The count.
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * Returns the mean time from submission to completion of the exports
+     * that completed successfully.
+     *
+     * @return The mean latency in nanoseconds (zero if none completed).
+     */
+    public long getMeanLatencyNanos() {
+        return mean(this.totalLatency);
+    }
+
+    /**
+     * Returns the longest time from submission to completion of an export
+     * that completed successfully.
+     *
+     * @return The maximum latency in nanoseconds.
+     */
+    public long getMaximumLatencyNanos() {
+        return this.maximumLatency.get();
+    }
+
+    /**
+     * Returns the mean time spent drawing a chart, for the exports that
+     * completed successfully.
+     *
+     * @return The mean render time in nanoseconds.
+     */
+    public long getMeanRenderNanos() {
+        return mean(this.totalRenderTime);
+    }
+
+    /**
+     * Returns the mean time spent encoding and writing an image, for the
+     * exports that completed successfully.
+     *
+     * @return The mean encode time in nanoseconds.
+     */
+    public long getMeanEncodeNanos() {
+        return mean(this.totalEncodeTime);
+    }
+
+    /**
+     * Returns the number of idle images held in the pool.
+     *
+     * @return The count.
+     */
+    public int getPooledImageCount() {
+        synchronized (this.images) {
+            int count = 0;
+            for (ArrayDeque<BufferedImage> deque : this.images.values()) {
+                count += deque.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Stops accepting exports.  Exports already queued are completed.
+     */
+    public void shutdown() {
+        this.renderExecutor.shutdown();
+        this.encodeExecutor.shutdown();
+    }
+
+    /**
+     * Waits for the exports queued before {@link #shutdown()} to complete.
+     *
+     * @param timeout  the longest time to wait.
+     * @param unit  the unit of <code>timeout</code>.
+     *
+     * @return <code>true</code> if every export completed, and
+     *     <code>false</code> if the time ran out.
+     *
+     * @throws InterruptedException if the thread is interrupted while
+     *     waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return this.renderExecutor.awaitTermination(deadline
+                - System.nanoTime(), TimeUnit.NANOSECONDS)
+                && this.encodeExecutor.awaitTermination(deadline
+                - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Draws a chart and passes the image to the encode pool.
+     *
+     * @param chart  the chart.
+     * @param width  the image width.
+     * @param height  the image height.
+     * @param out  the stream.
+     * @param submitted  the time the export was submitted.
+     * @param result  the future to complete.
+     */
+    private void render(JFreeChart chart, int width, int height,
+            final OutputStream out, final long submitted,
+            final CompletableFuture<Void> result) {
+        long start = System.nanoTime();
+        final BufferedImage image = takeImage(width, height);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setBackground(new Color(0, 0, 0, 0));
+            g2.clearRect(0, 0, width, height);
+            chart.draw(g2, new Rectangle2D.Double(0, 0, width, height));
+        }
+        catch (Throwable t) {
+            // an Error as well, or the future would never complete
+            returnImage(image);
+            fail(result, t);
+            return;
+        }
+        finally {
+            g2.dispose();
+        }
+        final long renderTime = System.nanoTime() - start;
+        this.encodeExecutor.execute(new Runnable() {
+            public void run() {
+                encode(image, out, submitted, renderTime, result);
+            }
+        });
+    }
+
+    /**
+     * Encodes an image to a stream, returns the image to the pool and
+     * completes the export.
+     *
+     * @param image  the image.
+     * @param out  the stream.
+     * @param submitted  the time the export was submitted.
+     * @param renderTime  the time spent drawing.
+     * @param result  the future to complete.
+     */
+    private void encode(BufferedImage image, OutputStream out,
+            long submitted, long renderTime, CompletableFuture<Void> result) {
+        long start = System.nanoTime();
+        try {
+            ImageEncoder encoder = ImageEncoderFactory.newInstance(
+                    this.format, this.encodingAlpha);
+            encoder.encode(image, out);
+            out.flush();
+        }
+        catch (Throwable t) {
+            fail(result, t);
+            return;
+        }
+        finally {
+            returnImage(image);
+        }
+        long end = System.nanoTime();
+        long latency = end - submitted;
+        this.totalRenderTime.addAndGet(renderTime);
+        this.totalEncodeTime.addAndGet(end - start);
+        this.totalLatency.addAndGet(latency);
+        long maximum = this.maximumLatency.get();
+        while (latency > maximum
+                && !this.maximumLatency.compareAndSet(maximum, latency)) {
+            maximum = this.maximumLatency.get();
+        }
+        this.completed.incrementAndGet();
+        result.complete(null);
+    }
+
+    /**
+     * Records a failed export.
+     *
+     * @param result  the future to complete.
+     * @param t  the exception or error.
+     */
+    private void fail(CompletableFuture<Void> result, Throwable t) {
+        this.failed.incrementAndGet();
+        result.completeExceptionally(t);
+    }
+
+    /**
+     * Returns the mean of a total over the completed exports.
+     *
+     * @param total  the total.
+     *
+     * @return The mean.
+     */
+    private long mean(AtomicLong total) {
+        long count = this.completed.get();
+        return count == 0 ? 0L : total.get() / count;
+    }
+
+    /**
+     * Takes an idle image of the given size from the pool, or creates one.
+     *
+     * @param width  the width.
+     * @param height  the height.
+     *
+     * @return The image.
+     */
+    private BufferedImage takeImage(int width, int height) {
+        BufferedImage image = null;
+        synchronized (this.images) {
+            ArrayDeque<BufferedImage> deque = this.images.get(
+                    key(width, height));
+            if (deque != null) {
+                image = deque.pollFirst();
+            }
+        }
+        if (image == null) {
+            image = new BufferedImage(width, height, this.encodingAlpha
+                    ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        }
+        return image;
+    }
+
+    /**
+     * Returns an image to the pool, unless the pool already holds enough
+     * images of its size.
+     *
+     * @param image  the image.
+     */
+    private void returnImage(BufferedImage image) {
+        Long key = key(image.getWidth(), image.getHeight());
+        synchronized (this.images) {
+            ArrayDeque<BufferedImage> deque = this.images.get(key);
+            if (deque == null) {
+                deque = new ArrayDeque<BufferedImage>();
+                this.images.put(key, deque);
+            }
+            if (deque.size() < this.imagesPerSize) {
+                deque.addFirst(image);
+            }
+        }
+    }
+
+    /**
+     * Returns the pool key for an image size.
+     *
+     * @param width  the width.
+     * @param height  the height.
+     *
+     * @return The key.
+     */
+    private static Long key(int width, int height) {
+        return Long.valueOf(((long) width << 32) | height);
+    }
+
+    /**
+     * Creates named daemon threads, so an idle service does not keep the
+     * virtual machine running.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        /** The thread name prefix. */
+        private final String prefix;
+
+        /** The number of threads created. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Creates a new factory.
+         *
+         * @param prefix  the thread name prefix.
+         */
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Creates a thread.
+         *
+         * @param task  the task.
+         *
+         * @return The thread.
+         */
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, this.prefix
+                    + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,458 @@
+package org.jfree.chart;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jfree.chart.encoders.ImageEncoderFactory;
+import org.jfree.chart.encoders.ImageFormat;
+import org.jfree.chart.event.ChartChangeEvent;
+import org.jfree.chart.event.ChartChangeListener;
+
+/**
+ * A cache of encoded chart images, for servers that send the same charts
+ * repeatedly.  An image is kept for each chart and size until the chart
+ * changes, so a chart whose data and settings have not changed since the
+ * last request is sent without being drawn or encoded again.
+ * <P>
+ * The cache registers a {@link ChartChangeListener} with each chart it
+ * holds images for.  A chart sends a change event whenever its plot,
+ * datasets, axes or titles change, and each event advances the chart's
+ * version and removes its images.  An image drawn while the chart was
+ * changing is returned but not kept.
+ * <P>
+ * The cache holds at most a given number of bytes of encoded images and
+ * removes the least recently used images to make room.  Each image has an
+ * entity tag derived from its bytes, for HTTP revalidation (see
+ * {@link org.jfree.chart.servlet.ChartCacheUtilities}).
+ * <P>
+ * All methods may be called from any thread.  As for
+ * {@link ChartExportService}, a chart must not be changed while it is being
+ * drawn.
+ */
+public class ChartRenderCache {
+
+    /** The image format. */
+    private final String format;
+
+    /** Whether images are drawn and encoded with an alpha channel. */
+    private final boolean encodingAlpha;
+
+    /** The maximum number of bytes of encoded images held. */
+    private final long maximumBytes;
+
+    /** The images, least recently used first. */
+    private final LinkedHashMap<Key, RenderedChart> images;
+
+    /** The change listeners of the charts that have images, by chart. */
+    private final Map<JFreeChart, Tracker> trackers;
+
+    /** The number of bytes of encoded images held. */
+    private long byteCount;
+
+    /** The number of requests answered from the cache. */
+    private long hitCount;
+
+    /** The number of requests that drew the chart. */
+    private long missCount;
+
+    /**
+     * Creates a new cache for PNG images without an alpha channel.
+     *
+     * @param maximumBytes  the maximum number of bytes of encoded images
+     *                      held (at least 1).
+     */
+    public ChartRenderCache(long maximumBytes) {
+        this(ImageFormat.PNG, false, maximumBytes);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param format  the image format, as passed to
+     *                <code>ImageEncoderFactory.newInstance</code>
+     *                (<code>null</code> not permitted).
+     * @param encodingAlpha  whether images are drawn and encoded with an
+     *                       alpha channel.
+     * @param maximumBytes  the maximum number of bytes of encoded images
+     *                      held (at least 1).
+     */
+    public ChartRenderCache(String format, boolean encodingAlpha,
+            long maximumBytes) {
+        if (format == null) {
+            throw new IllegalArgumentException("Null 'format' argument.");
+        }
+        if (maximumBytes < 1) {
+            throw new IllegalArgumentException(
+                    "Requires 'maximumBytes' >= 1.");
+        }
+        // fails early for an unknown format
+        ImageEncoderFactory.newInstance(format);
+        this.format = format;
+        this.encodingAlpha = encodingAlpha;
+        this.maximumBytes = maximumBytes;
+        this.images = new LinkedHashMap<Key, RenderedChart>(16, 0.75f, true);
+        this.trackers = new IdentityHashMap<JFreeChart, Tracker>();
+    }
+
+    /**
+     * Returns the image format.
+     *
+     * @return The format.
+     */
+    public String getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Returns the maximum number of bytes of encoded images held.
+     *
+     * @return The maximum.
+     */
+    public long getMaximumBytes() {
+        return this.maximumBytes;
+    }
+
+    /**
+     * Returns an image of a chart at the given size, from the cache if the
+     * chart has not changed since it was last drawn at that size, and
+     * otherwise by drawing and encoding the chart.
+     *
+     * @param chart  the chart (<code>null</code> not permitted).
+     * @param width  the image width (at least 1).
+     * @param height  the image height (at least 1).
+     *
+     * @return The image.
+     *
+     * @throws InvalidParameterException if <code>chart</code> is
+     *     <code>null</code>.
+     * @throws IOException if there is a problem encoding the image.
+     */
+    public RenderedChart getRenderedChart(JFreeChart chart, int width,
+            int height) throws IOException {
+        if (chart == null) {
+            throw new InvalidParameterException("Null 'chart' argument.");
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(
+                    "Requires 'width' >= 1 and 'height' >= 1.");
+        }
+        Key key = new Key(chart, width, height);
+        Tracker tracker;
+        long version;
+        synchronized (this) {
+            RenderedChart cached = this.images.get(key);
+            if (cached != null) {
+                this.hitCount++;
+                return cached;
+            }
+            this.missCount++;
+            tracker = this.trackers.get(chart);
+            if (tracker == null) {
+                tracker = new Tracker(chart);
+                this.trackers.put(chart, tracker);
+                chart.addChangeListener(tracker);
+            }
+            tracker.renders++;
+            version = tracker.version;
+        }
+        RenderedChart rendered = null;
+        try {
+            rendered = render(chart, width, height);
+        }
+        finally {
+            synchronized (this) {
+                tracker.renders--;
+                if (rendered != null && tracker.version == version
+                        && this.trackers.get(chart) == tracker) {
+                    store(key, tracker, rendered);
+                }
+                release(tracker);
+            }
+        }
+        return rendered;
+    }
+
+    /**
+     * Removes the images of a chart and stops listening to it.
+     *
+     * @param chart  the chart (<code>null</code> not permitted).
+     */
+    public synchronized void remove(JFreeChart chart) {
+        if (chart == null) {
+            throw new IllegalArgumentException("Null 'chart' argument.");
+        }
+        Tracker tracker = this.trackers.get(chart);
+        if (tracker != null) {
+            tracker.version++;
+            removeImages(tracker);
+        }
+    }
+
+    /**
+     * Removes every image from the cache.
+     */
+    public synchronized void clear() {
+        List<Tracker> all = new ArrayList<Tracker>(this.trackers.values());
+        for (Tracker tracker : all) {
+            tracker.version++;
+            removeImages(tracker);
+        }
+    }
+
+    /**
+     * Returns the number of images held.
+     *
+     * @return The count.
+     */
+    public synchronized int getImageCount() {
+        return this.images.size();
+    }
+
+    /**
+     * Returns the number of bytes of encoded images held.
+     *
+     * @return The byte count.
+     */
+    public synchronized long getByteCount() {
+        return this.byteCount;
+    }
+
+    /**
+     * Returns the number of requests answered from the cache.
+     *
+     * @return The count.
+     */
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * Returns the number of requests that drew the chart.
+     *
+     * @return The count.
+     */
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * Draws and encodes a chart.
+     *
+     * @param chart  the chart.
+     * @param width  the image width.
+     * @param height  the image height.
+     *
+     * @return The image.
+     *
+     * @throws IOException if there is a problem encoding the image.
+     */
+    private RenderedChart render(JFreeChart chart, int width, int height)
+            throws IOException {
+        BufferedImage image = chart.createBufferedImage(width, height,
+                this.encodingAlpha ? BufferedImage.TYPE_INT_ARGB
+                : BufferedImage.TYPE_INT_RGB, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageEncoderFactory.newInstance(this.format,
+                this.encodingAlpha).encode(image, out);
+        byte[] bytes = out.toByteArray();
+        return new RenderedChart(this.format, bytes, entityTag(bytes));
+    }
+
+    /**
+     * Adds an image to the cache, removing the least recently used images
+     * if the cache holds too many bytes.  An image larger than the cache is
+     * not kept.
+     *
+     * @param key  the key.
+     * @param tracker  the chart's tracker.
+     * @param rendered  the image.
+     */
+    private void store(Key key, Tracker tracker, RenderedChart rendered) {
+        if (rendered.getLength() > this.maximumBytes) {
+            return;
+        }
+        RenderedChart previous = this.images.put(key, rendered);
+        if (previous != null) {
+            this.byteCount -= previous.getLength();
+        }
+        this.byteCount += rendered.getLength();
+        tracker.keys.add(key);
+        Iterator<Map.Entry<Key, RenderedChart>> iterator
+                = this.images.entrySet().iterator();
+        while (this.byteCount > this.maximumBytes) {
+            Map.Entry<Key, RenderedChart> eldest = iterator.next();
+            iterator.remove();
+            this.byteCount -= eldest.getValue().getLength();
+            Tracker owner = this.trackers.get(eldest.getKey().chart);
+            owner.keys.remove(eldest.getKey());
+            release(owner);
+        }
+    }
+
+    /**
+     * Removes the images of a chart.
+     *
+     * @param tracker  the chart's tracker.
+     */
+    private void removeImages(Tracker tracker) {
+        for (Key key : tracker.keys) {
+            this.byteCount -= this.images.remove(key).getLength();
+        }
+        tracker.keys.clear();
+        release(tracker);
+    }
+
+    /**
+     * Stops listening to a chart that has no images and is not being drawn,
+     * so that the cache does not keep it from being garbage collected.
+     *
+     * @param tracker  the chart's tracker.
+     */
+    private void release(Tracker tracker) {
+        if (tracker.keys.isEmpty() && tracker.renders == 0
+                && this.trackers.get(tracker.chart) == tracker) {
+            this.trackers.remove(tracker.chart);
+            tracker.chart.removeChangeListener(tracker);
+        }
+    }
+
+    /**
+     * Returns an entity tag for an encoded image: the first 16 hex digits
+     * of its SHA-256 digest, in quotes.
+     *
+     * @param bytes  the encoded image.
+     *
+     * @return The entity tag.
+     */
+    private static String entityTag(byte[] bytes) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        }
+        catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+        StringBuilder tag = new StringBuilder(18);
+        tag.append('"');
+        for (int i = 0; i < 8; i++) {
+            tag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+            tag.append(Character.forDigit(digest[i] & 0xF, 16));
+        }
+        tag.append('"');
+        return tag.toString();
+    }
+
+    /**
+     * The cache key for an image: a chart (compared by identity) and a
+     * size.
+     */
+    private static final class Key {
+
+        /** The chart. */
+        private final JFreeChart chart;
+
+        /** The image width. */
+        private final int width;
+
+        /** The image height. */
+        private final int height;
+
+        /**
+         * Creates a key.
+         *
+         * @param chart  the chart.
+         * @param width  the image width.
+         * @param height  the image height.
+         */
+        Key(JFreeChart chart, int width, int height) {
+            this.chart = chart;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Tests this key for equality with an arbitrary object.
+         *
+         * @param obj  the object (<code>null</code> permitted).
+         *
+         * @return A boolean.
+         */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            return this.chart == that.chart && this.width == that.width
+                    && this.height == that.height;
+        }
+
+        /**
+         * Returns a hash code.
+         *
+         * @return A hash code.
+         */
+        public int hashCode() {
+            int result = System.identityHashCode(this.chart);
+            result = 29 * result + this.width;
+            result = 29 * result + this.height;
+            return result;
+        }
+
+    }
+
+    /**
+     * Follows the changes to a chart that has images in the cache (or is
+     * being drawn for it).
+     */
+    private final class Tracker implements ChartChangeListener {
+
+        /** The chart. */
+        private final JFreeChart chart;
+
+        /** The keys of the chart's images. */
+        private final Set<Key> keys;
+
+        /** The number of changes seen. */
+        private long version;
+
+        /** The number of renderings in progress. */
+        private int renders;
+
+        /**
+         * Creates a tracker.
+         *
+         * @param chart  the chart.
+         */
+        Tracker(JFreeChart chart) {
+            this.chart = chart;
+            this.keys = new HashSet<Key>();
+        }
+
+        /**
+         * Advances the chart's version and removes its images.
+         *
+         * @param event  the event.
+         */
+        public void chartChanged(ChartChangeEvent event) {
+            synchronized (ChartRenderCache.this) {
+                this.version++;
+                removeImages(this);
+            }
+        }
+
+    }
+
+}
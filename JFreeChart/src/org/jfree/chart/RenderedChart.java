@@ -0,0 +1,87 @@
+package org.jfree.chart;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An encoded image of a chart, as held by a {@link ChartRenderCache}.  The
+ * entity tag identifies the bytes of the image, so it can be sent in an
+ * HTTP <code>ETag</code> header and compared with the
+ * <code>If-None-Match</code> header of a later request.
+ */
+public class RenderedChart {
+
+    /** The image format. */
+    private final String format;
+
+    /** The encoded image. */
+    private final byte[] bytes;
+
+    /** The entity tag, in quotes. */
+    private final String entityTag;
+
+    /**
+     * Creates a new rendered chart.
+     *
+     * @param format  the image format.
+     * @param bytes  the encoded image, which is not copied.
+     * @param entityTag  the entity tag, in quotes.
+     */
+    RenderedChart(String format, byte[] bytes, String entityTag) {
+        this.format = format;
+        this.bytes = bytes;
+        this.entityTag = entityTag;
+    }
+
+    /**
+     * Returns the image format.
+     *
+     * @return The format (for example, <code>"png"</code>).
+     */
+    public String getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Returns the number of bytes in the encoded image.
+     *
+     * @return The length.
+     */
+    public int getLength() {
+        return this.bytes.length;
+    }
+
+    /**
+     * Returns the entity tag, a quoted string that is the same for every
+     * rendering of a chart that produces the same bytes.
+     *
+     * @return The entity tag.
+     */
+    public String getEntityTag() {
+        return this.entityTag;
+    }
+
+    /**
+     * Returns a copy of the encoded image.
+     *
+     * @return The bytes.
+     */
+    public byte[] getBytes() {
+        return this.bytes.clone();
+    }
+
+    /**
+     * Writes the encoded image to a stream, which is not closed.
+     *
+     * @param out  the stream (<code>null</code> not permitted).
+     *
+     * @throws IOException if there is a problem writing to the stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Null 'out' argument.");
+        }
+        out.write(this.bytes);
+    }
+
+}
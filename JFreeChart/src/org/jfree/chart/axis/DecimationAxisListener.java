@@ -0,0 +1,67 @@
+package org.jfree.chart.axis;
+
+import java.io.Serializable;
+import java.security.InvalidParameterException;
+
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
+import org.jfree.data.DecimatedXYDataset;
+
+/**
+ * Keeps the visible domain range of a {@link DecimatedXYDataset} in step
+ * with a domain axis, so that the decimated view follows zooming and
+ * panning.  Register it with the plot's domain axis:
+ * <pre>
+ * plot.getDomainAxis().addChangeListener(
+ *         new DecimationAxisListener(dataset));</pre>
+ * The range is passed on without a dataset change event (see
+ * {@link DecimatedXYDataset#setDomainRange(double, double, boolean)}).
+ */
+public class DecimationAxisListener implements AxisChangeListener,
+        Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 2284936104553601785L;
+
+    /** The dataset. */
+    private DecimatedXYDataset dataset;
+
+    /**
+     * Creates a listener for a dataset.
+     *
+     * @param dataset  the dataset (<code>null</code> not permitted).
+     *
+     * @throws InvalidParameterException if <code>dataset</code> is
+     *     <code>null</code>.
+     */
+    public DecimationAxisListener(DecimatedXYDataset dataset) {
+        if (dataset == null) {
+            throw new InvalidParameterException("Null 'dataset' argument.");
+        }
+        this.dataset = dataset;
+    }
+
+    /**
+     * Returns the dataset.
+     *
+     * @return The dataset (never <code>null</code>).
+     */
+    public DecimatedXYDataset getDataset() {
+        return this.dataset;
+    }
+
+    /**
+     * Passes the range of a changed {@link ValueAxis} to the dataset.
+     *
+     * @param event  the event.
+     */
+    public void axisChanged(AxisChangeEvent event) {
+        Axis axis = event.getAxis();
+        if (axis instanceof ValueAxis) {
+            ValueAxis valueAxis = (ValueAxis) axis;
+            this.dataset.setDomainRange(valueAxis.getLowerBound(),
+                    valueAxis.getUpperBound(), false);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.jfree.chart.axis.test;
+
+import static org.junit.Assert.*;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.DecimationAxisListener;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.data.DecimatedXYDataset;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.*;
+import java.security.InvalidParameterException;
+
+// Tests for DecimationAxisListener: a DecimatedXYDataset follows a domain axis.
+public class DecimationAxisListenerTest {
+
+    private DecimatedXYDataset dataset;
+
+    private int events;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // a 10000 item sawtooth at x = 0, 1, 2, ...
+        XYSeries series = new XYSeries("S", true, false);
+        for (int i = 0; i < 10000; i++) {
+            series.add(i, i % 7, false);
+        }
+        dataset = new DecimatedXYDataset(new XYSeriesCollection(series), DecimatedXYDataset.MIN_MAX, 10);
+        events = 0;
+        dataset.addChangeListener(new DatasetChangeListener() {
+            public void datasetChanged(DatasetChangeEvent event) {
+                events++;
+            }
+        });
+    }
+
+    // NOM: the view follows the range of a number axis, without dataset events
+    @Test
+    public void followsAxisRange() {
+        NumberAxis axis = new NumberAxis("x");
+        axis.addChangeListener(new DecimationAxisListener(dataset));
+        axis.setRange(5000.0, 5010.0);
+        assertEquals(5000.0, dataset.getLowerBound(), .000000001d);
+        assertEquals(5010.0, dataset.getUpperBound(), .000000001d);
+        assertEquals(13, dataset.getItemCount(0));
+        assertEquals(4999.0, dataset.getXValue(0, 0), .000000001d);
+        assertEquals(0, events);
+    }
+
+    // an axis without a numeric range is ignored
+    @Test
+    public void ignoresCategoryAxis() {
+        CategoryAxis axis = new CategoryAxis("c");
+        axis.addChangeListener(new DecimationAxisListener(dataset));
+        axis.setLabel("changed");
+        assertTrue(Double.isNaN(dataset.getLowerBound()));
+    }
+
+    // null dataset
+    @Test(expected = InvalidParameterException.class)
+    public void nullDatasetThrowsException() {
+        new DecimationAxisListener(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
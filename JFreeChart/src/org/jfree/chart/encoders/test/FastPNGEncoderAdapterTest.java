@@ -0,0 +1,192 @@
+package org.jfree.chart.encoders.test;
+
+import static org.junit.Assert.*;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.encoders.FastPNGEncoderAdapter;
+import org.jfree.chart.encoders.ImageEncoderFactory;
+import org.jfree.chart.encoders.ImageFormat;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.imageio.ImageIO;
+
+// Tests for FastPNGEncoderAdapter: images encoded and read back with ImageIO.
+public class FastPNGEncoderAdapterTest {
+
+    private FastPNGEncoderAdapter encoder;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        encoder = new FastPNGEncoderAdapter();
+    }
+
+    // an image of random colours, so it is written as RGB
+    private static BufferedImage noise(int width, int height, int type) {
+        Random random = new Random(width * 31 + height);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    // checks that two images have the same pixels, ignoring alpha unless asked
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, boolean alpha) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int mask = alpha ? 0xFFFFFFFF : 0x00FFFFFF;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel " + x + ", " + y, expected.getRGB(x, y) & mask, actual.getRGB(x, y) & mask);
+            }
+        }
+    }
+
+    // reads back an encoded image
+    private static BufferedImage decode(byte[] png) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(png));
+    }
+
+    // returns the IHDR colour type of an encoded image
+    private static int colorType(byte[] png) {
+        return png[25];
+    }
+
+    // inflates the joined IDAT chunks, which checks the zlib stream and its Adler-32 checksum
+    private static int inflatedLength(byte[] png) throws DataFormatException {
+        ByteBuffer buffer = ByteBuffer.wrap(png, 8, png.length - 8);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        while (buffer.hasRemaining()) {
+            int length = buffer.getInt();
+            byte[] type = new byte[4];
+            buffer.get(type);
+            if (new String(type).equals("IDAT")) {
+                data.write(png, buffer.position(), length);
+            }
+            buffer.position(buffer.position() + length + 4);
+        }
+        Inflater inflater = new Inflater();
+        inflater.setInput(data.toByteArray());
+        byte[] out = new byte[1 << 16];
+        int total = 0;
+        while (!inflater.finished()) {
+            int n = inflater.inflate(out);
+            assertTrue("truncated stream", n > 0 || !inflater.needsInput());
+            total += n;
+        }
+        inflater.end();
+        return total;
+    }
+
+    // NOM: a chart image round trips exactly
+    @Test
+    public void chartRoundTrip() throws Exception {
+        XYSeries series = new XYSeries("S");
+        series.add(1.0, 2.0);
+        series.add(2.0, 5.0);
+        JFreeChart chart = ChartFactory.createXYLineChart("Title", "x", "y",
+                new XYSeriesCollection(series), PlotOrientation.VERTICAL, true, false, false);
+        BufferedImage image = chart.createBufferedImage(400, 300);
+        assertSamePixels(image, decode(encoder.encode(image)), false);
+    }
+
+    // random colours are written as RGB, over many parallel row groups
+    @Test
+    public void rgbRoundTripOverManyGroups() throws Exception {
+        BufferedImage image = noise(300, 2000, BufferedImage.TYPE_INT_RGB);
+        byte[] png = encoder.encode(image);
+        assertEquals(2, colorType(png));
+        assertEquals(2000 * (1 + 300 * 3), inflatedLength(png));
+        assertSamePixels(image, decode(png), false);
+    }
+
+    // the alpha channel is written when requested
+    @Test
+    public void alphaRoundTrip() throws Exception {
+        BufferedImage image = noise(200, 700, BufferedImage.TYPE_INT_ARGB);
+        encoder.setEncodingAlpha(true);
+        byte[] png = encoder.encode(image);
+        assertEquals(6, colorType(png));
+        assertSamePixels(image, decode(png), true);
+    }
+
+    // an image with few colours is written with a palette, including transparency
+    @Test
+    public void indexedColorRoundTrip() throws Exception {
+        BufferedImage image = new BufferedImage(120, 90, BufferedImage.TYPE_INT_ARGB);
+        int[] colors = {0x00000000, 0xFFFF0000, 0x8000FF00, 0xFF0000FF};
+        for (int y = 0; y < 90; y++) {
+            for (int x = 0; x < 120; x++) {
+                image.setRGB(x, y, colors[(x / 7 + y / 5) % colors.length]);
+            }
+        }
+        encoder.setEncodingAlpha(true);
+        byte[] png = encoder.encode(image);
+        assertEquals(3, colorType(png));
+        assertSamePixels(image, decode(png), true);
+        encoder.setIndexedColor(false);
+        assertEquals(6, colorType(encoder.encode(image)));
+    }
+
+    // other image types are read through getRGB
+    @Test
+    public void otherImageTypeRoundTrip() throws Exception {
+        BufferedImage image = noise(64, 48, BufferedImage.TYPE_3BYTE_BGR);
+        assertSamePixels(image, decode(encoder.encode(image)), false);
+    }
+
+    // every compression level produces a valid stream
+    @Test
+    public void everyLevelRoundTrips() throws Exception {
+        BufferedImage image = noise(50, 1500, BufferedImage.TYPE_INT_RGB);
+        for (int level = 0; level <= 9; level++) {
+            encoder.setQuality(level);
+            byte[] png = encoder.encode(image);
+            assertEquals(1500 * (1 + 50 * 3), inflatedLength(png));
+        }
+        assertSamePixels(image, decode(encoder.encode(image)), false);
+    }
+
+    // register() makes ImageEncoderFactory create the encoder for PNG
+    @Test
+    public void registerWithFactory() {
+        try {
+            FastPNGEncoderAdapter.register();
+            assertTrue(ImageEncoderFactory.newInstance(ImageFormat.PNG) instanceof FastPNGEncoderAdapter);
+            assertEquals(1.0f, ImageEncoderFactory.newInstance(ImageFormat.PNG, 1.0f).getQuality(), .000000001d);
+        }
+        finally {
+            ImageEncoderFactory.setImageEncoder(ImageFormat.PNG, "org.jfree.chart.encoders.SunPNGEncoderAdapter");
+        }
+    }
+
+    // a level outside 0 to 9 is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void setQualityOutOfRangeThrowsException() {
+        encoder.setQuality(10.0f);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
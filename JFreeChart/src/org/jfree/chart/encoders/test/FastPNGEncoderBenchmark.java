@@ -0,0 +1,82 @@
+package org.jfree.chart.encoders.test;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.encoders.FastPNGEncoderAdapter;
+import org.jfree.chart.encoders.ImageEncoder;
+import org.jfree.chart.encoders.KeypointPNGEncoderAdapter;
+import org.jfree.chart.encoders.SunPNGEncoderAdapter;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.test.BenchmarkTimer;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+// Compares FastPNGEncoderAdapter with the SunPNGEncoderAdapter (ImageIO) and
+// KeypointPNGEncoderAdapter encoders, on square line chart images.  The
+// antialiased chart has too many colours for a palette; the second chart is
+// drawn without antialiasing, so FastPNGEncoderAdapter writes it indexed.
+//
+// Not a JUnit test: run it directly, optionally passing image widths, e.g.
+//   java -cp <classpath> org.jfree.chart.encoders.test.FastPNGEncoderBenchmark 800 4000
+// Timings are per pixel and come from BenchmarkTimer; encoded sizes follow
+// each timing.
+public class FastPNGEncoderBenchmark {
+
+    public static void main(String[] args) {
+        BenchmarkTimer.printHeader();
+        for (int width : BenchmarkTimer.sizes(args, new int[] {600, 2000})) {
+            run(width);
+        }
+        BenchmarkTimer.printSink();
+    }
+
+    private static void run(int width) {
+        Random random = new Random(11);
+        XYSeries series = new XYSeries("Random walk");
+        double y = 0.0;
+        for (int i = 0; i < 5000; i++) {
+            y += random.nextGaussian();
+            series.add(i, y);
+        }
+        JFreeChart chart = ChartFactory.createXYLineChart("Random walk", "x", "y",
+                new XYSeriesCollection(series), PlotOrientation.VERTICAL, true, false, false);
+        compare(chart.createBufferedImage(width, width), "antialiased");
+        chart.setAntiAlias(false);
+        compare(chart.createBufferedImage(width, width), "no antialiasing");
+    }
+
+    private static void compare(BufferedImage image, String label) {
+        System.out.println("  " + label);
+        FastPNGEncoderAdapter fast = new FastPNGEncoderAdapter();
+        FastPNGEncoderAdapter fastLevel1 = new FastPNGEncoderAdapter();
+        fastLevel1.setQuality(1.0f);
+        FastPNGEncoderAdapter fastTruecolor = new FastPNGEncoderAdapter();
+        fastTruecolor.setIndexedColor(false);
+
+        encode(image, "SunPNGEncoderAdapter", new SunPNGEncoderAdapter());
+        encode(image, "KeypointPNGEncoderAdapter", new KeypointPNGEncoderAdapter());
+        encode(image, "FastPNGEncoderAdapter, level 6", fast);
+        encode(image, "FastPNGEncoderAdapter, level 1", fastLevel1);
+        encode(image, "FastPNGEncoderAdapter, level 6, truecolor", fastTruecolor);
+    }
+
+    private static void encode(final BufferedImage image, String name, final ImageEncoder encoder) {
+        final int[] size = new int[1];
+        BenchmarkTimer.report(image.getWidth() * image.getHeight(), name, new Runnable() {
+            public void run() {
+                try {
+                    size[0] = encoder.encode(image).length;
+                    BenchmarkTimer.sink += size[0];
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        System.out.println("    encoded size: " + size[0] + " bytes");
+    }
+}
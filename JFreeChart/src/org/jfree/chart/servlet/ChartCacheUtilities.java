@@ -0,0 +1,102 @@
+package org.jfree.chart.servlet;
+
+import java.io.IOException;
+import java.security.InvalidParameterException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jfree.chart.ChartRenderCache;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.RenderedChart;
+
+/**
+ * Utility methods for sending charts from a {@link ChartRenderCache} in
+ * servlet responses.  Each response carries the entity tag of the image, and
+ * a request whose <code>If-None-Match</code> header names that tag is
+ * answered with <code>304 Not Modified</code> and no body, so a browser that
+ * already holds the current image does not download it again.
+ */
+public class ChartCacheUtilities {
+
+    /**
+     * Private constructor prevents object creation.
+     */
+    private ChartCacheUtilities() {
+    }
+
+    /**
+     * Sends an image of a chart, from the cache if the chart has not changed
+     * since it was last drawn at the given size.
+     *
+     * @param cache  the cache (<code>null</code> not permitted).
+     * @param chart  the chart (<code>null</code> not permitted).
+     * @param width  the image width (at least 1).
+     * @param height  the image height (at least 1).
+     * @param request  the request (<code>null</code> not permitted).
+     * @param response  the response (<code>null</code> not permitted).
+     *
+     * @return <code>true</code> if the image was sent, and <code>false</code>
+     *     if the request's <code>If-None-Match</code> header named it.
+     *
+     * @throws InvalidParameterException if <code>chart</code> is
+     *     <code>null</code>.
+     * @throws IOException if there is a problem encoding or sending the
+     *     image.
+     */
+    public static boolean sendChart(ChartRenderCache cache, JFreeChart chart,
+            int width, int height, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (cache == null) {
+            throw new IllegalArgumentException("Null 'cache' argument.");
+        }
+        if (request == null) {
+            throw new IllegalArgumentException("Null 'request' argument.");
+        }
+        if (response == null) {
+            throw new IllegalArgumentException("Null 'response' argument.");
+        }
+        RenderedChart rendered = cache.getRenderedChart(chart, width, height);
+        response.setHeader("ETag", rendered.getEntityTag());
+        if (matches(request.getHeader("If-None-Match"),
+                rendered.getEntityTag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        response.setContentType("image/" + rendered.getFormat());
+        response.setContentLength(rendered.getLength());
+        rendered.writeTo(response.getOutputStream());
+        return true;
+    }
+
+    /**
+     * Returns <code>true</code> if an <code>If-None-Match</code> header
+     * names an entity tag, comparing weakly as HTTP requires for this header
+     * (a <code>W/</code> prefix is ignored).
+     *
+     * @param header  the header value (<code>null</code> permitted).
+     * @param entityTag  the entity tag, in quotes.
+     *
+     * @return A boolean.
+     */
+    public static boolean matches(String header, String entityTag) {
+        if (header == null) {
+            return false;
+        }
+        String[] tags = header.split(",");
+        for (int i = 0; i < tags.length; i++) {
+            String tag = tags[i].trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
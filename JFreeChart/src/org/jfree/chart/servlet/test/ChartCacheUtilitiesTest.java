@@ -0,0 +1,106 @@
+package org.jfree.chart.servlet.test;
+
+import static org.junit.Assert.*;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartRenderCache;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.RenderedChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.servlet.ChartCacheUtilities;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// Tests for ChartCacheUtilities: ETag headers and 304 responses for cached charts.
+public class ChartCacheUtilitiesTest {
+
+    private Mockery context;
+
+    private HttpServletRequest request;
+
+    private HttpServletResponse response;
+
+    private ChartRenderCache cache;
+
+    private JFreeChart chart;
+
+    private RenderedChart rendered;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        context = new Mockery();
+        request = context.mock(HttpServletRequest.class);
+        response = context.mock(HttpServletResponse.class);
+        cache = new ChartRenderCache(1 << 20);
+        XYSeries series = new XYSeries("S");
+        series.add(1.0, 2.0);
+        series.add(2.0, 5.0);
+        chart = ChartFactory.createXYLineChart("Title", "x", "y", new XYSeriesCollection(series),
+                PlotOrientation.VERTICAL, true, false, false);
+        rendered = cache.getRenderedChart(chart, 300, 200);
+    }
+
+    // NOM: a request without If-None-Match receives the image and its tag
+    @Test
+    public void sendsImageWithTag() throws Exception {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final ServletOutputStream out = new ServletOutputStream() {
+            public void write(int b) throws IOException {
+                body.write(b);
+            }
+        };
+        context.checking(new Expectations() {{
+            allowing(request).getHeader("If-None-Match"); will(returnValue(null));
+            oneOf(response).setHeader("ETag", rendered.getEntityTag());
+            oneOf(response).setContentType("image/png");
+            oneOf(response).setContentLength(rendered.getLength());
+            allowing(response).getOutputStream(); will(returnValue(out));
+        }});
+        assertTrue(ChartCacheUtilities.sendChart(cache, chart, 300, 200, request, response));
+        context.assertIsSatisfied();
+        assertArrayEquals(rendered.getBytes(), body.toByteArray());
+    }
+
+    // a request naming the current tag receives 304 and no body
+    @Test
+    public void matchingTagNotModified() throws Exception {
+        context.checking(new Expectations() {{
+            allowing(request).getHeader("If-None-Match"); will(returnValue(rendered.getEntityTag()));
+            oneOf(response).setHeader("ETag", rendered.getEntityTag());
+            oneOf(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            never(response).getOutputStream();
+        }});
+        assertFalse(ChartCacheUtilities.sendChart(cache, chart, 300, 200, request, response));
+        context.assertIsSatisfied();
+    }
+
+    // lists, weak tags and the wildcard match; other tags do not
+    @Test
+    public void headerMatching() {
+        String tag = rendered.getEntityTag();
+        assertTrue(ChartCacheUtilities.matches("\"x\", " + tag, tag));
+        assertTrue(ChartCacheUtilities.matches("W/" + tag, tag));
+        assertTrue(ChartCacheUtilities.matches("*", tag));
+        assertFalse(ChartCacheUtilities.matches("\"x\"", tag));
+        assertFalse(ChartCacheUtilities.matches(null, tag));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,181 @@
+package org.jfree.chart.test;
+
+import static org.junit.Assert.*;
+import org.jfree.chart.ChartExportService;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.*;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+// Tests for ChartExportService: PNG exports of a small line chart.
+public class ChartExportServiceTest {
+
+    private ChartExportService service;
+
+    private JFreeChart chart;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        service = new ChartExportService(2, 4);
+        XYSeries series = new XYSeries("S");
+        series.add(1.0, 2.0);
+        series.add(2.0, 5.0);
+        chart = ChartFactory.createXYLineChart("Title", "x", "y", new XYSeriesCollection(series),
+                PlotOrientation.VERTICAL, true, false, false);
+    }
+
+    // reads back an encoded image
+    private static BufferedImage read(ByteArrayOutputStream out) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    // NOM: a chart is written to a stream as a PNG image of the requested size
+    @Test
+    public void exportWritesImage() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(chart, 300, 200, out).get(10, TimeUnit.SECONDS);
+        BufferedImage image = read(out);
+        assertEquals(300, image.getWidth());
+        assertEquals(200, image.getHeight());
+        assertEquals(1, service.getCompletedCount());
+        assertTrue(service.getMeanLatencyNanos() > 0);
+        assertTrue(service.getMaximumLatencyNanos() >= service.getMeanLatencyNanos());
+    }
+
+    // the image matches JFreeChart.createBufferedImage
+    @Test
+    public void exportMatchesCreateBufferedImage() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(chart, 120, 80, out).get(10, TimeUnit.SECONDS);
+        BufferedImage expected = chart.createBufferedImage(120, 80);
+        BufferedImage actual = read(out);
+        for (int y = 0; y < 80; y++) {
+            for (int x = 0; x < 120; x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    // a channel receives the same bytes as a stream
+    @Test
+    public void exportToChannel() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        service.export(chart, 100, 100, stream).get(10, TimeUnit.SECONDS);
+        service.export(chart, 100, 100, Channels.newChannel(channel)).get(10, TimeUnit.SECONDS);
+        assertArrayEquals(stream.toByteArray(), channel.toByteArray());
+    }
+
+    // images are returned to the pool and reused for the same size
+    @Test
+    public void imagesArePooledBySize() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            service.export(chart, 100, 50, new ByteArrayOutputStream()).get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(1, service.getPooledImageCount());
+        service.export(chart, 50, 100, new ByteArrayOutputStream()).get(10, TimeUnit.SECONDS);
+        assertEquals(2, service.getPooledImageCount());
+    }
+
+    // a full render queue rejects further exports
+    @Test
+    public void fullQueueRejectsExport() throws Exception {
+        ChartExportService small = new ChartExportService(1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        JFreeChart blocking = new JFreeChart(new XYPlot()) {
+            public void draw(Graphics2D g2, Rectangle2D area) {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Future<Void> first = small.export(blocking, 10, 10, new ByteArrayOutputStream());
+        started.await(10, TimeUnit.SECONDS);
+        Future<Void> second = small.export(chart, 10, 10, new ByteArrayOutputStream());
+        assertEquals(1, small.getQueueDepth());
+        try {
+            small.export(chart, 10, 10, new ByteArrayOutputStream());
+            fail("Expected RejectedExecutionException");
+        }
+        catch (RejectedExecutionException e) {
+            // expected
+        }
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        small.shutdown();
+        assertTrue(small.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, small.getCompletedCount());
+    }
+
+    // an exception while drawing fails the export and is counted
+    @Test
+    public void drawFailureFailsExport() throws Exception {
+        JFreeChart broken = new JFreeChart(new XYPlot()) {
+            public void draw(Graphics2D g2, Rectangle2D area) {
+                throw new IllegalStateException("broken");
+            }
+        };
+        try {
+            service.export(broken, 10, 10, new ByteArrayOutputStream()).get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, service.getFailedCount());
+        assertEquals(0, service.getCompletedCount());
+    }
+
+    // an Error thrown while drawing still completes the future
+    @Test
+    public void drawErrorFailsExport() throws Exception {
+        JFreeChart broken = new JFreeChart(new XYPlot()) {
+            public void draw(Graphics2D g2, Rectangle2D area) {
+                throw new AssertionError("broken");
+            }
+        };
+        try {
+            service.export(broken, 10, 10, new ByteArrayOutputStream()).get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        assertEquals(1, service.getFailedCount());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        service.shutdown();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
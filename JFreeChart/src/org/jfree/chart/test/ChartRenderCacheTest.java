@@ -0,0 +1,235 @@
+package org.jfree.chart.test;
+
+import static org.junit.Assert.*;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartRenderCache;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.RenderedChart;
+import org.jfree.chart.event.ChartChangeListener;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+
+// Tests for ChartRenderCache: cached PNG images of small line charts.
+public class ChartRenderCacheTest {
+
+    private ChartRenderCache cache;
+
+    private XYSeries series;
+
+    private JFreeChart chart;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ChartRenderCache(1 << 20);
+        series = new XYSeries("S");
+        chart = createChart(series);
+    }
+
+    // creates a line chart of a series
+    private static JFreeChart createChart(XYSeries series) {
+        series.add(1.0, 2.0);
+        series.add(2.0, 5.0);
+        return ChartFactory.createXYLineChart("Title", "x", "y", new XYSeriesCollection(series),
+                PlotOrientation.VERTICAL, true, false, false);
+    }
+
+    // NOM: a second request for the same chart and size is answered from the cache
+    @Test
+    public void repeatedRequestIsHit() throws Exception {
+        RenderedChart first = cache.getRenderedChart(chart, 300, 200);
+        RenderedChart second = cache.getRenderedChart(chart, 300, 200);
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getImageCount());
+        assertEquals(first.getLength(), cache.getByteCount());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(first.getBytes()));
+        assertEquals(300, image.getWidth());
+        assertEquals(200, image.getHeight());
+    }
+
+    // each size of a chart is cached separately
+    @Test
+    public void sizesCachedSeparately() throws Exception {
+        RenderedChart small = cache.getRenderedChart(chart, 120, 80);
+        RenderedChart large = cache.getRenderedChart(chart, 300, 200);
+        assertNotSame(small, large);
+        assertFalse(small.getEntityTag().equals(large.getEntityTag()));
+        assertEquals(2, cache.getImageCount());
+        assertEquals(small.getLength() + large.getLength(), cache.getByteCount());
+    }
+
+    // a change to the dataset removes the chart's images, and the next image has a new tag
+    @Test
+    public void datasetChangeInvalidates() throws Exception {
+        RenderedChart before = cache.getRenderedChart(chart, 300, 200);
+        cache.getRenderedChart(chart, 120, 80);
+        series.add(3.0, 1.0);
+        assertEquals(0, cache.getImageCount());
+        assertEquals(0, cache.getByteCount());
+        RenderedChart after = cache.getRenderedChart(chart, 300, 200);
+        assertNotSame(before, after);
+        assertFalse(before.getEntityTag().equals(after.getEntityTag()));
+        assertEquals(3, cache.getMissCount());
+    }
+
+    // a change to the chart's settings also removes its images
+    @Test
+    public void settingChangeInvalidates() throws Exception {
+        RenderedChart before = cache.getRenderedChart(chart, 300, 200);
+        chart.setTitle("Another title");
+        RenderedChart after = cache.getRenderedChart(chart, 300, 200);
+        assertNotSame(before, after);
+        assertEquals(0, cache.getHitCount());
+    }
+
+    // a change to one chart leaves the images of another chart in place
+    @Test
+    public void changeLeavesOtherCharts() throws Exception {
+        JFreeChart other = createChart(new XYSeries("T"));
+        cache.getRenderedChart(chart, 300, 200);
+        RenderedChart kept = cache.getRenderedChart(other, 300, 200);
+        series.add(3.0, 1.0);
+        assertEquals(1, cache.getImageCount());
+        assertSame(kept, cache.getRenderedChart(other, 300, 200));
+    }
+
+    // identical images have identical tags
+    @Test
+    public void tagDerivedFromBytes() throws Exception {
+        JFreeChart same = createChart(new XYSeries("S"));
+        RenderedChart a = cache.getRenderedChart(chart, 300, 200);
+        RenderedChart b = cache.getRenderedChart(same, 300, 200);
+        assertNotSame(a, b);
+        assertEquals(a.getEntityTag(), b.getEntityTag());
+        assertTrue(a.getEntityTag().matches("\"[0-9a-f]{16}\""));
+    }
+
+    // the least recently used image is removed when the byte limit is reached
+    @Test
+    public void byteLimitEvictsLeastRecentlyUsed() throws Exception {
+        int length = cache.getRenderedChart(chart, 300, 200).getLength();
+        ChartRenderCache small = new ChartRenderCache(2L * length);
+        JFreeChart c1 = createChart(new XYSeries("S"));
+        JFreeChart c2 = createChart(new XYSeries("S"));
+        JFreeChart c3 = createChart(new XYSeries("S"));
+        small.getRenderedChart(c1, 300, 200);
+        small.getRenderedChart(c2, 300, 200);
+        small.getRenderedChart(c1, 300, 200);
+        small.getRenderedChart(c3, 300, 200);
+        assertEquals(2, small.getImageCount());
+        assertEquals(2L * length, small.getByteCount());
+        small.getRenderedChart(c1, 300, 200);
+        small.getRenderedChart(c3, 300, 200);
+        assertEquals(3, small.getHitCount());
+        small.getRenderedChart(c2, 300, 200);
+        assertEquals(4, small.getMissCount());
+    }
+
+    // an image larger than the cache is returned but not kept
+    @Test
+    public void oversizedImageNotKept() throws Exception {
+        ChartRenderCache tiny = new ChartRenderCache(16);
+        RenderedChart rendered = tiny.getRenderedChart(chart, 300, 200);
+        assertTrue(rendered.getLength() > 16);
+        assertEquals(0, tiny.getImageCount());
+        assertEquals(0, tiny.getByteCount());
+    }
+
+    // the cache stops listening to a chart once it holds no images of it
+    @Test
+    public void listenerRemovedWithImages() throws Exception {
+        final List<ChartChangeListener> listeners = new ArrayList<ChartChangeListener>();
+        JFreeChart counted = new JFreeChart(chart.getPlot()) {
+            private static final long serialVersionUID = 1L;
+            public void addChangeListener(ChartChangeListener listener) {
+                listeners.add(listener);
+                super.addChangeListener(listener);
+            }
+            public void removeChangeListener(ChartChangeListener listener) {
+                listeners.remove(listener);
+                super.removeChangeListener(listener);
+            }
+        };
+        cache.getRenderedChart(counted, 300, 200);
+        cache.getRenderedChart(counted, 120, 80);
+        assertEquals(1, listeners.size());
+        counted.setTitle("Changed");
+        assertEquals(0, listeners.size());
+        cache.getRenderedChart(counted, 300, 200);
+        assertEquals(1, listeners.size());
+        cache.remove(counted);
+        assertEquals(0, listeners.size());
+        assertEquals(0, cache.getImageCount());
+        cache.getRenderedChart(counted, 300, 200);
+        cache.clear();
+        assertEquals(0, listeners.size());
+    }
+
+    // concurrent requests for one chart all receive the same image
+    @Test
+    public void concurrentRequestsAgree() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<RenderedChart>> results = new ArrayList<Future<RenderedChart>>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(new Callable<RenderedChart>() {
+                    public RenderedChart call() throws Exception {
+                        return cache.getRenderedChart(chart, 300, 200);
+                    }
+                }));
+            }
+            String tag = results.get(0).get().getEntityTag();
+            for (Future<RenderedChart> result : results) {
+                assertEquals(tag, result.get().getEntityTag());
+            }
+            assertEquals(16, cache.getHitCount() + cache.getMissCount());
+            assertEquals(1, cache.getImageCount());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    // a null chart is rejected
+    @Test(expected = InvalidParameterException.class)
+    public void nullChartRejected() throws Exception {
+        cache.getRenderedChart(null, 300, 200);
+    }
+
+    // an empty size is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void emptySizeRejected() throws Exception {
+        cache.getRenderedChart(chart, 0, 200);
+    }
+
+    // a maximum below one byte is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroMaximumRejected() {
+        new ChartRenderCache(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,217 @@
+package org.jfree.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.RegularTimePeriod;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.time.TimeSeriesDataItem;
+
+/**
+ * A {@link TimeSeries} that can add a batch of observations at once.
+ * <code>TimeSeries.add</code> searches, inserts, prunes and sends a change
+ * event for every observation; {@link #addAll(long[], double[])} sorts the
+ * batch once, merges it with the existing observations in one pass, prunes
+ * once and sends a single event.
+ */
+public class BulkTimeSeries extends TimeSeries {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 4780815392011635047L;
+
+    /**
+     * Creates a new empty series for {@link org.jfree.data.time.Day} time
+     * periods.
+     *
+     * @param name  the series name (<code>null</code> not permitted).
+     */
+    public BulkTimeSeries(String name) {
+        super(name);
+    }
+
+    /**
+     * Creates a new empty series for the specified type of time period.
+     *
+     * @param name  the series name (<code>null</code> not permitted).
+     * @param timePeriodClass  the type of time period (<code>null</code> not
+     *                         permitted).
+     */
+    public BulkTimeSeries(String name, Class timePeriodClass) {
+        super(name, timePeriodClass);
+    }
+
+    /**
+     * Creates a new empty series for the specified type of time period, with
+     * the given domain and range descriptions.
+     *
+     * @param name  the series name (<code>null</code> not permitted).
+     * @param domain  the domain description (<code>null</code> permitted).
+     * @param range  the range description (<code>null</code> permitted).
+     * @param timePeriodClass  the type of time period (<code>null</code> not
+     *                         permitted).
+     */
+    public BulkTimeSeries(String name, String domain, String range,
+            Class timePeriodClass) {
+        super(name, domain, range, timePeriodClass);
+    }
+
+    /**
+     * Adds a batch of observations to the series and sends a single
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.  Each time is given in milliseconds since 1 January 1970
+     * UTC and converted to the series' time period class in the default
+     * time zone; the class must be <code>FixedMillisecond</code> or have a
+     * <code>(Date, TimeZone)</code> constructor.
+     * <P>
+     * The times need not be in order.  Unlike <code>add</code>, which
+     * rejects a second observation for a time period, an observation for a
+     * period that is already present (in the series, or earlier in the
+     * batch) replaces its value, as <code>addOrUpdate</code> would.  The
+     * maximum item count and maximum item age are applied once, at the end.
+     *
+     * @param periodMillis  the times (<code>null</code> not permitted).
+     * @param values  the values, one per time (<code>null</code> not
+     *                permitted).
+     *
+     * @throws IllegalArgumentException if the series' time period class is
+     *     not supported.
+     */
+    public void addAll(long[] periodMillis, double[] values) {
+        if (periodMillis == null) {
+            throw new IllegalArgumentException(
+                    "Null 'periodMillis' argument.");
+        }
+        if (values == null) {
+            throw new IllegalArgumentException("Null 'values' argument.");
+        }
+        if (periodMillis.length != values.length) {
+            throw new IllegalArgumentException("Requires 'periodMillis' and "
+                    + "'values' to have the same length.");
+        }
+        if (periodMillis.length == 0) {
+            return;
+        }
+        TimeSeriesDataItem[] items = createItems(periodMillis, values);
+        // Arrays.sort is stable and takes linear time on ordered input
+        Arrays.sort(items);
+        int m = 0;
+        for (int j = 0; j < items.length; j++) {
+            if (m > 0 && items[m - 1].compareTo(items[j]) == 0) {
+                items[m - 1] = items[j];
+            }
+            else {
+                items[m++] = items[j];
+            }
+        }
+        List<TimeSeriesDataItem> batch = Arrays.asList(items).subList(0, m);
+        // TimeSeries keeps its items in a raw list
+        @SuppressWarnings("unchecked")
+        List<Object> data = this.data;
+        int n = data.size();
+        if (n == 0 || items[0].compareTo(data.get(n - 1)) > 0) {
+            data.addAll(batch);
+        }
+        else {
+            this.data = merge(data, batch);
+        }
+        prune();
+        fireSeriesChanged();
+    }
+
+    /**
+     * Creates the data items for a batch.
+     *
+     * @param periodMillis  the times.
+     * @param values  the values.
+     *
+     * @return The items, in batch order.
+     */
+    private TimeSeriesDataItem[] createItems(long[] periodMillis,
+            double[] values) {
+        boolean fixed = FixedMillisecond.class.equals(this.timePeriodClass);
+        TimeZone zone = TimeZone.getDefault();
+        TimeSeriesDataItem[] items = new TimeSeriesDataItem[values.length];
+        for (int i = 0; i < items.length; i++) {
+            RegularTimePeriod period;
+            if (fixed) {
+                period = new FixedMillisecond(periodMillis[i]);
+            }
+            else {
+                period = RegularTimePeriod.createInstance(
+                        this.timePeriodClass, new Date(periodMillis[i]), zone);
+                if (period == null) {
+                    throw new IllegalArgumentException("Unsupported time "
+                            + "period class: " + this.timePeriodClass + ".");
+                }
+            }
+            items[i] = new TimeSeriesDataItem(period, values[i]);
+        }
+        return items;
+    }
+
+    /**
+     * Merges two sorted lists of data items.  Where both lists hold an item
+     * for the same time period, the item from <code>batch</code> is kept.
+     *
+     * @param existing  the series' items.
+     * @param batch  the new items, sorted and without duplicates.
+     *
+     * @return The merged list.
+     */
+    private static List<Object> merge(List<?> existing, List<?> batch) {
+        int n = existing.size();
+        int m = batch.size();
+        List<Object> result = new ArrayList<Object>(n + m);
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            int c;
+            if (j == m) {
+                c = -1;
+            }
+            else if (i == n) {
+                c = 1;
+            }
+            else {
+                c = ((TimeSeriesDataItem) existing.get(i)).compareTo(
+                        batch.get(j));
+            }
+            if (c < 0) {
+                result.add(existing.get(i++));
+            }
+            else {
+                result.add(batch.get(j++));
+                if (c == 0) {
+                    i++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the oldest items until the series satisfies its maximum item
+     * count and maximum item age.
+     */
+    private void prune() {
+        int excess = this.data.size() - getMaximumItemCount();
+        if (excess > 0) {
+            this.data.subList(0, excess).clear();
+        }
+        int n = this.data.size();
+        if (n > 1) {
+            long latest = getTimePeriod(n - 1).getSerialIndex();
+            int aged = 0;
+            while (latest - getTimePeriod(aged).getSerialIndex()
+                    > getMaximumItemAge()) {
+                aged++;
+            }
+            this.data.subList(0, aged).clear();
+        }
+    }
+
+}
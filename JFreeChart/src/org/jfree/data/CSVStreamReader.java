@@ -0,0 +1,691 @@
+package org.jfree.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.RegularTimePeriod;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.xy.XYSeries;
+
+/**
+ * A streaming reader for comma-separated values.  Unlike
+ * <code>org.jfree.data.io.CSV</code>, which reads one <code>String</code>
+ * per line and calls <code>Double.valueOf</code> for every cell, this
+ * reader scans a reused <code>char</code> buffer and parses numbers
+ * straight from it, so reading a numeric file creates almost no objects.
+ * <P>
+ * Numeric data can be read in batches with
+ * {@link #read(Reader, boolean, BatchHandler)}, for files larger than
+ * memory, or loaded into an <code>XYSeries</code>, a
+ * <code>TimeSeries</code> or a <code>DefaultCategoryDataset</code>.  Fields
+ * may be enclosed in the text delimiter, which is doubled to include it in
+ * a field; lines may end with <code>\n</code>, <code>\r\n</code> or
+ * <code>\r</code>, and blank lines are skipped.  Numbers are parsed with
+ * the same rounding as <code>Double.parseDouble</code>, and malformed input
+ * is reported as an <code>IOException</code> that gives the line number.
+ */
+public class CSVStreamReader {
+
+    /** The default number of rows in a batch. */
+    public static final int DEFAULT_BATCH_SIZE = 8192;
+
+    /** The size of the character buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The tokenizer result for a field followed by another field. */
+    private static final int FIELD = 0;
+
+    /** The tokenizer result for the last field on a line. */
+    private static final int LINE = 1;
+
+    /** The tokenizer result for the end of the input. */
+    private static final int END = 2;
+
+    /** The powers of ten that are exactly representable as doubles. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+        1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * A receiver for batches of numeric rows.
+     */
+    public interface BatchHandler {
+
+        /**
+         * Receives a batch of rows.  <code>columns[c][r]</code> is the value
+         * of field <code>c</code> in row <code>r</code> of the batch, with
+         * <code>Double.NaN</code> for an empty field.  The arrays are reused
+         * for the next batch, so copy any values that must be kept.
+         *
+         * @param columns  the values, one array per field.
+         * @param rowCount  the number of rows in the batch.
+         */
+        void batch(double[][] columns, int rowCount);
+
+    }
+
+    /** The field delimiter. */
+    private char fieldDelimiter;
+
+    /** The text delimiter. */
+    private char textDelimiter;
+
+    /** The number of rows in a batch. */
+    private int batchSize;
+
+    /**
+     * Creates a new reader with the default field delimiter (a comma) and
+     * text delimiter (a double quote).
+     */
+    public CSVStreamReader() {
+        this(',', '"');
+    }
+
+    /**
+     * Creates a new reader with the specified field and text delimiters.
+     *
+     * @param fieldDelimiter  the field delimiter (usually a comma,
+     *                        semi-colon, colon or tab).
+     * @param textDelimiter  the text delimiter (usually a single or double
+     *                       quote).
+     */
+    public CSVStreamReader(char fieldDelimiter, char textDelimiter) {
+        this.fieldDelimiter = fieldDelimiter;
+        this.textDelimiter = textDelimiter;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Returns the number of rows passed to a {@link BatchHandler} at a time.
+     *
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Sets the number of rows passed to a {@link BatchHandler} at a time.
+     *
+     * @param size  the batch size (at least 1).
+     */
+    public void setBatchSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Requires 'size' >= 1.");
+        }
+        this.batchSize = size;
+    }
+
+    /**
+     * Reads numeric rows and passes them to a handler in batches.  Every
+     * row must have the same number of fields as the first row.
+     *
+     * @param reader  the source (<code>null</code> not permitted).
+     * @param header  if <code>true</code>, the first line is a header and
+     *                is skipped.
+     * @param handler  the handler (<code>null</code> not permitted).
+     *
+     * @return The number of rows read.
+     *
+     * @throws IOException if the source cannot be read or holds a malformed
+     *     number or row.
+     */
+    public long read(Reader reader, boolean header, BatchHandler handler)
+            throws IOException {
+        if (reader == null) {
+            throw new IllegalArgumentException("Null 'reader' argument.");
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("Null 'handler' argument.");
+        }
+        Tokenizer tokenizer = new Tokenizer(reader);
+        if (header) {
+            tokenizer.skipLine();
+        }
+        double[][] columns = null;
+        double[] first = new double[8];
+        long total = 0;
+        int row = 0;
+        while (true) {
+            int line = tokenizer.line;
+            int f = 0;
+            int type;
+            do {
+                type = tokenizer.next();
+                if (type == END) {
+                    break;
+                }
+                double value = tokenizer.parseDouble();
+                if (columns == null) {
+                    if (f == first.length) {
+                        first = Arrays.copyOf(first, f * 2);
+                    }
+                    first[f] = value;
+                }
+                else if (f < columns.length) {
+                    columns[f][row] = value;
+                }
+                f++;
+            } while (type == FIELD);
+            if (type == END) {
+                break;
+            }
+            if (f == 1 && tokenizer.blank) {
+                continue;
+            }
+            if (columns == null) {
+                columns = new double[f][this.batchSize];
+                for (int c = 0; c < f; c++) {
+                    columns[c][0] = first[c];
+                }
+            }
+            else if (f != columns.length) {
+                throw new IOException("Line " + line + ": expected "
+                        + columns.length + " fields, found " + f + ".");
+            }
+            row++;
+            total++;
+            if (row == this.batchSize) {
+                handler.batch(columns, row);
+                row = 0;
+            }
+        }
+        if (row > 0) {
+            handler.batch(columns, row);
+        }
+        return total;
+    }
+
+    /**
+     * Reads (x, y) pairs from the first two fields of each row and adds
+     * them to a series with {@link XYSeries#add(double, double, boolean)},
+     * sending a single change event at the end.
+     *
+     * @param reader  the source (<code>null</code> not permitted).
+     * @param series  the series (<code>null</code> not permitted).
+     * @param header  if <code>true</code>, the first line is a header and
+     *                is skipped.
+     *
+     * @return The number of rows read.
+     *
+     * @throws IOException if the source cannot be read or holds a malformed
+     *     number or row.
+     */
+    public long readXYSeries(Reader reader, final XYSeries series,
+            boolean header) throws IOException {
+        if (series == null) {
+            throw new IllegalArgumentException("Null 'series' argument.");
+        }
+        long count;
+        try {
+            count = read(reader, header, new BatchHandler() {
+                public void batch(double[][] columns, int rowCount) {
+                    checkFieldCount(columns);
+                    double[] x = columns[0];
+                    double[] y = columns[1];
+                    for (int r = 0; r < rowCount; r++) {
+                        series.add(x[r], y[r], false);
+                    }
+                }
+            });
+        }
+        finally {
+            series.fireSeriesChanged();
+        }
+        return count;
+    }
+
+    /**
+     * Reads (time, value) pairs from the first two fields of each row and
+     * adds them to a series with
+     * {@link TimeSeries#add(RegularTimePeriod, double)}.  The time is given
+     * in milliseconds since 1 January 1970 UTC and converted to the series'
+     * time period class in the default time zone; the class must be
+     * <code>FixedMillisecond</code> or have a <code>(Date, TimeZone)</code>
+     * constructor.  Change events are
+     * suspended while reading, so the series sends a single event at the
+     * end.
+     *
+     * @param reader  the source (<code>null</code> not permitted).
+     * @param series  the series (<code>null</code> not permitted).
+     * @param header  if <code>true</code>, the first line is a header and
+     *                is skipped.
+     *
+     * @return The number of rows read.
+     *
+     * @throws IOException if the source cannot be read or holds a malformed
+     *     number or row.
+     * @throws IllegalArgumentException if the series' time period class is
+     *     not supported.
+     */
+    public long readTimeSeries(Reader reader, final TimeSeries series,
+            boolean header) throws IOException {
+        if (series == null) {
+            throw new IllegalArgumentException("Null 'series' argument.");
+        }
+        final Class periodClass = series.getTimePeriodClass();
+        final TimeZone zone = TimeZone.getDefault();
+        final boolean fixed = FixedMillisecond.class.equals(periodClass);
+        if (!fixed && RegularTimePeriod.createInstance(periodClass,
+                new Date(0L), zone) == null) {
+            throw new IllegalArgumentException("Unsupported time period "
+                    + "class: " + periodClass + ".");
+        }
+        boolean notify = series.getNotify();
+        series.setNotify(false);
+        try {
+            return read(reader, header, new BatchHandler() {
+                public void batch(double[][] columns, int rowCount) {
+                    checkFieldCount(columns);
+                    double[] time = columns[0];
+                    double[] value = columns[1];
+                    for (int r = 0; r < rowCount; r++) {
+                        long millis = (long) time[r];
+                        series.add(fixed ? new FixedMillisecond(millis)
+                                : RegularTimePeriod.createInstance(periodClass,
+                                new Date(millis), zone), value[r]);
+                    }
+                }
+            });
+        }
+        finally {
+            series.setNotify(notify);
+        }
+    }
+
+    /**
+     * Reads a category dataset in the format read by
+     * <code>org.jfree.data.io.CSV.readCategoryDataset</code>: the first line
+     * holds the column keys (after an ignored first field), and every other
+     * line holds a row key followed by one value per column.  An empty
+     * field is read as a <code>null</code> value.
+     *
+     * @param reader  the source (<code>null</code> not permitted).
+     *
+     * @return The dataset.
+     *
+     * @throws IOException if the source cannot be read or holds a malformed
+     *     number or row.
+     */
+    public CategoryDataset readCategoryDataset(Reader reader)
+            throws IOException {
+        if (reader == null) {
+            throw new IllegalArgumentException("Null 'reader' argument.");
+        }
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        Tokenizer tokenizer = new Tokenizer(reader);
+        List<String> columnKeys = new ArrayList<String>();
+        int type;
+        do {
+            type = tokenizer.next();
+            if (type != END && (tokenizer.fieldIndex > 0)) {
+                columnKeys.add(tokenizer.text());
+            }
+        } while (type == FIELD);
+        while (type != END) {
+            int line = tokenizer.line;
+            type = tokenizer.next();
+            if (type == END) {
+                break;
+            }
+            if (type == LINE && tokenizer.blank) {
+                continue;
+            }
+            String rowKey = tokenizer.text();
+            int c = 0;
+            while (type == FIELD) {
+                type = tokenizer.next();
+                if (c >= columnKeys.size()) {
+                    throw new IOException("Line " + line + ": more than "
+                            + columnKeys.size() + " values.");
+                }
+                if (tokenizer.isEmpty()) {
+                    dataset.addValue((Number) null, rowKey,
+                            columnKeys.get(c));
+                }
+                else {
+                    dataset.addValue(tokenizer.parseDouble(), rowKey,
+                            columnKeys.get(c));
+                }
+                c++;
+            }
+        }
+        return dataset;
+    }
+
+    /**
+     * Checks that a batch has at least two fields.
+     *
+     * @param columns  the batch.
+     */
+    private static void checkFieldCount(double[][] columns) {
+        if (columns.length < 2) {
+            throw new IllegalArgumentException(
+                    "Requires at least two fields per row.");
+        }
+    }
+
+    /**
+     * Splits the input into fields, copying each field into a reused
+     * <code>char</code> array.
+     */
+    private final class Tokenizer {
+
+        /** The source. */
+        private final Reader reader;
+
+        /** The input buffer. */
+        private final char[] buffer = new char[BUFFER_SIZE];
+
+        /** The read position in the buffer. */
+        private int position;
+
+        /** The number of valid characters in the buffer. */
+        private int limit;
+
+        /** The current field. */
+        private char[] field = new char[64];
+
+        /** The length of the current field. */
+        private int length;
+
+        /** The position of the current field in its line. */
+        int fieldIndex;
+
+        /** Whether the line just ended was empty. */
+        boolean blank;
+
+        /** The line number of the next field (one-based). */
+        int line = 1;
+
+        /** Whether the current field was enclosed in text delimiters. */
+        private boolean quoted;
+
+        /** The index of the next field in its line. */
+        private int nextFieldIndex;
+
+        /** The line number of the current field. */
+        private int fieldLine;
+
+        /**
+         * Creates a tokenizer.
+         *
+         * @param reader  the source.
+         */
+        Tokenizer(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the next field.
+         *
+         * @return {@link #FIELD} if another field follows on the same line,
+         *     {@link #LINE} if the field ends its line, or {@link #END} if
+         *     there are no more fields.
+         *
+         * @throws IOException if the source cannot be read.
+         */
+        int next() throws IOException {
+            this.length = 0;
+            this.quoted = false;
+            this.fieldIndex = this.nextFieldIndex;
+            this.fieldLine = this.line;
+            boolean inText = false;
+            while (true) {
+                if (this.position == this.limit && !fill()) {
+                    if (inText) {
+                        throw new IOException("Line " + this.line
+                                + ": unterminated text field.");
+                    }
+                    if (this.length > 0 || this.nextFieldIndex > 0
+                            || this.quoted) {
+                        return endLine();
+                    }
+                    return END;
+                }
+                char c = this.buffer[this.position++];
+                if (inText) {
+                    if (c == textDelimiter) {
+                        if (peek() == textDelimiter) {
+                            this.position++;
+                            append(c);
+                        }
+                        else {
+                            inText = false;
+                        }
+                    }
+                    else {
+                        if (c == '\n') {
+                            this.line++;
+                        }
+                        append(c);
+                    }
+                }
+                else if (c == fieldDelimiter) {
+                    this.nextFieldIndex++;
+                    return FIELD;
+                }
+                else if (c == '\n') {
+                    return endLine();
+                }
+                else if (c == '\r') {
+                    if (peek() == '\n') {
+                        this.position++;
+                    }
+                    return endLine();
+                }
+                else if (c == textDelimiter) {
+                    inText = true;
+                    this.quoted = true;
+                }
+                else {
+                    append(c);
+                }
+            }
+        }
+
+        /**
+         * Skips the rest of the current line.
+         *
+         * @throws IOException if the source cannot be read.
+         */
+        void skipLine() throws IOException {
+            int type;
+            do {
+                type = next();
+            } while (type == FIELD);
+        }
+
+        /**
+         * Returns <code>true</code> if the current field holds nothing but
+         * spaces.
+         *
+         * @return A boolean.
+         */
+        boolean isEmpty() {
+            if (this.quoted) {
+                return false;
+            }
+            for (int i = 0; i < this.length; i++) {
+                if (this.field[i] > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the current field as a string, trimmed unless it was
+         * enclosed in text delimiters.
+         *
+         * @return The text.
+         */
+        String text() {
+            String s = new String(this.field, 0, this.length);
+            return this.quoted ? s : s.trim();
+        }
+
+        /**
+         * Parses the current field as a number.  An empty field is read as
+         * <code>Double.NaN</code>.  Simple decimal numbers are converted
+         * directly from the characters; anything else (long mantissas,
+         * large exponents, <code>"NaN"</code>, <code>"Infinity"</code>) is
+         * passed to <code>Double.parseDouble</code>.
+         *
+         * @return The value.
+         *
+         * @throws IOException if the field is not a number.
+         */
+        double parseDouble() throws IOException {
+            char[] s = this.field;
+            int start = 0;
+            int end = this.length;
+            while (start < end && s[start] <= ' ') {
+                start++;
+            }
+            while (end > start && s[end - 1] <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                return Double.NaN;
+            }
+            int i = start;
+            boolean negative = false;
+            if (s[i] == '-' || s[i] == '+') {
+                negative = s[i] == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int scale = 0;
+            int digits = 0;
+            boolean simple = true;
+            while (i < end && s[i] >= '0' && s[i] <= '9') {
+                if (mantissa < 100000000000000000L) {
+                    mantissa = mantissa * 10 + (s[i] - '0');
+                }
+                else {
+                    simple = false;
+                }
+                digits++;
+                i++;
+            }
+            if (i < end && s[i] == '.') {
+                i++;
+                while (i < end && s[i] >= '0' && s[i] <= '9') {
+                    if (mantissa < 100000000000000000L) {
+                        mantissa = mantissa * 10 + (s[i] - '0');
+                        scale--;
+                    }
+                    else {
+                        simple = false;
+                    }
+                    digits++;
+                    i++;
+                }
+            }
+            if (digits > 0 && i < end && (s[i] == 'e' || s[i] == 'E')) {
+                i++;
+                boolean negativeExponent = false;
+                if (i < end && (s[i] == '-' || s[i] == '+')) {
+                    negativeExponent = s[i] == '-';
+                    i++;
+                }
+                int exponent = 0;
+                int exponentDigits = 0;
+                while (i < end && s[i] >= '0' && s[i] <= '9'
+                        && exponent < 1000) {
+                    exponent = exponent * 10 + (s[i] - '0');
+                    exponentDigits++;
+                    i++;
+                }
+                if (exponentDigits == 0) {
+                    simple = false;
+                }
+                scale += negativeExponent ? -exponent : exponent;
+            }
+            if (simple && digits > 0 && i == end) {
+                if (mantissa == 0) {
+                    return negative ? -0.0 : 0.0;
+                }
+                if (mantissa <= (1L << 53) && scale >= -22 && scale <= 22) {
+                    double value = mantissa;
+                    value = scale < 0 ? value / POWERS_OF_TEN[-scale]
+                            : value * POWERS_OF_TEN[scale];
+                    return negative ? -value : value;
+                }
+            }
+            String text = new String(s, start, end - start);
+            try {
+                return Double.parseDouble(text);
+            }
+            catch (NumberFormatException e) {
+                throw new IOException("Line " + this.fieldLine
+                        + ": invalid number '" + text + "'.");
+            }
+        }
+
+        /**
+         * Ends the current line.
+         *
+         * @return {@link #LINE}.
+         */
+        private int endLine() {
+            this.blank = this.nextFieldIndex == 0 && this.length == 0
+                    && !this.quoted;
+            this.nextFieldIndex = 0;
+            this.line++;
+            return LINE;
+        }
+
+        /**
+         * Appends a character to the current field.
+         *
+         * @param c  the character.
+         */
+        private void append(char c) {
+            if (this.length == this.field.length) {
+                this.field = Arrays.copyOf(this.field, this.length * 2);
+            }
+            this.field[this.length++] = c;
+        }
+
+        /**
+         * Returns the next character without consuming it.
+         *
+         * @return The character, or -1 at the end of the input.
+         *
+         * @throws IOException if the source cannot be read.
+         */
+        private int peek() throws IOException {
+            if (this.position == this.limit && !fill()) {
+                return -1;
+            }
+            return this.buffer[this.position];
+        }
+
+        /**
+         * Refills the buffer.
+         *
+         * @return <code>false</code> at the end of the input.
+         *
+         * @throws IOException if the source cannot be read.
+         */
+        private boolean fill() throws IOException {
+            int n = this.reader.read(this.buffer, 0, this.buffer.length);
+            this.position = 0;
+            this.limit = Math.max(n, 0);
+            return n > 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.jfree.data;
+
+/**
+ * A small cache of shared <code>Double</code> instances for common values.
+ * The cache holds the whole numbers from -128 to 127 (the same range that
+ * <code>Integer.valueOf()</code> caches), which covers 0.0, 1.0 and the
+ * other small counts that dominate typical chart data.
+ */
+final class CanonicalDoubles {
+
+    /** The smallest cached value. */
+    private static final int LOW = -128;
+
+    /** The largest cached value. */
+    private static final int HIGH = 127;
+
+    /** The cached instances, indexed by <code>value - LOW</code>. */
+    private static final Double[] CACHE = new Double[HIGH - LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = Double.valueOf(i + LOW);
+        }
+    }
+
+    /** No instances. */
+    private CanonicalDoubles() {
+    }
+
+    /**
+     * Returns a <code>Double</code> for the specified value, shared with
+     * other callers if the value is in the cached range.  Negative zero is
+     * never cached, so its sign is preserved.
+     *
+     * @param value  the value.
+     *
+     * @return A <code>Double</code> (never <code>null</code>).
+     */
+    static Double valueOf(double value) {
+        int i = (int) value;
+        if (i == value && i >= LOW && i <= HIGH
+                && (i != 0 || Double.doubleToRawLongBits(value) == 0L)) {
+            return CACHE[i - LOW];
+        }
+        return Double.valueOf(value);
+    }
+
+}
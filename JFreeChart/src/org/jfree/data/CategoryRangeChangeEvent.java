@@ -0,0 +1,92 @@
+package org.jfree.data;
+
+import org.jfree.data.general.Dataset;
+import org.jfree.data.general.DatasetChangeEvent;
+
+/**
+ * A {@link DatasetChangeEvent} for a category dataset that records which
+ * rows and columns changed, so that a listener can update only the part of
+ * its state that depends on them.  A value is unchanged if its row is
+ * outside the row range or its column is outside the column range.  If the
+ * last row (or column) is <code>Integer.MAX_VALUE</code>, rows (or columns)
+ * from the first on may have been changed, moved, added or removed.
+ */
+public class CategoryRangeChangeEvent extends DatasetChangeEvent {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 8830271956125317046L;
+
+    /** The index of the first changed row. */
+    private int firstRow;
+
+    /** The index of the last changed row. */
+    private int lastRow;
+
+    /** The index of the first changed column. */
+    private int firstColumn;
+
+    /** The index of the last changed column. */
+    private int lastColumn;
+
+    /**
+     * Creates a new event.
+     *
+     * @param source  the source of the event.
+     * @param dataset  the dataset that changed.
+     * @param firstRow  the index of the first changed row.
+     * @param lastRow  the index of the last changed row, or
+     *                 <code>Integer.MAX_VALUE</code>.
+     * @param firstColumn  the index of the first changed column.
+     * @param lastColumn  the index of the last changed column, or
+     *                    <code>Integer.MAX_VALUE</code>.
+     */
+    public CategoryRangeChangeEvent(Object source, Dataset dataset,
+            int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        super(source, dataset);
+        this.firstRow = firstRow;
+        this.lastRow = lastRow;
+        this.firstColumn = firstColumn;
+        this.lastColumn = lastColumn;
+    }
+
+    /**
+     * Returns the index of the first changed row.
+     *
+     * @return The index.
+     */
+    public int getFirstRow() {
+        return this.firstRow;
+    }
+
+    /**
+     * Returns the index of the last changed row, or
+     * <code>Integer.MAX_VALUE</code> if every row from the first on may have
+     * changed.
+     *
+     * @return The index.
+     */
+    public int getLastRow() {
+        return this.lastRow;
+    }
+
+    /**
+     * Returns the index of the first changed column.
+     *
+     * @return The index.
+     */
+    public int getFirstColumn() {
+        return this.firstColumn;
+    }
+
+    /**
+     * Returns the index of the last changed column, or
+     * <code>Integer.MAX_VALUE</code> if every column from the first on may
+     * have changed.
+     *
+     * @return The index.
+     */
+    public int getLastColumn() {
+        return this.lastColumn;
+    }
+
+}
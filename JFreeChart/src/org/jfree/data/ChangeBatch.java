@@ -0,0 +1,48 @@
+package org.jfree.data;
+
+/**
+ * A batch of changes to a series or dataset, which sends a single change
+ * event, covering every change made in the batch, when it is closed.  A
+ * batch is opened by the <code>beginBatch()</code> method of
+ * {@link ColumnarXYSeries}, {@link RingBufferTimeSeries} or
+ * {@link IndexedCategoryDataset}, and is best used in a
+ * <code>try</code>-with-resources statement:
+ * <pre>
+ * try (ChangeBatch batch = series.beginBatch()) {
+ *     for (int i = 0; i &lt; n; i++) {
+ *         series.add(x[i], y[i]);
+ *     }
+ * }</pre>
+ * Batches may be nested, in which case the event is sent when the
+ * outermost batch is closed.
+ */
+public abstract class ChangeBatch implements AutoCloseable {
+
+    /** A flag that records whether the batch has been closed. */
+    private boolean closed;
+
+    /**
+     * Creates a new open batch.
+     */
+    ChangeBatch() {
+        this.closed = false;
+    }
+
+    /**
+     * Closes the batch, sending a change event for the changes made in it
+     * if this is the outermost open batch.  Closing a batch a second time
+     * has no effect.
+     */
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            commit();
+        }
+    }
+
+    /**
+     * Ends the batch in the series or dataset that opened it.
+     */
+    abstract void commit();
+
+}
@@ -0,0 +1,80 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+
+/**
+ * The range of indexes (of items, rows or columns) changed since the last
+ * change event was sent.  Used by the series and datasets in this package
+ * that send {@link SeriesRangeChangeEvent}s and
+ * {@link CategoryRangeChangeEvent}s.
+ */
+class ChangeRange implements Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 6153389425021387412L;
+
+    /** The last index of a range that runs to the end. */
+    static final int END = Integer.MAX_VALUE;
+
+    /** The first changed index. */
+    private int first;
+
+    /** The last changed index, or <code>-1</code> if there are none. */
+    private int last;
+
+    /**
+     * Creates an empty range.
+     */
+    ChangeRange() {
+        clear();
+    }
+
+    /**
+     * Returns the first changed index.
+     *
+     * @return The index.
+     */
+    int getFirst() {
+        return this.first;
+    }
+
+    /**
+     * Returns the last changed index, or {@link #END} if every index from
+     * the first on may have changed.
+     *
+     * @return The index.
+     */
+    int getLast() {
+        return this.last;
+    }
+
+    /**
+     * Returns <code>true</code> if no change has been recorded.
+     *
+     * @return A boolean.
+     */
+    boolean isEmpty() {
+        return this.last < 0;
+    }
+
+    /**
+     * Extends the range to include a change.
+     *
+     * @param first  the first changed index.
+     * @param last  the last changed index, or {@link #END} if the change
+     *              moved, added or removed items.
+     */
+    void add(int first, int last) {
+        this.first = Math.min(this.first, first);
+        this.last = Math.max(this.last, last);
+    }
+
+    /**
+     * Empties the range.
+     */
+    void clear() {
+        this.first = Integer.MAX_VALUE;
+        this.last = -1;
+    }
+
+}
@@ -0,0 +1,1059 @@
+package org.jfree.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.data.general.SeriesException;
+import org.jfree.data.xy.XYDataItem;
+import org.jfree.data.xy.XYSeries;
+
+/**
+ * An {@link XYSeries} that stores its items in two growable
+ * <code>double</code> arrays instead of a list of {@link XYDataItem}
+ * objects, so each item takes 16 bytes rather than the 80 or so bytes of
+ * an item object and two boxed values.  When the series is sorted, lookups
+ * by x-value use a binary search over the primitive array.
+ * <P>
+ * The add, update, remove, sorting, duplicate and maximum item count rules
+ * are those of <code>XYSeries</code>, and the series can be added to an
+ * <code>XYSeriesCollection</code>.  The differences are:
+ * <ul>
+ * <li>x and y values are returned as <code>Double</code> objects, whatever
+ *     type of <code>Number</code> was added;</li>
+ * <li>in an unsorted series, {@link #indexOf(Number)} compares x-values
+ *     numerically, so <code>Integer.valueOf(1)</code> finds an item added
+ *     as <code>1.0</code>;</li>
+ * <li>{@link #getDataItem(int)} and {@link #getItems()} return copies of
+ *     the items, so use the update methods to change a y-value.</li>
+ * </ul>
+ * Change events are {@link SeriesRangeChangeEvent}s, and the changes made
+ * between {@link #beginBatch()} and the closing of the batch are reported
+ * by a single event.
+ */
+public class ColumnarXYSeries extends XYSeries {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -6042513843706416713L;
+
+    /** The x-values. */
+    private double[] xValues;
+
+    /** The y-values, with <code>NaN</code> for a <code>null</code> y. */
+    private double[] yValues;
+
+    /**
+     * The items whose y-value is <code>null</code>, or <code>null</code> if
+     * there are none.
+     */
+    private BitSet nullYValues;
+
+    /** The number of items. */
+    private int size;
+
+    /** The items changed since the last change event. */
+    private ChangeRange changes;
+
+    /** The number of open batches. */
+    private transient int batches;
+
+    /**
+     * Creates a new empty series.  By default, items added to the series
+     * will be sorted into ascending order by x-value, and duplicate x-values
+     * will be allowed (these defaults can be modified with another
+     * constructor).
+     *
+     * @param key  the series key (<code>null</code> not permitted).
+     */
+    public ColumnarXYSeries(Comparable key) {
+        this(key, true, true);
+    }
+
+    /**
+     * Constructs a new empty series, with the auto-sort flag set as
+     * requested, and duplicate values allowed.
+     *
+     * @param key  the series key (<code>null</code> not permitted).
+     * @param autoSort  a flag that controls whether or not the items in the
+     *                  series are sorted.
+     */
+    public ColumnarXYSeries(Comparable key, boolean autoSort) {
+        this(key, autoSort, true);
+    }
+
+    /**
+     * Constructs a new xy-series that contains no data.  You can specify
+     * whether or not duplicate x-values are allowed for the series.
+     *
+     * @param key  the series key (<code>null</code> not permitted).
+     * @param autoSort  a flag that controls whether or not the items in the
+     *                  series are sorted.
+     * @param allowDuplicateXValues  a flag that controls whether duplicate
+     *                               x-values are allowed.
+     */
+    public ColumnarXYSeries(Comparable key, boolean autoSort,
+            boolean allowDuplicateXValues) {
+        super(key, autoSort, allowDuplicateXValues);
+        this.xValues = new double[10];
+        this.yValues = new double[10];
+        this.changes = new ChangeRange();
+    }
+
+    /**
+     * Returns the number of items in the series.
+     *
+     * @return The item count.
+     */
+    public int getItemCount() {
+        return this.size;
+    }
+
+    /**
+     * Increases the capacity of the series, if necessary, so that it can
+     * hold at least the specified number of items without growing its
+     * arrays again.
+     *
+     * @param capacity  the required capacity.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > this.xValues.length) {
+            this.xValues = Arrays.copyOf(this.xValues, capacity);
+            this.yValues = Arrays.copyOf(this.yValues, capacity);
+        }
+    }
+
+    /**
+     * Returns the list of data items for the series.  The list is an
+     * unmodifiable view, and each item is created when it is read, so
+     * changing an item does not change the series.
+     *
+     * @return The list of data items.
+     */
+    public List getItems() {
+        return new AbstractList() {
+            public Object get(int index) {
+                return getDataItem(index);
+            }
+            public int size() {
+                return ColumnarXYSeries.this.size;
+            }
+        };
+    }
+
+    /**
+     * Sets the maximum number of items that will be retained in the series.
+     * If you add a new item to the series such that the number of items will
+     * exceed the maximum item count, then the first element in the series is
+     * automatically removed, ensuring that the maximum item count is not
+     * exceeded.
+     *
+     * @param maximum  the maximum number of items for the series.
+     */
+    public void setMaximumItemCount(int maximum) {
+        super.setMaximumItemCount(maximum);
+        if (this.size > maximum) {
+            removeRange(0, this.size - maximum);
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Adds a data item to the series and, if requested, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param item  the (x, y) item (<code>null</code> not permitted).
+     * @param notify  a flag that controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     */
+    public void add(XYDataItem item, boolean notify) {
+        if (item == null) {
+            throw new IllegalArgumentException("Null 'item' argument.");
+        }
+        add(item.getX(), item.getY(), notify);
+    }
+
+    /**
+     * Adds a data item to the series and, if requested, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param x  the x-value (<code>null</code> not permitted).
+     * @param y  the y-value (<code>null</code> permitted).
+     * @param notify  a flag that controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     */
+    public void add(Number x, Number y, boolean notify) {
+        if (x == null) {
+            throw new IllegalArgumentException("Null 'x' argument.");
+        }
+        add(x.doubleValue(), y, notify);
+    }
+
+    /**
+     * Adds a data item to the series and, if requested, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.  No objects are created.
+     *
+     * @param x  the x-value.
+     * @param y  the y-value.
+     * @param notify  a flag that controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     */
+    public void add(double x, double y, boolean notify) {
+        insert(x, y, false);
+        if (notify) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Adds a data item to the series and, if requested, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param x  the x-value.
+     * @param y  the y-value (<code>null</code> permitted).
+     * @param notify  a flag that controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     */
+    public void add(double x, Number y, boolean notify) {
+        insert(x, y != null ? y.doubleValue() : Double.NaN, y == null);
+        if (notify) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Adds a data item to the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param x  the x-value.
+     * @param y  the y-value.
+     */
+    public void add(double x, double y) {
+        add(x, y, true);
+    }
+
+    /**
+     * Adds a data item to the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param x  the x-value.
+     * @param y  the y-value (<code>null</code> permitted).
+     */
+    public void add(double x, Number y) {
+        add(x, y, true);
+    }
+
+    /**
+     * Adds a data item to the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param x  the x-value (<code>null</code> not permitted).
+     * @param y  the y-value (<code>null</code> permitted).
+     */
+    public void add(Number x, Number y) {
+        add(x, y, true);
+    }
+
+    /**
+     * Adds a data item to the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param item  the (x, y) item (<code>null</code> not permitted).
+     */
+    public void add(XYDataItem item) {
+        add(item, true);
+    }
+
+    /**
+     * Adds a batch of items to the series and sends a single
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.  In a sorted series the batch is sorted once and merged
+     * with the existing items in one pass, rather than inserted one item at
+     * a time.
+     * <P>
+     * The result is that of calling {@link #add(double, double, boolean)}
+     * for each item in turn, except that when duplicate x-values are not
+     * allowed, an item with the x-value of an existing item (or of an
+     * earlier item in the batch) replaces its y-value, as
+     * {@link #addOrUpdate(Number, Number)} would, and the maximum item count
+     * is applied once, at the end.
+     *
+     * @param xs  the x-values (<code>null</code> not permitted).
+     * @param ys  the y-values, one per x-value (<code>null</code> not
+     *            permitted).
+     */
+    public void addAll(double[] xs, double[] ys) {
+        if (xs == null) {
+            throw new IllegalArgumentException("Null 'xs' argument.");
+        }
+        if (ys == null) {
+            throw new IllegalArgumentException("Null 'ys' argument.");
+        }
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException(
+                    "Requires 'xs' and 'ys' to have the same length.");
+        }
+        if (xs.length == 0) {
+            return;
+        }
+        if (getAutoSort()) {
+            mergeAll(xs, ys);
+        }
+        else if (getAllowDuplicateXValues()) {
+            ensureCapacity(this.size + xs.length);
+            this.changes.add(this.size, ChangeRange.END);
+            System.arraycopy(xs, 0, this.xValues, this.size, xs.length);
+            System.arraycopy(ys, 0, this.yValues, this.size, ys.length);
+            this.size += xs.length;
+        }
+        else {
+            appendOrUpdateAll(xs, ys);
+        }
+        if (this.size > getMaximumItemCount()) {
+            removeRange(0, this.size - getMaximumItemCount());
+        }
+        fireSeriesChanged();
+    }
+
+    /**
+     * Deletes a range of items from the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param start  the start index (zero-based).
+     * @param end  the end index (zero-based).
+     */
+    public void delete(int start, int end) {
+        if (end >= start) {
+            checkIndex(start);
+            checkIndex(end);
+            removeRange(start, end + 1);
+        }
+        fireSeriesChanged();
+    }
+
+    /**
+     * Removes the item at the specified index and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param index  the index.
+     *
+     * @return The item removed.
+     */
+    public XYDataItem remove(int index) {
+        XYDataItem result = getDataItem(index);
+        removeRange(index, index + 1);
+        fireSeriesChanged();
+        return result;
+    }
+
+    /**
+     * Removes the item with the specified x-value and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param x  the x-value.
+     *
+     * @return The item removed.
+     */
+    public XYDataItem remove(Number x) {
+        return remove(indexOf(x));
+    }
+
+    /**
+     * Removes all data items from the series.
+     */
+    public void clear() {
+        if (this.size > 0) {
+            this.changes.add(0, ChangeRange.END);
+            this.size = 0;
+            this.nullYValues = null;
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Returns a copy of the data item with the specified index.
+     *
+     * @param index  the index.
+     *
+     * @return The data item with the specified index.
+     */
+    public XYDataItem getDataItem(int index) {
+        return new XYDataItem(getX(index), getY(index));
+    }
+
+    /**
+     * Returns the x-value at the specified index.
+     *
+     * @param index  the index (zero-based).
+     *
+     * @return The x-value (never <code>null</code>).
+     */
+    public Number getX(int index) {
+        return Double.valueOf(getXValue(index));
+    }
+
+    /**
+     * Returns the y-value at the specified index.
+     *
+     * @param index  the index (zero-based).
+     *
+     * @return The y-value (possibly <code>null</code>).
+     */
+    public Number getY(int index) {
+        checkIndex(index);
+        if (isNullY(index)) {
+            return null;
+        }
+        return Double.valueOf(this.yValues[index]);
+    }
+
+    /**
+     * Returns the x-value at the specified index, without creating an
+     * object.
+     *
+     * @param index  the index (zero-based).
+     *
+     * @return The x-value.
+     */
+    public double getXValue(int index) {
+        checkIndex(index);
+        return this.xValues[index];
+    }
+
+    /**
+     * Returns the y-value at the specified index, without creating an
+     * object.  A <code>null</code> y-value is returned as
+     * <code>Double.NaN</code>.
+     *
+     * @param index  the index (zero-based).
+     *
+     * @return The y-value.
+     */
+    public double getYValue(int index) {
+        checkIndex(index);
+        return this.yValues[index];
+    }
+
+    /**
+     * Updates the value of an item in the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param index  the item (zero based index).
+     * @param y  the new value (<code>null</code> permitted).
+     *
+     * @deprecated Renamed {@link #updateByIndex(int, Number)} to avoid
+     *         confusion with the {@link #update(Number, Number)} method.
+     */
+    @Deprecated
+    public void update(int index, Number y) {
+        updateByIndex(index, y);
+    }
+
+    /**
+     * Updates the value of an item in the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param index  the item (zero based index).
+     * @param y  the new value (<code>null</code> permitted).
+     */
+    public void updateByIndex(int index, Number y) {
+        checkIndex(index);
+        setY(index, y);
+        fireSeriesChanged();
+    }
+
+    /**
+     * Updates an item in the series.
+     *
+     * @param x  the x-value (<code>null</code> not permitted).
+     * @param y  the y-value (<code>null</code> permitted).
+     *
+     * @throws SeriesException if there is no existing item with the
+     *     specified x-value.
+     */
+    public void update(Number x, Number y) {
+        int index = indexOf(x);
+        if (index < 0) {
+            throw new SeriesException("No observation for x = " + x);
+        }
+        setY(index, y);
+        fireSeriesChanged();
+    }
+
+    /**
+     * Adds or updates an item in the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param x  the x-value (<code>null</code> not permitted).
+     * @param y  the y-value (<code>null</code> permitted).
+     *
+     * @return A copy of the overwritten data item, or <code>null</code> if
+     *     no item was overwritten.
+     */
+    public XYDataItem addOrUpdate(Number x, Number y) {
+        if (x == null) {
+            throw new IllegalArgumentException("Null 'x' argument.");
+        }
+        XYDataItem overwritten = null;
+        int index = indexOf(x);
+        if (index >= 0) {
+            overwritten = getDataItem(index);
+            setY(index, y);
+        }
+        else {
+            int position = getAutoSort() ? -index - 1 : this.size;
+            insertAt(position, x.doubleValue(),
+                    y != null ? y.doubleValue() : Double.NaN, y == null);
+            prune();
+        }
+        fireSeriesChanged();
+        return overwritten;
+    }
+
+    /**
+     * Returns the index of the item with the specified x-value, or a
+     * negative index if the series does not contain an item with that
+     * x-value.  Be aware that for an unsorted series, the index is
+     * found by iterating through all items in the series.
+     *
+     * @param x  the x-value (<code>null</code> not permitted).
+     *
+     * @return The index.
+     */
+    public int indexOf(Number x) {
+        return indexOf(x.doubleValue());
+    }
+
+    /**
+     * Returns the index of the item with the specified x-value, or a
+     * negative index if the series does not contain an item with that
+     * x-value.  In a sorted series the result of a binary search is
+     * returned, as for {@link java.util.Arrays#binarySearch(double[],
+     * double)}.
+     *
+     * @param x  the x-value.
+     *
+     * @return The index.
+     */
+    public int indexOf(double x) {
+        if (getAutoSort()) {
+            return binarySearch(x);
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (Double.compare(this.xValues[i], x) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sends a {@link SeriesRangeChangeEvent}, covering the items changed
+     * since the last event, to all registered listeners.  No event is sent
+     * while notification is switched off or a batch is open; the changes
+     * are reported by the next event instead.  If no change has been
+     * recorded, the event covers every item.
+     */
+    public void fireSeriesChanged() {
+        if (this.batches == 0 && !getNotify()) {
+            return;
+        }
+        if (this.changes.isEmpty()) {
+            this.changes.add(0, ChangeRange.END);
+        }
+        if (this.batches == 0) {
+            SeriesRangeChangeEvent event = new SeriesRangeChangeEvent(this,
+                    this.changes.getFirst(), this.changes.getLast());
+            this.changes.clear();
+            notifyListeners(event);
+        }
+    }
+
+    /**
+     * Opens a batch of changes.  Until the batch is closed, no change events
+     * are sent; closing it sends a single {@link SeriesRangeChangeEvent}
+     * covering every change made in the batch, if there were any.
+     *
+     * @return The batch.
+     */
+    public ChangeBatch beginBatch() {
+        this.batches++;
+        return new ChangeBatch() {
+            void commit() {
+                endBatch();
+            }
+        };
+    }
+
+    /**
+     * Ends a batch, sending a change event if it was the outermost one and
+     * anything changed.
+     */
+    private void endBatch() {
+        this.batches--;
+        if (this.batches == 0 && !this.changes.isEmpty()) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Returns a clone of the series.
+     *
+     * @return A clone of the series.
+     *
+     * @throws CloneNotSupportedException if there is a cloning problem.
+     */
+    public Object clone() throws CloneNotSupportedException {
+        return createCopy(0, this.size - 1);
+    }
+
+    /**
+     * Creates a new series by copying a subset of the data in this series.
+     *
+     * @param start  the index of the first item to copy.
+     * @param end  the index of the last item to copy.
+     *
+     * @return A series containing a copy of this series from start until
+     *     end.
+     *
+     * @throws CloneNotSupportedException if there is a cloning problem.
+     */
+    public XYSeries createCopy(int start, int end)
+            throws CloneNotSupportedException {
+        ColumnarXYSeries copy = (ColumnarXYSeries) super.createCopy(0, -1);
+        int n = this.size > 0 ? Math.max(end - start + 1, 0) : 0;
+        copy.xValues = new double[Math.max(n, 10)];
+        copy.yValues = new double[Math.max(n, 10)];
+        copy.nullYValues = null;
+        copy.size = 0;
+        copy.changes = new ChangeRange();
+        copy.batches = 0;
+        if (n > 0) {
+            checkIndex(start);
+            checkIndex(end);
+            System.arraycopy(this.xValues, start, copy.xValues, 0, n);
+            System.arraycopy(this.yValues, start, copy.yValues, 0, n);
+            if (this.nullYValues != null) {
+                BitSet nulls = this.nullYValues.get(start, end + 1);
+                copy.nullYValues = nulls.isEmpty() ? null : nulls;
+            }
+            copy.size = n;
+        }
+        return copy;
+    }
+
+    /**
+     * Tests this series for equality with an arbitrary object.
+     *
+     * @param obj  the object to test against for equality
+     *             (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ColumnarXYSeries)) {
+            return false;
+        }
+        if (!super.equals(obj)) {
+            return false;
+        }
+        ColumnarXYSeries that = (ColumnarXYSeries) obj;
+        if (this.size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (Double.compare(this.xValues[i], that.xValues[i]) != 0
+                    || Double.compare(this.yValues[i], that.yValues[i]) != 0
+                    || isNullY(i) != that.isNullY(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code.
+     *
+     * @return A hash code.
+     */
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 29 * result + this.size;
+        if (this.size > 0) {
+            long bits = Double.doubleToLongBits(this.xValues[0]);
+            result = 29 * result + (int) (bits ^ (bits >>> 32));
+        }
+        return result;
+    }
+
+    /**
+     * Adds an item following the sorting and duplicate rules of
+     * <code>XYSeries</code>, then removes the first item if the maximum item
+     * count is exceeded.
+     *
+     * @param x  the x-value.
+     * @param y  the y-value.
+     * @param nullY  <code>true</code> if the y-value is <code>null</code>.
+     */
+    private void insert(double x, double y, boolean nullY) {
+        int position;
+        if (getAutoSort()) {
+            position = binarySearch(x);
+            if (position < 0) {
+                position = -position - 1;
+            }
+            else if (getAllowDuplicateXValues()) {
+                // add after any existing items with the same x-value
+                while (position < this.size
+                        && !(this.xValues[position] < x)
+                        && !(this.xValues[position] > x)) {
+                    position++;
+                }
+            }
+            else {
+                throw new SeriesException("X-value already exists.");
+            }
+        }
+        else {
+            if (!getAllowDuplicateXValues() && indexOf(x) >= 0) {
+                throw new SeriesException("X-value already exists.");
+            }
+            position = this.size;
+        }
+        insertAt(position, x, y, nullY);
+        prune();
+    }
+
+    /**
+     * Merges a batch of items into a sorted series.
+     *
+     * @param xs  the x-values.
+     * @param ys  the y-values.
+     */
+    private void mergeAll(double[] xs, double[] ys) {
+        boolean duplicates = getAllowDuplicateXValues();
+        int[] order = sortedOrder(xs);
+        double[] bx = new double[xs.length];
+        double[] by = new double[xs.length];
+        int m = 0;
+        for (int j = 0; j < xs.length; j++) {
+            int i = order == null ? j : order[j];
+            if (!duplicates && m > 0 && !(bx[m - 1] < xs[i])) {
+                // the sort is stable, so the last of equal x-values wins
+                by[m - 1] = ys[i];
+            }
+            else {
+                bx[m] = xs[i];
+                by[m] = ys[i];
+                m++;
+            }
+        }
+        int n = this.size;
+        if (n == 0 || bx[0] > this.xValues[n - 1]
+                || (duplicates && !(bx[0] < this.xValues[n - 1]))) {
+            this.changes.add(n, ChangeRange.END);
+            ensureCapacity(n + m);
+            System.arraycopy(bx, 0, this.xValues, n, m);
+            System.arraycopy(by, 0, this.yValues, n, m);
+            this.size = n + m;
+            return;
+        }
+        int first = binarySearch(bx[0]);
+        this.changes.add(first < 0 ? -first - 1 : first, ChangeRange.END);
+        double[] mx = new double[n + m];
+        double[] my = new double[n + m];
+        BitSet nulls = this.nullYValues != null ? new BitSet() : null;
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < n || j < m) {
+            if (j == m || (i < n && !(this.xValues[i] > bx[j]))) {
+                mx[k] = this.xValues[i];
+                if (!duplicates && j < m && !(this.xValues[i] < bx[j])) {
+                    my[k] = by[j++];
+                }
+                else {
+                    my[k] = this.yValues[i];
+                    if (isNullY(i)) {
+                        nulls.set(k);
+                    }
+                }
+                i++;
+            }
+            else {
+                mx[k] = bx[j];
+                my[k] = by[j++];
+            }
+            k++;
+        }
+        this.xValues = mx;
+        this.yValues = my;
+        this.nullYValues = nulls == null || nulls.isEmpty() ? null : nulls;
+        this.size = k;
+    }
+
+    /**
+     * Appends a batch of items to an unsorted series that does not allow
+     * duplicate x-values, replacing the y-value of any item whose x-value
+     * is already present.
+     *
+     * @param xs  the x-values.
+     * @param ys  the y-values.
+     */
+    private void appendOrUpdateAll(double[] xs, double[] ys) {
+        Map<Double, Integer> positions = new HashMap<Double, Integer>(
+                (this.size + xs.length) * 2);
+        for (int i = 0; i < this.size; i++) {
+            positions.put(Double.valueOf(this.xValues[i]), Integer.valueOf(i));
+        }
+        ensureCapacity(this.size + xs.length);
+        for (int j = 0; j < xs.length; j++) {
+            Integer position = positions.get(Double.valueOf(xs[j]));
+            if (position != null) {
+                this.changes.add(position.intValue(), position.intValue());
+                this.yValues[position.intValue()] = ys[j];
+                if (this.nullYValues != null) {
+                    this.nullYValues.clear(position.intValue());
+                }
+            }
+            else {
+                positions.put(Double.valueOf(xs[j]), Integer.valueOf(this.size));
+                this.changes.add(this.size, ChangeRange.END);
+                this.xValues[this.size] = xs[j];
+                this.yValues[this.size] = ys[j];
+                this.size++;
+            }
+        }
+    }
+
+    /**
+     * Returns the positions of the values in ascending order, found by a
+     * stable merge sort, or <code>null</code> if the values are already in
+     * ascending order.
+     *
+     * @param keys  the values.
+     *
+     * @return The positions, or <code>null</code>.
+     */
+    private static int[] sortedOrder(double[] keys) {
+        int n = keys.length;
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++) {
+            sorted = !(keys[i] < keys[i - 1]);
+        }
+        if (sorted) {
+            return null;
+        }
+        int[] a = new int[n];
+        int[] b = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i;
+        }
+        for (int run = 1; run < n; run *= 2) {
+            for (int low = 0; low < n; low += 2 * run) {
+                int middle = Math.min(low + run, n);
+                int high = Math.min(low + 2 * run, n);
+                int i = low;
+                int j = middle;
+                int k = low;
+                while (i < middle && j < high) {
+                    b[k++] = keys[a[j]] < keys[a[i]] ? a[j++] : a[i++];
+                }
+                while (i < middle) {
+                    b[k++] = a[i++];
+                }
+                while (j < high) {
+                    b[k++] = a[j++];
+                }
+            }
+            int[] swap = a;
+            a = b;
+            b = swap;
+        }
+        return a;
+    }
+
+    /**
+     * Inserts an item at the specified position.
+     *
+     * @param position  the position.
+     * @param x  the x-value.
+     * @param y  the y-value.
+     * @param nullY  <code>true</code> if the y-value is <code>null</code>.
+     */
+    private void insertAt(int position, double x, double y, boolean nullY) {
+        if (this.size == this.xValues.length) {
+            ensureCapacity(this.size + (this.size >> 1) + 1);
+        }
+        this.changes.add(position, ChangeRange.END);
+        int tail = this.size - position;
+        if (tail > 0) {
+            System.arraycopy(this.xValues, position, this.xValues,
+                    position + 1, tail);
+            System.arraycopy(this.yValues, position, this.yValues,
+                    position + 1, tail);
+            if (this.nullYValues != null) {
+                shiftNullYValues(position, 1);
+            }
+        }
+        this.xValues[position] = x;
+        this.yValues[position] = y;
+        this.size++;
+        if (nullY) {
+            if (this.nullYValues == null) {
+                this.nullYValues = new BitSet();
+            }
+            this.nullYValues.set(position);
+        }
+        else if (this.nullYValues != null) {
+            this.nullYValues.clear(position);
+        }
+    }
+
+    /**
+     * Removes the first item if the maximum item count is exceeded.
+     */
+    private void prune() {
+        if (this.size > getMaximumItemCount()) {
+            removeRange(0, 1);
+        }
+    }
+
+    /**
+     * Removes the items from <code>start</code> (inclusive) to
+     * <code>end</code> (exclusive).
+     *
+     * @param start  the first index.
+     * @param end  the end index.
+     */
+    private void removeRange(int start, int end) {
+        this.changes.add(start, ChangeRange.END);
+        int tail = this.size - end;
+        System.arraycopy(this.xValues, end, this.xValues, start, tail);
+        System.arraycopy(this.yValues, end, this.yValues, start, tail);
+        if (this.nullYValues != null) {
+            shiftNullYValues(start, start - end);
+            if (this.nullYValues.isEmpty()) {
+                this.nullYValues = null;
+            }
+        }
+        this.size -= end - start;
+    }
+
+    /**
+     * Moves the <code>null</code> y-value flags at and after a position.
+     *
+     * @param position  the first position to move (for a removal, the start
+     *                  of the removed range).
+     * @param distance  the distance to move (negative for a removal).
+     */
+    private void shiftNullYValues(int position, int distance) {
+        BitSet shifted = this.nullYValues.get(0, position);
+        int from = distance < 0 ? position - distance : position;
+        for (int i = this.nullYValues.nextSetBit(from); i >= 0;
+                i = this.nullYValues.nextSetBit(i + 1)) {
+            shifted.set(i + distance);
+        }
+        this.nullYValues = shifted;
+    }
+
+    /**
+     * Sets the y-value of an item.
+     *
+     * @param index  the index.
+     * @param y  the y-value (<code>null</code> permitted).
+     */
+    private void setY(int index, Number y) {
+        this.changes.add(index, index);
+        if (y == null) {
+            this.yValues[index] = Double.NaN;
+            if (this.nullYValues == null) {
+                this.nullYValues = new BitSet();
+            }
+            this.nullYValues.set(index);
+        }
+        else {
+            this.yValues[index] = y.doubleValue();
+            if (this.nullYValues != null) {
+                this.nullYValues.clear(index);
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the y-value of an item is
+     * <code>null</code>.
+     *
+     * @param index  the index.
+     *
+     * @return A boolean.
+     */
+    private boolean isNullY(int index) {
+        return this.nullYValues != null && this.nullYValues.get(index);
+    }
+
+    /**
+     * Searches the sorted x-values with the same comparison as
+     * {@link XYDataItem#compareTo(Object)}, returning the same index as
+     * <code>Collections.binarySearch</code> over the item list would.
+     *
+     * @param x  the x-value.
+     *
+     * @return The index of a matching item, or
+     *     <code>-(insertion point) - 1</code>.
+     */
+    private int binarySearch(double x) {
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            double value = this.xValues[mid];
+            if (value < x) {
+                low = mid + 1;
+            }
+            else if (value > x) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Checks an item index.
+     *
+     * @param index  the index.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + this.size);
+        }
+    }
+
+}
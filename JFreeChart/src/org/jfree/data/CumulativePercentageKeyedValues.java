@@ -0,0 +1,361 @@
+package org.jfree.data;
+
+import java.security.InvalidParameterException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A live view of the cumulative percentages of a {@link DefaultKeyedValues}
+ * instance.  The value returned for each key is the same as the value that
+ * {@link DataUtilities#getCumulativePercentages(KeyedValues)} would return,
+ * but the running sums are kept in a Fenwick (binary indexed) tree, and the
+ * view keeps its own map from key to index.  Looking up a key or a
+ * percentage takes O(1) or O(log n) time, with no full rebuild.
+ * <P>
+ * Adding or updating a value through the view takes O(log n) time when the
+ * source is an {@link IndexedKeyedValues}.  A plain
+ * <code>DefaultKeyedValues</code> searches its keys linearly inside its own
+ * <code>setValue()</code>, so with one as the source each add or update
+ * costs O(n), and appending n keys one at a time costs O(n<sup>2</sup>).
+ * <P>
+ * An update that would make the running sums inexact falls back to a full
+ * rebuild: this happens when the old or new value is infinite or
+ * <code>NaN</code> (a non-finite delta cannot be subtracted out again), and
+ * when the values that have passed through the tree are so much larger than
+ * the current values that rounding error in the node sums could become
+ * visible.
+ * <P>
+ * Changes must be made through the <code>addValue()</code>,
+ * <code>setValue()</code> and <code>removeValue()</code> methods of this
+ * view.  If the underlying values are modified directly, call
+ * {@link #refresh()} before reading from the view again.
+ */
+public class CumulativePercentageKeyedValues implements KeyedValues {
+
+    /** The underlying values. */
+    private DefaultKeyedValues source;
+
+    /** A map from key to index, for the keys of the underlying values. */
+    private Map<Comparable, Integer> indices;
+
+    /** The Fenwick tree of values (1-based, element 0 is unused). */
+    private double[] tree;
+
+    /** The number of items held in the tree. */
+    private int count;
+
+    /**
+     * The ratio of {@link #peak} to {@link #absoluteSum} above which the
+     * tree is rebuilt.  Each node sum is then accurate to roughly
+     * 2<sup>-32</sup> of the absolute sum of the current values.
+     */
+    private static final double REBUILD_RATIO = 0x1p20;
+
+    /** The sum of the absolute values currently held in the tree. */
+    private double absoluteSum;
+
+    /**
+     * An upper bound on the magnitude of any node sum since the last
+     * rebuild: the absolute sum at the time of the rebuild plus the
+     * absolute value of every change since.
+     */
+    private double peak;
+
+    /**
+     * Creates a new view of the cumulative percentages of the supplied
+     * values.
+     *
+     * @param source  the underlying values (<code>null</code> not
+     *                permitted).
+     *
+     * @throws InvalidParameterException if <code>source</code> is
+     *     <code>null</code>.
+     */
+    public CumulativePercentageKeyedValues(DefaultKeyedValues source) {
+        if (source == null) {
+            throw new InvalidParameterException("Null 'source' argument.");
+        }
+        this.source = source;
+        refresh();
+    }
+
+    /**
+     * Returns the underlying values.
+     *
+     * @return The underlying values (never <code>null</code>).
+     */
+    public DefaultKeyedValues getSource() {
+        return this.source;
+    }
+
+    /**
+     * Rebuilds the running sums and the key index from the underlying
+     * values, in O(n) time.
+     */
+    public void refresh() {
+        int n = this.source.getItemCount();
+        this.tree = new double[Math.max(n + 1, 16)];
+        this.indices = new HashMap<Comparable, Integer>(Math.max(2 * n, 16));
+        double sum = 0.0;
+        for (int i = 1; i <= n; i++) {
+            this.indices.put(this.source.getKey(i - 1), Integer.valueOf(i - 1));
+            double v = toDouble(this.source.getValue(i - 1));
+            sum += Math.abs(v);
+            this.tree[i] += v;
+            int parent = i + (i & -i);
+            if (parent <= n) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+        this.count = n;
+        this.absoluteSum = sum;
+        this.peak = sum;
+    }
+
+    /**
+     * Returns the number of items in the view.
+     *
+     * @return The item count.
+     */
+    public int getItemCount() {
+        return this.source.getItemCount();
+    }
+
+    /**
+     * Returns the cumulative percentage at the specified index, as a value
+     * between 0.0 and 1.0 (for non-negative data).
+     *
+     * @param item  the item index (zero-based).
+     *
+     * @return The cumulative percentage.
+     *
+     * @throws IndexOutOfBoundsException if <code>item</code> is out of
+     *     range.
+     */
+    public Number getValue(int item) {
+        return Double.valueOf(getPercentage(item));
+    }
+
+    /**
+     * Returns the cumulative percentage at the specified index as a
+     * primitive.
+     *
+     * @param item  the item index (zero-based).
+     *
+     * @return The cumulative percentage.
+     *
+     * @throws IndexOutOfBoundsException if <code>item</code> is out of
+     *     range.
+     */
+    public double getPercentage(int item) {
+        if (item < 0 || item >= this.count) {
+            throw new IndexOutOfBoundsException("Index out of bounds: "
+                    + item);
+        }
+        return prefixSum(item + 1) / prefixSum(this.count);
+    }
+
+    /**
+     * Returns the key at the specified index.
+     *
+     * @param index  the index (zero-based).
+     *
+     * @return The key.
+     */
+    public Comparable getKey(int index) {
+        return this.source.getKey(index);
+    }
+
+    /**
+     * Returns the index for a given key, in O(1) time.
+     *
+     * @param key  the key.
+     *
+     * @return The index, or <code>-1</code> if the key is not recognised.
+     */
+    public int getIndex(Comparable key) {
+        Integer index = this.indices.get(key);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the keys for the values in the view.
+     *
+     * @return The keys.
+     */
+    public List getKeys() {
+        return this.source.getKeys();
+    }
+
+    /**
+     * Returns the cumulative percentage for a given key.
+     *
+     * @param key  the key.
+     *
+     * @return The cumulative percentage.
+     *
+     * @throws UnknownKeyException if the key is not recognised.
+     */
+    public Number getValue(Comparable key) {
+        int index = getIndex(key);
+        if (index < 0) {
+            throw new UnknownKeyException("Key not found: " + key);
+        }
+        return getValue(index);
+    }
+
+    /**
+     * Adds a new value, or updates the value for an existing key.
+     *
+     * @param key  the key.
+     * @param value  the value.
+     */
+    public void addValue(Comparable key, double value) {
+        addValue(key, Double.valueOf(value));
+    }
+
+    /**
+     * Adds a new value, or updates the value for an existing key.
+     *
+     * @param key  the key.
+     * @param value  the value (<code>null</code> permitted).
+     */
+    public void addValue(Comparable key, Number value) {
+        setValue(key, value);
+    }
+
+    /**
+     * Updates the value for an existing key, or adds a new value to the end
+     * of the list.  See {@link #setValue(Comparable, Number)}.
+     *
+     * @param key  the key.
+     * @param value  the value.
+     */
+    public void setValue(Comparable key, double value) {
+        setValue(key, Double.valueOf(value));
+    }
+
+    /**
+     * Updates the value for an existing key, or adds a new value to the end
+     * of the list.  The view's own work takes O(log n) time, except when the
+     * update forces a rebuild; the source's <code>setValue()</code> adds
+     * O(1) time for an {@link IndexedKeyedValues} and O(n) time for a plain
+     * <code>DefaultKeyedValues</code> (see the class description).
+     *
+     * @param key  the key.
+     * @param value  the value (<code>null</code> permitted).
+     */
+    public void setValue(Comparable key, Number value) {
+        int index = getIndex(key);
+        double v = toDouble(value);
+        if (index < 0) {
+            this.source.setValue(key, value);
+            this.indices.put(key, Integer.valueOf(this.count));
+            append(v);
+            this.absoluteSum += Math.abs(v);
+            this.peak += Math.abs(v);
+            return;
+        }
+        double old = toDouble(this.source.getValue(index));
+        this.source.setValue(key, value);
+        if (Double.isInfinite(old) || Double.isNaN(old)
+                || Double.isInfinite(v) || Double.isNaN(v)) {
+            refresh();
+            return;
+        }
+        double delta = v - old;
+        this.absoluteSum += Math.abs(v) - Math.abs(old);
+        this.peak += Math.abs(delta);
+        if (this.peak > REBUILD_RATIO * this.absoluteSum) {
+            refresh();
+        }
+        else {
+            update(index + 1, delta);
+        }
+    }
+
+    /**
+     * Removes a value.  The running sums are rebuilt, so this takes O(n)
+     * time.
+     *
+     * @param index  the index of the value to remove.
+     */
+    public void removeValue(int index) {
+        this.source.removeValue(index);
+        refresh();
+    }
+
+    /**
+     * Removes a value.  The running sums are rebuilt, so this takes O(n)
+     * time.
+     *
+     * @param key  the key of the value to remove.
+     */
+    public void removeValue(Comparable key) {
+        this.source.removeValue(key);
+        refresh();
+    }
+
+    /**
+     * Returns the sum of the first <code>n</code> values.
+     *
+     * @param n  the number of values.
+     *
+     * @return The sum.
+     */
+    private double prefixSum(int n) {
+        double result = 0.0;
+        for (int i = n; i > 0; i -= i & -i) {
+            result += this.tree[i];
+        }
+        return result;
+    }
+
+    /**
+     * Adds <code>delta</code> to the value at the specified position.
+     *
+     * @param position  the position (1-based).
+     * @param delta  the change in value.
+     */
+    private void update(int position, double delta) {
+        for (int i = position; i <= this.count; i += i & -i) {
+            this.tree[i] += delta;
+        }
+    }
+
+    /**
+     * Appends a value to the end of the tree.  The new node covers the
+     * positions <code>(i - lowbit(i), i]</code>, so its sum is the new value
+     * plus the nodes that already cover <code>(i - lowbit(i), i - 1]</code>.
+     *
+     * @param value  the value.
+     */
+    private void append(double value) {
+        int i = this.count + 1;
+        if (i >= this.tree.length) {
+            double[] grown = new double[this.tree.length * 2];
+            System.arraycopy(this.tree, 0, grown, 0, this.tree.length);
+            this.tree = grown;
+        }
+        double sum = value;
+        int stop = i - (i & -i);
+        for (int j = i - 1; j > stop; j -= j & -j) {
+            sum += this.tree[j];
+        }
+        this.tree[i] = sum;
+        this.count = i;
+    }
+
+    /**
+     * Converts a value to a primitive, treating <code>null</code> as zero.
+     *
+     * @param n  the value (<code>null</code> permitted).
+     *
+     * @return The value.
+     */
+    private static double toDouble(Number n) {
+        return n != null ? n.doubleValue() : 0.0;
+    }
+
+}
@@ -0,0 +1,703 @@
+package org.jfree.data;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.security.InvalidParameterException;
+
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * An {@link XYDataset} that presents a decimated view of another dataset,
+ * so that a renderer draws a few points per pixel column instead of every
+ * item of a long series.  The view depends on the visible domain range and
+ * the width of the plot in pixels:
+ * <ul>
+ * <li>{@link #MIN_MAX} keeps, for each pixel column, the items with the
+ *     smallest and largest y values, so the drawn envelope is exactly the
+ *     envelope of the full series;</li>
+ * <li>{@link #LARGEST_TRIANGLE} keeps two items per pixel column chosen by
+ *     the Largest-Triangle-Three-Buckets algorithm, which preserves the
+ *     visual shape of a line better than min/max at the same size.</li>
+ * </ul>
+ * The item just before and just after the visible range are always kept,
+ * so lines run off the edges of the plot correctly.  A series with no more
+ * than two visible items per pixel column is passed through unchanged, as
+ * is a series whose x values are not in ascending order.
+ * <P>
+ * The view is computed lazily, one series at a time, when it is first read
+ * after the range, the width or the source dataset changes.  For
+ * {@link #MIN_MAX}, each series also keeps a pyramid holding the positions
+ * of the minimum and maximum y values in blocks of 2, 4, 8, ... items, so a
+ * new view costs O(width * log n) rather than O(n) once the pyramid is
+ * built.
+ * <P>
+ * To follow zooming and panning, register an
+ * <code>org.jfree.chart.axis.DecimationAxisListener</code> with the plot's
+ * domain axis; it passes each new axis range to
+ * {@link #setDomainRange(double, double, boolean)}.
+ */
+public class DecimatedXYDataset extends AbstractXYDataset
+        implements DatasetChangeListener {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -6127316418540381093L;
+
+    /** Keeps the minimum and maximum y value in each pixel column. */
+    public static final int MIN_MAX = 0;
+
+    /** Keeps the items chosen by Largest-Triangle-Three-Buckets. */
+    public static final int LARGEST_TRIANGLE = 1;
+
+    /** The source dataset. */
+    private XYDataset source;
+
+    /** The decimation method. */
+    private int method;
+
+    /** The plot width in pixels. */
+    private int width;
+
+    /** The lower bound of the visible domain range (NaN for none). */
+    private double lowerBound;
+
+    /** The upper bound of the visible domain range (NaN for none). */
+    private double upperBound;
+
+    /** The source item indices of each series' view (null when stale). */
+    private transient int[][] views;
+
+    /**
+     * Whether the x values of each series are ascending (1), not ascending
+     * (2) or not yet checked (0).
+     */
+    private transient byte[] orders;
+
+    /** The minimum pyramid of each series (null until needed). */
+    private transient int[][][] minimums;
+
+    /** The maximum pyramid of each series (null until needed). */
+    private transient int[][][] maximums;
+
+    /**
+     * Creates a new dataset that shows every item of the source, decimated
+     * to the given width.
+     *
+     * @param source  the source dataset (<code>null</code> not permitted).
+     * @param method  the method ({@link #MIN_MAX} or
+     *                {@link #LARGEST_TRIANGLE}).
+     * @param width  the plot width in pixels (at least 1).
+     *
+     * @throws InvalidParameterException if <code>source</code> is
+     *     <code>null</code>.
+     */
+    public DecimatedXYDataset(XYDataset source, int method, int width) {
+        if (source == null) {
+            throw new InvalidParameterException("Null 'source' argument.");
+        }
+        if (method != MIN_MAX && method != LARGEST_TRIANGLE) {
+            throw new IllegalArgumentException("Unknown method: " + method
+                    + ".");
+        }
+        checkWidth(width);
+        this.source = source;
+        this.method = method;
+        this.width = width;
+        this.lowerBound = Double.NaN;
+        this.upperBound = Double.NaN;
+        this.source.addChangeListener(this);
+    }
+
+    /**
+     * Returns the source dataset.
+     *
+     * @return The source dataset (never <code>null</code>).
+     */
+    public XYDataset getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the decimation method.
+     *
+     * @return {@link #MIN_MAX} or {@link #LARGEST_TRIANGLE}.
+     */
+    public int getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Returns the plot width in pixels.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Sets the plot width in pixels and sends a {@link DatasetChangeEvent}
+     * to all registered listeners.
+     *
+     * @param width  the width (at least 1).
+     */
+    public void setWidth(int width) {
+        checkWidth(width);
+        if (width != this.width) {
+            this.width = width;
+            this.views = null;
+            fireDatasetChanged();
+        }
+    }
+
+    /**
+     * Returns the lower bound of the visible domain range.
+     *
+     * @return The lower bound, or <code>Double.NaN</code> if every item is
+     *     visible.
+     */
+    public double getLowerBound() {
+        return this.lowerBound;
+    }
+
+    /**
+     * Returns the upper bound of the visible domain range.
+     *
+     * @return The upper bound, or <code>Double.NaN</code> if every item is
+     *     visible.
+     */
+    public double getUpperBound() {
+        return this.upperBound;
+    }
+
+    /**
+     * Sets the visible domain range and sends a {@link DatasetChangeEvent}
+     * to all registered listeners.  Passing <code>Double.NaN</code> for
+     * both bounds makes every item visible.
+     *
+     * @param lower  the lower bound.
+     * @param upper  the upper bound (greater than <code>lower</code>).
+     */
+    public void setDomainRange(double lower, double upper) {
+        setDomainRange(lower, upper, true);
+    }
+
+    /**
+     * Sets the visible domain range and, if requested, sends a
+     * {@link DatasetChangeEvent} to all registered listeners.  Pass
+     * <code>false</code> when following a domain axis: the plot redraws
+     * after the axis changes, so the new view is computed when it is drawn,
+     * and a dataset change event would make the plot recalculate its
+     * automatic axis range from the decimated data.
+     *
+     * @param lower  the lower bound.
+     * @param upper  the upper bound (greater than <code>lower</code>).
+     * @param notify  notify listeners?
+     */
+    public void setDomainRange(double lower, double upper, boolean notify) {
+        if (updateDomainRange(lower, upper) && notify) {
+            fireDatasetChanged();
+        }
+    }
+
+    /**
+     * Discards the views and pyramids when the source dataset changes, and
+     * passes the event on to the registered listeners.
+     *
+     * @param event  the event.
+     */
+    public void datasetChanged(DatasetChangeEvent event) {
+        this.views = null;
+        this.orders = null;
+        this.minimums = null;
+        this.maximums = null;
+        fireDatasetChanged();
+    }
+
+    /**
+     * Returns the number of series in the dataset.
+     *
+     * @return The series count.
+     */
+    public int getSeriesCount() {
+        return this.source.getSeriesCount();
+    }
+
+    /**
+     * Returns the key for a series.
+     *
+     * @param series  the series index (zero-based).
+     *
+     * @return The series key.
+     */
+    public Comparable getSeriesKey(int series) {
+        return this.source.getSeriesKey(series);
+    }
+
+    /**
+     * Returns the order of the x values, which is the order in the source
+     * dataset.
+     *
+     * @return The domain order.
+     */
+    public DomainOrder getDomainOrder() {
+        return this.source.getDomainOrder();
+    }
+
+    /**
+     * Returns the number of items in the decimated view of a series.
+     *
+     * @param series  the series index (zero-based).
+     *
+     * @return The item count.
+     */
+    public int getItemCount(int series) {
+        return view(series).length;
+    }
+
+    /**
+     * Returns the index in the source dataset of an item in the view.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index in the view (zero-based).
+     *
+     * @return The item index in the source dataset.
+     */
+    public int getSourceItem(int series, int item) {
+        return view(series)[item];
+    }
+
+    /**
+     * Returns the x value of an item.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The x value.
+     */
+    public Number getX(int series, int item) {
+        return this.source.getX(series, getSourceItem(series, item));
+    }
+
+    /**
+     * Returns the y value of an item.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The y value (possibly <code>null</code>).
+     */
+    public Number getY(int series, int item) {
+        return this.source.getY(series, getSourceItem(series, item));
+    }
+
+    /**
+     * Returns the x value of an item.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The x value.
+     */
+    public double getXValue(int series, int item) {
+        return this.source.getXValue(series, getSourceItem(series, item));
+    }
+
+    /**
+     * Returns the y value of an item.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The y value.
+     */
+    public double getYValue(int series, int item) {
+        return this.source.getYValue(series, getSourceItem(series, item));
+    }
+
+    /**
+     * Sets the visible domain range, discarding the views if it changed.
+     *
+     * @param lower  the lower bound.
+     * @param upper  the upper bound.
+     *
+     * @return <code>true</code> if the range changed.
+     */
+    private boolean updateDomainRange(double lower, double upper) {
+        boolean none = Double.isNaN(lower) && Double.isNaN(upper);
+        if (!none && !(lower < upper)) {
+            throw new IllegalArgumentException("Requires 'lower' < 'upper'.");
+        }
+        if (Double.compare(lower, this.lowerBound) == 0
+                && Double.compare(upper, this.upperBound) == 0) {
+            return false;
+        }
+        this.lowerBound = lower;
+        this.upperBound = upper;
+        this.views = null;
+        return true;
+    }
+
+    /**
+     * Returns the view of a series, computing it if necessary.
+     *
+     * @param series  the series index.
+     *
+     * @return The source item indices.
+     */
+    private int[] view(int series) {
+        int seriesCount = this.source.getSeriesCount();
+        if (this.views == null || this.views.length != seriesCount) {
+            this.views = new int[seriesCount][];
+        }
+        int[] result = this.views[series];
+        if (result == null) {
+            result = decimate(series);
+            this.views[series] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the view of a series.
+     *
+     * @param series  the series index.
+     *
+     * @return The source item indices, in ascending order.
+     */
+    private int[] decimate(int series) {
+        int n = this.source.getItemCount(series);
+        if (n == 0 || !isAscending(series, n)) {
+            return span(0, n - 1);
+        }
+        double lower = this.lowerBound;
+        double upper = this.upperBound;
+        int first;
+        int last;
+        if (Double.isNaN(lower)) {
+            first = 0;
+            last = n - 1;
+            lower = this.source.getXValue(series, 0);
+            upper = this.source.getXValue(series, n - 1);
+        }
+        else {
+            first = Math.max(0, search(series, 0, n, lower, false) - 1);
+            last = Math.min(n - 1, search(series, 0, n, upper, true));
+        }
+        if (last - first + 1 <= 2 * this.width || !(lower < upper)) {
+            return span(first, last);
+        }
+        if (this.method == LARGEST_TRIANGLE) {
+            return largestTriangle(series, first, last, 2 * this.width);
+        }
+        return minMax(series, first, last, lower, upper, n);
+    }
+
+    /**
+     * Returns <code>true</code> if the x values of a series are in
+     * ascending order.  Unless the source dataset reports ascending order,
+     * the series is checked once and the result kept until the source
+     * changes.
+     *
+     * @param series  the series index.
+     * @param n  the item count.
+     *
+     * @return A boolean.
+     */
+    private boolean isAscending(int series, int n) {
+        if (this.source.getDomainOrder() == DomainOrder.ASCENDING) {
+            return true;
+        }
+        int seriesCount = this.source.getSeriesCount();
+        if (this.orders == null || this.orders.length != seriesCount) {
+            this.orders = new byte[seriesCount];
+        }
+        if (this.orders[series] == 0) {
+            this.orders[series] = 1;
+            double previous = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                double x = this.source.getXValue(series, i);
+                if (!(x >= previous)) {
+                    this.orders[series] = 2;
+                    break;
+                }
+                previous = x;
+            }
+        }
+        return this.orders[series] == 1;
+    }
+
+    /**
+     * Returns the indices from <code>first</code> to <code>last</code>.
+     *
+     * @param first  the first index.
+     * @param last  the last index.
+     *
+     * @return The indices.
+     */
+    private static int[] span(int first, int last) {
+        int[] result = new int[Math.max(0, last - first + 1)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = first + i;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the first item in <code>[from, to)</code> whose
+     * x value is at least (or, if <code>after</code> is <code>true</code>,
+     * greater than) <code>x</code>.
+     *
+     * @param series  the series index.
+     * @param from  the first index searched.
+     * @param to  the index after the last one searched.
+     * @param x  the x value.
+     * @param after  whether to skip items equal to <code>x</code>.
+     *
+     * @return The index, or <code>to</code> if there is no such item.
+     */
+    private int search(int series, int from, int to, double x,
+            boolean after) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double value = this.source.getXValue(series, middle);
+            if (value < x || (after && value == x)) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Computes a min/max view.
+     *
+     * @param series  the series index.
+     * @param first  the first visible item (or the item before it).
+     * @param last  the last visible item (or the item after it).
+     * @param lower  the lower bound of the visible range.
+     * @param upper  the upper bound of the visible range.
+     * @param n  the item count.
+     *
+     * @return The source item indices.
+     */
+    private int[] minMax(int series, int first, int last, double lower,
+            double upper, int n) {
+        buildPyramid(series, n);
+        int[][] minimum = this.minimums[series];
+        int[][] maximum = this.maximums[series];
+        int[] result = new int[2 * this.width + 2];
+        int count = 0;
+        int start = search(series, first, last + 1, lower, false);
+        if (start > first) {
+            result[count++] = first;
+        }
+        int end = search(series, start, last + 1, upper, true);
+        double step = (upper - lower) / this.width;
+        for (int p = 0; p < this.width && start < end; p++) {
+            int next = p == this.width - 1 ? end : search(series, start, end,
+                    lower + (p + 1) * step, false);
+            if (next > start) {
+                int low = extreme(series, minimum, start, next, false);
+                int high = extreme(series, maximum, start, next, true);
+                result[count++] = Math.min(low, high);
+                if (low != high) {
+                    result[count++] = Math.max(low, high);
+                }
+            }
+            start = next;
+        }
+        if (end <= last) {
+            result[count++] = end;
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Builds the minimum and maximum pyramids of a series, if they do not
+     * exist yet.  Level <code>k - 1</code> of each pyramid holds, for every
+     * complete block of <code>2^k</code> items, the index of the item with
+     * the smallest (or largest) y value.
+     *
+     * @param series  the series index.
+     * @param n  the item count.
+     */
+    private void buildPyramid(int series, int n) {
+        int seriesCount = this.source.getSeriesCount();
+        if (this.minimums == null || this.minimums.length != seriesCount) {
+            this.minimums = new int[seriesCount][][];
+            this.maximums = new int[seriesCount][][];
+        }
+        if (this.minimums[series] != null) {
+            return;
+        }
+        int levels = 31 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+        int[][] minimum = new int[levels][];
+        int[][] maximum = new int[levels][];
+        for (int k = 0; k < levels; k++) {
+            int blocks = n >> (k + 1);
+            minimum[k] = new int[blocks];
+            maximum[k] = new int[blocks];
+            for (int j = 0; j < blocks; j++) {
+                int a = k == 0 ? 2 * j : minimum[k - 1][2 * j];
+                int b = k == 0 ? 2 * j + 1 : minimum[k - 1][2 * j + 1];
+                minimum[k][j] = pick(series, a, b, false);
+                a = k == 0 ? 2 * j : maximum[k - 1][2 * j];
+                b = k == 0 ? 2 * j + 1 : maximum[k - 1][2 * j + 1];
+                maximum[k][j] = pick(series, a, b, true);
+            }
+        }
+        this.minimums[series] = minimum;
+        this.maximums[series] = maximum;
+    }
+
+    /**
+     * Returns the index of the item in <code>[from, to)</code> with the
+     * smallest or largest y value, reading whole blocks from the pyramid.
+     *
+     * @param series  the series index.
+     * @param pyramid  the minimum or maximum pyramid.
+     * @param from  the first index.
+     * @param to  the index after the last one.
+     * @param largest  <code>true</code> for the largest value.
+     *
+     * @return The index.
+     */
+    private int extreme(int series, int[][] pyramid, int from, int to,
+            boolean largest) {
+        int best = from;
+        int i = from + 1;
+        while (i < to) {
+            int k = Math.min(Integer.numberOfTrailingZeros(i),
+                    pyramid.length);
+            while (k > 0 && i + (1 << k) > to) {
+                k--;
+            }
+            int candidate = k == 0 ? i : pyramid[k - 1][i >> k];
+            best = pick(series, best, candidate, largest);
+            i += 1 << k;
+        }
+        return best;
+    }
+
+    /**
+     * Returns whichever of two items has the smaller (or larger) y value,
+     * preferring the first on a tie.  A <code>NaN</code> value is never
+     * preferred.
+     *
+     * @param series  the series index.
+     * @param a  the first item.
+     * @param b  the second item.
+     * @param largest  <code>true</code> to prefer the larger value.
+     *
+     * @return <code>a</code> or <code>b</code>.
+     */
+    private int pick(int series, int a, int b, boolean largest) {
+        double ya = this.source.getYValue(series, a);
+        double yb = this.source.getYValue(series, b);
+        if (Double.isNaN(yb)) {
+            return a;
+        }
+        if (Double.isNaN(ya)) {
+            return b;
+        }
+        return (largest ? yb > ya : yb < ya) ? b : a;
+    }
+
+    /**
+     * Computes a Largest-Triangle-Three-Buckets view.  The first and last
+     * items are kept; the items between them are split into
+     * <code>threshold - 2</code> buckets, and from each bucket the item
+     * that forms the largest triangle with the item kept from the previous
+     * bucket and the average of the next bucket is kept.
+     *
+     * @param series  the series index.
+     * @param first  the first item.
+     * @param last  the last item.
+     * @param threshold  the number of items to keep (at least 3).
+     *
+     * @return The source item indices.
+     */
+    private int[] largestTriangle(int series, int first, int last,
+            int threshold) {
+        int[] result = new int[threshold];
+        double every = (double) (last - first - 1) / (threshold - 2);
+        int a = first;
+        result[0] = first;
+        for (int b = 0; b < threshold - 2; b++) {
+            int start = first + 1 + (int) (b * every);
+            int end = first + 1 + (int) ((b + 1) * every);
+            int nextEnd = Math.min(last + 1,
+                    first + 1 + (int) ((b + 2) * every));
+            if (b == threshold - 3) {
+                end = last;
+                nextEnd = last + 1;
+            }
+            double averageX = 0.0;
+            double averageY = 0.0;
+            int count = 0;
+            for (int i = end; i < nextEnd; i++) {
+                double y = this.source.getYValue(series, i);
+                if (!Double.isNaN(y)) {
+                    averageX += this.source.getXValue(series, i);
+                    averageY += y;
+                    count++;
+                }
+            }
+            averageX /= count;
+            averageY /= count;
+            double ax = this.source.getXValue(series, a);
+            double ay = this.source.getYValue(series, a);
+            int chosen = start;
+            double largest = -1.0;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - averageX)
+                        * (this.source.getYValue(series, i) - ay)
+                        - (ax - this.source.getXValue(series, i))
+                        * (averageY - ay));
+                if (area > largest) {
+                    largest = area;
+                    chosen = i;
+                }
+            }
+            result[b + 1] = chosen;
+            a = chosen;
+        }
+        result[threshold - 1] = last;
+        return result;
+    }
+
+    /**
+     * Checks a width.
+     *
+     * @param width  the width.
+     */
+    private static void checkWidth(int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException("Requires 'width' >= 1.");
+        }
+    }
+
+    /**
+     * Provides serialization support.
+     *
+     * @param stream  the input stream.
+     *
+     * @throws IOException  if there is an I/O error.
+     * @throws ClassNotFoundException  if there is a classpath problem.
+     */
+    private void readObject(ObjectInputStream stream)
+            throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        this.source.addChangeListener(this);
+    }
+
+}
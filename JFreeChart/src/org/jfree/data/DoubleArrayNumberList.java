@@ -0,0 +1,90 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+import java.security.InvalidParameterException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only <code>List</code> view of a <code>double[]</code> array.
+ * Unlike {@link DataUtilities#createNumberArray(double[])}, the array is not
+ * copied: each element is boxed only when it is read, so changes to the
+ * array are visible through the list.
+ *
+ * @see PrimitiveDataUtilities#createNumberList(double[], boolean)
+ */
+public class DoubleArrayNumberList extends AbstractList<Number>
+        implements RandomAccess, Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -8947505661515667344L;
+
+    /** The underlying array. */
+    private double[] data;
+
+    /**
+     * A flag that controls whether common values are returned as shared,
+     * canonical <code>Double</code> instances.
+     */
+    private boolean canonical;
+
+    /**
+     * Creates a new list view of the supplied array.
+     *
+     * @param data  the array (<code>null</code> not permitted).
+     * @param canonical  if <code>true</code>, common values such as 0.0 and
+     *                   1.0 are returned as shared <code>Double</code>
+     *                   instances instead of a new instance per read.
+     *
+     * @throws InvalidParameterException if <code>data</code> is
+     *     <code>null</code>.
+     */
+    public DoubleArrayNumberList(double[] data, boolean canonical) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        this.data = data;
+        this.canonical = canonical;
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return The size of the underlying array.
+     */
+    public int size() {
+        return this.data.length;
+    }
+
+    /**
+     * Returns the element at the specified index, boxed as a
+     * <code>Double</code>.
+     *
+     * @param index  the index.
+     *
+     * @return The element (never <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of
+     *     range.
+     */
+    public Number get(int index) {
+        double v = this.data[index];
+        return this.canonical ? CanonicalDoubles.valueOf(v) : Double.valueOf(v);
+    }
+
+    /**
+     * Returns the element at the specified index as a primitive, without
+     * boxing.
+     *
+     * @param index  the index.
+     *
+     * @return The element.
+     *
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of
+     *     range.
+     */
+    public double getDouble(int index) {
+        return this.data[index];
+    }
+
+}
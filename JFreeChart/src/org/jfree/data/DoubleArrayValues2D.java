@@ -0,0 +1,371 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A dense {@link Values2D} implementation that stores its values in a single
+ * row-major <code>double[]</code> array.  A cell that holds no value is
+ * stored as <code>Double.NaN</code> and flagged in a separate bitmap, so that
+ * a genuine <code>NaN</code> value can still be distinguished from
+ * <code>null</code>.
+ * <P>
+ * The {@link PrimitiveDataUtilities} class recognises this table and sums
+ * rows and columns directly from the primitive array, without boxing a
+ * <code>Number</code> for every cell.
+ */
+public class DoubleArrayValues2D implements Values2D, Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -1466196396402652804L;
+
+    /** The number of rows. */
+    private int rowCount;
+
+    /** The number of columns. */
+    private int columnCount;
+
+    /** The cell values, in row-major order. */
+    private double[] data;
+
+    /** A bitmap with one bit set for every cell that holds no value. */
+    private long[] nulls;
+
+    /**
+     * Creates a new table with the specified dimensions.  Every cell is
+     * initially <code>null</code>.
+     *
+     * @param rowCount  the number of rows (zero or greater).
+     * @param columnCount  the number of columns (zero or greater).
+     *
+     * @throws IllegalArgumentException if either dimension is negative, or
+     *     if the table would have more than <code>Integer.MAX_VALUE</code>
+     *     cells.
+     */
+    public DoubleArrayValues2D(int rowCount, int columnCount) {
+        if (rowCount < 0 || columnCount < 0) {
+            throw new IllegalArgumentException("Negative table dimensions.");
+        }
+        long cells = (long) rowCount * columnCount;
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Table too large: " + rowCount
+                    + " x " + columnCount + ".");
+        }
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        int size = (int) cells;
+        this.data = new double[size];
+        Arrays.fill(this.data, Double.NaN);
+        this.nulls = new long[(int) ((cells + 63) >>> 6)];
+        Arrays.fill(this.nulls, -1L);
+        if ((size & 63) != 0) {
+            this.nulls[this.nulls.length - 1] = (1L << size) - 1L;
+        }
+    }
+
+    /**
+     * Creates a new table containing a copy of the supplied data.  The
+     * column count is the length of the longest row; the cells beyond the
+     * end of a shorter row are <code>null</code>.
+     *
+     * @param data  the data, indexed as <code>data[row][column]</code>
+     *              (<code>null</code> not permitted).
+     */
+    public DoubleArrayValues2D(double[][] data) {
+        this(data.length, maxLength(data));
+        for (int r = 0; r < data.length; r++) {
+            for (int c = 0; c < data[r].length; c++) {
+                setValue(r, c, data[r][c]);
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the longest array in <code>data</code>.
+     *
+     * @param data  the data.
+     *
+     * @return The length.
+     */
+    private static int maxLength(double[][] data) {
+        int result = 0;
+        for (int r = 0; r < data.length; r++) {
+            result = Math.max(result, data[r].length);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the number of columns in the table.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Returns a value from the table.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getValue(int row, int column) {
+        int index = index(row, column);
+        if (isNull(index)) {
+            return null;
+        }
+        return Double.valueOf(this.data[index]);
+    }
+
+    /**
+     * Returns a value from the table as a primitive.  A <code>null</code>
+     * cell is returned as <code>Double.NaN</code>.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return The value.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public double getDoubleValue(int row, int column) {
+        return this.data[index(row, column)];
+    }
+
+    /**
+     * Returns <code>true</code> if the specified cell holds no value.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return A boolean.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public boolean isNull(int row, int column) {
+        return isNull(index(row, column));
+    }
+
+    /**
+     * Sets a value in the table.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     * @param value  the value.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public void setValue(int row, int column, double value) {
+        int index = index(row, column);
+        this.data[index] = value;
+        this.nulls[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Sets a value in the table.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     * @param value  the value (<code>null</code> permitted).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public void setValue(int row, int column, Number value) {
+        if (value != null) {
+            setValue(row, column, value.doubleValue());
+        }
+        else {
+            int index = index(row, column);
+            this.data[index] = Double.NaN;
+            this.nulls[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * Returns the total of the non-<code>null</code> values in one row.
+     *
+     * @param row  the row index (zero-based).
+     *
+     * @return The total.
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public double calculateRowTotal(int row) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("Row index out of bounds: "
+                    + row);
+        }
+        double total = 0.0;
+        int start = row * this.columnCount;
+        int end = start + this.columnCount;
+        for (int i = start; i < end; i++) {
+            double v = this.data[i];
+            if (v == v || !isNull(i)) {
+                total += v;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total of the non-<code>null</code> values in one column.
+     *
+     * @param column  the column index (zero-based).
+     *
+     * @return The total.
+     *
+     * @throws IndexOutOfBoundsException if <code>column</code> is out of
+     *     range.
+     */
+    public double calculateColumnTotal(int column) {
+        if (column < 0 || column >= this.columnCount) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        double total = 0.0;
+        int size = this.data.length;
+        for (int i = column; i < size; i += this.columnCount) {
+            double v = this.data[i];
+            if (v == v || !isNull(i)) {
+                total += v;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adds the non-<code>null</code> values in this table to the supplied
+     * row and column totals, in a single pass over the data array.
+     *
+     * @param rowTotals  the row totals (<code>null</code> permitted, in
+     *                   which case row totals are not accumulated).
+     * @param columnTotals  the column totals (<code>null</code> permitted,
+     *                      in which case column totals are not
+     *                      accumulated).
+     */
+    void accumulateTotals(double[] rowTotals, double[] columnTotals) {
+        int i = 0;
+        for (int r = 0; r < this.rowCount; r++) {
+            double rowTotal = 0.0;
+            for (int c = 0; c < this.columnCount; c++, i++) {
+                double v = this.data[i];
+                if (v != v && isNull(i)) {
+                    continue;
+                }
+                rowTotal += v;
+                if (columnTotals != null) {
+                    columnTotals[c] += v;
+                }
+            }
+            if (rowTotals != null) {
+                rowTotals[r] = rowTotal;
+            }
+        }
+    }
+
+    /**
+     * Returns the value at the specified index in the row-major data array.
+     * A <code>null</code> cell is returned as <code>Double.NaN</code>.
+     *
+     * @param index  the array index (no range check is performed).
+     *
+     * @return The value.
+     */
+    double getDoubleValue(int index) {
+        return this.data[index];
+    }
+
+    /**
+     * Returns <code>true</code> if the cell at the specified index in the
+     * row-major data array holds no value.
+     *
+     * @param index  the array index (no range check is performed).
+     *
+     * @return A boolean.
+     */
+    boolean isNullValue(int index) {
+        double v = this.data[index];
+        return v != v && isNull(index);
+    }
+
+    /**
+     * Returns the index into the data array for the specified cell.
+     *
+     * @param row  the row index.
+     * @param column  the column index.
+     *
+     * @return The index.
+     */
+    private int index(int row, int column) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("Row index out of bounds: "
+                    + row);
+        }
+        if (column < 0 || column >= this.columnCount) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        return row * this.columnCount + column;
+    }
+
+    /**
+     * Returns <code>true</code> if the cell at the specified array index is
+     * flagged as <code>null</code>.
+     *
+     * @param index  the array index.
+     *
+     * @return A boolean.
+     */
+    private boolean isNull(int index) {
+        return (this.nulls[index >>> 6] & (1L << index)) != 0L;
+    }
+
+    /**
+     * Tests this table for equality with an arbitrary object.
+     *
+     * @param obj  the object (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DoubleArrayValues2D)) {
+            return false;
+        }
+        DoubleArrayValues2D that = (DoubleArrayValues2D) obj;
+        if (this.rowCount != that.rowCount
+                || this.columnCount != that.columnCount) {
+            return false;
+        }
+        return Arrays.equals(this.data, that.data)
+                && Arrays.equals(this.nulls, that.nulls);
+    }
+
+    /**
+     * Returns a hash code for this table.
+     *
+     * @return A hash code.
+     */
+    public int hashCode() {
+        int result = 29 * this.rowCount + this.columnCount;
+        result = 29 * result + Arrays.hashCode(this.data);
+        return result;
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+import java.security.InvalidParameterException;
+import java.util.List;
+
+/**
+ * A read-only {@link Values2D} view of a <code>double[][]</code> array,
+ * indexed as <code>data[row][column]</code>.  Unlike
+ * {@link DataUtilities#createNumberArray2D(double[][])}, the array is not
+ * copied: each value is boxed only when it is read.
+ * <P>
+ * The rows may have different lengths.  The column count is the length of
+ * the longest row (measured when the view is created), and cells beyond
+ * the end of a shorter row are returned as <code>null</code>.
+ *
+ * @see PrimitiveDataUtilities#createValues2D(double[][], boolean)
+ */
+public class DoubleArrayValues2DView implements Values2D, Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 1891615663322413400L;
+
+    /** The underlying array. */
+    private double[][] data;
+
+    /** The number of columns (the length of the longest row). */
+    private int columnCount;
+
+    /**
+     * A flag that controls whether common values are returned as shared,
+     * canonical <code>Double</code> instances.
+     */
+    private boolean canonical;
+
+    /**
+     * Creates a new view of the supplied array.
+     *
+     * @param data  the array (<code>null</code> not permitted).
+     * @param canonical  if <code>true</code>, common values such as 0.0 and
+     *                   1.0 are returned as shared <code>Double</code>
+     *                   instances instead of a new instance per read.
+     *
+     * @throws InvalidParameterException if <code>data</code> is
+     *     <code>null</code>.
+     */
+    public DoubleArrayValues2DView(double[][] data, boolean canonical) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        this.data = data;
+        this.canonical = canonical;
+        for (int r = 0; r < data.length; r++) {
+            this.columnCount = Math.max(this.columnCount, data[r].length);
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.data.length;
+    }
+
+    /**
+     * Returns the number of columns, which is the length of the longest row.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Returns the number of values in one row.
+     *
+     * @param row  the row index (zero-based).
+     *
+     * @return The length of the row.
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public int getRowLength(int row) {
+        return this.data[row].length;
+    }
+
+    /**
+     * Returns a value from the table.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return The value, or <code>null</code> if <code>column</code> is
+     *     beyond the end of a short row.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getValue(int row, int column) {
+        double[] values = this.data[row];
+        if (column < 0 || column >= this.columnCount) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        if (column >= values.length) {
+            return null;
+        }
+        double v = values[column];
+        return this.canonical ? CanonicalDoubles.valueOf(v) : Double.valueOf(v);
+    }
+
+    /**
+     * Returns a list view of one row.
+     *
+     * @param row  the row index (zero-based).
+     *
+     * @return A list view of the row (never <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public List<Number> getRow(int row) {
+        return new DoubleArrayNumberList(this.data[row], this.canonical);
+    }
+
+}
@@ -0,0 +1,537 @@
+package org.jfree.data;
+
+import java.util.List;
+
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+import org.jfree.util.PublicCloneable;
+
+/**
+ * A {@link CategoryDataset} with the same methods as
+ * {@link DefaultCategoryDataset}, backed by an {@link IndexedKeyedValues2D}
+ * so that adding, updating and looking up values by key take O(1) time.
+ * <code>DefaultCategoryDataset</code> holds a private
+ * <code>DefaultKeyedValues2D</code> that searches its keys linearly, so
+ * building a large table one value at a time through it takes quadratic
+ * time.
+ * <P>
+ * {@link #addAll(Comparable[], Comparable[], double[])} loads a batch of
+ * values with a single change event.  See {@link IndexedKeyedValues2D} for
+ * the two ways in which the lookup and removal methods differ from
+ * <code>DefaultCategoryDataset</code>.
+ * <P>
+ * Change events are {@link CategoryRangeChangeEvent}s, and the changes made
+ * between {@link #beginBatch()} and the closing of the batch are reported
+ * by a single event.
+ */
+public class IndexedCategoryDataset extends AbstractDataset
+        implements CategoryDataset, PublicCloneable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -7182263853213765307L;
+
+    /** The data. */
+    private IndexedKeyedValues2D data;
+
+    /** The rows changed since the last change event. */
+    private ChangeRange rowChanges;
+
+    /** The columns changed since the last change event. */
+    private ChangeRange columnChanges;
+
+    /** The number of open batches. */
+    private transient int batches;
+
+    /**
+     * Creates a new (empty) dataset.
+     */
+    public IndexedCategoryDataset() {
+        this.data = new IndexedKeyedValues2D();
+        this.rowChanges = new ChangeRange();
+        this.columnChanges = new ChangeRange();
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.data.getRowCount();
+    }
+
+    /**
+     * Returns the number of columns in the table.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return this.data.getColumnCount();
+    }
+
+    /**
+     * Returns a value from the table.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return The value (possibly <code>null</code>).
+     */
+    public Number getValue(int row, int column) {
+        return this.data.getValue(row, column);
+    }
+
+    /**
+     * Returns the key for the specified row.
+     *
+     * @param row  the row index (zero-based).
+     *
+     * @return The row key.
+     */
+    public Comparable getRowKey(int row) {
+        return this.data.getRowKey(row);
+    }
+
+    /**
+     * Returns the row index for a given key.
+     *
+     * @param key  the row key (<code>null</code> not permitted).
+     *
+     * @return The row index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getRowIndex(Comparable key) {
+        return this.data.getRowIndex(key);
+    }
+
+    /**
+     * Returns the row keys.
+     *
+     * @return The keys.
+     */
+    public List getRowKeys() {
+        return this.data.getRowKeys();
+    }
+
+    /**
+     * Returns a column key.
+     *
+     * @param column  the column index (zero-based).
+     *
+     * @return The column key.
+     */
+    public Comparable getColumnKey(int column) {
+        return this.data.getColumnKey(column);
+    }
+
+    /**
+     * Returns the column index for a given key.
+     *
+     * @param key  the column key (<code>null</code> not permitted).
+     *
+     * @return The column index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getColumnIndex(Comparable key) {
+        return this.data.getColumnIndex(key);
+    }
+
+    /**
+     * Returns the column keys.
+     *
+     * @return The keys.
+     */
+    public List getColumnKeys() {
+        return this.data.getColumnKeys();
+    }
+
+    /**
+     * Returns the value for a pair of keys.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws UnknownKeyException if either key is not defined in the
+     *     dataset.
+     */
+    public Number getValue(Comparable rowKey, Comparable columnKey) {
+        return this.data.getValue(rowKey, columnKey);
+    }
+
+    /**
+     * Adds a value to the table and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.  Performs the same function as
+     * {@link #setValue(Number, Comparable, Comparable)}.
+     *
+     * @param value  the value (<code>null</code> permitted).
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void addValue(Number value, Comparable rowKey,
+            Comparable columnKey) {
+        setValue(value, rowKey, columnKey);
+    }
+
+    /**
+     * Adds a value to the table and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param value  the value.
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void addValue(double value, Comparable rowKey,
+            Comparable columnKey) {
+        setValue(Double.valueOf(value), rowKey, columnKey);
+    }
+
+    /**
+     * Adds or updates a value in the table and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param value  the value (<code>null</code> permitted).
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void setValue(Number value, Comparable rowKey,
+            Comparable columnKey) {
+        store(value, rowKey, columnKey);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Adds or updates a value in the table and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param value  the value.
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void setValue(double value, Comparable rowKey,
+            Comparable columnKey) {
+        setValue(Double.valueOf(value), rowKey, columnKey);
+    }
+
+    /**
+     * Adds or updates a batch of values and sends a single
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.  Value <code>i</code> is stored under
+     * <code>rowKeys[i]</code> and <code>columnKeys[i]</code>.  The result is
+     * that of calling {@link #setValue(double, Comparable, Comparable)} for
+     * each value in turn, so a later value for the same pair of keys
+     * replaces an earlier one.  Nothing is changed if any key is
+     * <code>null</code>.
+     *
+     * @param rowKeys  the row keys (<code>null</code> not permitted).
+     * @param columnKeys  the column keys, one per value (<code>null</code>
+     *                    not permitted).
+     * @param values  the values (<code>null</code> not permitted).
+     */
+    public void addAll(Comparable[] rowKeys, Comparable[] columnKeys,
+            double[] values) {
+        if (rowKeys == null) {
+            throw new IllegalArgumentException("Null 'rowKeys' argument.");
+        }
+        if (columnKeys == null) {
+            throw new IllegalArgumentException("Null 'columnKeys' argument.");
+        }
+        if (values == null) {
+            throw new IllegalArgumentException("Null 'values' argument.");
+        }
+        if (rowKeys.length != values.length
+                || columnKeys.length != values.length) {
+            throw new IllegalArgumentException("Requires 'rowKeys', "
+                    + "'columnKeys' and 'values' to have the same length.");
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (rowKeys[i] == null || columnKeys[i] == null) {
+                throw new IllegalArgumentException("Null key at position "
+                        + i + ".");
+            }
+        }
+        if (values.length == 0) {
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            store(Double.valueOf(values[i]), rowKeys[i], columnKeys[i]);
+        }
+        fireDatasetChanged();
+    }
+
+    /**
+     * Adds the specified value to an existing value in the dataset (if the
+     * existing value is <code>null</code>, it is treated as if it were 0.0).
+     *
+     * @param value  the value.
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if either key is not defined in the
+     *     dataset.
+     */
+    public void incrementValue(double value, Comparable rowKey,
+            Comparable columnKey) {
+        double existing = 0.0;
+        Number n = getValue(rowKey, columnKey);
+        if (n != null) {
+            existing = n.doubleValue();
+        }
+        setValue(existing + value, rowKey, columnKey);
+    }
+
+    /**
+     * Removes a value from the dataset and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if either key is not defined in the
+     *     dataset.
+     */
+    public void removeValue(Comparable rowKey, Comparable columnKey) {
+        int row = this.data.getRowIndex(rowKey);
+        int column = this.data.getColumnIndex(columnKey);
+        int rowCount = this.data.getRowCount();
+        int columnCount = this.data.getColumnCount();
+        this.data.removeValue(rowKey, columnKey);
+        if (this.data.getRowCount() < rowCount) {
+            changed(row, ChangeRange.END, 0, ChangeRange.END);
+        }
+        if (this.data.getColumnCount() < columnCount) {
+            changed(0, ChangeRange.END, column, ChangeRange.END);
+        }
+        changed(row, row, column, column);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Removes a row from the dataset and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param rowIndex  the row index.
+     */
+    public void removeRow(int rowIndex) {
+        this.data.removeRow(rowIndex);
+        changed(rowIndex, ChangeRange.END, 0, ChangeRange.END);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Removes a row from the dataset and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if <code>rowKey</code> is not defined in
+     *     the dataset.
+     */
+    public void removeRow(Comparable rowKey) {
+        int row = this.data.getRowIndex(rowKey);
+        this.data.removeRow(rowKey);
+        changed(row, ChangeRange.END, 0, ChangeRange.END);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Removes a column from the dataset and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param columnIndex  the column index.
+     */
+    public void removeColumn(int columnIndex) {
+        this.data.removeColumn(columnIndex);
+        changed(0, ChangeRange.END, columnIndex, ChangeRange.END);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Removes a column from the dataset and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     *
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if <code>columnKey</code> is not defined
+     *     in the dataset.
+     */
+    public void removeColumn(Comparable columnKey) {
+        int column = this.data.getColumnIndex(columnKey);
+        this.data.removeColumn(columnKey);
+        changed(0, ChangeRange.END, column, ChangeRange.END);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Clears all data from the dataset and sends a
+     * {@link org.jfree.data.general.DatasetChangeEvent} to all registered
+     * listeners.
+     */
+    public void clear() {
+        this.data.clear();
+        changed(0, ChangeRange.END, 0, ChangeRange.END);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Opens a batch of changes.  Until the batch is closed, no change events
+     * are sent; closing it sends a single {@link CategoryRangeChangeEvent}
+     * covering every change made in the batch, if there were any.
+     *
+     * @return The batch.
+     */
+    public ChangeBatch beginBatch() {
+        this.batches++;
+        return new ChangeBatch() {
+            void commit() {
+                endBatch();
+            }
+        };
+    }
+
+    /**
+     * Sends a {@link CategoryRangeChangeEvent}, covering the rows and
+     * columns changed since the last event, to all registered listeners.
+     * No event is sent while a batch is open; the changes are reported when
+     * it is closed instead.  If no change has been recorded, the event
+     * covers every value.
+     */
+    protected void fireDatasetChanged() {
+        if (this.rowChanges.isEmpty()) {
+            changed(0, ChangeRange.END, 0, ChangeRange.END);
+        }
+        if (this.batches == 0) {
+            CategoryRangeChangeEvent event = new CategoryRangeChangeEvent(
+                    this, this, this.rowChanges.getFirst(),
+                    this.rowChanges.getLast(), this.columnChanges.getFirst(),
+                    this.columnChanges.getLast());
+            this.rowChanges.clear();
+            this.columnChanges.clear();
+            notifyListeners(event);
+        }
+    }
+
+    /**
+     * Tests this dataset for equality with an arbitrary object, with the
+     * same rule as {@link DefaultCategoryDataset#equals(Object)}: the other
+     * object must be a {@link CategoryDataset} with the same keys, in the
+     * same order, and the same values.
+     *
+     * @param obj  the object (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CategoryDataset)) {
+            return false;
+        }
+        CategoryDataset that = (CategoryDataset) obj;
+        if (!getRowKeys().equals(that.getRowKeys())
+                || !getColumnKeys().equals(that.getColumnKeys())) {
+            return false;
+        }
+        int rowCount = getRowCount();
+        int colCount = getColumnCount();
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < colCount; c++) {
+                Number v1 = getValue(r, c);
+                Number v2 = that.getValue(r, c);
+                if (v1 == null ? v2 != null : !v1.equals(v2)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code for the dataset.
+     *
+     * @return A hash code.
+     */
+    public int hashCode() {
+        return this.data.hashCode();
+    }
+
+    /**
+     * Returns a clone of the dataset.
+     *
+     * @return A clone.
+     *
+     * @throws CloneNotSupportedException if there is a problem cloning the
+     *     dataset.
+     */
+    public Object clone() throws CloneNotSupportedException {
+        IndexedCategoryDataset clone = (IndexedCategoryDataset) super.clone();
+        clone.data = (IndexedKeyedValues2D) this.data.clone();
+        clone.rowChanges = new ChangeRange();
+        clone.columnChanges = new ChangeRange();
+        clone.batches = 0;
+        return clone;
+    }
+
+    /**
+     * Adds or updates a value and records the change.
+     *
+     * @param value  the value (<code>null</code> permitted).
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    private void store(Number value, Comparable rowKey,
+            Comparable columnKey) {
+        int row = this.data.getRowIndex(rowKey);
+        int column = this.data.getColumnIndex(columnKey);
+        this.data.setValue(value, rowKey, columnKey);
+        if (row < 0) {
+            changed(this.data.getRowIndex(rowKey), ChangeRange.END, 0,
+                    ChangeRange.END);
+        }
+        if (column < 0) {
+            changed(0, ChangeRange.END, this.data.getColumnIndex(columnKey),
+                    ChangeRange.END);
+        }
+        if (row >= 0 && column >= 0) {
+            changed(row, row, column, column);
+        }
+    }
+
+    /**
+     * Records a change to the values in a range of rows and columns.
+     *
+     * @param firstRow  the first row.
+     * @param lastRow  the last row, or {@link ChangeRange#END}.
+     * @param firstColumn  the first column.
+     * @param lastColumn  the last column, or {@link ChangeRange#END}.
+     */
+    private void changed(int firstRow, int lastRow, int firstColumn,
+            int lastColumn) {
+        this.rowChanges.add(firstRow, lastRow);
+        this.columnChanges.add(firstColumn, lastColumn);
+    }
+
+    /**
+     * Ends a batch, sending a change event if it was the outermost one and
+     * anything changed.
+     */
+    private void endBatch() {
+        this.batches--;
+        if (this.batches == 0 && !this.rowChanges.isEmpty()) {
+            fireDatasetChanged();
+        }
+    }
+
+}
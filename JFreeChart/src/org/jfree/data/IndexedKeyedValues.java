@@ -0,0 +1,125 @@
+package org.jfree.data;
+
+import java.util.HashMap;
+
+import org.jfree.util.SortOrder;
+
+/**
+ * A {@link DefaultKeyedValues} that keeps a hash map from key to index, so
+ * that {@link #getIndex(Comparable)}, {@link #getValue(Comparable)} and
+ * updating the value for an existing key take O(1) time instead of a linear
+ * search through the keys.  Appending a new key is also O(1), since the
+ * superclass looks the key up through {@link #getIndex(Comparable)} before
+ * adding it.
+ * <P>
+ * Every method that changes the key order calls the superclass and then
+ * updates the map: removing a value re-indexes the keys after it, and
+ * sorting rebuilds the map, so those methods take O(n) and O(n log n) time
+ * as before.  Item order, <code>equals</code> and <code>hashCode</code> are
+ * those of {@link DefaultKeyedValues}.
+ */
+public class IndexedKeyedValues extends DefaultKeyedValues {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -2561468730125370218L;
+
+    /** A map from key to index. */
+    private HashMap<Comparable, Integer> indices;
+
+    /**
+     * Creates a new collection (initially empty).
+     */
+    public IndexedKeyedValues() {
+        super();
+        this.indices = new HashMap<Comparable, Integer>();
+    }
+
+    /**
+     * Returns the index for a given key.
+     *
+     * @param key  the key (<code>null</code> permitted).
+     *
+     * @return The index, or <code>-1</code> if the key is not recognised.
+     */
+    public int getIndex(Comparable key) {
+        Integer index = this.indices.get(key);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Updates an existing value, or adds a new value to the end of the
+     * collection.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     * @param value  the value (<code>null</code> permitted).
+     */
+    public void setValue(Comparable key, Number value) {
+        int count = getItemCount();
+        super.setValue(key, value);
+        if (getItemCount() > count) {
+            this.indices.put(key, Integer.valueOf(count));
+        }
+    }
+
+    /**
+     * Removes a value from the collection, and re-indexes the keys that
+     * follow it.
+     *
+     * @param index  the index of the item to remove.
+     *
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of
+     *     range.
+     */
+    public void removeValue(int index) {
+        Comparable key = getKey(index);
+        super.removeValue(index);
+        this.indices.remove(key);
+        reindex(index);
+    }
+
+    /**
+     * Sorts the items in the collection by key, and rebuilds the index.
+     *
+     * @param order  the sort order (<code>null</code> not permitted).
+     */
+    public void sortByKeys(SortOrder order) {
+        super.sortByKeys(order);
+        reindex(0);
+    }
+
+    /**
+     * Sorts the items in the collection by value, and rebuilds the index.
+     *
+     * @param order  the sort order (<code>null</code> not permitted).
+     */
+    public void sortByValues(SortOrder order) {
+        super.sortByValues(order);
+        reindex(0);
+    }
+
+    /**
+     * Returns a clone of the collection.
+     *
+     * @return A clone.
+     *
+     * @throws CloneNotSupportedException if the superclass cannot be
+     *     cloned.
+     */
+    public Object clone() throws CloneNotSupportedException {
+        IndexedKeyedValues clone = (IndexedKeyedValues) super.clone();
+        clone.indices = new HashMap<Comparable, Integer>(this.indices);
+        return clone;
+    }
+
+    /**
+     * Records the current index of every key from <code>start</code> on.
+     *
+     * @param start  the first index to record.
+     */
+    private void reindex(int start) {
+        for (int i = start; i < getItemCount(); i++) {
+            this.indices.put(getKey(i), Integer.valueOf(i));
+        }
+    }
+
+}
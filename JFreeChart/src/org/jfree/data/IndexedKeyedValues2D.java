@@ -0,0 +1,488 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.util.PublicCloneable;
+
+/**
+ * A {@link KeyedValues2D} with the same behaviour as
+ * {@link DefaultKeyedValues2D}, but with hash maps from row and column key
+ * to index.  <code>DefaultKeyedValues2D</code> keeps its keys in private
+ * lists and searches them (and the keys of each row) linearly on every
+ * lookup and update, so a subclass cannot avoid the search; this class
+ * holds its rows as {@link IndexedKeyedValues} instead, so that
+ * {@link #getRowIndex(Comparable)}, {@link #getColumnIndex(Comparable)},
+ * {@link #getValue(Comparable, Comparable)} and
+ * {@link #setValue(Number, Comparable, Comparable)} take O(1) time.
+ * <P>
+ * Removing a row or column re-indexes the keys that follow it, so it takes
+ * time proportional to the number of keys.  Two differences from
+ * <code>DefaultKeyedValues2D</code>: {@link #getValue(Comparable,
+ * Comparable)} returns <code>null</code> for a column that exists but has
+ * no value in the row, and the methods that remove a value, row or column
+ * by key throw {@link UnknownKeyException} for a key the table does not
+ * have.
+ */
+public class IndexedKeyedValues2D implements KeyedValues2D, PublicCloneable,
+        Cloneable, Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 3390652307215458127L;
+
+    /** The row keys, in order. */
+    private List<Comparable> rowKeys;
+
+    /** The column keys, in order. */
+    private List<Comparable> columnKeys;
+
+    /** A map from row key to row index. */
+    private Map<Comparable, Integer> rowIndices;
+
+    /** A map from column key to column index. */
+    private Map<Comparable, Integer> columnIndices;
+
+    /** The rows, one per row key. */
+    private List<IndexedKeyedValues> rows;
+
+    /** If the row keys should be sorted by their comparable order. */
+    private boolean sortRowKeys;
+
+    /**
+     * Creates a new instance (initially empty).
+     */
+    public IndexedKeyedValues2D() {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance (initially empty).
+     *
+     * @param sortRowKeys  if the row keys should be sorted.
+     */
+    public IndexedKeyedValues2D(boolean sortRowKeys) {
+        this.rowKeys = new ArrayList<Comparable>();
+        this.columnKeys = new ArrayList<Comparable>();
+        this.rowIndices = new HashMap<Comparable, Integer>();
+        this.columnIndices = new HashMap<Comparable, Integer>();
+        this.rows = new ArrayList<IndexedKeyedValues>();
+        this.sortRowKeys = sortRowKeys;
+    }
+
+    /**
+     * Returns the row count.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.rowKeys.size();
+    }
+
+    /**
+     * Returns the column count.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return this.columnKeys.size();
+    }
+
+    /**
+     * Returns the value for a given row and column.
+     *
+     * @param row  the row index.
+     * @param column  the column index.
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getValue(int row, int column) {
+        IndexedKeyedValues rowData = this.rows.get(row);
+        int index = rowData.getIndex(this.columnKeys.get(column));
+        return index >= 0 ? rowData.getValue(index) : null;
+    }
+
+    /**
+     * Returns the key for a given row.
+     *
+     * @param row  the row index (zero based).
+     *
+     * @return The row key.
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public Comparable getRowKey(int row) {
+        return this.rowKeys.get(row);
+    }
+
+    /**
+     * Returns the row index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The row index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getRowIndex(Comparable key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null 'key' argument.");
+        }
+        Integer index = this.rowIndices.get(key);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the row keys in an unmodifiable list.
+     *
+     * @return The row keys.
+     */
+    public List getRowKeys() {
+        return Collections.unmodifiableList(this.rowKeys);
+    }
+
+    /**
+     * Returns the key for a given column.
+     *
+     * @param column  the column index (zero based).
+     *
+     * @return The column key.
+     *
+     * @throws IndexOutOfBoundsException if <code>column</code> is out of
+     *     range.
+     */
+    public Comparable getColumnKey(int column) {
+        return this.columnKeys.get(column);
+    }
+
+    /**
+     * Returns the column index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The column index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getColumnIndex(Comparable key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null 'key' argument.");
+        }
+        Integer index = this.columnIndices.get(key);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the column keys in an unmodifiable list.
+     *
+     * @return The column keys.
+     */
+    public List getColumnKeys() {
+        return Collections.unmodifiableList(this.columnKeys);
+    }
+
+    /**
+     * Returns the value for the given row and column keys.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws UnknownKeyException if either key is not recognised.
+     */
+    public Number getValue(Comparable rowKey, Comparable columnKey) {
+        if (rowKey == null) {
+            throw new IllegalArgumentException("Null 'rowKey' argument.");
+        }
+        if (columnKey == null) {
+            throw new IllegalArgumentException("Null 'columnKey' argument.");
+        }
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+        }
+        if (getColumnIndex(columnKey) < 0) {
+            throw new UnknownKeyException("Unrecognised columnKey: "
+                    + columnKey);
+        }
+        IndexedKeyedValues rowData = this.rows.get(row);
+        int index = rowData.getIndex(columnKey);
+        return index >= 0 ? rowData.getValue(index) : null;
+    }
+
+    /**
+     * Adds a value to the table.  Performs the same function as
+     * {@link #setValue(Number, Comparable, Comparable)}.
+     *
+     * @param value  the value (<code>null</code> permitted).
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void addValue(Number value, Comparable rowKey,
+            Comparable columnKey) {
+        setValue(value, rowKey, columnKey);
+    }
+
+    /**
+     * Adds or updates a value.  A new row key is appended to the table, or
+     * inserted in order if the row keys are sorted; a new column key is
+     * appended.
+     *
+     * @param value  the value (<code>null</code> permitted).
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void setValue(Number value, Comparable rowKey,
+            Comparable columnKey) {
+        if (columnKey == null) {
+            throw new IllegalArgumentException("Null 'columnKey' argument.");
+        }
+        int row = getRowIndex(rowKey);
+        IndexedKeyedValues rowData;
+        if (row >= 0) {
+            rowData = this.rows.get(row);
+        }
+        else {
+            rowData = new IndexedKeyedValues();
+            if (this.sortRowKeys) {
+                // row keys are raw Comparable objects, as in DefaultKeyedValues2D
+                @SuppressWarnings("unchecked")
+                List<Comparable<Object>> keys = (List) this.rowKeys;
+                row = -Collections.binarySearch(keys, rowKey) - 1;
+                this.rowKeys.add(row, rowKey);
+                this.rows.add(row, rowData);
+                reindexRows(row);
+            }
+            else {
+                this.rowIndices.put(rowKey,
+                        Integer.valueOf(this.rowKeys.size()));
+                this.rowKeys.add(rowKey);
+                this.rows.add(rowData);
+            }
+        }
+        rowData.setValue(columnKey, value);
+        if (!this.columnIndices.containsKey(columnKey)) {
+            this.columnIndices.put(columnKey,
+                    Integer.valueOf(this.columnKeys.size()));
+            this.columnKeys.add(columnKey);
+        }
+    }
+
+    /**
+     * Clears the value for the given row and column keys, as
+     * {@link DefaultKeyedValues2D#removeValue(Comparable, Comparable)} does:
+     * if the row then holds no values it is removed, and if no remaining row
+     * holds a value in the column, the column is removed too.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if either key is not recognised.
+     */
+    public void removeValue(Comparable rowKey, Comparable columnKey) {
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+        }
+        int column = getColumnIndex(columnKey);
+        if (column < 0) {
+            throw new UnknownKeyException("Unrecognised columnKey: "
+                    + columnKey);
+        }
+        IndexedKeyedValues rowData = this.rows.get(row);
+        rowData.setValue(columnKey, null);
+        if (isEmpty(rowData)) {
+            removeRow(row);
+        }
+        for (int r = 0; r < this.rows.size(); r++) {
+            if (getValue(r, column) != null) {
+                return;
+            }
+        }
+        removeColumn(column);
+    }
+
+    /**
+     * Removes a row.
+     *
+     * @param rowIndex  the row index.
+     *
+     * @throws IndexOutOfBoundsException if <code>rowIndex</code> is out of
+     *     range.
+     */
+    public void removeRow(int rowIndex) {
+        this.rows.remove(rowIndex);
+        this.rowIndices.remove(this.rowKeys.remove(rowIndex));
+        reindexRows(rowIndex);
+    }
+
+    /**
+     * Removes a row.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if <code>rowKey</code> is not recognised.
+     */
+    public void removeRow(Comparable rowKey) {
+        int index = getRowIndex(rowKey);
+        if (index < 0) {
+            throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+        }
+        removeRow(index);
+    }
+
+    /**
+     * Removes a column.
+     *
+     * @param columnIndex  the column index.
+     *
+     * @throws IndexOutOfBoundsException if <code>columnIndex</code> is out of
+     *     range.
+     */
+    public void removeColumn(int columnIndex) {
+        Comparable columnKey = this.columnKeys.remove(columnIndex);
+        this.columnIndices.remove(columnKey);
+        for (int c = columnIndex; c < this.columnKeys.size(); c++) {
+            this.columnIndices.put(this.columnKeys.get(c), Integer.valueOf(c));
+        }
+        for (int r = 0; r < this.rows.size(); r++) {
+            IndexedKeyedValues rowData = this.rows.get(r);
+            int index = rowData.getIndex(columnKey);
+            if (index >= 0) {
+                rowData.removeValue(index);
+            }
+        }
+    }
+
+    /**
+     * Removes a column.
+     *
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if <code>columnKey</code> is not
+     *     recognised.
+     */
+    public void removeColumn(Comparable columnKey) {
+        int index = getColumnIndex(columnKey);
+        if (index < 0) {
+            throw new UnknownKeyException("Unrecognised columnKey: "
+                    + columnKey);
+        }
+        removeColumn(index);
+    }
+
+    /**
+     * Clears all the data and keys.
+     */
+    public void clear() {
+        this.rowKeys.clear();
+        this.columnKeys.clear();
+        this.rowIndices.clear();
+        this.columnIndices.clear();
+        this.rows.clear();
+    }
+
+    /**
+     * Tests if this object is equal to another, with the same rule as
+     * {@link DefaultKeyedValues2D#equals(Object)}: the other object must be
+     * a {@link KeyedValues2D} with the same keys, in the same order, and the
+     * same values.
+     *
+     * @param o  the other object (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof KeyedValues2D)) {
+            return false;
+        }
+        KeyedValues2D kv2D = (KeyedValues2D) o;
+        if (!getRowKeys().equals(kv2D.getRowKeys())
+                || !getColumnKeys().equals(kv2D.getColumnKeys())) {
+            return false;
+        }
+        int rowCount = getRowCount();
+        int columnCount = getColumnCount();
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                Number v1 = getValue(r, c);
+                Number v2 = kv2D.getValue(r, c);
+                if (v1 == null ? v2 != null : !v1.equals(v2)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code, computed as {@link DefaultKeyedValues2D} computes
+     * it.
+     *
+     * @return A hash code.
+     */
+    public int hashCode() {
+        int result = this.rowKeys.hashCode();
+        result = 29 * result + this.columnKeys.hashCode();
+        result = 29 * result + this.rows.hashCode();
+        return result;
+    }
+
+    /**
+     * Returns a clone.
+     *
+     * @return A clone.
+     *
+     * @throws CloneNotSupportedException  this class will not throw this
+     *         exception, but subclasses (if any) might.
+     */
+    public Object clone() throws CloneNotSupportedException {
+        IndexedKeyedValues2D clone = (IndexedKeyedValues2D) super.clone();
+        clone.rowKeys = new ArrayList<Comparable>(this.rowKeys);
+        clone.columnKeys = new ArrayList<Comparable>(this.columnKeys);
+        clone.rowIndices = new HashMap<Comparable, Integer>(this.rowIndices);
+        clone.columnIndices = new HashMap<Comparable, Integer>(
+                this.columnIndices);
+        clone.rows = new ArrayList<IndexedKeyedValues>(this.rows.size());
+        for (int r = 0; r < this.rows.size(); r++) {
+            clone.rows.add((IndexedKeyedValues) this.rows.get(r).clone());
+        }
+        return clone;
+    }
+
+    /**
+     * Records the current index of every row key from <code>start</code> on.
+     *
+     * @param start  the first row index to record.
+     */
+    private void reindexRows(int start) {
+        for (int r = start; r < this.rowKeys.size(); r++) {
+            this.rowIndices.put(this.rowKeys.get(r), Integer.valueOf(r));
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if a row holds no non-<code>null</code>
+     * values.
+     *
+     * @param rowData  the row.
+     *
+     * @return A boolean.
+     */
+    private static boolean isEmpty(IndexedKeyedValues rowData) {
+        for (int i = 0; i < rowData.getItemCount(); i++) {
+            if (rowData.getValue(i) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,209 @@
+package org.jfree.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.List;
+
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+
+/**
+ * A read-only {@link CategoryDataset} backed by a memory-mapped file in the
+ * {@link MappedValues2D} format, for category data too large to load into a
+ * <code>DefaultCategoryDataset</code>.  Opening the file reads only the
+ * keys; the values stay in the operating system's page cache and are read
+ * when they are used.
+ * <P>
+ * The row and column keys are read back as <code>String</code> objects
+ * (see {@link MappedValues2D}).  A serialized dataset records only the file
+ * name, and maps the file again when it is deserialized.
+ */
+public class MappedCategoryDataset extends AbstractDataset
+        implements CategoryDataset {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -3907256386373493312L;
+
+    /** The file. */
+    private File file;
+
+    /** The mapped table. */
+    private transient MappedValues2D data;
+
+    /**
+     * Creates a new dataset over a mapped table.
+     *
+     * @param file  the file.
+     * @param data  the mapped table.
+     */
+    private MappedCategoryDataset(File file, MappedValues2D data) {
+        this.file = file;
+        this.data = data;
+    }
+
+    /**
+     * Maps a file written by {@link #write(CategoryDataset, File)} or by
+     * {@link MappedValues2D#write(Values2D, File)}.
+     *
+     * @param file  the file (<code>null</code> not permitted).
+     *
+     * @return The dataset.
+     *
+     * @throws IOException if the file cannot be read or is not in the
+     *     expected format.
+     */
+    public static MappedCategoryDataset open(File file) throws IOException {
+        return new MappedCategoryDataset(file, MappedValues2D.open(file));
+    }
+
+    /**
+     * Writes a dataset, with its keys, to a file in the format read by
+     * {@link #open(File)}.
+     *
+     * @param dataset  the dataset (<code>null</code> not permitted).
+     * @param file  the file (<code>null</code> not permitted).
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(CategoryDataset dataset, File file)
+            throws IOException {
+        MappedValues2D.write(dataset, file);
+    }
+
+    /**
+     * Returns the mapped table that holds the values.  It can be passed to
+     * the {@link PrimitiveDataUtilities} total methods, which read it
+     * without boxing.
+     *
+     * @return The table.
+     */
+    public MappedValues2D getValues() {
+        return this.data;
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.data.getRowCount();
+    }
+
+    /**
+     * Returns the number of columns in the table.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return this.data.getColumnCount();
+    }
+
+    /**
+     * Returns a value from the table.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getValue(int row, int column) {
+        return this.data.getValue(row, column);
+    }
+
+    /**
+     * Returns the key for a given row.
+     *
+     * @param row  the row index (zero based).
+     *
+     * @return The row key.
+     */
+    public Comparable getRowKey(int row) {
+        return this.data.getRowKey(row);
+    }
+
+    /**
+     * Returns the row index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The row index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getRowIndex(Comparable key) {
+        return this.data.getRowIndex(key);
+    }
+
+    /**
+     * Returns the row keys in an unmodifiable list.
+     *
+     * @return The row keys.
+     */
+    public List getRowKeys() {
+        return this.data.getRowKeys();
+    }
+
+    /**
+     * Returns the key for a given column.
+     *
+     * @param column  the column index (zero based).
+     *
+     * @return The column key.
+     */
+    public Comparable getColumnKey(int column) {
+        return this.data.getColumnKey(column);
+    }
+
+    /**
+     * Returns the column index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The column index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getColumnIndex(Comparable key) {
+        return this.data.getColumnIndex(key);
+    }
+
+    /**
+     * Returns the column keys in an unmodifiable list.
+     *
+     * @return The column keys.
+     */
+    public List getColumnKeys() {
+        return this.data.getColumnKeys();
+    }
+
+    /**
+     * Returns the value for the given row and column keys.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws UnknownKeyException if either key is not recognised.
+     */
+    public Number getValue(Comparable rowKey, Comparable columnKey) {
+        return this.data.getValue(rowKey, columnKey);
+    }
+
+    /**
+     * Provides serialization support.
+     *
+     * @param stream  the input stream.
+     *
+     * @throws IOException  if there is an I/O error.
+     * @throws ClassNotFoundException  if there is a classpath problem.
+     */
+    private void readObject(ObjectInputStream stream)
+            throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        this.data = MappedValues2D.open(this.file);
+    }
+
+}
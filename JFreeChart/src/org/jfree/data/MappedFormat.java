@@ -0,0 +1,319 @@
+package org.jfree.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers shared by the memory-mapped data classes ({@link MappedValues2D},
+ * {@link MappedCategoryDataset} and {@link MappedXYDataset}).
+ * <P>
+ * Every file starts with a 24 byte little-endian header: a four byte magic
+ * number, a four byte format version, two four byte fields whose meaning
+ * depends on the file type, and the eight byte length of the key
+ * dictionary that follows.  The dictionary holds each key as a four byte
+ * length and its UTF-8 bytes, and is padded with zeros to a multiple of
+ * eight bytes, so the double columns after it are aligned.
+ */
+final class MappedFormat {
+
+    /** The header length in bytes. */
+    static final int HEADER_LENGTH = 24;
+
+    /** The log2 of the number of doubles mapped in each segment. */
+    private static final int SEGMENT_SHIFT = 27;
+
+    /** The mask for an index within a segment. */
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+    /**
+     * Not instantiable.
+     */
+    private MappedFormat() {
+    }
+
+    /**
+     * Maps and checks the header of a file.
+     *
+     * @param channel  the file channel.
+     * @param file  the file (used in error messages).
+     * @param type  the name of the file type (used in error messages).
+     * @param magic  the expected magic number.
+     * @param version  the expected format version.
+     *
+     * @return The header.
+     *
+     * @throws IOException if the file is too short or has the wrong magic
+     *     number or version.
+     */
+    static ByteBuffer readHeader(FileChannel channel, File file, String type,
+            int magic, int version) throws IOException {
+        if (channel.size() < HEADER_LENGTH) {
+            throw new IOException("File too short: " + file);
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != magic) {
+            throw new IOException("Not a " + type + " file: " + file);
+        }
+        if (header.getInt(4) != version) {
+            throw new IOException("Unsupported version " + header.getInt(4)
+                    + ": " + file);
+        }
+        long dictionaryLength = header.getLong(16);
+        if (dictionaryLength < 0 || (dictionaryLength & 7) != 0
+                || channel.size() < HEADER_LENGTH + dictionaryLength) {
+            throw new IOException("Invalid key dictionary: " + file);
+        }
+        return header;
+    }
+
+    /**
+     * Reads the key dictionary that follows the header.
+     *
+     * @param channel  the file channel.
+     * @param file  the file (used in error messages).
+     * @param length  the dictionary length in bytes.
+     * @param count  the number of keys to read.
+     *
+     * @return The keys, in the order they were written.
+     *
+     * @throws IOException if the dictionary holds fewer keys than expected.
+     */
+    static List<String> readKeys(FileChannel channel, File file, long length,
+            int count) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid key dictionary: " + file);
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                HEADER_LENGTH, length).order(ByteOrder.LITTLE_ENDIAN);
+        List<String> keys = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < 4) {
+                throw new IOException("Invalid key dictionary: " + file);
+            }
+            int n = buffer.getInt();
+            if (n < 0 || buffer.remaining() < n) {
+                throw new IOException("Invalid key dictionary: " + file);
+            }
+            byte[] bytes = new byte[n];
+            buffer.get(bytes);
+            keys.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns a map from each key to its position in the list.
+     *
+     * @param keys  the keys.
+     *
+     * @return The map.
+     */
+    static Map<String, Integer> indexKeys(List<String> keys) {
+        Map<String, Integer> result = new HashMap<String, Integer>(
+                keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), Integer.valueOf(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of a key, reading it by its string form.
+     *
+     * @param indices  the map from key to position.
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The position, or <code>-1</code> if the key is not recognised.
+     */
+    static int indexOf(Map<String, Integer> indices, Comparable key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null 'key' argument.");
+        }
+        Integer index = indices.get(key.toString());
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Encodes keys as a dictionary, padded to a multiple of eight bytes.
+     *
+     * @param keys  the keys (no element may be <code>null</code>).
+     *
+     * @return The encoded dictionary.
+     */
+    static byte[] encodeKeys(List<?> keys) {
+        List<byte[]> encoded = new ArrayList<byte[]>(keys.size());
+        long length = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            Object key = keys.get(i);
+            if (key == null) {
+                throw new IllegalArgumentException("Null key at position "
+                        + i + ".");
+            }
+            byte[] bytes = key.toString().getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            length += 4 + bytes.length;
+        }
+        length = (length + 7) & ~7L;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Keys too large to store.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length).order(
+                ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < encoded.size(); i++) {
+            buffer.putInt(encoded.get(i).length).put(encoded.get(i));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Returns the string forms of the keys <code>0</code> to
+     * <code>count - 1</code>, used when a table has no keys of its own.
+     *
+     * @param count  the number of keys.
+     *
+     * @return The keys.
+     */
+    static List<String> indexKeyList(int count) {
+        List<String> keys = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(String.valueOf(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Maps a column of doubles, split into segments because a single mapping
+     * cannot exceed 2GB.
+     *
+     * @param channel  the file channel.
+     * @param offset  the file offset of the first double.
+     * @param count  the number of doubles.
+     *
+     * @return The segments.
+     *
+     * @throws IOException if there is an I/O problem.
+     */
+    static DoubleBuffer[] mapDoubles(FileChannel channel, long offset,
+            long count) throws IOException {
+        int segmentCount = (int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            long first = (long) s << SEGMENT_SHIFT;
+            long n = Math.min(count - first, SEGMENT_MASK + 1L);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    offset + first * 8, n * 8).order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer();
+        }
+        return segments;
+    }
+
+    /**
+     * Returns a value from a column mapped by
+     * {@link #mapDoubles(FileChannel, long, long)}.
+     *
+     * @param segments  the segments.
+     * @param index  the index of the value.
+     *
+     * @return The value.
+     */
+    static double get(DoubleBuffer[] segments, int index) {
+        return segments[index >>> SEGMENT_SHIFT].get(index & SEGMENT_MASK);
+    }
+
+    /**
+     * Returns a new buffer for writing a file.
+     *
+     * @return A direct, little-endian buffer.
+     */
+    static ByteBuffer allocateBuffer() {
+        return ByteBuffer.allocateDirect(1 << 16).order(
+                ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes the header and key dictionary.
+     *
+     * @param buffer  the write buffer (empty).
+     * @param channel  the channel.
+     * @param magic  the magic number.
+     * @param version  the format version.
+     * @param a  the first type-specific header field.
+     * @param b  the second type-specific header field.
+     * @param dictionary  the encoded key dictionary.
+     *
+     * @throws IOException if there is an I/O problem.
+     */
+    static void writeHeader(ByteBuffer buffer, FileChannel channel, int magic,
+            int version, int a, int b, byte[] dictionary) throws IOException {
+        buffer.putInt(magic).putInt(version).putInt(a).putInt(b).putLong(
+                dictionary.length);
+        drain(buffer, channel);
+        ByteBuffer keys = ByteBuffer.wrap(dictionary);
+        while (keys.hasRemaining()) {
+            channel.write(keys);
+        }
+    }
+
+    /**
+     * Appends a double to the write buffer, draining it first if it is
+     * full.
+     *
+     * @param buffer  the write buffer.
+     * @param channel  the channel.
+     * @param value  the value.
+     *
+     * @throws IOException if there is an I/O problem.
+     */
+    static void putDouble(ByteBuffer buffer, FileChannel channel, double value)
+            throws IOException {
+        if (buffer.remaining() < 8) {
+            drain(buffer, channel);
+        }
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Appends a long to the write buffer, draining it first if it is full.
+     *
+     * @param buffer  the write buffer.
+     * @param channel  the channel.
+     * @param value  the value.
+     *
+     * @throws IOException if there is an I/O problem.
+     */
+    static void putLong(ByteBuffer buffer, FileChannel channel, long value)
+            throws IOException {
+        if (buffer.remaining() < 8) {
+            drain(buffer, channel);
+        }
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes the contents of a buffer to a channel and clears the buffer.
+     *
+     * @param buffer  the buffer.
+     * @param channel  the channel.
+     *
+     * @throws IOException if there is an I/O problem.
+     */
+    static void drain(ByteBuffer buffer, FileChannel channel)
+            throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
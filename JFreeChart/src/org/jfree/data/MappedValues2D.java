@@ -0,0 +1,501 @@
+package org.jfree.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only {@link KeyedValues2D} implementation that reads its values
+ * straight from a memory-mapped file, so that a large table can be opened
+ * without parsing it or copying it onto the Java heap; the operating
+ * system's page cache holds the data instead.  Only the keys are read onto
+ * the heap when the file is opened.
+ * <P>
+ * The file layout is little-endian throughout:
+ * <ul>
+ * <li>a 24 byte header: the magic number <code>0x4A465632</code>, the
+ *     format version (2), the row count and the column count, each as a
+ *     four byte integer, then the length of the key dictionary as an eight
+ *     byte integer;</li>
+ * <li>the key dictionary: the row keys then the column keys, each as a
+ *     four byte length and its UTF-8 bytes, padded with zeros to a
+ *     multiple of eight bytes;</li>
+ * <li>the cell values in row-major order, eight bytes each, with
+ *     <code>Double.NaN</code> stored for a <code>null</code> cell;</li>
+ * <li>a bitmap with one bit set for every <code>null</code> cell, as eight
+ *     byte words.</li>
+ * </ul>
+ * Keys are stored in their string form, so they are read back as
+ * <code>String</code> objects, and any key can be looked up by an object
+ * with the same string form.  Use {@link #write(Values2D, File)} to convert
+ * an existing table and {@link #open(File)} to map it;
+ * {@link MappedCategoryDataset} presents the same file as a
+ * <code>CategoryDataset</code>.  Like {@link DoubleArrayValues2D}, this
+ * table is recognised by {@link PrimitiveDataUtilities}.
+ */
+public class MappedValues2D implements KeyedValues2D {
+
+    /** The magic number at the start of the file. */
+    private static final int MAGIC = 0x4A465632;
+
+    /** The format version. */
+    private static final int VERSION = 2;
+
+    /** The number of rows. */
+    private int rowCount;
+
+    /** The number of columns. */
+    private int columnCount;
+
+    /** The row keys. */
+    private List<String> rowKeys;
+
+    /** The column keys. */
+    private List<String> columnKeys;
+
+    /** A map from row key to row index. */
+    private Map<String, Integer> rowIndices;
+
+    /** A map from column key to column index. */
+    private Map<String, Integer> columnIndices;
+
+    /**
+     * The cell values, in row-major order, split into segments because a
+     * single mapping cannot exceed 2GB.
+     */
+    private DoubleBuffer[] segments;
+
+    /** The bitmap of <code>null</code> cells. */
+    private LongBuffer nulls;
+
+    /**
+     * Creates a new table over mapped buffers.
+     *
+     * @param rowKeys  the row keys.
+     * @param columnKeys  the column keys.
+     * @param segments  the cell values.
+     * @param nulls  the bitmap of <code>null</code> cells.
+     */
+    private MappedValues2D(List<String> rowKeys, List<String> columnKeys,
+            DoubleBuffer[] segments, LongBuffer nulls) {
+        this.rowCount = rowKeys.size();
+        this.columnCount = columnKeys.size();
+        this.rowKeys = Collections.unmodifiableList(rowKeys);
+        this.columnKeys = Collections.unmodifiableList(columnKeys);
+        this.rowIndices = MappedFormat.indexKeys(rowKeys);
+        this.columnIndices = MappedFormat.indexKeys(columnKeys);
+        this.segments = segments;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Maps a file written by {@link #write(Values2D, File)}.  The file is
+     * closed again before this method returns; the mapping remains valid
+     * until the table is garbage collected.
+     *
+     * @param file  the file (<code>null</code> not permitted).
+     *
+     * @return The table.
+     *
+     * @throws IOException if the file cannot be read or is not in the
+     *     expected format.
+     */
+    public static MappedValues2D open(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Null 'file' argument.");
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = MappedFormat.readHeader(channel, file,
+                    "Values2D", MAGIC, VERSION);
+            int rows = header.getInt(8);
+            int columns = header.getInt(12);
+            long dictionaryLength = header.getLong(16);
+            long size = (long) rows * columns;
+            if (rows < 0 || columns < 0 || size > Integer.MAX_VALUE
+                    || (long) rows + columns > Integer.MAX_VALUE) {
+                throw new IOException("Invalid table dimensions: " + file);
+            }
+            List<String> keys = MappedFormat.readKeys(channel, file,
+                    dictionaryLength, rows + columns);
+            long words = (size + 63) >>> 6;
+            long valuesOffset = MappedFormat.HEADER_LENGTH + dictionaryLength;
+            long nullsOffset = valuesOffset + size * 8;
+            if (channel.size() < nullsOffset + words * 8) {
+                throw new IOException("File too short: " + file);
+            }
+            DoubleBuffer[] segments = MappedFormat.mapDoubles(channel,
+                    valuesOffset, size);
+            LongBuffer nulls = channel.map(FileChannel.MapMode.READ_ONLY,
+                    nullsOffset, words * 8).order(ByteOrder.LITTLE_ENDIAN)
+                    .asLongBuffer();
+            return new MappedValues2D(new ArrayList<String>(
+                    keys.subList(0, rows)), new ArrayList<String>(
+                    keys.subList(rows, rows + columns)), segments, nulls);
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes a table to a file in the format read by {@link #open(File)}.
+     * The table is read once, in row-major order.  If the table is a
+     * {@link KeyedValues2D} (for example a <code>CategoryDataset</code>) its
+     * keys are stored; otherwise the row and column indices are stored as
+     * the keys.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param file  the file (<code>null</code> not permitted).
+     *
+     * @throws IOException if the file cannot be written.
+     * @throws InvalidParameterException if <code>data</code> is
+     *     <code>null</code>.
+     */
+    public static void write(Values2D data, File file) throws IOException {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("Null 'file' argument.");
+        }
+        int rows = data.getRowCount();
+        int columns = data.getColumnCount();
+        long size = (long) rows * columns;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Table too large: " + rows
+                    + " x " + columns + ".");
+        }
+        List<Object> keys = new ArrayList<Object>(rows + columns);
+        if (data instanceof KeyedValues2D) {
+            // the interface returns raw lists of Comparable keys
+            List<?> rowKeys = ((KeyedValues2D) data).getRowKeys();
+            List<?> columnKeys = ((KeyedValues2D) data).getColumnKeys();
+            keys.addAll(rowKeys);
+            keys.addAll(columnKeys);
+        }
+        else {
+            keys.addAll(MappedFormat.indexKeyList(rows));
+            keys.addAll(MappedFormat.indexKeyList(columns));
+        }
+        byte[] dictionary = MappedFormat.encodeKeys(keys);
+        long[] nullWords = new long[(int) ((size + 63) >>> 6)];
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = MappedFormat.allocateBuffer();
+            MappedFormat.writeHeader(buffer, channel, MAGIC, VERSION, rows,
+                    columns, dictionary);
+            int i = 0;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++, i++) {
+                    Number n = data.getValue(r, c);
+                    if (n == null) {
+                        nullWords[i >>> 6] |= 1L << i;
+                    }
+                    MappedFormat.putDouble(buffer, channel,
+                            n != null ? n.doubleValue() : Double.NaN);
+                }
+            }
+            for (int w = 0; w < nullWords.length; w++) {
+                MappedFormat.putLong(buffer, channel, nullWords[w]);
+            }
+            MappedFormat.drain(buffer, channel);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the number of columns in the table.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return this.columnCount;
+    }
+
+    /**
+     * Returns the key for a given row.
+     *
+     * @param row  the row index (zero based).
+     *
+     * @return The row key.
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public Comparable getRowKey(int row) {
+        return this.rowKeys.get(row);
+    }
+
+    /**
+     * Returns the row index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The row index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getRowIndex(Comparable key) {
+        return MappedFormat.indexOf(this.rowIndices, key);
+    }
+
+    /**
+     * Returns the row keys in an unmodifiable list.
+     *
+     * @return The row keys.
+     */
+    public List getRowKeys() {
+        return this.rowKeys;
+    }
+
+    /**
+     * Returns the key for a given column.
+     *
+     * @param column  the column index (zero based).
+     *
+     * @return The column key.
+     *
+     * @throws IndexOutOfBoundsException if <code>column</code> is out of
+     *     range.
+     */
+    public Comparable getColumnKey(int column) {
+        return this.columnKeys.get(column);
+    }
+
+    /**
+     * Returns the column index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The column index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getColumnIndex(Comparable key) {
+        return MappedFormat.indexOf(this.columnIndices, key);
+    }
+
+    /**
+     * Returns the column keys in an unmodifiable list.
+     *
+     * @return The column keys.
+     */
+    public List getColumnKeys() {
+        return this.columnKeys;
+    }
+
+    /**
+     * Returns the value for the given row and column keys.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws UnknownKeyException if either key is not recognised.
+     */
+    public Number getValue(Comparable rowKey, Comparable columnKey) {
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+        }
+        int column = getColumnIndex(columnKey);
+        if (column < 0) {
+            throw new UnknownKeyException("Unrecognised columnKey: "
+                    + columnKey);
+        }
+        return getValue(row, column);
+    }
+
+    /**
+     * Returns a value from the table.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getValue(int row, int column) {
+        int index = index(row, column);
+        if (isNull(index)) {
+            return null;
+        }
+        return Double.valueOf(get(index));
+    }
+
+    /**
+     * Returns a value from the table as a primitive.  A <code>null</code>
+     * cell is returned as <code>Double.NaN</code>.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return The value.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public double getDoubleValue(int row, int column) {
+        return get(index(row, column));
+    }
+
+    /**
+     * Returns <code>true</code> if the specified cell holds no value.
+     *
+     * @param row  the row index (zero-based).
+     * @param column  the column index (zero-based).
+     *
+     * @return A boolean.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public boolean isNull(int row, int column) {
+        return isNull(index(row, column));
+    }
+
+    /**
+     * Returns the total of the non-<code>null</code> values in one row.
+     *
+     * @param row  the row index (zero-based).
+     *
+     * @return The total.
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public double calculateRowTotal(int row) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("Row index out of bounds: "
+                    + row);
+        }
+        double total = 0.0;
+        int start = row * this.columnCount;
+        int end = start + this.columnCount;
+        for (int i = start; i < end; i++) {
+            double v = get(i);
+            if (v == v || !isNull(i)) {
+                total += v;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total of the non-<code>null</code> values in one column.
+     *
+     * @param column  the column index (zero-based).
+     *
+     * @return The total.
+     *
+     * @throws IndexOutOfBoundsException if <code>column</code> is out of
+     *     range.
+     */
+    public double calculateColumnTotal(int column) {
+        if (column < 0 || column >= this.columnCount) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        double total = 0.0;
+        int size = this.rowCount * this.columnCount;
+        for (int i = column; i < size; i += this.columnCount) {
+            double v = get(i);
+            if (v == v || !isNull(i)) {
+                total += v;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adds the values to the supplied row and column totals, reading the
+     * mapped cells once in row-major order.
+     *
+     * @param rowTotals  the row totals (<code>null</code> permitted).
+     * @param columnTotals  the column totals (<code>null</code> permitted).
+     */
+    void accumulateTotals(double[] rowTotals, double[] columnTotals) {
+        int i = 0;
+        for (int r = 0; r < this.rowCount; r++) {
+            double rowTotal = 0.0;
+            for (int c = 0; c < this.columnCount; c++, i++) {
+                double v = get(i);
+                if (v != v && isNull(i)) {
+                    continue;
+                }
+                rowTotal += v;
+                if (columnTotals != null) {
+                    columnTotals[c] += v;
+                }
+            }
+            if (rowTotals != null) {
+                rowTotals[r] = rowTotal;
+            }
+        }
+    }
+
+    /**
+     * Returns the value at the specified index in row-major order.
+     *
+     * @param index  the index.
+     *
+     * @return The value.
+     */
+    private double get(int index) {
+        return MappedFormat.get(this.segments, index);
+    }
+
+    /**
+     * Returns the row-major index for the specified cell.
+     *
+     * @param row  the row index.
+     * @param column  the column index.
+     *
+     * @return The index.
+     */
+    private int index(int row, int column) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("Row index out of bounds: "
+                    + row);
+        }
+        if (column < 0 || column >= this.columnCount) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        return row * this.columnCount + column;
+    }
+
+    /**
+     * Returns <code>true</code> if the cell at the specified index is
+     * flagged as <code>null</code>.
+     *
+     * @param index  the index.
+     *
+     * @return A boolean.
+     */
+    private boolean isNull(int index) {
+        return (this.nulls.get(index >>> 6) & (1L << index)) != 0L;
+    }
+
+}
@@ -0,0 +1,363 @@
+package org.jfree.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * A read-only {@link XYDataset} that reads its values straight from a
+ * memory-mapped file, for series too large to load into an
+ * <code>XYSeriesCollection</code>.  Opening the file reads only the series
+ * keys and item counts; the x and y values stay in the operating system's
+ * page cache and are read when they are used.
+ * <P>
+ * The file layout is little-endian throughout:
+ * <ul>
+ * <li>a 24 byte header: the magic number <code>0x4A465859</code>, the
+ *     format version (1), the series count and a flags word (bit 0 is set
+ *     if the x values of every series are in ascending order), each as a
+ *     four byte integer, then the length of the key dictionary as an eight
+ *     byte integer;</li>
+ * <li>the key dictionary: the series keys, each as a four byte length and
+ *     its UTF-8 bytes, padded with zeros to a multiple of eight bytes;</li>
+ * <li>the item count of each series, eight bytes each;</li>
+ * <li>for each series in turn, its x values and then its y values, eight
+ *     bytes each.  A <code>null</code> y value is stored as
+ *     <code>Double.NaN</code>.</li>
+ * </ul>
+ * The series keys are read back as <code>String</code> objects.  A
+ * serialized dataset records only the file name, and maps the file again
+ * when it is deserialized.
+ */
+public class MappedXYDataset extends AbstractXYDataset {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 2284716533512850749L;
+
+    /** The magic number at the start of the file. */
+    private static final int MAGIC = 0x4A465859;
+
+    /** The format version. */
+    private static final int VERSION = 1;
+
+    /** The flag for x values in ascending order. */
+    private static final int ASCENDING = 1;
+
+    /** The file. */
+    private File file;
+
+    /** The series keys. */
+    private transient List<String> seriesKeys;
+
+    /** The item count of each series. */
+    private transient int[] itemCounts;
+
+    /** The x values of each series. */
+    private transient DoubleBuffer[][] xValues;
+
+    /** The y values of each series. */
+    private transient DoubleBuffer[][] yValues;
+
+    /** Whether the x values of every series are in ascending order. */
+    private transient boolean ascending;
+
+    /**
+     * Creates a new dataset by mapping a file.
+     *
+     * @param file  the file.
+     *
+     * @throws IOException if the file cannot be read or is not in the
+     *     expected format.
+     */
+    private MappedXYDataset(File file) throws IOException {
+        this.file = file;
+        map();
+    }
+
+    /**
+     * Maps a file written by {@link #write(XYDataset, File)}.  The file is
+     * closed again before this method returns; the mapping remains valid
+     * until the dataset is garbage collected.
+     *
+     * @param file  the file (<code>null</code> not permitted).
+     *
+     * @return The dataset.
+     *
+     * @throws IOException if the file cannot be read or is not in the
+     *     expected format.
+     */
+    public static MappedXYDataset open(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Null 'file' argument.");
+        }
+        return new MappedXYDataset(file);
+    }
+
+    /**
+     * Writes a dataset to a file in the format read by {@link #open(File)}.
+     * Each series is read twice, once for its x values and once for its y
+     * values.
+     *
+     * @param dataset  the dataset (<code>null</code> not permitted).
+     * @param file  the file (<code>null</code> not permitted).
+     *
+     * @throws IOException if the file cannot be written.
+     * @throws InvalidParameterException if <code>dataset</code> is
+     *     <code>null</code>.
+     */
+    public static void write(XYDataset dataset, File file) throws IOException {
+        if (dataset == null) {
+            throw new InvalidParameterException("Null 'dataset' argument.");
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("Null 'file' argument.");
+        }
+        int seriesCount = dataset.getSeriesCount();
+        List<Comparable> keys = new ArrayList<Comparable>(seriesCount);
+        int flags = ASCENDING;
+        for (int s = 0; s < seriesCount; s++) {
+            keys.add(dataset.getSeriesKey(s));
+            double previous = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < dataset.getItemCount(s); i++) {
+                double x = dataset.getXValue(s, i);
+                if (!(x >= previous)) {
+                    flags = 0;
+                    break;
+                }
+                previous = x;
+            }
+        }
+        byte[] dictionary = MappedFormat.encodeKeys(keys);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = MappedFormat.allocateBuffer();
+            MappedFormat.writeHeader(buffer, channel, MAGIC, VERSION,
+                    seriesCount, flags, dictionary);
+            for (int s = 0; s < seriesCount; s++) {
+                MappedFormat.putLong(buffer, channel, dataset.getItemCount(s));
+            }
+            for (int s = 0; s < seriesCount; s++) {
+                int n = dataset.getItemCount(s);
+                for (int i = 0; i < n; i++) {
+                    MappedFormat.putDouble(buffer, channel,
+                            dataset.getXValue(s, i));
+                }
+                for (int i = 0; i < n; i++) {
+                    Number y = dataset.getY(s, i);
+                    MappedFormat.putDouble(buffer, channel,
+                            y != null ? y.doubleValue() : Double.NaN);
+                }
+            }
+            MappedFormat.drain(buffer, channel);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Maps the file and reads the series keys and item counts.
+     *
+     * @throws IOException if the file cannot be read or is not in the
+     *     expected format.
+     */
+    private void map() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = MappedFormat.readHeader(channel, this.file,
+                    "XYDataset", MAGIC, VERSION);
+            int seriesCount = header.getInt(8);
+            long dictionaryLength = header.getLong(16);
+            if (seriesCount < 0) {
+                throw new IOException("Invalid series count: " + this.file);
+            }
+            List<String> keys = MappedFormat.readKeys(channel, this.file,
+                    dictionaryLength, seriesCount);
+            long countsOffset = MappedFormat.HEADER_LENGTH + dictionaryLength;
+            long offset = countsOffset + seriesCount * 8L;
+            if (channel.size() < offset) {
+                throw new IOException("File too short: " + this.file);
+            }
+            LongBuffer counts = channel.map(FileChannel.MapMode.READ_ONLY,
+                    countsOffset, seriesCount * 8L).order(
+                    ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            int[] n = new int[seriesCount];
+            DoubleBuffer[][] x = new DoubleBuffer[seriesCount][];
+            DoubleBuffer[][] y = new DoubleBuffer[seriesCount][];
+            for (int s = 0; s < seriesCount; s++) {
+                long count = counts.get(s);
+                if (count < 0 || count > Integer.MAX_VALUE
+                        || channel.size() < offset + count * 16) {
+                    throw new IOException("Invalid item count for series "
+                            + s + ": " + this.file);
+                }
+                n[s] = (int) count;
+                x[s] = MappedFormat.mapDoubles(channel, offset, count);
+                y[s] = MappedFormat.mapDoubles(channel, offset + count * 8,
+                        count);
+                offset += count * 16;
+            }
+            this.seriesKeys = keys;
+            this.itemCounts = n;
+            this.xValues = x;
+            this.yValues = y;
+            this.ascending = (header.getInt(12) & ASCENDING) != 0;
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the number of series in the dataset.
+     *
+     * @return The series count.
+     */
+    public int getSeriesCount() {
+        return this.seriesKeys.size();
+    }
+
+    /**
+     * Returns the key for a series.
+     *
+     * @param series  the series index (zero-based).
+     *
+     * @return The series key.
+     *
+     * @throws IndexOutOfBoundsException if <code>series</code> is out of
+     *     range.
+     */
+    public Comparable getSeriesKey(int series) {
+        return this.seriesKeys.get(series);
+    }
+
+    /**
+     * Returns the order of the x values: {@link DomainOrder#ASCENDING} if
+     * the x values of every series were in ascending order when the file
+     * was written, and {@link DomainOrder#NONE} otherwise.
+     *
+     * @return The domain order.
+     */
+    public DomainOrder getDomainOrder() {
+        return this.ascending ? DomainOrder.ASCENDING : DomainOrder.NONE;
+    }
+
+    /**
+     * Returns the number of items in a series.
+     *
+     * @param series  the series index (zero-based).
+     *
+     * @return The item count.
+     *
+     * @throws IndexOutOfBoundsException if <code>series</code> is out of
+     *     range.
+     */
+    public int getItemCount(int series) {
+        return this.itemCounts[series];
+    }
+
+    /**
+     * Returns the x value of an item.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The x value.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public double getXValue(int series, int item) {
+        return MappedFormat.get(this.xValues[series],
+                checkItem(series, item));
+    }
+
+    /**
+     * Returns the y value of an item.  A <code>null</code> y value is
+     * returned as <code>Double.NaN</code>.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The y value.
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public double getYValue(int series, int item) {
+        return MappedFormat.get(this.yValues[series],
+                checkItem(series, item));
+    }
+
+    /**
+     * Returns the x value of an item.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The x value (never <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getX(int series, int item) {
+        return Double.valueOf(getXValue(series, item));
+    }
+
+    /**
+     * Returns the y value of an item.
+     *
+     * @param series  the series index (zero-based).
+     * @param item  the item index (zero-based).
+     *
+     * @return The y value (never <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getY(int series, int item) {
+        return Double.valueOf(getYValue(series, item));
+    }
+
+    /**
+     * Checks an item index.
+     *
+     * @param series  the series index.
+     * @param item  the item index.
+     *
+     * @return The item index.
+     */
+    private int checkItem(int series, int item) {
+        if (item < 0 || item >= this.itemCounts[series]) {
+            throw new IndexOutOfBoundsException("Item index out of bounds: "
+                    + item);
+        }
+        return item;
+    }
+
+    /**
+     * Provides serialization support.
+     *
+     * @param stream  the input stream.
+     *
+     * @throws IOException  if there is an I/O error.
+     * @throws ClassNotFoundException  if there is a classpath problem.
+     */
+    private void readObject(ObjectInputStream stream)
+            throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        map();
+    }
+
+}
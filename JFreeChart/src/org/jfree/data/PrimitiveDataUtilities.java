@@ -0,0 +1,572 @@
+package org.jfree.data;
+
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Utility methods that complement {@link DataUtilities} with fast paths for
+ * tables that store their values as primitives.  Where a table is not
+ * recognised, the methods in this class fall back to the equivalent method
+ * in {@link DataUtilities}.
+ */
+public abstract class PrimitiveDataUtilities {
+
+    /**
+     * The default number of cells below which the parallel total methods
+     * calculate the total sequentially.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 16384;
+
+    /**
+     * Returns the total of the values in one column of the supplied data
+     * table.  If the table is a {@link DoubleArrayValues2D} or a
+     * {@link MappedValues2D}, the total is calculated directly from the
+     * primitive values, and if it is a {@link SparseKeyedValues2D} only the
+     * stored cells are visited.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param column  the column index (zero-based).
+     *
+     * @return The total of the values in the specified column.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static double calculateColumnTotal(Values2D data, int column) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        if (data instanceof DoubleArrayValues2D) {
+            return calculateColumnTotal((DoubleArrayValues2D) data, column);
+        }
+        if (data instanceof SparseKeyedValues2D) {
+            return ((SparseKeyedValues2D) data).calculateColumnTotal(column);
+        }
+        if (data instanceof MappedValues2D) {
+            return ((MappedValues2D) data).calculateColumnTotal(column);
+        }
+        return DataUtilities.calculateColumnTotal(data, column);
+    }
+
+    /**
+     * Returns the total of the values in one column of the supplied data
+     * table, summing the primitive values without boxing.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param column  the column index (zero-based).
+     *
+     * @return The total of the values in the specified column.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static double calculateColumnTotal(DoubleArrayValues2D data,
+            int column) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        return data.calculateColumnTotal(column);
+    }
+
+    /**
+     * Returns the total of the values in one row of the supplied data
+     * table.  If the table is a {@link DoubleArrayValues2D} or a
+     * {@link MappedValues2D}, the total is calculated directly from the
+     * primitive values, and if it is a {@link SparseKeyedValues2D} only the
+     * stored cells are visited.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param row  the row index (zero-based).
+     *
+     * @return The total of the values in the specified row.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static double calculateRowTotal(Values2D data, int row) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        if (data instanceof DoubleArrayValues2D) {
+            return calculateRowTotal((DoubleArrayValues2D) data, row);
+        }
+        if (data instanceof SparseKeyedValues2D) {
+            return ((SparseKeyedValues2D) data).calculateRowTotal(row);
+        }
+        if (data instanceof MappedValues2D) {
+            return ((MappedValues2D) data).calculateRowTotal(row);
+        }
+        return DataUtilities.calculateRowTotal(data, row);
+    }
+
+    /**
+     * Returns the total of the values in one row of the supplied data
+     * table, summing the primitive values without boxing.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param row  the row index (zero-based).
+     *
+     * @return The total of the values in the specified row.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static double calculateRowTotal(DoubleArrayValues2D data,
+            int row) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        return data.calculateRowTotal(row);
+    }
+
+    /**
+     * Returns a list view of the supplied array.  This is a lazy alternative
+     * to {@link DataUtilities#createNumberArray(double[])}: the array is not
+     * copied and each element is boxed only when it is read.
+     *
+     * @param data  the data (<code>null</code> not permitted).
+     *
+     * @return A list view of the array.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static List<Number> createNumberList(double[] data) {
+        return createNumberList(data, false);
+    }
+
+    /**
+     * Returns a list view of the supplied array, optionally returning common
+     * values (whole numbers from -128 to 127, including 0.0 and 1.0) as
+     * shared <code>Double</code> instances.
+     *
+     * @param data  the data (<code>null</code> not permitted).
+     * @param canonical  use shared instances for common values?
+     *
+     * @return A list view of the array.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static List<Number> createNumberList(double[] data,
+            boolean canonical) {
+        return new DoubleArrayNumberList(data, canonical);
+    }
+
+    /**
+     * Returns a {@link Values2D} view of the supplied array.  This is a lazy
+     * alternative to {@link DataUtilities#createNumberArray2D(double[][])}:
+     * the array is not copied and each value is boxed only when it is read.
+     *
+     * @param data  the data (<code>null</code> not permitted).
+     *
+     * @return A view of the array.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static DoubleArrayValues2DView createValues2D(double[][] data) {
+        return createValues2D(data, false);
+    }
+
+    /**
+     * Returns a {@link Values2D} view of the supplied array, optionally
+     * returning common values as shared <code>Double</code> instances.
+     *
+     * @param data  the data (<code>null</code> not permitted).
+     * @param canonical  use shared instances for common values?
+     *
+     * @return A view of the array.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static DoubleArrayValues2DView createValues2D(double[][] data,
+            boolean canonical) {
+        return new DoubleArrayValues2DView(data, canonical);
+    }
+
+    /**
+     * Returns the totals of the values in every row of the supplied data
+     * table.  <code>null</code> values are ignored.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     *
+     * @return An array containing one total per row.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static double[] calculateAllRowTotals(Values2D data) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        double[] rowTotals = new double[data.getRowCount()];
+        accumulateTotals(data, rowTotals, null);
+        return rowTotals;
+    }
+
+    /**
+     * Returns the totals of the values in every column of the supplied data
+     * table.  <code>null</code> values are ignored.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     *
+     * @return An array containing one total per column.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static double[] calculateAllColumnTotals(Values2D data) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        double[] columnTotals = new double[data.getColumnCount()];
+        accumulateTotals(data, null, columnTotals);
+        return columnTotals;
+    }
+
+    /**
+     * Returns both the row totals and the column totals of the supplied data
+     * table, calculated in a single row-by-row pass over the table.
+     * <code>null</code> values are ignored.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     *
+     * @return A two element array: the row totals at index 0 and the column
+     *     totals at index 1.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     */
+    public static double[][] calculateMarginTotals(Values2D data) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        double[] rowTotals = new double[data.getRowCount()];
+        double[] columnTotals = new double[data.getColumnCount()];
+        accumulateTotals(data, rowTotals, columnTotals);
+        return new double[][] {rowTotals, columnTotals};
+    }
+
+    /**
+     * Adds the values in a table to the supplied row and column totals,
+     * visiting each cell once in row-major order.
+     *
+     * @param data  the table of values.
+     * @param rowTotals  the row totals (<code>null</code> permitted).
+     * @param columnTotals  the column totals (<code>null</code> permitted).
+     */
+    private static void accumulateTotals(Values2D data, double[] rowTotals,
+            double[] columnTotals) {
+        if (data instanceof DoubleArrayValues2D) {
+            ((DoubleArrayValues2D) data).accumulateTotals(rowTotals,
+                    columnTotals);
+            return;
+        }
+        if (data instanceof SparseKeyedValues2D) {
+            ((SparseKeyedValues2D) data).accumulateTotals(rowTotals,
+                    columnTotals);
+            return;
+        }
+        if (data instanceof MappedValues2D) {
+            ((MappedValues2D) data).accumulateTotals(rowTotals,
+                    columnTotals);
+            return;
+        }
+        int rowCount = data.getRowCount();
+        int columnCount = data.getColumnCount();
+        for (int r = 0; r < rowCount; r++) {
+            double rowTotal = 0.0;
+            for (int c = 0; c < columnCount; c++) {
+                Number n = data.getValue(r, c);
+                if (n != null) {
+                    double v = n.doubleValue();
+                    rowTotal += v;
+                    if (columnTotals != null) {
+                        columnTotals[c] += v;
+                    }
+                }
+            }
+            if (rowTotals != null) {
+                rowTotals[r] = rowTotal;
+            }
+        }
+    }
+
+    /**
+     * Returns the total of the values in one column of the supplied data
+     * table, splitting the rows across the common fork-join pool.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param column  the column index (zero-based).
+     *
+     * @return The total of the values in the specified column.
+     *
+     * @see #calculateColumnTotalParallel(Values2D, int, ForkJoinPool, int)
+     */
+    public static double calculateColumnTotalParallel(Values2D data,
+            int column) {
+        return calculateColumnTotalParallel(data, column,
+                ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Returns the total of the values in one column of the supplied data
+     * table, splitting the rows across the supplied fork-join pool.  The
+     * values are added with compensated (Neumaier) summation, so the total
+     * is close to the exact sum regardless of how the rows are split.
+     * <code>null</code> values are ignored.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param column  the column index (zero-based).
+     * @param pool  the pool that runs the summation tasks
+     *              (<code>null</code> not permitted).
+     * @param threshold  the number of rows below which a task sums its rows
+     *                   sequentially (must be positive).
+     *
+     * @return The total of the values in the specified column.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     * @throws IndexOutOfBoundsException if <code>column</code> is out of
+     *     range.
+     */
+    public static double calculateColumnTotalParallel(Values2D data,
+            int column, ForkJoinPool pool, int threshold) {
+        checkParallelArguments(data, pool, threshold);
+        if (column < 0 || column >= data.getColumnCount()) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        LineTotalTask task = new LineTotalTask(data, column, false, 0,
+                data.getRowCount(), threshold);
+        return task.isSequential() ? finishTotal(task.compute())
+                : finishTotal(pool.invoke(task));
+    }
+
+    /**
+     * Returns the total of the values in one row of the supplied data table,
+     * splitting the columns across the common fork-join pool.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param row  the row index (zero-based).
+     *
+     * @return The total of the values in the specified row.
+     *
+     * @see #calculateRowTotalParallel(Values2D, int, ForkJoinPool, int)
+     */
+    public static double calculateRowTotalParallel(Values2D data, int row) {
+        return calculateRowTotalParallel(data, row, ForkJoinPool.commonPool(),
+                DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Returns the total of the values in one row of the supplied data table,
+     * splitting the columns across the supplied fork-join pool.  The values
+     * are added with compensated (Neumaier) summation, so the total is close
+     * to the exact sum regardless of how the columns are split.
+     * <code>null</code> values are ignored.
+     *
+     * @param data  the table of values (<code>null</code> not permitted).
+     * @param row  the row index (zero-based).
+     * @param pool  the pool that runs the summation tasks
+     *              (<code>null</code> not permitted).
+     * @param threshold  the number of columns below which a task sums its
+     *                   columns sequentially (must be positive).
+     *
+     * @return The total of the values in the specified row.
+     *
+     * @throws InvalidParameterException if an invalid data object is passed
+     *     in.
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public static double calculateRowTotalParallel(Values2D data, int row,
+            ForkJoinPool pool, int threshold) {
+        checkParallelArguments(data, pool, threshold);
+        if (row < 0 || row >= data.getRowCount()) {
+            throw new IndexOutOfBoundsException("Row index out of bounds: "
+                    + row);
+        }
+        LineTotalTask task = new LineTotalTask(data, row, true, 0,
+                data.getColumnCount(), threshold);
+        return task.isSequential() ? finishTotal(task.compute())
+                : finishTotal(pool.invoke(task));
+    }
+
+    /**
+     * Checks the arguments common to the parallel total methods.
+     *
+     * @param data  the table of values.
+     * @param pool  the fork-join pool.
+     * @param threshold  the sequential threshold.
+     */
+    private static void checkParallelArguments(Values2D data,
+            ForkJoinPool pool, int threshold) {
+        if (data == null) {
+            throw new InvalidParameterException("Null 'data' argument.");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Null 'pool' argument.");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException(
+                    "Requires 'threshold' to be positive.");
+        }
+    }
+
+    /**
+     * Converts a compensated partial sum into a total.  If the sum has
+     * overflowed or is <code>NaN</code>, the compensation term is
+     * meaningless and is discarded.
+     *
+     * @param partial  the sum (index 0) and its compensation (index 1).
+     *
+     * @return The total.
+     */
+    private static double finishTotal(double[] partial) {
+        double sum = partial[0];
+        if (Double.isInfinite(sum) || Double.isNaN(sum)) {
+            return sum;
+        }
+        return sum + partial[1];
+    }
+
+    /**
+     * A task that sums a range of cells along one row or one column of a
+     * table, using Neumaier summation.  The result is a two element array
+     * holding the running sum and its compensation term.
+     */
+    private static final class LineTotalTask extends RecursiveTask<double[]> {
+
+        /** For serialization. */
+        private static final long serialVersionUID = -2098056244060301047L;
+
+        /** The table. */
+        private final Values2D data;
+
+        /** The primitive table, if the data is one, otherwise null. */
+        private final DoubleArrayValues2D table;
+
+        /** The row or column index of the line being summed. */
+        private final int line;
+
+        /** A flag that indicates whether the line is a row. */
+        private final boolean row;
+
+        /** The first cell index along the line (inclusive). */
+        private final int from;
+
+        /** The last cell index along the line (exclusive). */
+        private final int to;
+
+        /** The number of cells below which the task does not split. */
+        private final int threshold;
+
+        /**
+         * Creates a task that sums the cells <code>from</code> (inclusive)
+         * to <code>to</code> (exclusive) along one line of a table.
+         *
+         * @param data  the table.
+         * @param line  the row or column index.
+         * @param row  <code>true</code> if <code>line</code> is a row index.
+         * @param from  the first cell index.
+         * @param to  the end cell index.
+         * @param threshold  the sequential threshold.
+         */
+        LineTotalTask(Values2D data, int line, boolean row, int from, int to,
+                int threshold) {
+            this.data = data;
+            this.table = data instanceof DoubleArrayValues2D
+                    ? (DoubleArrayValues2D) data : null;
+            this.line = line;
+            this.row = row;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        /**
+         * Returns <code>true</code> if this task is small enough to be
+         * summed without splitting.
+         *
+         * @return A boolean.
+         */
+        boolean isSequential() {
+            return this.to - this.from <= this.threshold;
+        }
+
+        /**
+         * Sums the cells, splitting the range in two if it is larger than
+         * the threshold.
+         *
+         * @return The sum and its compensation term.
+         */
+        protected double[] compute() {
+            if (isSequential()) {
+                return sumSequential();
+            }
+            int mid = (this.from + this.to) >>> 1;
+            LineTotalTask left = new LineTotalTask(this.data, this.line,
+                    this.row, this.from, mid, this.threshold);
+            LineTotalTask right = new LineTotalTask(this.data, this.line,
+                    this.row, mid, this.to, this.threshold);
+            right.fork();
+            double[] result = left.compute();
+            double[] other = right.join();
+            add(result, other[0]);
+            result[1] += other[1];
+            return result;
+        }
+
+        /**
+         * Sums the cells in a single loop.
+         *
+         * @return The sum and its compensation term.
+         */
+        private double[] sumSequential() {
+            double[] result = new double[2];
+            int columnCount = this.data.getColumnCount();
+            for (int i = this.from; i < this.to; i++) {
+                if (this.table != null) {
+                    int index = this.row ? this.line * columnCount + i
+                            : i * columnCount + this.line;
+                    if (!this.table.isNullValue(index)) {
+                        add(result, this.table.getDoubleValue(index));
+                    }
+                }
+                else {
+                    Number n = this.row ? this.data.getValue(this.line, i)
+                            : this.data.getValue(i, this.line);
+                    if (n != null) {
+                        add(result, n.doubleValue());
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Adds a value to a compensated sum (Neumaier's variant of Kahan
+         * summation).
+         *
+         * @param acc  the sum (index 0) and its compensation (index 1).
+         * @param v  the value to add.
+         */
+        private static void add(double[] acc, double v) {
+            double sum = acc[0];
+            double t = sum + v;
+            if (Math.abs(sum) >= Math.abs(v)) {
+                acc[1] += (sum - t) + v;
+            }
+            else {
+                acc[1] += (v - t) + sum;
+            }
+            acc[0] = t;
+        }
+
+    }
+
+}
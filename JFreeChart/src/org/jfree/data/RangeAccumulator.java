@@ -0,0 +1,251 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+
+/**
+ * A mutable companion to {@link Range} for code that builds a range from
+ * many values, such as axis auto-ranging.  The include, combine, shift and
+ * expand operations update the accumulator in place, so no intermediate
+ * <code>Range</code> objects are created; call {@link #toRange()} once at
+ * the end to obtain the immutable result.
+ * <P>
+ * A new accumulator is empty.  <code>NaN</code> values are ignored, in the
+ * same way that the dataset bounds methods skip them.
+ */
+public class RangeAccumulator implements Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -2777045567587171396L;
+
+    /** The lower bound (positive infinity when empty). */
+    private double lower;
+
+    /** The upper bound (negative infinity when empty). */
+    private double upper;
+
+    /**
+     * Creates a new, empty accumulator.
+     */
+    public RangeAccumulator() {
+        reset();
+    }
+
+    /**
+     * Creates a new accumulator initialised to the supplied range.
+     *
+     * @param range  the initial range (<code>null</code> permitted, in which
+     *               case the accumulator is empty).
+     */
+    public RangeAccumulator(Range range) {
+        reset();
+        include(range);
+    }
+
+    /**
+     * Returns <code>true</code> if no value has been included yet.
+     *
+     * @return A boolean.
+     */
+    public boolean isEmpty() {
+        return this.lower > this.upper;
+    }
+
+    /**
+     * Returns the lower bound, or <code>Double.NaN</code> if the accumulator
+     * is empty.
+     *
+     * @return The lower bound.
+     */
+    public double getLowerBound() {
+        return isEmpty() ? Double.NaN : this.lower;
+    }
+
+    /**
+     * Returns the upper bound, or <code>Double.NaN</code> if the accumulator
+     * is empty.
+     *
+     * @return The upper bound.
+     */
+    public double getUpperBound() {
+        return isEmpty() ? Double.NaN : this.upper;
+    }
+
+    /**
+     * Clears the accumulator.
+     */
+    public void reset() {
+        this.lower = Double.POSITIVE_INFINITY;
+        this.upper = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Extends the accumulated range to include the specified value.  This is
+     * the in-place equivalent of
+     * {@link Range#expandToInclude(Range, double)}.
+     *
+     * @param value  the value (<code>NaN</code> is ignored).
+     */
+    public void include(double value) {
+        if (value < this.lower) {
+            this.lower = value;
+        }
+        if (value > this.upper) {
+            this.upper = value;
+        }
+    }
+
+    /**
+     * Extends the accumulated range to include the interval
+     * <code>[lowerValue, upperValue]</code>.
+     *
+     * @param lowerValue  the lower value (<code>NaN</code> is ignored).
+     * @param upperValue  the upper value (<code>NaN</code> is ignored).
+     *
+     * @throws IllegalArgumentException if <code>lowerValue</code> is greater
+     *     than <code>upperValue</code>.
+     */
+    public void include(double lowerValue, double upperValue) {
+        if (lowerValue > upperValue) {
+            throw new IllegalArgumentException("Requires 'lowerValue' ("
+                    + lowerValue + ") <= 'upperValue' (" + upperValue + ").");
+        }
+        if (lowerValue < this.lower) {
+            this.lower = lowerValue;
+        }
+        if (upperValue > this.upper) {
+            this.upper = upperValue;
+        }
+    }
+
+    /**
+     * Extends the accumulated range to include the specified range.  This is
+     * the in-place equivalent of {@link Range#combine(Range, Range)}.
+     *
+     * @param range  the range (<code>null</code> permitted, in which case
+     *               the accumulator is unchanged).
+     */
+    public void include(Range range) {
+        if (range != null) {
+            include(range.getLowerBound(), range.getUpperBound());
+        }
+    }
+
+    /**
+     * Extends the accumulated range to include the range held by another
+     * accumulator.
+     *
+     * @param other  the other accumulator (<code>null</code> permitted).
+     */
+    public void combine(RangeAccumulator other) {
+        if (other != null && !other.isEmpty()) {
+            include(other.lower, other.upper);
+        }
+    }
+
+    /**
+     * Shifts the accumulated range by the specified amount, allowing the
+     * bounds to cross zero.  An empty accumulator is unchanged.
+     *
+     * @param delta  the shift amount.
+     */
+    public void shift(double delta) {
+        shift(delta, true);
+    }
+
+    /**
+     * Shifts the accumulated range by the specified amount.  This is the
+     * in-place equivalent of {@link Range#shift(Range, double, boolean)}.
+     * An empty accumulator is unchanged.
+     *
+     * @param delta  the shift amount.
+     * @param allowZeroCrossing  if <code>false</code>, a bound that would
+     *                           cross zero stops at zero instead.
+     */
+    public void shift(double delta, boolean allowZeroCrossing) {
+        if (isEmpty()) {
+            return;
+        }
+        if (allowZeroCrossing) {
+            this.lower += delta;
+            this.upper += delta;
+        }
+        else {
+            this.lower = shiftWithNoZeroCrossing(this.lower, delta);
+            this.upper = shiftWithNoZeroCrossing(this.upper, delta);
+        }
+    }
+
+    /**
+     * Expands the accumulated range by the specified margins, each expressed
+     * as a fraction of the current length.  This is the in-place equivalent
+     * of {@link Range#expand(Range, double, double)}.  An empty accumulator
+     * is unchanged.
+     *
+     * @param lowerMargin  the lower margin.
+     * @param upperMargin  the upper margin.
+     *
+     * @throws IllegalArgumentException if negative margins would move the
+     *     lower bound above the upper bound (the accumulator is then left
+     *     unchanged).
+     */
+    public void expand(double lowerMargin, double upperMargin) {
+        if (isEmpty()) {
+            return;
+        }
+        double length = this.upper - this.lower;
+        double newLower = this.lower - length * lowerMargin;
+        double newUpper = this.upper + length * upperMargin;
+        if (newLower > newUpper) {
+            throw new IllegalArgumentException("Margins (" + lowerMargin
+                    + ", " + upperMargin + ") would invert the range.");
+        }
+        this.lower = newLower;
+        this.upper = newUpper;
+    }
+
+    /**
+     * Returns the accumulated range as an immutable {@link Range}.
+     *
+     * @return The range, or <code>null</code> if the accumulator is empty.
+     */
+    public Range toRange() {
+        if (isEmpty()) {
+            return null;
+        }
+        return new Range(this.lower, this.upper);
+    }
+
+    /**
+     * Adds <code>delta</code> to <code>value</code>, stopping at zero if the
+     * result would change sign.
+     *
+     * @param value  the value.
+     * @param delta  the shift amount.
+     *
+     * @return The shifted value.
+     */
+    private static double shiftWithNoZeroCrossing(double value, double delta) {
+        if (value > 0.0) {
+            return Math.max(value + delta, 0.0);
+        }
+        else if (value < 0.0) {
+            return Math.min(value + delta, 0.0);
+        }
+        else {
+            return value + delta;
+        }
+    }
+
+    /**
+     * Returns a string representation of the accumulator.
+     *
+     * @return A string.
+     */
+    public String toString() {
+        if (isEmpty()) {
+            return "RangeAccumulator[empty]";
+        }
+        return "RangeAccumulator[" + this.lower + "," + this.upper + "]";
+    }
+
+}
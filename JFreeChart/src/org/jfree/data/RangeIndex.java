@@ -0,0 +1,333 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An immutable index over a collection of ranges that answers "which
+ * ranges contain <code>x</code>?" and "which ranges overlap
+ * <code>[a, b]</code>?" without testing every range in turn.
+ * <P>
+ * The ranges are sorted by lower bound and stored in an implicit, balanced
+ * binary tree: each node records the largest upper bound in its subtree,
+ * so whole subtrees that end before the query, or start after it, are
+ * skipped.  A query visits O(min(n, (k + 1) log n)) nodes, where k is the
+ * number of matching ranges, so it never does worse than a linear scan; the
+ * cost approaches O(log n + k) when the matches are adjacent in sort order.
+ * <P>
+ * Ranges and queries are treated as closed intervals, so a range that only
+ * touches the query at one end point is included in the result.  This
+ * matches {@link Range#contains(double)}, but not
+ * {@link Range#intersects(double, double)}, which excludes a range that
+ * only touches at an end point; that is why the interval queries are named
+ * "overlapping" rather than "intersecting".
+ */
+public class RangeIndex implements Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 4411360529376205712L;
+
+    /**
+     * The ranges, sorted by lower bound, or <code>null</code> if the index
+     * was built from arrays of bounds.
+     */
+    private Range[] ranges;
+
+    /**
+     * The position of each sorted range in the order the ranges were
+     * supplied.
+     */
+    private int[] positions;
+
+    /** The lower bounds, in sorted order. */
+    private double[] lowers;
+
+    /** The upper bounds, in sorted order. */
+    private double[] uppers;
+
+    /**
+     * The largest upper bound in the subtree rooted at each node, where the
+     * node for the slice <code>[lo, hi)</code> is at <code>(lo + hi) / 2</code>.
+     */
+    private double[] maxUppers;
+
+    /**
+     * Creates a new index over the supplied ranges.
+     *
+     * @param ranges  the ranges (<code>null</code> not permitted, and no
+     *                element may be <code>null</code>).
+     */
+    public RangeIndex(Collection<Range> ranges) {
+        if (ranges == null) {
+            throw new IllegalArgumentException("Null 'ranges' argument.");
+        }
+        int n = ranges.size();
+        Range[] items = new Range[n];
+        double[] lo = new double[n];
+        double[] hi = new double[n];
+        Iterator<Range> iterator = ranges.iterator();
+        for (int i = 0; i < n; i++) {
+            Range range = iterator.next();
+            if (range == null) {
+                throw new IllegalArgumentException("Null range at position "
+                        + i + ".");
+            }
+            items[i] = range;
+            lo[i] = range.getLowerBound();
+            hi[i] = range.getUpperBound();
+        }
+        build(items, lo, hi);
+    }
+
+    /**
+     * Creates a new index over the intervals
+     * <code>[lowers[i], uppers[i]]</code>, for example the start and end
+     * values of the items in an interval dataset.
+     *
+     * @param lowers  the lower bounds (<code>null</code> not permitted).
+     * @param uppers  the upper bounds, the same length as
+     *                <code>lowers</code> (<code>null</code> not permitted).
+     *
+     * @throws IllegalArgumentException if <code>lowers[i]</code> is greater
+     *     than <code>uppers[i]</code> for any <code>i</code>.
+     */
+    public RangeIndex(double[] lowers, double[] uppers) {
+        if (lowers == null) {
+            throw new IllegalArgumentException("Null 'lowers' argument.");
+        }
+        if (uppers == null) {
+            throw new IllegalArgumentException("Null 'uppers' argument.");
+        }
+        if (lowers.length != uppers.length) {
+            throw new IllegalArgumentException(
+                    "Requires 'lowers' and 'uppers' to have the same length.");
+        }
+        for (int i = 0; i < lowers.length; i++) {
+            if (lowers[i] > uppers[i]) {
+                throw new IllegalArgumentException("Inverted interval at "
+                        + "position " + i + ": lower (" + lowers[i]
+                        + ") > upper (" + uppers[i] + ").");
+            }
+        }
+        build(null, lowers.clone(), uppers.clone());
+    }
+
+    /**
+     * Sorts the ranges by lower bound and builds the tree.
+     *
+     * @param items  the ranges, in the order supplied (<code>null</code> if
+     *               there are only bounds).
+     * @param lo  the lower bounds, in the order supplied.
+     * @param hi  the upper bounds, in the order supplied.
+     */
+    private void build(Range[] items, final double[] lo, double[] hi) {
+        int n = lo.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(lo[a.intValue()],
+                lo[b.intValue()]));
+        this.ranges = items == null ? null : new Range[n];
+        this.positions = new int[n];
+        this.lowers = new double[n];
+        this.uppers = new double[n];
+        for (int i = 0; i < n; i++) {
+            int p = order[i].intValue();
+            if (items != null) {
+                this.ranges[i] = items[p];
+            }
+            this.positions[i] = p;
+            this.lowers[i] = lo[p];
+            this.uppers[i] = hi[p];
+        }
+        this.maxUppers = new double[n];
+        buildMaxUppers(0, n);
+    }
+
+    /**
+     * Fills in the largest upper bound for the subtree covering the slice
+     * <code>[lo, hi)</code>.
+     *
+     * @param lo  the start of the slice (inclusive).
+     * @param hi  the end of the slice (exclusive).
+     *
+     * @return The largest upper bound in the slice.
+     */
+    private double buildMaxUppers(int lo, int hi) {
+        if (lo >= hi) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int mid = (lo + hi) >>> 1;
+        double max = Math.max(this.uppers[mid], Math.max(
+                buildMaxUppers(lo, mid), buildMaxUppers(mid + 1, hi)));
+        this.maxUppers[mid] = max;
+        return max;
+    }
+
+    /**
+     * Returns the number of ranges in the index.
+     *
+     * @return The range count.
+     */
+    public int getRangeCount() {
+        return this.lowers.length;
+    }
+
+    /**
+     * Returns the ranges that contain the specified value, ordered by lower
+     * bound.
+     *
+     * @param value  the value.
+     *
+     * @return A list of ranges (possibly empty, never <code>null</code>).
+     */
+    public List<Range> getRangesContaining(double value) {
+        return getRangesOverlapping(value, value);
+    }
+
+    /**
+     * Returns the ranges that overlap the closed interval
+     * <code>[lower, upper]</code>, including ranges that only touch it at an
+     * end point, ordered by lower bound.
+     *
+     * @param lower  the lower bound of the query interval.
+     * @param upper  the upper bound of the query interval.
+     *
+     * @return A list of ranges (possibly empty, never <code>null</code>).
+     */
+    public List<Range> getRangesOverlapping(double lower, double upper) {
+        int[] found = search(lower, upper);
+        if (found.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Range> result = new ArrayList<Range>(found.length);
+        for (int i = 0; i < found.length; i++) {
+            int k = found[i];
+            result.add(this.ranges != null ? this.ranges[k]
+                    : new Range(this.lowers[k], this.uppers[k]));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions (in the order the ranges were supplied to the
+     * constructor) of the ranges that contain the specified value.
+     *
+     * @param value  the value.
+     *
+     * @return The positions, in ascending order (possibly empty).
+     */
+    public int[] findContaining(double value) {
+        return findOverlapping(value, value);
+    }
+
+    /**
+     * Returns the positions (in the order the ranges were supplied to the
+     * constructor) of the ranges that overlap the closed interval
+     * <code>[lower, upper]</code>, including ranges that only touch it at an
+     * end point.
+     *
+     * @param lower  the lower bound of the query interval.
+     * @param upper  the upper bound of the query interval.
+     *
+     * @return The positions, in ascending order (possibly empty).
+     */
+    public int[] findOverlapping(double lower, double upper) {
+        int[] found = search(lower, upper);
+        for (int i = 0; i < found.length; i++) {
+            found[i] = this.positions[found[i]];
+        }
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Returns the sorted indices of the ranges that overlap
+     * <code>[lower, upper]</code>.
+     *
+     * @param lower  the lower bound of the query interval.
+     * @param upper  the upper bound of the query interval.
+     *
+     * @return The sorted indices.
+     */
+    private int[] search(double lower, double upper) {
+        if (lower > upper) {
+            throw new IllegalArgumentException(
+                    "Requires 'lower' <= 'upper'.");
+        }
+        IntList found = new IntList();
+        search(0, this.lowers.length, lower, upper, found);
+        return found.toArray();
+    }
+
+    /**
+     * Collects the matching indices in the slice <code>[lo, hi)</code>, in
+     * ascending order.
+     *
+     * @param lo  the start of the slice (inclusive).
+     * @param hi  the end of the slice (exclusive).
+     * @param lower  the lower bound of the query interval.
+     * @param upper  the upper bound of the query interval.
+     * @param found  the list that receives the matching indices.
+     */
+    private void search(int lo, int hi, double lower, double upper,
+            IntList found) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (!(this.maxUppers[mid] >= lower)) {
+                // nothing in this subtree reaches the query
+                return;
+            }
+            search(lo, mid, lower, upper, found);
+            if (!(this.lowers[mid] <= upper)) {
+                // this node and everything after it start beyond the query
+                return;
+            }
+            if (this.uppers[mid] >= lower) {
+                found.add(mid);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    /**
+     * A minimal growable list of primitive ints.
+     */
+    private static final class IntList {
+
+        /** The elements. */
+        private int[] data = new int[8];
+
+        /** The number of elements. */
+        private int size;
+
+        /**
+         * Appends an element.
+         *
+         * @param value  the element.
+         */
+        void add(int value) {
+            if (this.size == this.data.length) {
+                this.data = Arrays.copyOf(this.data, this.size * 2);
+            }
+            this.data[this.size++] = value;
+        }
+
+        /**
+         * Returns the elements as an array.
+         *
+         * @return A new array.
+         */
+        int[] toArray() {
+            return Arrays.copyOf(this.data, this.size);
+        }
+
+    }
+
+}
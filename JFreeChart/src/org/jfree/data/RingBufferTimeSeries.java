@@ -0,0 +1,906 @@
+package org.jfree.data;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+
+import org.jfree.data.general.SeriesException;
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.RegularTimePeriod;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.time.TimeSeriesDataItem;
+import org.jfree.util.ObjectUtilities;
+
+/**
+ * A {@link TimeSeries} with a fixed maximum item count, which stores its
+ * observations in a circular buffer of primitive arrays (the serial index
+ * and first millisecond of each time period, and its value) instead of a
+ * list of {@link TimeSeriesDataItem} objects.  <code>TimeSeries</code>
+ * removes the oldest observation from the front of an
+ * <code>ArrayList</code>, shifting every other observation, each time the
+ * maximum item count or maximum item age is exceeded; here adding an
+ * observation for a period after the last one, and removing the oldest
+ * observation, both take constant time and create no objects.
+ * <P>
+ * The add, update, duplicate, maximum item count and maximum item age rules
+ * are those of <code>TimeSeries</code>, and the series can be added to a
+ * <code>TimeSeriesCollection</code>.  The differences are:
+ * <ul>
+ * <li>the time period class must be <code>FixedMillisecond</code> or have
+ *     a <code>(Date, TimeZone)</code> constructor, because time periods are
+ *     recreated from their first millisecond in the default time zone;</li>
+ * <li>values are returned as <code>Double</code> objects, whatever type of
+ *     <code>Number</code> was added;</li>
+ * <li>{@link #getDataItem(int)} and {@link #getItems()} return copies of
+ *     the items, so use the update methods to change a value;</li>
+ * <li>the default maximum item age, <code>Integer.MAX_VALUE</code>, means
+ *     that observations never age, whereas <code>TimeSeries</code> removes
+ *     those more than <code>Integer.MAX_VALUE</code> periods (about 25 days
+ *     of milliseconds) older than the latest;</li>
+ * <li>{@link #removeAgedItems(long, boolean)} converts the time in
+ *     milliseconds to a time period, rather than treating it as a serial
+ *     index.</li>
+ * </ul>
+ * Adding an observation before the last one, or deleting observations
+ * other than the oldest, moves the later observations and takes linear
+ * time, as it does in <code>TimeSeries</code>.
+ * <P>
+ * Change events are {@link SeriesRangeChangeEvent}s, and the changes made
+ * between {@link #beginBatch()} and the closing of the batch are reported
+ * by a single event.
+ */
+public class RingBufferTimeSeries extends TimeSeries {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -2418634785037740385L;
+
+    /** The serial indexes of the time periods. */
+    private long[] serialIndexes;
+
+    /** The first milliseconds of the time periods. */
+    private long[] firstMillis;
+
+    /** The values, with <code>NaN</code> for a <code>null</code> value. */
+    private double[] values;
+
+    /**
+     * The slots that hold a <code>null</code> value, or <code>null</code>
+     * if there are none.
+     */
+    private BitSet nullValues;
+
+    /** The slot of the oldest observation. */
+    private int head;
+
+    /** The number of observations. */
+    private int size;
+
+    /** The items changed since the last change event. */
+    private ChangeRange changes;
+
+    /** The number of open batches. */
+    private transient int batches;
+
+    /**
+     * Creates a new empty series for the specified type of time period.
+     *
+     * @param name  the series name (<code>null</code> not permitted).
+     * @param timePeriodClass  the type of time period (<code>null</code> not
+     *                         permitted).
+     * @param maximumItemCount  the maximum number of observations kept
+     *                          (at least 1).
+     */
+    public RingBufferTimeSeries(String name, Class timePeriodClass,
+            int maximumItemCount) {
+        this(name, DEFAULT_DOMAIN_DESCRIPTION, DEFAULT_RANGE_DESCRIPTION,
+                timePeriodClass, maximumItemCount);
+    }
+
+    /**
+     * Creates a new empty series for the specified type of time period, with
+     * the given domain and range descriptions.
+     *
+     * @param name  the series name (<code>null</code> not permitted).
+     * @param domain  the domain description (<code>null</code> permitted).
+     * @param range  the range description (<code>null</code> permitted).
+     * @param timePeriodClass  the type of time period (<code>null</code> not
+     *                         permitted).
+     * @param maximumItemCount  the maximum number of observations kept
+     *                          (at least 1).
+     *
+     * @throws IllegalArgumentException if the time period class is not
+     *     supported.
+     */
+    public RingBufferTimeSeries(String name, String domain, String range,
+            Class timePeriodClass, int maximumItemCount) {
+        super(name, domain, range, timePeriodClass);
+        if (timePeriodClass == null) {
+            throw new IllegalArgumentException(
+                    "Null 'timePeriodClass' argument.");
+        }
+        if (maximumItemCount < 1) {
+            throw new IllegalArgumentException(
+                    "Requires 'maximumItemCount' to be at least 1.");
+        }
+        if (createPeriod(0L) == null) {
+            throw new IllegalArgumentException("Unsupported time period "
+                    + "class: " + timePeriodClass + ".");
+        }
+        this.serialIndexes = new long[maximumItemCount];
+        this.firstMillis = new long[maximumItemCount];
+        this.values = new double[maximumItemCount];
+        this.changes = new ChangeRange();
+        super.setMaximumItemCount(maximumItemCount);
+    }
+
+    /**
+     * Returns the number of items in the series.
+     *
+     * @return The item count.
+     */
+    public int getItemCount() {
+        return this.size;
+    }
+
+    /**
+     * Returns the list of data items for the series.  The list is an
+     * unmodifiable view, and each item is created when it is read, so
+     * changing an item does not change the series.
+     *
+     * @return The list of data items.
+     */
+    public List getItems() {
+        return new AbstractList() {
+            public Object get(int index) {
+                return getDataItem(index);
+            }
+            public int size() {
+                return RingBufferTimeSeries.this.size;
+            }
+        };
+    }
+
+    /**
+     * Sets the maximum number of items that will be retained in the series,
+     * removing the oldest items if there are more than that, and reallocates
+     * the buffer.
+     *
+     * @param maximum  the maximum number of items for the series (at least
+     *                 1).
+     */
+    public void setMaximumItemCount(int maximum) {
+        if (maximum < 1) {
+            throw new IllegalArgumentException(
+                    "Requires 'maximum' to be at least 1.");
+        }
+        int n = Math.min(this.size, maximum);
+        int first = this.size - n;
+        long[] serials = new long[maximum];
+        long[] millis = new long[maximum];
+        double[] vals = new double[maximum];
+        BitSet nulls = null;
+        for (int i = 0; i < n; i++) {
+            int slot = slot(first + i);
+            serials[i] = this.serialIndexes[slot];
+            millis[i] = this.firstMillis[slot];
+            vals[i] = this.values[slot];
+            if (isNull(slot)) {
+                if (nulls == null) {
+                    nulls = new BitSet();
+                }
+                nulls.set(i);
+            }
+        }
+        this.serialIndexes = serials;
+        this.firstMillis = millis;
+        this.values = vals;
+        this.nullValues = nulls;
+        this.head = 0;
+        this.size = n;
+        super.setMaximumItemCount(maximum);
+        if (first > 0) {
+            this.changes.add(0, ChangeRange.END);
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Returns a copy of the data item with the specified index.
+     *
+     * @param index  the item index.
+     *
+     * @return The data item.
+     */
+    public TimeSeriesDataItem getDataItem(int index) {
+        return new TimeSeriesDataItem(getTimePeriod(index), getValue(index));
+    }
+
+    /**
+     * Returns a copy of the data item for a specific period.
+     *
+     * @param period  the period of interest (<code>null</code> not
+     *                permitted).
+     *
+     * @return The data item matching the specified period (or
+     *         <code>null</code> if there is no match).
+     */
+    public TimeSeriesDataItem getDataItem(RegularTimePeriod period) {
+        int index = getIndex(period);
+        if (index < 0) {
+            return null;
+        }
+        return getDataItem(index);
+    }
+
+    /**
+     * Returns the time period at the specified index.
+     *
+     * @param index  the index of the data item.
+     *
+     * @return The time period.
+     */
+    public RegularTimePeriod getTimePeriod(int index) {
+        checkIndex(index);
+        return createPeriod(this.firstMillis[slot(index)]);
+    }
+
+    /**
+     * Returns the index for the item (if any) that corresponds to a time
+     * period.  The result is that of a binary search, as for
+     * {@link java.util.Collections#binarySearch(List, Object)}, or
+     * <code>-1</code> if the period is not of the series' time period class.
+     *
+     * @param period  the time period (<code>null</code> not permitted).
+     *
+     * @return The index.
+     */
+    public int getIndex(RegularTimePeriod period) {
+        if (period == null) {
+            throw new IllegalArgumentException("Null 'period' argument.");
+        }
+        if (!period.getClass().equals(this.timePeriodClass)) {
+            return -1;
+        }
+        return search(period.getSerialIndex());
+    }
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index  index of a value.
+     *
+     * @return The value (possibly <code>null</code>).
+     */
+    public Number getValue(int index) {
+        checkIndex(index);
+        int slot = slot(index);
+        if (isNull(slot)) {
+            return null;
+        }
+        return Double.valueOf(this.values[slot]);
+    }
+
+    /**
+     * Adds a data item to the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param item  the (timeperiod, value) pair (<code>null</code> not
+     *              permitted).
+     */
+    public void add(TimeSeriesDataItem item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Null 'item' argument.");
+        }
+        add(item.getPeriod(), item.getValue(), true);
+    }
+
+    /**
+     * Adds a new data item to the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param period  the time period (<code>null</code> not permitted).
+     * @param value  the value.
+     */
+    public void add(RegularTimePeriod period, double value) {
+        add(period, value, true);
+    }
+
+    /**
+     * Adds a new data item to the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param period  the time period (<code>null</code> not permitted).
+     * @param value  the value (<code>null</code> permitted).
+     */
+    public void add(RegularTimePeriod period, Number value) {
+        add(period, value, true);
+    }
+
+    /**
+     * Adds a new data item to the series and, if requested, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.  No objects are created.
+     *
+     * @param period  the time period (<code>null</code> not permitted).
+     * @param value  the value.
+     * @param notify  a flag that controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     *
+     * @throws SeriesException if the period is of the wrong class, or the
+     *     series already has an observation for it.
+     */
+    public void add(RegularTimePeriod period, double value, boolean notify) {
+        insert(period, value, false);
+        if (notify) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Adds a new data item to the series and, if requested, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param period  the time period (<code>null</code> not permitted).
+     * @param value  the value (<code>null</code> permitted).
+     * @param notify  a flag that controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     *
+     * @throws SeriesException if the period is of the wrong class, or the
+     *     series already has an observation for it.
+     */
+    public void add(RegularTimePeriod period, Number value, boolean notify) {
+        insert(period, value != null ? value.doubleValue() : Double.NaN,
+                value == null);
+        if (notify) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Updates (changes) the value for a time period and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param period  the period (<code>null</code> not permitted).
+     * @param value  the new value (<code>null</code> permitted).
+     *
+     * @throws SeriesException if there is no observation for the period.
+     */
+    public void update(RegularTimePeriod period, Number value) {
+        int index = getIndex(period);
+        if (index < 0) {
+            throw new SeriesException("No observation for period " + period
+                    + ".");
+        }
+        this.changes.add(index, index);
+        setValue(slot(index), value);
+        fireSeriesChanged();
+    }
+
+    /**
+     * Updates (changes) the value of a data item and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param index  the index of the data item.
+     * @param value  the new value (<code>null</code> permitted).
+     */
+    public void update(int index, Number value) {
+        checkIndex(index);
+        this.changes.add(index, index);
+        setValue(slot(index), value);
+        fireSeriesChanged();
+    }
+
+    /**
+     * Adds or updates an item in the times series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param period  the time period to add/update (<code>null</code> not
+     *                permitted).
+     * @param value  the new value (<code>null</code> permitted).
+     *
+     * @return A copy of the overwritten data item, or <code>null</code> if
+     *         no item was overwritten.
+     */
+    public TimeSeriesDataItem addOrUpdate(RegularTimePeriod period,
+            Number value) {
+        if (period == null) {
+            throw new IllegalArgumentException("Null 'period' argument.");
+        }
+        TimeSeriesDataItem overwritten = null;
+        int index = getIndex(period);
+        if (index >= 0) {
+            overwritten = getDataItem(index);
+            this.changes.add(index, index);
+            setValue(slot(index), value);
+        }
+        else {
+            insert(period, value != null ? value.doubleValue() : Double.NaN,
+                    value == null);
+        }
+        fireSeriesChanged();
+        return overwritten;
+    }
+
+    /**
+     * Removes the items that are more than the maximum item age older than
+     * the latest item and, if any were removed and <code>notify</code> is
+     * <code>true</code>, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param notify  controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     */
+    public void removeAgedItems(boolean notify) {
+        if (this.size > 1 && removeAgedItemsBefore(
+                this.serialIndexes[slot(this.size - 1)]) && notify) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Removes the items that are more than the maximum item age older than
+     * the specified time and, if any were removed and <code>notify</code>
+     * is <code>true</code>, sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param latest  the time to be compared against when aging data, in
+     *                milliseconds since 1 January 1970 UTC.
+     * @param notify  controls whether or not a
+     *                {@link org.jfree.data.general.SeriesChangeEvent} is
+     *                sent to all registered listeners.
+     */
+    public void removeAgedItems(long latest, boolean notify) {
+        if (this.size > 0 && removeAgedItemsBefore(
+                createPeriod(latest).getSerialIndex()) && notify) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Removes all data items from the series and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     */
+    public void clear() {
+        if (this.size > 0) {
+            this.changes.add(0, ChangeRange.END);
+            this.head = 0;
+            this.size = 0;
+            this.nullValues = null;
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Deletes the data item for the given time period and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.  If there is no item with the specified time period, this
+     * method does nothing.
+     *
+     * @param period  the period of the item to delete (<code>null</code> not
+     *                permitted).
+     */
+    public void delete(RegularTimePeriod period) {
+        int index = getIndex(period);
+        if (index >= 0) {
+            removeRange(index, index + 1);
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Deletes data from start until end index (end inclusive) and sends a
+     * {@link org.jfree.data.general.SeriesChangeEvent} to all registered
+     * listeners.
+     *
+     * @param start  the index of the first period to delete.
+     * @param end  the index of the last period to delete.
+     */
+    public void delete(int start, int end) {
+        if (end >= start) {
+            checkIndex(start);
+            checkIndex(end);
+            removeRange(start, end + 1);
+        }
+        fireSeriesChanged();
+    }
+
+    /**
+     * Sends a {@link SeriesRangeChangeEvent}, covering the items changed
+     * since the last event, to all registered listeners.  No event is sent
+     * while notification is switched off or a batch is open; the changes
+     * are reported by the next event instead.  If no change has been
+     * recorded, the event covers every item.
+     */
+    public void fireSeriesChanged() {
+        if (this.batches == 0 && !getNotify()) {
+            return;
+        }
+        if (this.changes.isEmpty()) {
+            this.changes.add(0, ChangeRange.END);
+        }
+        if (this.batches == 0) {
+            SeriesRangeChangeEvent event = new SeriesRangeChangeEvent(this,
+                    this.changes.getFirst(), this.changes.getLast());
+            this.changes.clear();
+            notifyListeners(event);
+        }
+    }
+
+    /**
+     * Opens a batch of changes.  Until the batch is closed, no change events
+     * are sent; closing it sends a single {@link SeriesRangeChangeEvent}
+     * covering every change made in the batch, if there were any.
+     *
+     * @return The batch.
+     */
+    public ChangeBatch beginBatch() {
+        this.batches++;
+        return new ChangeBatch() {
+            void commit() {
+                endBatch();
+            }
+        };
+    }
+
+    /**
+     * Ends a batch, sending a change event if it was the outermost one and
+     * anything changed.
+     */
+    private void endBatch() {
+        this.batches--;
+        if (this.batches == 0 && !this.changes.isEmpty()) {
+            fireSeriesChanged();
+        }
+    }
+
+    /**
+     * Creates a new timeseries by copying a subset of the data in this time
+     * series.  The copy has the same maximum item count.
+     *
+     * @param start  the index of the first time period to copy.
+     * @param end  the index of the last time period to copy.
+     *
+     * @return A series containing a copy of this times series from start
+     *         until end.
+     *
+     * @throws CloneNotSupportedException if there is a cloning problem.
+     */
+    public TimeSeries createCopy(int start, int end)
+            throws CloneNotSupportedException {
+        RingBufferTimeSeries copy = (RingBufferTimeSeries) super.createCopy(
+                0, -1);
+        int capacity = this.values.length;
+        copy.serialIndexes = new long[capacity];
+        copy.firstMillis = new long[capacity];
+        copy.values = new double[capacity];
+        copy.nullValues = null;
+        copy.head = 0;
+        copy.size = 0;
+        copy.changes = new ChangeRange();
+        copy.batches = 0;
+        if (this.size > 0 && end >= start) {
+            checkIndex(start);
+            checkIndex(end);
+            for (int i = start; i <= end; i++) {
+                int slot = slot(i);
+                copy.serialIndexes[copy.size] = this.serialIndexes[slot];
+                copy.firstMillis[copy.size] = this.firstMillis[slot];
+                copy.setValue(copy.size, isNull(slot) ? null
+                        : Double.valueOf(this.values[slot]));
+                copy.size++;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Tests the series for equality with an arbitrary object.
+     *
+     * @param obj  the object to test against (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof RingBufferTimeSeries)) {
+            return false;
+        }
+        RingBufferTimeSeries that = (RingBufferTimeSeries) obj;
+        // TimeSeries.equals would create every item of both series
+        if (!getKey().equals(that.getKey())
+                || !ObjectUtilities.equal(getDescription(),
+                        that.getDescription())
+                || !ObjectUtilities.equal(getDomainDescription(),
+                        that.getDomainDescription())
+                || !ObjectUtilities.equal(getRangeDescription(),
+                        that.getRangeDescription())
+                || !this.timePeriodClass.equals(that.timePeriodClass)
+                || getMaximumItemCount() != that.getMaximumItemCount()
+                || getMaximumItemAge() != that.getMaximumItemAge()) {
+            return false;
+        }
+        if (this.size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < this.size; i++) {
+            int s1 = slot(i);
+            int s2 = that.slot(i);
+            if (this.serialIndexes[s1] != that.serialIndexes[s2]
+                    || Double.compare(this.values[s1], that.values[s2]) != 0
+                    || isNull(s1) != that.isNull(s2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code value for the object.
+     *
+     * @return The hashcode
+     */
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 29 * result + this.size;
+        if (this.size > 0) {
+            long serial = this.serialIndexes[slot(this.size - 1)];
+            result = 29 * result + (int) (serial ^ (serial >>> 32));
+        }
+        return result;
+    }
+
+    /**
+     * Adds an observation following the ordering and duplicate rules of
+     * <code>TimeSeries</code>, then removes the oldest observations if the
+     * maximum item count or maximum item age is exceeded.
+     *
+     * @param period  the time period.
+     * @param value  the value.
+     * @param nullValue  <code>true</code> if the value is <code>null</code>.
+     */
+    private void insert(RegularTimePeriod period, double value,
+            boolean nullValue) {
+        if (period == null) {
+            throw new IllegalArgumentException("Null 'period' argument.");
+        }
+        if (!period.getClass().equals(this.timePeriodClass)) {
+            throw new SeriesException("You are trying to add data where the "
+                    + "time period class is " + period.getClass().getName()
+                    + ", but the TimeSeries is expecting an instance of "
+                    + this.timePeriodClass.getName() + ".");
+        }
+        long serial = period.getSerialIndex();
+        int position = this.size;
+        if (this.size > 0
+                && serial <= this.serialIndexes[slot(this.size - 1)]) {
+            position = search(serial);
+            if (position >= 0) {
+                throw new SeriesException("You are attempting to add an "
+                        + "observation for the time period " + period
+                        + " but the series already contains an observation "
+                        + "for that time period. Duplicates are not "
+                        + "permitted.  Try using the addOrUpdate() method.");
+            }
+            position = -position - 1;
+        }
+        if (this.size == this.values.length) {
+            // the oldest observation makes way for the new one
+            if (position == 0) {
+                return;
+            }
+            removeFirst(1);
+            position--;
+        }
+        this.changes.add(position, ChangeRange.END);
+        for (int i = this.size; i > position; i--) {
+            move(slot(i - 1), slot(i));
+        }
+        int slot = slot(position);
+        this.serialIndexes[slot] = serial;
+        this.firstMillis[slot] = period.getFirstMillisecond();
+        this.values[slot] = value;
+        setNull(slot, nullValue);
+        this.size++;
+        removeAgedItemsBefore(this.serialIndexes[slot(this.size - 1)]);
+    }
+
+    /**
+     * Removes the oldest items while they are more than the maximum item
+     * age older than a time period.
+     *
+     * @param latest  the serial index of the time period.
+     *
+     * @return A boolean indicating whether any items were removed.
+     */
+    private boolean removeAgedItemsBefore(long latest) {
+        int age = getMaximumItemAge();
+        if (age == Integer.MAX_VALUE) {
+            return false;
+        }
+        int aged = 0;
+        while (aged < this.size
+                && latest - this.serialIndexes[slot(aged)] > age) {
+            aged++;
+        }
+        removeFirst(aged);
+        return aged > 0;
+    }
+
+    /**
+     * Returns the index of the observation with a serial index, or
+     * <code>-(insertion point) - 1</code> if there is none.
+     *
+     * @param serial  the serial index.
+     *
+     * @return The index.
+     */
+    private int search(long serial) {
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long s = this.serialIndexes[slot(middle)];
+            if (s < serial) {
+                low = middle + 1;
+            }
+            else if (s > serial) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Removes the items from <code>start</code> (inclusive) to
+     * <code>end</code> (exclusive).
+     *
+     * @param start  the first index.
+     * @param end  the end index.
+     */
+    private void removeRange(int start, int end) {
+        int n = end - start;
+        this.changes.add(start, ChangeRange.END);
+        if (start == 0) {
+            removeFirst(n);
+            return;
+        }
+        for (int i = start; i < this.size - n; i++) {
+            move(slot(i + n), slot(i));
+        }
+        this.size -= n;
+    }
+
+    /**
+     * Removes the oldest items.
+     *
+     * @param n  the number of items to remove.
+     */
+    private void removeFirst(int n) {
+        if (n > 0) {
+            this.changes.add(0, ChangeRange.END);
+        }
+        if (n >= this.size) {
+            this.head = 0;
+            this.size = 0;
+            this.nullValues = null;
+        }
+        else if (n > 0) {
+            this.head = slot(n);
+            this.size -= n;
+        }
+    }
+
+    /**
+     * Copies the observation in one slot to another.
+     *
+     * @param from  the source slot.
+     * @param to  the target slot.
+     */
+    private void move(int from, int to) {
+        this.serialIndexes[to] = this.serialIndexes[from];
+        this.firstMillis[to] = this.firstMillis[from];
+        this.values[to] = this.values[from];
+        setNull(to, isNull(from));
+    }
+
+    /**
+     * Sets the value in a slot.
+     *
+     * @param slot  the slot.
+     * @param value  the value (<code>null</code> permitted).
+     */
+    private void setValue(int slot, Number value) {
+        this.values[slot] = value != null ? value.doubleValue() : Double.NaN;
+        setNull(slot, value == null);
+    }
+
+    /**
+     * Records whether the value in a slot is <code>null</code>.
+     *
+     * @param slot  the slot.
+     * @param nullValue  <code>true</code> if the value is <code>null</code>.
+     */
+    private void setNull(int slot, boolean nullValue) {
+        if (nullValue) {
+            if (this.nullValues == null) {
+                this.nullValues = new BitSet();
+            }
+            this.nullValues.set(slot);
+        }
+        else if (this.nullValues != null) {
+            this.nullValues.clear(slot);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the value in a slot is <code>null</code>.
+     *
+     * @param slot  the slot.
+     *
+     * @return A boolean.
+     */
+    private boolean isNull(int slot) {
+        return this.nullValues != null && this.nullValues.get(slot);
+    }
+
+    /**
+     * Returns the buffer slot that holds the item at an index.
+     *
+     * @param index  the item index (zero-based, possibly equal to the item
+     *               count when there is room for one more).
+     *
+     * @return The slot.
+     */
+    private int slot(int index) {
+        int slot = this.head + index;
+        return slot < this.values.length ? slot : slot - this.values.length;
+    }
+
+    /**
+     * Creates the time period of the series' class that contains a time.
+     *
+     * @param millis  the time, in milliseconds since 1 January 1970 UTC.
+     *
+     * @return The time period, or <code>null</code> if the class is not
+     *     supported.
+     */
+    private RegularTimePeriod createPeriod(long millis) {
+        if (FixedMillisecond.class.equals(this.timePeriodClass)) {
+            return new FixedMillisecond(millis);
+        }
+        return RegularTimePeriod.createInstance(this.timePeriodClass,
+                new Date(millis), RegularTimePeriod.DEFAULT_TIME_ZONE);
+    }
+
+    /**
+     * Checks that an index refers to an item.
+     *
+     * @param index  the index.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                    + this.size);
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.jfree.data;
+
+import org.jfree.data.general.SeriesChangeEvent;
+
+/**
+ * A {@link SeriesChangeEvent} that records which items changed, so that a
+ * listener can update only the part of its state that depends on them.
+ * The items before the first index are unchanged.  If the last index is
+ * <code>Integer.MAX_VALUE</code>, items from the first index on may have
+ * been changed, moved, added or removed; otherwise the items from the first
+ * to the last index (inclusive) may have changed value, and the other items
+ * are unchanged.
+ */
+public class SeriesRangeChangeEvent extends SeriesChangeEvent {
+
+    /** For serialization. */
+    private static final long serialVersionUID = -3517384011950162389L;
+
+    /** The index of the first changed item. */
+    private int firstIndex;
+
+    /** The index of the last changed item. */
+    private int lastIndex;
+
+    /**
+     * Creates a new event.
+     *
+     * @param source  the source of the event (the series).
+     * @param firstIndex  the index of the first changed item.
+     * @param lastIndex  the index of the last changed item, or
+     *                   <code>Integer.MAX_VALUE</code>.
+     */
+    public SeriesRangeChangeEvent(Object source, int firstIndex,
+            int lastIndex) {
+        super(source);
+        this.firstIndex = firstIndex;
+        this.lastIndex = lastIndex;
+    }
+
+    /**
+     * Returns the index of the first changed item.
+     *
+     * @return The index.
+     */
+    public int getFirstIndex() {
+        return this.firstIndex;
+    }
+
+    /**
+     * Returns the index of the last changed item, or
+     * <code>Integer.MAX_VALUE</code> if every item from the first index on
+     * may have changed.
+     *
+     * @return The index.
+     */
+    public int getLastIndex() {
+        return this.lastIndex;
+    }
+
+}
@@ -0,0 +1,649 @@
+package org.jfree.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link KeyedValues2D} implementation for tables where most cells are
+ * <code>null</code>.  Only the non-<code>null</code> cells are stored: each
+ * row holds an open-addressing hash map from column index to a primitive
+ * <code>double</code>, so memory use grows with the number of values rather
+ * than with <code>rows * columns</code>.  Row and column keys are looked up
+ * through hash maps.
+ * <P>
+ * The methods mirror those of {@link DefaultKeyedValues2D}, including the
+ * removal of a row or column by {@link #removeValue(Comparable, Comparable)}
+ * once it holds no values.  Row and column keys are kept in the order they
+ * were first added.  The
+ * {@link PrimitiveDataUtilities} row and column total methods recognise
+ * this table and visit only the stored cells.
+ */
+public class SparseKeyedValues2D implements KeyedValues2D, Serializable {
+
+    /** For serialization. */
+    private static final long serialVersionUID = 6318422563912270856L;
+
+    /** The row keys, in order. */
+    private List<Comparable> rowKeys;
+
+    /** The column keys, in order. */
+    private List<Comparable> columnKeys;
+
+    /** A map from row key to row index. */
+    private Map<Comparable, Integer> rowIndices;
+
+    /** A map from column key to column index. */
+    private Map<Comparable, Integer> columnIndices;
+
+    /** The rows, one per row key. */
+    private List<SparseRow> rows;
+
+    /**
+     * Creates a new, empty table.
+     */
+    public SparseKeyedValues2D() {
+        this.rowKeys = new ArrayList<Comparable>();
+        this.columnKeys = new ArrayList<Comparable>();
+        this.rowIndices = new HashMap<Comparable, Integer>();
+        this.columnIndices = new HashMap<Comparable, Integer>();
+        this.rows = new ArrayList<SparseRow>();
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return this.rowKeys.size();
+    }
+
+    /**
+     * Returns the number of columns in the table.
+     *
+     * @return The column count.
+     */
+    public int getColumnCount() {
+        return this.columnKeys.size();
+    }
+
+    /**
+     * Returns the number of non-<code>null</code> cells in the table.
+     *
+     * @return The cell count.
+     */
+    public int getCellCount() {
+        int result = 0;
+        for (int r = 0; r < this.rows.size(); r++) {
+            result += this.rows.get(r).size;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value for a given row and column.
+     *
+     * @param row  the row index.
+     * @param column  the column index.
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws IndexOutOfBoundsException if either index is out of range.
+     */
+    public Number getValue(int row, int column) {
+        SparseRow r = this.rows.get(row);
+        if (column < 0 || column >= this.columnKeys.size()) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        int slot = r.find(column);
+        return slot < 0 ? null : Double.valueOf(r.values[slot]);
+    }
+
+    /**
+     * Returns the key for a given row.
+     *
+     * @param row  the row index (zero based).
+     *
+     * @return The row key.
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public Comparable getRowKey(int row) {
+        return this.rowKeys.get(row);
+    }
+
+    /**
+     * Returns the row index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The row index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getRowIndex(Comparable key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null 'key' argument.");
+        }
+        Integer index = this.rowIndices.get(key);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the row keys in an unmodifiable list.
+     *
+     * @return The row keys.
+     */
+    public List getRowKeys() {
+        return Collections.unmodifiableList(this.rowKeys);
+    }
+
+    /**
+     * Returns the key for a given column.
+     *
+     * @param column  the column index (zero based).
+     *
+     * @return The column key.
+     *
+     * @throws IndexOutOfBoundsException if <code>column</code> is out of
+     *     range.
+     */
+    public Comparable getColumnKey(int column) {
+        return this.columnKeys.get(column);
+    }
+
+    /**
+     * Returns the column index for a given key.
+     *
+     * @param key  the key (<code>null</code> not permitted).
+     *
+     * @return The column index, or <code>-1</code> if the key is not
+     *     recognised.
+     */
+    public int getColumnIndex(Comparable key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null 'key' argument.");
+        }
+        Integer index = this.columnIndices.get(key);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Returns the column keys in an unmodifiable list.
+     *
+     * @return The column keys.
+     */
+    public List getColumnKeys() {
+        return Collections.unmodifiableList(this.columnKeys);
+    }
+
+    /**
+     * Returns the value for the given row and column keys.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @return The value (possibly <code>null</code>).
+     *
+     * @throws UnknownKeyException if either key is not recognised.
+     */
+    public Number getValue(Comparable rowKey, Comparable columnKey) {
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+        }
+        int column = getColumnIndex(columnKey);
+        if (column < 0) {
+            throw new UnknownKeyException("Unrecognised columnKey: "
+                    + columnKey);
+        }
+        return getValue(row, column);
+    }
+
+    /**
+     * Adds a value to the table.  Performs the same function as
+     * {@link #setValue(Number, Comparable, Comparable)}.
+     *
+     * @param value  the value (<code>null</code> permitted).
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void addValue(Number value, Comparable rowKey,
+            Comparable columnKey) {
+        setValue(value, rowKey, columnKey);
+    }
+
+    /**
+     * Adds or updates a value.  New row and column keys are appended to the
+     * table, even when <code>value</code> is <code>null</code>; a
+     * <code>null</code> value clears the cell.
+     *
+     * @param value  the value (<code>null</code> permitted).
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     */
+    public void setValue(Number value, Comparable rowKey,
+            Comparable columnKey) {
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            row = this.rowKeys.size();
+            this.rowKeys.add(rowKey);
+            this.rowIndices.put(rowKey, Integer.valueOf(row));
+            this.rows.add(new SparseRow());
+        }
+        int column = getColumnIndex(columnKey);
+        if (column < 0) {
+            column = this.columnKeys.size();
+            this.columnKeys.add(columnKey);
+            this.columnIndices.put(columnKey, Integer.valueOf(column));
+        }
+        SparseRow r = this.rows.get(row);
+        if (value != null) {
+            r.put(column, value.doubleValue());
+        }
+        else {
+            r.remove(column);
+        }
+    }
+
+    /**
+     * Clears the value for the given row and column keys, as
+     * {@link DefaultKeyedValues2D#removeValue(Comparable, Comparable)} does:
+     * if the row then holds no values it is removed, and if no remaining row
+     * holds a value in the column, the column is removed too.  Use
+     * {@link #setValue(Number, Comparable, Comparable)} with a
+     * <code>null</code> value to clear a cell and keep its keys.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if either key is not recognised.
+     */
+    public void removeValue(Comparable rowKey, Comparable columnKey) {
+        int row = getRowIndex(rowKey);
+        if (row < 0) {
+            throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+        }
+        int column = getColumnIndex(columnKey);
+        if (column < 0) {
+            throw new UnknownKeyException("Unrecognised columnKey: "
+                    + columnKey);
+        }
+        SparseRow values = this.rows.get(row);
+        values.remove(column);
+        if (values.size == 0) {
+            removeRow(row);
+        }
+        for (int r = 0; r < this.rows.size(); r++) {
+            if (this.rows.get(r).find(column) >= 0) {
+                return;
+            }
+        }
+        removeColumn(column);
+    }
+
+    /**
+     * Removes a row.
+     *
+     * @param rowIndex  the row index.
+     *
+     * @throws IndexOutOfBoundsException if <code>rowIndex</code> is out of
+     *     range.
+     */
+    public void removeRow(int rowIndex) {
+        this.rows.remove(rowIndex);
+        this.rowIndices.remove(this.rowKeys.remove(rowIndex));
+        for (int r = rowIndex; r < this.rowKeys.size(); r++) {
+            this.rowIndices.put(this.rowKeys.get(r), Integer.valueOf(r));
+        }
+    }
+
+    /**
+     * Removes a row.
+     *
+     * @param rowKey  the row key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if <code>rowKey</code> is not recognised.
+     */
+    public void removeRow(Comparable rowKey) {
+        int index = getRowIndex(rowKey);
+        if (index < 0) {
+            throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+        }
+        removeRow(index);
+    }
+
+    /**
+     * Removes a column.  The stored cells of every row are re-indexed, so
+     * this takes time proportional to the number of stored cells.
+     *
+     * @param columnIndex  the column index.
+     *
+     * @throws IndexOutOfBoundsException if <code>columnIndex</code> is out of
+     *     range.
+     */
+    public void removeColumn(int columnIndex) {
+        this.columnIndices.remove(this.columnKeys.remove(columnIndex));
+        for (int c = columnIndex; c < this.columnKeys.size(); c++) {
+            this.columnIndices.put(this.columnKeys.get(c), Integer.valueOf(c));
+        }
+        for (int r = 0; r < this.rows.size(); r++) {
+            this.rows.get(r).removeColumn(columnIndex);
+        }
+    }
+
+    /**
+     * Removes a column.
+     *
+     * @param columnKey  the column key (<code>null</code> not permitted).
+     *
+     * @throws UnknownKeyException if <code>columnKey</code> is not
+     *     recognised.
+     */
+    public void removeColumn(Comparable columnKey) {
+        int index = getColumnIndex(columnKey);
+        if (index < 0) {
+            throw new UnknownKeyException("Unrecognised columnKey: "
+                    + columnKey);
+        }
+        removeColumn(index);
+    }
+
+    /**
+     * Clears all the data and keys.
+     */
+    public void clear() {
+        this.rowKeys.clear();
+        this.columnKeys.clear();
+        this.rowIndices.clear();
+        this.columnIndices.clear();
+        this.rows.clear();
+    }
+
+    /**
+     * Returns the total of the values in one row, visiting only the stored
+     * cells.
+     *
+     * @param row  the row index (zero-based).
+     *
+     * @return The total.
+     *
+     * @throws IndexOutOfBoundsException if <code>row</code> is out of range.
+     */
+    public double calculateRowTotal(int row) {
+        SparseRow r = this.rows.get(row);
+        double total = 0.0;
+        for (int slot = 0; slot < r.columns.length; slot++) {
+            if (r.columns[slot] != SparseRow.EMPTY) {
+                total += r.values[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total of the values in one column.  This makes one hash
+     * lookup per row, and never visits the empty cells of a row.
+     *
+     * @param column  the column index (zero-based).
+     *
+     * @return The total.
+     *
+     * @throws IndexOutOfBoundsException if <code>column</code> is out of
+     *     range.
+     */
+    public double calculateColumnTotal(int column) {
+        if (column < 0 || column >= this.columnKeys.size()) {
+            throw new IndexOutOfBoundsException("Column index out of bounds: "
+                    + column);
+        }
+        double total = 0.0;
+        for (int r = 0; r < this.rows.size(); r++) {
+            SparseRow row = this.rows.get(r);
+            int slot = row.find(column);
+            if (slot >= 0) {
+                total += row.values[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adds the stored values to the supplied row and column totals, visiting
+     * each stored cell once.
+     *
+     * @param rowTotals  the row totals (<code>null</code> permitted).
+     * @param columnTotals  the column totals (<code>null</code> permitted).
+     */
+    void accumulateTotals(double[] rowTotals, double[] columnTotals) {
+        for (int r = 0; r < this.rows.size(); r++) {
+            SparseRow row = this.rows.get(r);
+            double rowTotal = 0.0;
+            for (int slot = 0; slot < row.columns.length; slot++) {
+                int c = row.columns[slot];
+                if (c != SparseRow.EMPTY) {
+                    rowTotal += row.values[slot];
+                    if (columnTotals != null) {
+                        columnTotals[c] += row.values[slot];
+                    }
+                }
+            }
+            if (rowTotals != null) {
+                rowTotals[r] = rowTotal;
+            }
+        }
+    }
+
+    /**
+     * Tests if this object is equal to another.  Two tables are equal if
+     * they have the same keys, in the same order, and the same values.
+     *
+     * @param obj  the other object (<code>null</code> permitted).
+     *
+     * @return A boolean.
+     */
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof SparseKeyedValues2D)) {
+            return false;
+        }
+        SparseKeyedValues2D that = (SparseKeyedValues2D) obj;
+        if (!this.rowKeys.equals(that.rowKeys)
+                || !this.columnKeys.equals(that.columnKeys)) {
+            return false;
+        }
+        for (int r = 0; r < this.rows.size(); r++) {
+            SparseRow a = this.rows.get(r);
+            SparseRow b = that.rows.get(r);
+            if (a.size != b.size) {
+                return false;
+            }
+            for (int slot = 0; slot < a.columns.length; slot++) {
+                int c = a.columns[slot];
+                if (c != SparseRow.EMPTY) {
+                    int other = b.find(c);
+                    if (other < 0 || Double.doubleToLongBits(a.values[slot])
+                            != Double.doubleToLongBits(b.values[other])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code.
+     *
+     * @return A hash code.
+     */
+    public int hashCode() {
+        int result = this.rowKeys.hashCode();
+        result = 29 * result + this.columnKeys.hashCode();
+        result = 29 * result + getCellCount();
+        return result;
+    }
+
+    /**
+     * The stored cells of one row: an open-addressing hash map from column
+     * index to value, using linear probing.
+     */
+    private static final class SparseRow implements Serializable {
+
+        /** For serialization. */
+        private static final long serialVersionUID = -1709235340641186113L;
+
+        /** The marker for an empty slot. */
+        static final int EMPTY = -1;
+
+        /** The column index held in each slot, or EMPTY. */
+        int[] columns;
+
+        /** The value held in each slot. */
+        double[] values;
+
+        /** The number of occupied slots. */
+        int size;
+
+        /**
+         * Creates an empty row.
+         */
+        SparseRow() {
+            this.columns = new int[4];
+            Arrays.fill(this.columns, EMPTY);
+            this.values = new double[4];
+        }
+
+        /**
+         * Returns the home slot for a column index.
+         *
+         * @param column  the column index.
+         *
+         * @return The slot.
+         */
+        private int hash(int column) {
+            int h = column * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (this.columns.length - 1);
+        }
+
+        /**
+         * Returns the slot holding the specified column, or -1.
+         *
+         * @param column  the column index.
+         *
+         * @return The slot, or -1.
+         */
+        int find(int column) {
+            int mask = this.columns.length - 1;
+            for (int slot = hash(column); ; slot = (slot + 1) & mask) {
+                int c = this.columns[slot];
+                if (c == column) {
+                    return slot;
+                }
+                if (c == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Stores a value.
+         *
+         * @param column  the column index.
+         * @param value  the value.
+         */
+        void put(int column, double value) {
+            if ((this.size + 1) * 4 > this.columns.length * 3) {
+                rehash(this.columns.length * 2);
+            }
+            int mask = this.columns.length - 1;
+            int slot = hash(column);
+            while (this.columns[slot] != EMPTY
+                    && this.columns[slot] != column) {
+                slot = (slot + 1) & mask;
+            }
+            if (this.columns[slot] == EMPTY) {
+                this.columns[slot] = column;
+                this.size++;
+            }
+            this.values[slot] = value;
+        }
+
+        /**
+         * Removes a value, if present, using backward-shift deletion so
+         * that no tombstones are left behind.
+         *
+         * @param column  the column index.
+         */
+        void remove(int column) {
+            int slot = find(column);
+            if (slot < 0) {
+                return;
+            }
+            int mask = this.columns.length - 1;
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (this.columns[next] != EMPTY) {
+                int home = hash(this.columns[next]);
+                // move the entry back if its home is not in (gap, next]
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    this.columns[gap] = this.columns[next];
+                    this.values[gap] = this.values[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            this.columns[gap] = EMPTY;
+            this.size--;
+        }
+
+        /**
+         * Removes a column index from the row, shifting the higher column
+         * indices down by one.
+         *
+         * @param column  the removed column index.
+         */
+        void removeColumn(int column) {
+            int[] oldColumns = this.columns;
+            double[] oldValues = this.values;
+            this.columns = new int[oldColumns.length];
+            Arrays.fill(this.columns, EMPTY);
+            this.values = new double[oldValues.length];
+            this.size = 0;
+            for (int slot = 0; slot < oldColumns.length; slot++) {
+                int c = oldColumns[slot];
+                if (c != EMPTY && c != column) {
+                    put(c > column ? c - 1 : c, oldValues[slot]);
+                }
+            }
+        }
+
+        /**
+         * Moves the entries into a table with the specified capacity.
+         *
+         * @param capacity  the new capacity (a power of two).
+         */
+        private void rehash(int capacity) {
+            int[] oldColumns = this.columns;
+            double[] oldValues = this.values;
+            this.columns = new int[capacity];
+            Arrays.fill(this.columns, EMPTY);
+            this.values = new double[capacity];
+            this.size = 0;
+            for (int slot = 0; slot < oldColumns.length; slot++) {
+                if (oldColumns[slot] != EMPTY) {
+                    put(oldColumns[slot], oldValues[slot]);
+                }
+            }
+        }
+
+    }
+
+}
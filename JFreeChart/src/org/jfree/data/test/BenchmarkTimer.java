@@ -0,0 +1,65 @@
+package org.jfree.data.test;
+
+// Timing helper shared by the main() benchmarks.
+// Each figure is the best of several timed rounds, after half a second of
+// warm-up, in nanoseconds per element.
+public class BenchmarkTimer {
+
+    private static final long WARMUP_NANOS = 500000000L;
+
+    private static final int TIMED_ROUNDS = 10;
+
+    // keeps the JIT from discarding results; benchmarks add to it
+    public static long sink;
+
+    private BenchmarkTimer() {
+    }
+
+    public static void printHeader() {
+        System.out.println("size        operation                                      ns/element");
+    }
+
+    // a task that throws (the bundled jar has known bugs, for example in
+    // Range) is reported as failed and the remaining tasks still run
+    public static void report(int n, String name, Runnable task) {
+        try {
+            time(n, name, task);
+        }
+        catch (RuntimeException e) {
+            System.out.println(String.format("%-11d %-46s failed: %s", n, name, e));
+        }
+    }
+
+    public static void skip(int n, String name, String reason) {
+        System.out.println(String.format("%-11d %-46s skipped: %s", n, name, reason));
+    }
+
+    private static void time(int n, String name, Runnable task) {
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < TIMED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println(String.format("%-11d %-46s %10.3f", n, name, (double) best / n));
+    }
+
+    public static int[] sizes(String[] args, int[] defaults) {
+        if (args.length == 0) {
+            return defaults;
+        }
+        int[] result = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            result[i] = Integer.parseInt(args[i]);
+        }
+        return result;
+    }
+
+    public static void printSink() {
+        System.out.println("(sink " + sink + ")");
+    }
+}
@@ -0,0 +1,130 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.BulkTimeSeries;
+import org.jfree.data.general.SeriesChangeEvent;
+import org.jfree.data.general.SeriesChangeListener;
+import org.jfree.data.time.Day;
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.SimpleTimePeriod;
+import org.jfree.data.time.TimeSeries;
+import org.junit.*;
+import java.util.Random;
+
+// Tests for BulkTimeSeries.addAll, checked against TimeSeries.addOrUpdate.
+public class BulkTimeSeriesTest {
+
+    private BulkTimeSeries series;
+
+    private int events;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        series = new BulkTimeSeries("T", FixedMillisecond.class);
+        series.add(new FixedMillisecond(2000), 2.0);
+        events = 0;
+        series.addChangeListener(new SeriesChangeListener() {
+            public void seriesChanged(SeriesChangeEvent event) {
+                events++;
+            }
+        });
+    }
+
+    // NOM: an unordered batch is sorted and merged with a single change event
+    @Test
+    public void addAllMergesWithOneEvent() {
+        series.addAll(new long[] {3000, 1000, 2500}, new double[] {3.0, 1.0, 2.5});
+        assertEquals(1, events);
+        assertEquals(4, series.getItemCount());
+        assertEquals(new FixedMillisecond(1000), series.getTimePeriod(0));
+        assertEquals(2.5, series.getValue(2).doubleValue(), .000000001d);
+        assertEquals(new FixedMillisecond(3000), series.getTimePeriod(3));
+    }
+
+    // a period already present takes the last value given for it
+    @Test
+    public void addAllReplacesDuplicatePeriods() {
+        series.addAll(new long[] {2000, 4000, 4000}, new double[] {20.0, 4.0, 40.0});
+        assertEquals(2, series.getItemCount());
+        assertEquals(20.0, series.getValue(new FixedMillisecond(2000)).doubleValue(), .000000001d);
+        assertEquals(40.0, series.getValue(1).doubleValue(), .000000001d);
+    }
+
+    // times are converted to the series' time period class
+    @Test
+    public void addAllConvertsToTimePeriodClass() {
+        BulkTimeSeries days = new BulkTimeSeries("D", Day.class);
+        long day = 24L * 60 * 60 * 1000;
+        long noon = new Day().getFirstMillisecond() + day / 2;
+        days.addAll(new long[] {noon, noon + 1, noon - day}, new double[] {1.0, 2.0, 3.0});
+        assertEquals(2, days.getItemCount());
+        assertEquals(2.0, days.getValue(new Day()).doubleValue(), .000000001d);
+    }
+
+    // the maximum item count and age are applied once, keeping the latest items
+    @Test
+    public void addAllAppliesMaximumItemCountAndAge() {
+        series.setMaximumItemCount(3);
+        series.addAll(new long[] {5000, 1000, 4000, 3000}, new double[] {5.0, 1.0, 4.0, 3.0});
+        assertEquals(3, series.getItemCount());
+        assertEquals(new FixedMillisecond(3000), series.getTimePeriod(0));
+        series.setMaximumItemAge(1500);
+        series.addAll(new long[] {5500}, new double[] {5.5});
+        assertEquals(3, series.getItemCount());
+        assertEquals(new FixedMillisecond(4000), series.getTimePeriod(0));
+    }
+
+    // an unsupported time period class is rejected before anything is added
+    @Test
+    public void addAllWithUnsupportedPeriodClassThrowsException() {
+        BulkTimeSeries simple = new BulkTimeSeries("S", SimpleTimePeriod.class);
+        try {
+            simple.addAll(new long[] {1000}, new double[] {1.0});
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(0, simple.getItemCount());
+        }
+    }
+
+    // time and value arrays of different lengths are rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void addAllWithDifferentLengthsThrowsException() {
+        series.addAll(new long[] {1000}, new double[0]);
+    }
+
+    // random batches agree with TimeSeries.addOrUpdate
+    @Test
+    public void addAllAgreesWithTimeSeries() {
+        Random random = new Random(9);
+        TimeSeries expected = new TimeSeries("T", FixedMillisecond.class);
+        BulkTimeSeries actual = new BulkTimeSeries("T", FixedMillisecond.class);
+        for (int batch = 0; batch < 40; batch++) {
+            int n = random.nextInt(30);
+            long[] times = new long[n];
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) {
+                times[i] = batch % 3 == 0 ? random.nextInt(3000) : batch * 100 + i / 2;
+                values[i] = random.nextInt(1000);
+                expected.addOrUpdate(new FixedMillisecond(times[i]), values[i]);
+            }
+            actual.addAll(times, values);
+        }
+        assertEquals(expected.getItemCount(), actual.getItemCount());
+        for (int i = 0; i < expected.getItemCount(); i++) {
+            assertEquals(expected.getDataItem(i), actual.getDataItem(i));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,102 @@
+package org.jfree.data.test;
+
+import org.jfree.data.CSVStreamReader;
+import org.jfree.data.xy.XYSeries;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+// Compares CSVStreamReader with reading lines and calling String.split and
+// Double.valueOf per cell, on two-column numeric CSV held in memory.
+//
+// Not a JUnit test: run it directly, optionally passing row counts, e.g.
+//   java -Xmx4g -cp <classpath> org.jfree.data.test.CSVStreamReaderBenchmark 1000000 40000000
+// 40000000 rows is about 1GB of text.  Timings come from BenchmarkTimer.
+public class CSVStreamReaderBenchmark {
+
+    public static void main(String[] args) {
+        BenchmarkTimer.printHeader();
+        for (int n : BenchmarkTimer.sizes(args, new int[] {10000, 1000000})) {
+            run(n);
+        }
+        BenchmarkTimer.printSink();
+    }
+
+    private static void run(int n) {
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder(n * 24);
+        for (int i = 0; i < n; i++) {
+            builder.append(i).append(',').append(random.nextInt(2000000) / 1000.0).append('\n');
+        }
+        final String text = builder.toString();
+        final CSVStreamReader reader = new CSVStreamReader();
+
+        BenchmarkTimer.report(n, "split + Double.valueOf", new Runnable() {
+            public void run() {
+                try {
+                    BufferedReader in = new BufferedReader(new StringReader(text));
+                    double sum = 0.0;
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        String[] fields = line.split(",");
+                        sum += Double.valueOf(fields[0]) + Double.valueOf(fields[1]);
+                    }
+                    BenchmarkTimer.sink += (long) sum;
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        BenchmarkTimer.report(n, "CSVStreamReader.read, batches", new Runnable() {
+            public void run() {
+                final double[] sum = new double[1];
+                try {
+                    reader.read(new StringReader(text), false, new CSVStreamReader.BatchHandler() {
+                        public void batch(double[][] columns, int rowCount) {
+                            for (int r = 0; r < rowCount; r++) {
+                                sum[0] += columns[0][r] + columns[1][r];
+                            }
+                        }
+                    });
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                BenchmarkTimer.sink += (long) sum[0];
+            }
+        });
+        BenchmarkTimer.report(n, "split + XYSeries.add", new Runnable() {
+            public void run() {
+                try {
+                    XYSeries series = new XYSeries("S", false, true);
+                    BufferedReader in = new BufferedReader(new StringReader(text));
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        String[] fields = line.split(",");
+                        series.add(Double.valueOf(fields[0]), Double.valueOf(fields[1]), false);
+                    }
+                    series.fireSeriesChanged();
+                    BenchmarkTimer.sink += series.getItemCount();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        BenchmarkTimer.report(n, "CSVStreamReader.readXYSeries", new Runnable() {
+            public void run() {
+                try {
+                    XYSeries series = new XYSeries("S", false, true);
+                    reader.readXYSeries(new StringReader(text), series, false);
+                    BenchmarkTimer.sink += series.getItemCount();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+}
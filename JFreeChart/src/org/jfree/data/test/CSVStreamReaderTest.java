@@ -0,0 +1,205 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.CSVStreamReader;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.xy.XYSeries;
+import org.junit.*;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Tests for CSVStreamReader: batches, XY, time and category data read from strings.
+public class CSVStreamReaderTest {
+
+    private CSVStreamReader reader;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        reader = new CSVStreamReader();
+    }
+
+    // NOM: x, y pairs are added to an XYSeries in file order
+    @Test
+    public void readXYSeries() throws IOException {
+        XYSeries series = new XYSeries("S", false, true);
+        long n = reader.readXYSeries(new StringReader("x,y\n3,1.5\n1,-2e3\n2,.25\n"), series, true);
+        assertEquals(3, n);
+        assertEquals(3, series.getItemCount());
+        assertEquals(3.0, series.getX(0).doubleValue(), .000000001d);
+        assertEquals(-2000.0, series.getY(1).doubleValue(), .000000001d);
+        assertEquals(0.25, series.getY(2).doubleValue(), .000000001d);
+    }
+
+    // times in milliseconds are added to a TimeSeries with a single change event
+    @Test
+    public void readTimeSeries() throws IOException {
+        TimeSeries series = new TimeSeries("T", FixedMillisecond.class);
+        final int[] events = new int[1];
+        series.addChangeListener(new org.jfree.data.general.SeriesChangeListener() {
+            public void seriesChanged(org.jfree.data.general.SeriesChangeEvent event) {
+                events[0]++;
+            }
+        });
+        reader.readTimeSeries(new StringReader("1000,1\n2000,2\n3000,3"), series, false);
+        assertEquals(3, series.getItemCount());
+        assertEquals(2.0, series.getValue(new FixedMillisecond(2000)).doubleValue(), .000000001d);
+        assertEquals(1, events[0]);
+        assertTrue(series.getNotify());
+    }
+
+    // NOM: the category format of CSV.readCategoryDataset: column keys, then keyed rows
+    @Test
+    public void readCategoryDataset() throws IOException {
+        String text = "x,C1,C2,C3\nR1,1,2,3\n\"R2\",4.5,-6,7e-2\nR3, 8 ,9,10\n";
+        CategoryDataset dataset = reader.readCategoryDataset(new StringReader(text));
+        assertEquals(Arrays.asList("R1", "R2", "R3"), dataset.getRowKeys());
+        assertEquals(Arrays.asList("C1", "C2", "C3"), dataset.getColumnKeys());
+        assertEquals(4.5, dataset.getValue("R2", "C1").doubleValue(), .000000001d);
+        assertEquals(0.07, dataset.getValue("R2", "C3").doubleValue(), .000000001d);
+        assertEquals(8.0, dataset.getValue("R3", "C1").doubleValue(), .000000001d);
+    }
+
+    // a time period class without a (Date, TimeZone) constructor other than
+    // FixedMillisecond is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedTimePeriodClassThrowsException() throws IOException {
+        reader.readTimeSeries(new StringReader("1000,1\n"),
+                new TimeSeries("T", org.jfree.data.time.SimpleTimePeriod.class), false);
+    }
+
+    // an empty category cell is read as a null value
+    @Test
+    public void emptyCategoryCellIsNull() throws IOException {
+        CategoryDataset dataset = reader.readCategoryDataset(new StringReader("x,C1,C2\nR1,,2\n"));
+        assertNull(dataset.getValue("R1", "C1"));
+        assertEquals(2.0, dataset.getValue("R1", "C2").doubleValue(), .000000001d);
+    }
+
+    // quoted fields may hold delimiters, doubled quotes and line breaks
+    @Test
+    public void quotedFields() throws IOException {
+        String text = "x,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\"\nR1,1,2,3\n";
+        CategoryDataset dataset = reader.readCategoryDataset(new StringReader(text));
+        assertEquals("a,b", dataset.getColumnKey(0));
+        assertEquals("say \"hi\"", dataset.getColumnKey(1));
+        assertEquals("two\nlines", dataset.getColumnKey(2));
+    }
+
+    // \r\n and \r line endings are accepted and blank lines skipped
+    @Test
+    public void lineEndings() throws IOException {
+        XYSeries series = new XYSeries("S", false, true);
+        reader.readXYSeries(new StringReader("1,1\r\n2,2\r\r\n3,3\r4,4"), series, false);
+        assertEquals(4, series.getItemCount());
+        assertEquals(4.0, series.getY(3).doubleValue(), .000000001d);
+    }
+
+    // rows arrive in batches of the configured size, with empty fields as NaN
+    @Test
+    public void batches() throws IOException {
+        reader.setBatchSize(2);
+        final List<Integer> sizes = new ArrayList<Integer>();
+        final List<Double> values = new ArrayList<Double>();
+        long n = reader.read(new StringReader("1,\n2,\n3,\n4,\n5,6\n"), false, new CSVStreamReader.BatchHandler() {
+            public void batch(double[][] columns, int rowCount) {
+                sizes.add(rowCount);
+                for (int r = 0; r < rowCount; r++) {
+                    values.add(columns[0][r]);
+                    values.add(columns[1][r]);
+                }
+            }
+        });
+        assertEquals(5, n);
+        assertEquals(3, sizes.size());
+        assertEquals(1, sizes.get(2).intValue());
+        assertTrue(Double.isNaN(values.get(1)));
+        assertEquals(6.0, values.get(9), .000000001d);
+    }
+
+    // parsed values match Double.parseDouble exactly
+    @Test
+    public void parsingMatchesParseDouble() throws IOException {
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder();
+        List<String> cells = new ArrayList<String>();
+        String[] fixed = {"0", "-0", "1e22", "1e23", "123456789012345678901", "9007199254740993",
+            "4.9e-324", "1.7976931348623157E308", "0.1", "-.5", "+7", "NaN", "-Infinity", "1E-5"};
+        for (String s : fixed) {
+            cells.add(s);
+        }
+        for (int i = 0; i < 2000; i++) {
+            cells.add(Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20)));
+            cells.add(String.format("%.3f", random.nextDouble() * 1000));
+        }
+        for (String s : cells) {
+            text.append(s).append('\n');
+        }
+        final double[] parsed = new double[cells.size()];
+        final int[] count = new int[1];
+        reader.read(new StringReader(text.toString()), false, new CSVStreamReader.BatchHandler() {
+            public void batch(double[][] columns, int rowCount) {
+                System.arraycopy(columns[0], 0, parsed, count[0], rowCount);
+                count[0] += rowCount;
+            }
+        });
+        assertEquals(cells.size(), count[0]);
+        for (int i = 0; i < cells.size(); i++) {
+            assertEquals(cells.get(i), Double.doubleToLongBits(Double.parseDouble(cells.get(i))),
+                    Double.doubleToLongBits(parsed[i]));
+        }
+    }
+
+    // a malformed number is reported with its line number
+    @Test
+    public void invalidNumberThrowsException() {
+        try {
+            reader.readXYSeries(new StringReader("1,2\n3,x4\n"), new XYSeries("S"), false);
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2:"));
+        }
+    }
+
+    // a row with the wrong number of fields is rejected
+    @Test
+    public void raggedRowThrowsException() {
+        try {
+            reader.readXYSeries(new StringReader("1,2\n3,4,5\n"), new XYSeries("S"), false);
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2:"));
+        }
+    }
+
+    // an unterminated quoted field is rejected
+    @Test
+    public void unterminatedTextThrowsException() {
+        try {
+            reader.readCategoryDataset(new StringReader("x,\"C1\nR1,1\n"));
+            fail("Expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("unterminated"));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -3,6 +3,8 @@ package org.jfree.data.test;
 import static org.junit.Assert.*;
 import java.security.InvalidParameterException;
 
+import org.jfree.data.DoubleArrayValues2D;
+import org.jfree.data.PrimitiveDataUtilities;
 import org.jfree.data.Values2D;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -179,4 +181,77 @@ public class CalculateColumnTotalTest {
         DataUtilities.calculateColumnTotal(null, 0);
     }
 
-}
\ No newline at end of file
+
+    // TC15 – Primitive fast path (DoubleArrayValues2D), LB column
+
+    @Test
+    public void testTC15_primitiveTable_firstColumn() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{1.0, 2.0}, {3.0, 4.0}});
+
+        double result = PrimitiveDataUtilities.calculateColumnTotal(table, 0);
+        assertEquals(4.0, result, 1e-9);
+    }
+
+
+    // TC16 – Primitive fast path, UB column (3x3 table)
+
+    @Test
+    public void testTC16_primitiveTable_lastColumn() {
+        Values2D table = new DoubleArrayValues2D(
+                new double[][] {{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}, {7.0, 8.0, 9.0}});
+
+        double result = PrimitiveDataUtilities.calculateColumnTotal(table, 2);
+        assertEquals(18.0, result, 1e-9);
+    }
+
+
+    // TC17 – Primitive fast path, all null values
+
+    @Test
+    public void testTC17_primitiveTable_allNullColumn() {
+        Values2D table = new DoubleArrayValues2D(2, 2);
+
+        double result = PrimitiveDataUtilities.calculateColumnTotal(table, 0);
+        assertEquals(0.0, result, 1e-9);
+    }
+
+
+    // TC18 – Primitive fast path, some null values
+
+    @Test
+    public void testTC18_primitiveTable_someNullValues() {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(2, 2);
+        table.setValue(1, 0, 4.0);
+
+        double result = PrimitiveDataUtilities.calculateColumnTotal(table, 0);
+        assertEquals(4.0, result, 1e-9);
+    }
+
+
+    // TC19 – Primitive fast path, jagged input pads short rows with null
+
+    @Test
+    public void testTC19_primitiveTable_jaggedInput() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{1.0}, {2.0, 3.0}});
+
+        double result = PrimitiveDataUtilities.calculateColumnTotal(table, 1);
+        assertEquals(3.0, result, 1e-9);
+    }
+
+
+    // TC20 – Primitive fast path, null data
+
+    @Test(expected = InvalidParameterException.class)
+    public void testTC20_primitiveTable_nullData() {
+        PrimitiveDataUtilities.calculateColumnTotal((DoubleArrayValues2D) null, 0);
+    }
+
+
+    // TC21 – Primitive fast path, AUB column
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTC21_primitiveTable_columnAboveUpperBound() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{1.0, 2.0}, {3.0, 4.0}});
+        PrimitiveDataUtilities.calculateColumnTotal(table, 2);
+    }
+}
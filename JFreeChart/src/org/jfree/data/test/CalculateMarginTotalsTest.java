@@ -0,0 +1,137 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import java.security.InvalidParameterException;
+
+import org.jfree.data.DoubleArrayValues2D;
+import org.jfree.data.PrimitiveDataUtilities;
+import org.jfree.data.Values2D;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Before;
+import org.junit.Test;
+
+// Tests for PrimitiveDataUtilities.calculateAllRowTotals(Values2D),
+// calculateAllColumnTotals(Values2D) and calculateMarginTotals(Values2D).
+// The generic path is driven through a JMock Values2D, the primitive path through DoubleArrayValues2D.
+public class CalculateMarginTotalsTest {
+
+    private Mockery context;
+    private Values2D values;
+
+    @Before
+    public void setUp() {
+        context = new Mockery();
+        values = context.mock(Values2D.class);
+    }
+
+    private void expectTwoByTwo(final Number v00, final Number v01,
+            final Number v10, final Number v11) {
+        context.checking(new Expectations() {{
+            allowing(values).getRowCount(); will(returnValue(2));
+            allowing(values).getColumnCount(); will(returnValue(2));
+            allowing(values).getValue(0, 0); will(returnValue(v00));
+            allowing(values).getValue(0, 1); will(returnValue(v01));
+            allowing(values).getValue(1, 0); will(returnValue(v10));
+            allowing(values).getValue(1, 1); will(returnValue(v11));
+        }});
+    }
+
+    // TC1 – NOM: every row total of a 2x2 table
+    @Test
+    public void testTC1_allRowTotals() {
+        expectTwoByTwo(1.0, 2.0, 3.0, 4.0);
+
+        double[] result = PrimitiveDataUtilities.calculateAllRowTotals(values);
+        assertArrayEquals(new double[] {3.0, 7.0}, result, 1e-9);
+    }
+
+    // TC2 – NOM: every column total of a 2x2 table
+    @Test
+    public void testTC2_allColumnTotals() {
+        expectTwoByTwo(1.0, 2.0, 3.0, 4.0);
+
+        double[] result = PrimitiveDataUtilities.calculateAllColumnTotals(values);
+        assertArrayEquals(new double[] {4.0, 6.0}, result, 1e-9);
+    }
+
+    // TC3 – NOM: both margins from one pass
+    @Test
+    public void testTC3_marginTotals() {
+        expectTwoByTwo(1.0, 2.0, 3.0, 4.0);
+
+        double[][] result = PrimitiveDataUtilities.calculateMarginTotals(values);
+        assertEquals(2, result.length);
+        assertArrayEquals(new double[] {3.0, 7.0}, result[0], 1e-9);
+        assertArrayEquals(new double[] {4.0, 6.0}, result[1], 1e-9);
+    }
+
+    // TC4 – null cells are ignored in both margins
+    @Test
+    public void testTC4_marginTotalsWithNullValues() {
+        expectTwoByTwo(null, 2.0, 3.0, null);
+
+        double[][] result = PrimitiveDataUtilities.calculateMarginTotals(values);
+        assertArrayEquals(new double[] {2.0, 3.0}, result[0], 1e-9);
+        assertArrayEquals(new double[] {3.0, 2.0}, result[1], 1e-9);
+    }
+
+    // TC5 – LB: empty table gives empty margins
+    @Test
+    public void testTC5_emptyTable() {
+        context.checking(new Expectations() {{
+            allowing(values).getRowCount(); will(returnValue(0));
+            allowing(values).getColumnCount(); will(returnValue(0));
+        }});
+
+        double[][] result = PrimitiveDataUtilities.calculateMarginTotals(values);
+        assertEquals(0, result[0].length);
+        assertEquals(0, result[1].length);
+    }
+
+    // TC6 – primitive table: margins match the per-row and per-column totals
+    @Test
+    public void testTC6_primitiveTableMatchesSingleTotals() {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(
+                new double[][] {{1.0, -2.0, 3.5}, {4.0, 5.0, -6.5}, {7.0, 8.0, 9.0}});
+        table.setValue(1, 1, (Number) null);
+
+        double[][] result = PrimitiveDataUtilities.calculateMarginTotals(table);
+        for (int r = 0; r < 3; r++) {
+            assertEquals(PrimitiveDataUtilities.calculateRowTotal(table, r), result[0][r], 1e-9);
+        }
+        for (int c = 0; c < 3; c++) {
+            assertEquals(PrimitiveDataUtilities.calculateColumnTotal(table, c), result[1][c], 1e-9);
+        }
+    }
+
+    // TC7 – primitive table: genuine NaN propagates to its row and column only
+    @Test
+    public void testTC7_primitiveTableNaN() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{Double.NaN, 1.0}, {2.0, 3.0}});
+
+        double[][] result = PrimitiveDataUtilities.calculateMarginTotals(table);
+        assertTrue(Double.isNaN(result[0][0]));
+        assertEquals(5.0, result[0][1], 1e-9);
+        assertTrue(Double.isNaN(result[1][0]));
+        assertEquals(4.0, result[1][1], 1e-9);
+    }
+
+    // TC8 – U1: null data
+    @Test(expected = InvalidParameterException.class)
+    public void testTC8_allRowTotalsNullData() {
+        PrimitiveDataUtilities.calculateAllRowTotals(null);
+    }
+
+    // TC9 – U1: null data
+    @Test(expected = InvalidParameterException.class)
+    public void testTC9_allColumnTotalsNullData() {
+        PrimitiveDataUtilities.calculateAllColumnTotals(null);
+    }
+
+    // TC10 – U1: null data
+    @Test(expected = InvalidParameterException.class)
+    public void testTC10_marginTotalsNullData() {
+        PrimitiveDataUtilities.calculateMarginTotals(null);
+    }
+}
@@ -3,6 +3,8 @@ package org.jfree.data.test;
 import static org.junit.Assert.*;
 import java.security.InvalidParameterException;
 
+import org.jfree.data.DoubleArrayValues2D;
+import org.jfree.data.PrimitiveDataUtilities;
 import org.jfree.data.Values2D;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -201,4 +203,89 @@ public class CalculateRowTotalTest {
         double result = DataUtilities.calculateRowTotal(values, 0);
         assertEquals(Double.POSITIVE_INFINITY, result, 0.0);
     }
-}
\ No newline at end of file
+
+    // ------------------------------------------------------------
+    // Primitive Fast Path (DoubleArrayValues2D)
+    // ------------------------------------------------------------
+
+    @Test
+    public void testTC15_primitiveTable_firstRow() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{1.0, 2.0}, {3.0, 4.0}});
+
+        double result = PrimitiveDataUtilities.calculateRowTotal(table, 0);
+        assertEquals(3.0, result, 1e-9);
+    }
+
+    @Test
+    public void testTC16_primitiveTable_lastRow_UB() {
+        Values2D table = new DoubleArrayValues2D(
+                new double[][] {{1.0, 2.0}, {3.0, 4.0}, {5.0, 6.0}, {7.0, 8.0}});
+
+        double result = PrimitiveDataUtilities.calculateRowTotal(table, 3);
+        assertEquals(15.0, result, 1e-9);
+    }
+
+    @Test
+    public void testTC17_primitiveTable_nullCellsIgnored() {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(2, 3);
+        table.setValue(1, 0, 2.5);
+        table.setValue(1, 2, -1.0);
+
+        double result = PrimitiveDataUtilities.calculateRowTotal(table, 1);
+        assertEquals(1.5, result, 1e-9);
+        assertNull(table.getValue(1, 1));
+    }
+
+    @Test
+    public void testTC18_primitiveTable_NaNIsNotNull() {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(new double[][] {{Double.NaN, 1.0}});
+
+        double result = PrimitiveDataUtilities.calculateRowTotal(table, 0);
+        assertTrue(Double.isNaN(result));
+        assertNotNull(table.getValue(0, 0));
+    }
+
+    @Test
+    public void testTC19_primitiveTable_cellSetBackToNull() {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(new double[][] {{4.0, 6.0}});
+        table.setValue(0, 0, (Number) null);
+
+        double result = PrimitiveDataUtilities.calculateRowTotal(table, 0);
+        assertEquals(6.0, result, 1e-9);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testTC20_primitiveTable_nullData() {
+        PrimitiveDataUtilities.calculateRowTotal((DoubleArrayValues2D) null, 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTC21_primitiveTable_rowBelowLowerBound() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{1.0, 2.0}, {3.0, 4.0}});
+        PrimitiveDataUtilities.calculateRowTotal(table, -1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTC22_primitiveTable_rowAboveUpperBound() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{1.0, 2.0}, {3.0, 4.0}});
+        PrimitiveDataUtilities.calculateRowTotal(table, 2);
+    }
+
+    @Test
+    public void testTC23_primitiveTable_newTableIsAllNullAcrossWords() {
+        // 2 x 35 = 70 cells, so the null bitmap has a partial last word
+        DoubleArrayValues2D table = new DoubleArrayValues2D(2, 35);
+        assertNull(table.getValue(1, 34));
+        assertTrue(table.isNull(0, 0));
+        table.setValue(1, 34, 3.0);
+
+        double result = PrimitiveDataUtilities.calculateRowTotal(table, 1);
+        assertEquals(3.0, result, 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTC24_primitiveTable_tooManyCells() {
+        // 65536 * 65537 overflows int arithmetic
+        new DoubleArrayValues2D(65536, 65537);
+    }
+}
@@ -0,0 +1,174 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import java.security.InvalidParameterException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jfree.data.DoubleArrayValues2D;
+import org.jfree.data.PrimitiveDataUtilities;
+import org.jfree.data.Values2D;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// Tests for PrimitiveDataUtilities.calculateColumnTotalParallel(...) and calculateRowTotalParallel(...).
+// Small thresholds force the fork-join split so the parallel path is exercised on small tables.
+public class CalculateTotalParallelTest {
+
+    private Mockery context;
+    private Values2D values;
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        context = new Mockery();
+        values = context.mock(Values2D.class);
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    // Builds a rows x 2 table where column 0 holds 1..rows and column 1 holds -(1..rows).
+    private static DoubleArrayValues2D tallTable(int rows) {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(rows, 2);
+        for (int r = 0; r < rows; r++) {
+            table.setValue(r, 0, r + 1);
+            table.setValue(r, 1, -(r + 1));
+        }
+        return table;
+    }
+
+    // TC1 – NOM: split column total equals the sequential total
+    @Test
+    public void testTC1_columnTotalMatchesSequential() {
+        DoubleArrayValues2D table = tallTable(10000);
+
+        double result = PrimitiveDataUtilities.calculateColumnTotalParallel(table, 0, pool, 64);
+        assertEquals(PrimitiveDataUtilities.calculateColumnTotal(table, 0), result, 1e-9);
+        assertEquals(50005000.0, result, 1e-9);
+    }
+
+    // TC2 – NOM: split row total equals the sequential total
+    @Test
+    public void testTC2_rowTotalMatchesSequential() {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(1, 5000);
+        for (int c = 0; c < 5000; c++) {
+            table.setValue(0, c, 0.5);
+        }
+
+        double result = PrimitiveDataUtilities.calculateRowTotalParallel(table, 0, pool, 16);
+        assertEquals(2500.0, result, 1e-9);
+    }
+
+    // TC3 – compensated summation recovers a value lost by naive addition
+    @Test
+    public void testTC3_compensatedSummation() {
+        DoubleArrayValues2D table = new DoubleArrayValues2D(new double[][] {{1e16, 1.0, -1e16}});
+
+        for (int threshold = 1; threshold <= 3; threshold++) {
+            double result = PrimitiveDataUtilities.calculateRowTotalParallel(table, 0, pool, threshold);
+            assertEquals("threshold " + threshold, 1.0, result, 0.0);
+        }
+    }
+
+    // TC4 – null cells are ignored on the split path
+    @Test
+    public void testTC4_nullCellsIgnored() {
+        DoubleArrayValues2D table = tallTable(1000);
+        for (int r = 0; r < 1000; r += 2) {
+            table.setValue(r, 0, (Number) null);
+        }
+
+        double result = PrimitiveDataUtilities.calculateColumnTotalParallel(table, 0, pool, 10);
+        assertEquals(250500.0, result, 1e-9);
+    }
+
+    // TC5 – generic Values2D below the threshold is summed sequentially
+    @Test
+    public void testTC5_genericTableSequential() {
+        context.checking(new Expectations() {{
+            allowing(values).getRowCount(); will(returnValue(2));
+            allowing(values).getColumnCount(); will(returnValue(2));
+            allowing(values).getValue(0, 1); will(returnValue(2.0));
+            allowing(values).getValue(1, 1); will(returnValue(null));
+        }});
+
+        double result = PrimitiveDataUtilities.calculateColumnTotalParallel(values, 1);
+        assertEquals(2.0, result, 1e-9);
+    }
+
+    // TC6 – generic Values2D above the threshold is split across the pool
+    @Test
+    public void testTC6_genericTableSplit() {
+        context.checking(new Expectations() {{
+            allowing(values).getRowCount(); will(returnValue(1));
+            allowing(values).getColumnCount(); will(returnValue(4));
+            allowing(values).getValue(0, 0); will(returnValue(1.0));
+            allowing(values).getValue(0, 1); will(returnValue(2.0));
+            allowing(values).getValue(0, 2); will(returnValue(3.0));
+            allowing(values).getValue(0, 3); will(returnValue(4.0));
+        }});
+
+        double result = PrimitiveDataUtilities.calculateRowTotalParallel(values, 0, pool, 1);
+        assertEquals(10.0, result, 1e-9);
+    }
+
+    // TC7 – overflow still gives infinity rather than NaN from the compensation term
+    @Test
+    public void testTC7_overflow_MAX_VALUE() {
+        Values2D table = new DoubleArrayValues2D(new double[][] {{Double.MAX_VALUE, Double.MAX_VALUE}});
+
+        double result = PrimitiveDataUtilities.calculateRowTotalParallel(table, 0, pool, 1);
+        assertEquals(Double.POSITIVE_INFINITY, result, 0.0);
+    }
+
+    // TC8 – U1: null data
+    @Test(expected = InvalidParameterException.class)
+    public void testTC8_nullData() {
+        PrimitiveDataUtilities.calculateColumnTotalParallel(null, 0);
+    }
+
+    // TC9 – null pool: plain IllegalArgumentException, not the
+    // InvalidParameterException subclass used for null data
+    @Test
+    public void testTC9_nullPool() {
+        try {
+            PrimitiveDataUtilities.calculateRowTotalParallel(tallTable(2), 0, null, 1);
+            fail("Null pool should be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(IllegalArgumentException.class, e.getClass());
+            assertEquals("Null 'pool' argument.", e.getMessage());
+        }
+    }
+
+    // TC10 – threshold below one
+    @Test
+    public void testTC10_zeroThreshold() {
+        try {
+            PrimitiveDataUtilities.calculateRowTotalParallel(tallTable(2), 0, pool, 0);
+            fail("Zero threshold should be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(IllegalArgumentException.class, e.getClass());
+            assertEquals("Requires 'threshold' to be positive.", e.getMessage());
+        }
+    }
+
+    // TC11 – AUB column
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTC11_columnAboveUpperBound() {
+        PrimitiveDataUtilities.calculateColumnTotalParallel(tallTable(2), 2, pool, 1);
+    }
+
+    // TC12 – BLB row
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTC12_rowBelowLowerBound() {
+        PrimitiveDataUtilities.calculateRowTotalParallel(tallTable(2), -1, pool, 1);
+    }
+}
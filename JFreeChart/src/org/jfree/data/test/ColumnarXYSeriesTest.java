@@ -0,0 +1,334 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.ChangeBatch;
+import org.jfree.data.ColumnarXYSeries;
+import org.jfree.data.SeriesRangeChangeEvent;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.jfree.data.general.SeriesChangeEvent;
+import org.jfree.data.general.SeriesChangeListener;
+import org.jfree.data.general.SeriesException;
+import org.jfree.data.xy.XYDataItem;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.*;
+import java.util.Random;
+
+// Tests for ColumnarXYSeries, checked against XYSeries where the two series
+// are expected to agree.
+public class ColumnarXYSeriesTest {
+
+    private ColumnarXYSeries series;
+
+    private int events;
+
+    private SeriesChangeEvent lastEvent;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        series = new ColumnarXYSeries("S");
+        series.add(3.0, 30.0);
+        series.add(1.0, 10.0);
+        series.add(2.0, null);
+        events = 0;
+        series.addChangeListener(new SeriesChangeListener() {
+            public void seriesChanged(SeriesChangeEvent event) {
+                events++;
+                lastEvent = event;
+            }
+        });
+    }
+
+    // NOM: items are kept sorted by x-value
+    @Test
+    public void addKeepsItemsSorted() {
+        assertEquals(3, series.getItemCount());
+        assertEquals(1.0, series.getXValue(0), .000000001d);
+        assertEquals(3.0, series.getX(2).doubleValue(), .000000001d);
+        assertEquals(30.0, series.getY(2).doubleValue(), .000000001d);
+    }
+
+    // null y-values are kept apart from NaN
+    @Test
+    public void nullYValue() {
+        series.add(4.0, Double.NaN);
+        assertNull(series.getY(1));
+        assertTrue(Double.isNaN(series.getYValue(1)));
+        assertNotNull(series.getY(3));
+        series.remove(0);
+        assertNull("null flag should move with its item", series.getY(0));
+        series.updateByIndex(0, Double.valueOf(20.0));
+        assertEquals(20.0, series.getY(0).doubleValue(), .000000001d);
+    }
+
+    // binary search lookups, including a numerically equal Integer
+    @Test
+    public void indexOfSortedSeries() {
+        assertEquals(1, series.indexOf(Double.valueOf(2.0)));
+        assertEquals(1, series.indexOf(Integer.valueOf(2)));
+        assertEquals(-4, series.indexOf(7.5));
+    }
+
+    // duplicates are rejected when not allowed
+    @Test(expected = SeriesException.class)
+    public void addDuplicateWhenNotAllowedThrowsException() {
+        ColumnarXYSeries unique = new ColumnarXYSeries("U", true, false);
+        unique.add(1.0, 1.0);
+        unique.add(1.0, 2.0);
+    }
+
+    // update of a missing x-value
+    @Test(expected = SeriesException.class)
+    public void updateMissingXValueThrowsException() {
+        series.update(Double.valueOf(9.0), Double.valueOf(1.0));
+    }
+
+    // addOrUpdate overwrites an existing item and returns a copy of it
+    @Test
+    public void addOrUpdateExistingItem() {
+        XYDataItem old = series.addOrUpdate(Double.valueOf(3.0), Double.valueOf(33.0));
+        assertEquals(30.0, old.getY().doubleValue(), .000000001d);
+        assertEquals(33.0, series.getYValue(2), .000000001d);
+        assertNull(series.addOrUpdate(Double.valueOf(0.5), Double.valueOf(5.0)));
+        assertEquals(0.5, series.getXValue(0), .000000001d);
+        assertEquals(2, events);
+    }
+
+    // maximum item count drops the oldest items
+    @Test
+    public void maximumItemCountDropsFirstItems() {
+        series.setMaximumItemCount(2);
+        assertEquals(2, series.getItemCount());
+        assertEquals(2.0, series.getXValue(0), .000000001d);
+        assertNull(series.getY(0));
+        series.add(5.0, 50.0);
+        assertEquals(2, series.getItemCount());
+        assertEquals(3.0, series.getXValue(0), .000000001d);
+    }
+
+    // a copy is independent of the original
+    @Test
+    public void createCopyIsIndependent() throws CloneNotSupportedException {
+        ColumnarXYSeries copy = (ColumnarXYSeries) series.createCopy(1, 2);
+        assertEquals(2, copy.getItemCount());
+        assertNull(copy.getY(0));
+        copy.add(9.0, 90.0);
+        assertEquals(3, series.getItemCount());
+        ColumnarXYSeries clone = (ColumnarXYSeries) series.clone();
+        assertEquals(series, clone);
+        clone.updateByIndex(0, Double.valueOf(-1.0));
+        assertFalse(series.equals(clone));
+    }
+
+    // usable in an XYSeriesCollection
+    @Test
+    public void worksInXYSeriesCollection() {
+        XYSeriesCollection collection = new XYSeriesCollection(series);
+        assertEquals(3, collection.getItemCount(0));
+        assertEquals(10.0, collection.getYValue(0, 0), .000000001d);
+    }
+
+    // random adds, updates and removals agree with XYSeries, sorted and unsorted
+    @Test
+    public void agreesWithXYSeries() {
+        Random random = new Random(11);
+        for (int mode = 0; mode < 4; mode++) {
+            boolean autoSort = (mode & 1) != 0;
+            boolean duplicates = (mode & 2) != 0;
+            XYSeries expected = new XYSeries("S", autoSort, duplicates);
+            ColumnarXYSeries actual = new ColumnarXYSeries("S", autoSort, duplicates);
+            expected.setMaximumItemCount(150);
+            actual.setMaximumItemCount(150);
+            for (int i = 0; i < 2000; i++) {
+                Double x = Double.valueOf(random.nextInt(200));
+                Double y = random.nextInt(5) == 0 ? null : Double.valueOf(random.nextInt(1000));
+                int operation = random.nextInt(4);
+                if (operation == 0 && expected.getItemCount() > 0) {
+                    int index = random.nextInt(expected.getItemCount());
+                    assertEquals(expected.remove(index), actual.remove(index));
+                }
+                else if (operation == 1) {
+                    assertEquals(expected.addOrUpdate(x, y), actual.addOrUpdate(x, y));
+                }
+                else {
+                    boolean rejected = false;
+                    try {
+                        expected.add(x, y);
+                    }
+                    catch (SeriesException e) {
+                        rejected = true;
+                    }
+                    try {
+                        actual.add(x, y);
+                        assertFalse("add should be rejected", rejected);
+                    }
+                    catch (SeriesException e) {
+                        assertTrue("add should be accepted", rejected);
+                    }
+                }
+                assertEquals(expected.indexOf(x), actual.indexOf(x));
+            }
+            assertEquals("mode " + mode, expected.getItemCount(), actual.getItemCount());
+            for (int i = 0; i < expected.getItemCount(); i++) {
+                assertEquals("mode " + mode + " item " + i, expected.getDataItem(i), actual.getDataItem(i));
+                assertEquals(expected.getY(i), actual.getY(i));
+            }
+        }
+    }
+
+    // NOM: a batch is merged into a sorted series with a single change event
+    @Test
+    public void addAllMergesWithOneEvent() {
+        series.addAll(new double[] {2.5, 0.5, 3.0}, new double[] {25.0, 5.0, 31.0});
+        assertEquals(1, events);
+        assertEquals(6, series.getItemCount());
+        assertEquals(0.5, series.getXValue(0), .000000001d);
+        assertNull("null flag should move with its item", series.getY(2));
+        assertEquals(2.5, series.getXValue(3), .000000001d);
+        assertEquals(30.0, series.getYValue(4), .000000001d);
+        assertEquals(31.0, series.getYValue(5), .000000001d);
+    }
+
+    // without duplicates, a batch replaces the y-value of an existing x-value
+    @Test
+    public void addAllReplacesDuplicateWhenNotAllowed() {
+        ColumnarXYSeries unique = new ColumnarXYSeries("U", true, false);
+        unique.add(1.0, null);
+        unique.addAll(new double[] {1.0, 0.0, 1.0}, new double[] {11.0, 0.0, 12.0});
+        assertEquals(2, unique.getItemCount());
+        assertEquals(12.0, unique.getY(1).doubleValue(), .000000001d);
+    }
+
+    // the maximum item count is applied once, keeping the last items
+    @Test
+    public void addAllAppliesMaximumItemCount() {
+        series.setMaximumItemCount(4);
+        series.addAll(new double[] {5.0, 4.0}, new double[] {50.0, 40.0});
+        assertEquals(4, series.getItemCount());
+        assertEquals(2.0, series.getXValue(0), .000000001d);
+        assertEquals(5.0, series.getXValue(3), .000000001d);
+    }
+
+    // x- and y-value arrays of different lengths are rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void addAllWithDifferentLengthsThrowsException() {
+        series.addAll(new double[] {1.0}, new double[0]);
+    }
+
+    // random batches agree with adding each item to an XYSeries, sorted and
+    // unsorted (addOrUpdate where duplicates are not allowed)
+    @Test
+    public void addAllAgreesWithXYSeries() {
+        Random random = new Random(5);
+        for (int mode = 0; mode < 4; mode++) {
+            boolean autoSort = (mode & 1) != 0;
+            boolean duplicates = (mode & 2) != 0;
+            XYSeries expected = new XYSeries("S", autoSort, duplicates);
+            ColumnarXYSeries actual = new ColumnarXYSeries("S", autoSort, duplicates);
+            for (int batch = 0; batch < 40; batch++) {
+                int n = random.nextInt(30);
+                double[] xs = new double[n];
+                double[] ys = new double[n];
+                for (int i = 0; i < n; i++) {
+                    // mostly ascending batches, some shuffled
+                    xs[i] = batch % 3 == 0 ? random.nextInt(300) : batch * 10 + i / 3;
+                    ys[i] = random.nextInt(1000);
+                    if (duplicates) {
+                        expected.add(xs[i], ys[i], false);
+                    }
+                    else {
+                        expected.addOrUpdate(Double.valueOf(xs[i]), Double.valueOf(ys[i]));
+                    }
+                }
+                actual.addAll(xs, ys);
+            }
+            assertEquals("mode " + mode, expected.getItemCount(), actual.getItemCount());
+            for (int i = 0; i < expected.getItemCount(); i++) {
+                assertEquals("mode " + mode + " item " + i, expected.getDataItem(i), actual.getDataItem(i));
+            }
+        }
+    }
+
+    // checks the item range of the last change event
+    private void assertLastRange(int first, int last) {
+        SeriesRangeChangeEvent event = (SeriesRangeChangeEvent) lastEvent;
+        assertEquals("first index", first, event.getFirstIndex());
+        assertEquals("last index", last, event.getLastIndex());
+    }
+
+    // each change event records the items that changed
+    @Test
+    public void eventsRecordChangedItems() {
+        series.updateByIndex(1, Double.valueOf(5.0));
+        assertLastRange(1, 1);
+        series.add(4.0, 40.0);
+        assertLastRange(3, Integer.MAX_VALUE);
+        series.remove(Double.valueOf(2.0));
+        assertLastRange(1, Integer.MAX_VALUE);
+        series.fireSeriesChanged();
+        assertLastRange(0, Integer.MAX_VALUE);
+    }
+
+    // a batch sends one event, covering all its changes, when the outermost
+    // batch is closed; a collection holding the series sends one event too
+    @Test
+    public void batchSendsOneEvent() {
+        XYSeriesCollection dataset = new XYSeriesCollection(series);
+        final int[] datasetEvents = new int[1];
+        dataset.addChangeListener(new DatasetChangeListener() {
+            public void datasetChanged(DatasetChangeEvent event) {
+                datasetEvents[0]++;
+            }
+        });
+        ChangeBatch outer = series.beginBatch();
+        ChangeBatch batch = series.beginBatch();
+        try {
+            for (int i = 0; i < 100000; i++) {
+                series.add(10.0 + i, i);
+            }
+            series.updateByIndex(2, Double.valueOf(3.0));
+        }
+        finally {
+            batch.close();
+        }
+        assertEquals(0, events);
+        outer.close();
+        outer.close();
+        assertEquals(1, events);
+        assertEquals(1, datasetEvents[0]);
+        assertLastRange(2, Integer.MAX_VALUE);
+        assertEquals(100003, series.getItemCount());
+    }
+
+    // a batch without changes sends no event
+    @Test
+    public void emptyBatchSendsNoEvent() {
+        series.beginBatch().close();
+        assertEquals(0, events);
+    }
+
+    // changes made while notification is off are reported by the next event
+    @Test
+    public void changesWithoutNotifyReportedLater() {
+        series.setNotify(false);
+        series.updateByIndex(2, Double.valueOf(3.0));
+        series.updateByIndex(1, Double.valueOf(2.0));
+        assertEquals(0, events);
+        series.setNotify(true);
+        assertEquals(1, events);
+        assertLastRange(1, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
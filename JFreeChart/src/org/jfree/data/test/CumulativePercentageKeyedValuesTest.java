@@ -0,0 +1,263 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.CumulativePercentageKeyedValues;
+import org.jfree.data.DefaultKeyedValues;
+import org.jfree.data.IndexedKeyedValues;
+import org.jfree.data.UnknownKeyException;
+import org.junit.Before;
+import org.junit.Test;
+import java.security.InvalidParameterException;
+
+
+public class CumulativePercentageKeyedValuesTest {
+
+    private static final double DELTA = 1e-9;
+
+    private DefaultKeyedValues data;
+
+    @Before
+    public void setUp() throws Exception {
+        data = new DefaultKeyedValues();
+    }
+
+
+    // TC1: view over existing values
+    // Input:  {0→5, 1→9, 2→2}
+    // Expect: {0→0.3125, 1→0.875, 2→1.0}
+    @Test
+    public void testTC1_existingValues() {
+        data.addValue(Integer.valueOf(0), 5.0);
+        data.addValue(Integer.valueOf(1), 9.0);
+        data.addValue(Integer.valueOf(2), 2.0);
+
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+
+        assertEquals("Item count should be 3", 3, view.getItemCount());
+        assertEquals(0.3125, view.getValue(0).doubleValue(), DELTA);
+        assertEquals(0.875, view.getValue(1).doubleValue(), DELTA);
+        assertEquals(1.0, view.getValue(2).doubleValue(), DELTA);
+    }
+
+
+    // TC2: values appended one key at a time through the view
+    // Input:  {A→1, B→1, C→2}
+    // Expect: {A→0.25, B→0.5, C→1.0}, underlying values updated too
+    @Test
+    public void testTC2_appendThroughView() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.addValue("A", 1.0);
+        view.addValue("B", 1.0);
+        view.addValue("C", 2.0);
+
+        assertEquals(0.25, view.getValue("A").doubleValue(), DELTA);
+        assertEquals(0.5, view.getValue("B").doubleValue(), DELTA);
+        assertEquals(1.0, view.getValue("C").doubleValue(), DELTA);
+        assertEquals("Underlying item count should be 3", 3, data.getItemCount());
+        assertEquals(2.0, data.getValue("C").doubleValue(), DELTA);
+    }
+
+
+    // TC3: updating an existing key keeps its position
+    // Input:  {A→1, B→1, C→2}, then B→5
+    // Expect: {A→0.125, B→0.75, C→1.0}
+    @Test
+    public void testTC3_updateExistingKey() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.addValue("A", 1.0);
+        view.addValue("B", 1.0);
+        view.addValue("C", 2.0);
+        view.setValue("B", 5.0);
+
+        assertEquals("Item count should still be 3", 3, view.getItemCount());
+        assertEquals(1, view.getIndex("B"));
+        assertEquals(0.125, view.getPercentage(0), DELTA);
+        assertEquals(0.75, view.getPercentage(1), DELTA);
+        assertEquals(1.0, view.getPercentage(2), DELTA);
+    }
+
+
+    // TC4: many appends across several tree-capacity growths
+    // Input:  keys 0..99 with value 1
+    // Expect: value at index i is (i + 1) / 100
+    @Test
+    public void testTC4_manyAppends() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        for (int i = 0; i < 100; i++) {
+            view.addValue(Integer.valueOf(i), 1.0);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals((i + 1) / 100.0, view.getPercentage(i), DELTA);
+        }
+    }
+
+
+    // TC5: null values count as zero
+    // Input:  {0→null, 1→4}
+    // Expect: {0→0.0, 1→1.0}
+    @Test
+    public void testTC5_nullValueCountsAsZero() {
+        data.addValue(Integer.valueOf(0), null);
+        data.addValue(Integer.valueOf(1), 4.0);
+
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+
+        assertEquals(0.0, view.getPercentage(0), DELTA);
+        assertEquals(1.0, view.getPercentage(1), DELTA);
+    }
+
+
+    // TC6: removal rebuilds the running sums
+    // Input:  {A→1, B→2, C→1}, then remove A
+    // Expect: {B→0.6666..., C→1.0}
+    @Test
+    public void testTC6_removeValue() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.addValue("A", 1.0);
+        view.addValue("B", 2.0);
+        view.addValue("C", 1.0);
+        view.removeValue("A");
+
+        assertEquals("Item count should be 2", 2, view.getItemCount());
+        assertEquals(2.0 / 3.0, view.getValue("B").doubleValue(), DELTA);
+        assertEquals(1.0, view.getValue("C").doubleValue(), DELTA);
+    }
+
+
+    // TC7: direct change to the underlying values, picked up by refresh()
+    @Test
+    public void testTC7_refreshAfterDirectChange() {
+        data.addValue("A", 1.0);
+        data.addValue("B", 1.0);
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        data.setValue("A", 3.0);
+        view.refresh();
+
+        assertEquals(0.75, view.getPercentage(0), DELTA);
+    }
+
+
+    // TC8: null source — must throw InvalidParameterException
+    @Test(expected = InvalidParameterException.class)
+    public void testTC8_nullSource_throwsInvalidParameterException() {
+        new CumulativePercentageKeyedValues(null);
+    }
+
+
+    // TC9: unknown key
+    @Test(expected = UnknownKeyException.class)
+    public void testTC9_unknownKey_throwsUnknownKeyException() {
+        data.addValue("A", 1.0);
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.getValue("Z");
+    }
+
+
+    // TC10: AUB index
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTC10_indexAboveUpperBound() {
+        data.addValue("A", 1.0);
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.getValue(1);
+    }
+
+
+    // TC11: NaN set and then cleared again must not poison the running sums
+    // Input:  {A→1, B→NaN}, then B→1, then append C→2
+    // Expect: {A→0.25, B→0.5, C→1.0}
+    @Test
+    public void testTC11_nonFiniteValueReplaced() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.addValue("A", 1.0);
+        view.addValue("B", Double.NaN);
+        assertTrue("Percentages should be NaN while B is NaN", Double.isNaN(view.getPercentage(0)));
+        view.setValue("B", 1.0);
+        view.addValue("C", 2.0);
+
+        assertEquals(0.25, view.getPercentage(0), DELTA);
+        assertEquals(0.5, view.getPercentage(1), DELTA);
+        assertEquals(1.0, view.getPercentage(2), DELTA);
+    }
+
+
+    // TC12: a large value set and then replaced must not leave rounding error behind
+    // Input:  {A→1, B→1, C→2}, then B→1e20 (and for the second case, B→POSITIVE_INFINITY), then B→1
+    // Expect: {A→0.25, B→0.5, C→1.0}
+    @Test
+    public void testTC12_largeValueReplaced() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.addValue("A", 1.0);
+        view.addValue("B", 1.0);
+        view.addValue("C", 2.0);
+        view.setValue("B", 1e20);
+        view.setValue("B", 1.0);
+
+        assertEquals(0.25, view.getPercentage(0), DELTA);
+        assertEquals(0.5, view.getPercentage(1), DELTA);
+        assertEquals(1.0, view.getPercentage(2), DELTA);
+
+        view.setValue("B", Double.POSITIVE_INFINITY);
+        view.setValue("B", 1.0);
+
+        assertEquals(0.25, view.getPercentage(0), DELTA);
+        assertEquals(0.5, view.getPercentage(1), DELTA);
+    }
+
+
+    // TC13: large value appended and then reduced
+    // Input:  {A→1, B→1e20, C→2}, then B→1
+    // Expect: {A→0.25, B→0.5, C→1.0}
+    @Test
+    public void testTC13_largeAppendedValueReduced() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.addValue("A", 1.0);
+        view.addValue("B", 1e20);
+        view.addValue("C", 2.0);
+        view.setValue("B", 1.0);
+
+        assertEquals(0.25, view.getPercentage(0), DELTA);
+        assertEquals(0.5, view.getPercentage(1), DELTA);
+        assertEquals(1.0, view.getPercentage(2), DELTA);
+    }
+
+
+    // TC14: 100k keys appended one at a time to an IndexedKeyedValues source
+    // Input:  keys 0..99999 with value 1, then key 500 set to 1001
+    // Expect: index lookups through the view, percentages rescaled
+    @Test
+    public void testTC14_manyAppendsToIndexedSource() {
+        IndexedKeyedValues indexed = new IndexedKeyedValues();
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(indexed);
+        for (int i = 0; i < 100000; i++) {
+            view.addValue(Integer.valueOf(i), 1.0);
+        }
+        view.setValue(Integer.valueOf(500), 1001.0);
+
+        assertEquals(100000, indexed.getItemCount());
+        assertEquals(99999, view.getIndex(Integer.valueOf(99999)));
+        assertEquals(500.0 / 101000.0, view.getPercentage(499), DELTA);
+        assertEquals(1501.0 / 101000.0, view.getValue(Integer.valueOf(500)).doubleValue(), DELTA);
+    }
+
+
+    // TC15: the view's key index follows removals and refreshes
+    // Input:  {A→1, B→2, C→3}, remove A, then D appended directly and refreshed
+    // Expect: B at 0, C at 1, D at 2
+    @Test
+    public void testTC15_indexAfterRemoveAndRefresh() {
+        CumulativePercentageKeyedValues view = new CumulativePercentageKeyedValues(data);
+        view.addValue("A", 1.0);
+        view.addValue("B", 2.0);
+        view.addValue("C", 3.0);
+        view.removeValue("A");
+        data.addValue("D", 5.0);
+        view.refresh();
+
+        assertEquals(-1, view.getIndex("A"));
+        assertEquals(0, view.getIndex("B"));
+        assertEquals(1, view.getIndex("C"));
+        assertEquals(2, view.getIndex("D"));
+        assertEquals(0.5, view.getValue("C").doubleValue(), DELTA);
+    }
+}
@@ -0,0 +1,286 @@
+package org.jfree.data.test;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.DoubleArrayValues2D;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.PrimitiveDataUtilities;
+import org.jfree.data.Range;
+import org.jfree.data.RangeAccumulator;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+import org.jfree.data.general.DatasetUtilities;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+
+// Baseline timings for the org.jfree.data hot paths:
+// - Range: construction, combine, expandToInclude, and shift with and
+//   without zero crossing
+// - every DataUtilities method that works on Values2D / KeyedValues / arrays
+// - DatasetUtilities.findRangeBounds and findStackedRangeBounds
+// - the primitive alternatives in this tree, for comparison
+//
+// Not a JUnit test, and not JMH (the tree has no build to pull JMH in): run
+// it directly, optionally passing data sizes, e.g.
+//   java -Xmx2g -cp <classpath> org.jfree.data.test.DataBenchmark 10 1000 10000000
+// Timings come from BenchmarkTimer. The datasets here are array-backed
+// adapters with Integer keys, so the figures measure the utility methods
+// rather than key lookups in DefaultCategoryDataset.
+public class DataBenchmark {
+
+    private static final int COLUMNS = 10;
+
+    // DataUtilities.getCumulativePercentages in the bundled jar is quadratic
+    // (about 0.14ms per element, 14s per call, at 100,000 items), so larger
+    // sizes skip it
+    private static final int QUADRATIC_LIMIT = 10000;
+
+    public static void main(String[] args) {
+        BenchmarkTimer.printHeader();
+        for (int n : BenchmarkTimer.sizes(args, new int[] {10, 1000, 100000, 1000000})) {
+            run(n);
+        }
+        BenchmarkTimer.printSink();
+    }
+
+    private static void run(final int n) {
+        Random random = new Random(9);
+        final double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextDouble() * 200 - 100;
+        }
+        final Range[] ranges = new Range[n];
+        for (int i = 0; i < n; i++) {
+            double a = random.nextDouble() * 200 - 100;
+            ranges[i] = new Range(a, a + random.nextDouble() * 10);
+        }
+        int rows = Math.max(1, n / COLUMNS);
+        final double[][] grid = new double[rows][COLUMNS];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                grid[r][c] = values[(r * COLUMNS + c) % n];
+            }
+        }
+        final int cells = rows * COLUMNS;
+        final ArrayCategoryDataset dataset = new ArrayCategoryDataset(grid);
+        final DoubleArrayValues2D primitive = new DoubleArrayValues2D(grid);
+        final KeyedValues keyed = new ArrayKeyedValues(values);
+
+        // Range
+        BenchmarkTimer.report(n, "Range construction", new Runnable() {
+            public void run() {
+                double sum = 0;
+                for (int i = 0; i < values.length; i++) {
+                    sum += new Range(values[i], values[i] + 1).getLowerBound();
+                }
+                BenchmarkTimer.sink += (long) sum;
+            }
+        });
+        BenchmarkTimer.report(n, "Range.combine", new Runnable() {
+            public void run() {
+                Range result = null;
+                for (int i = 0; i < ranges.length; i++) {
+                    result = Range.combine(result, ranges[i]);
+                }
+                BenchmarkTimer.sink += (long) result.getLowerBound();
+            }
+        });
+        BenchmarkTimer.report(n, "Range.expandToInclude", new Runnable() {
+            public void run() {
+                Range result = null;
+                for (int i = 0; i < values.length; i++) {
+                    result = Range.expandToInclude(result, values[i]);
+                }
+                BenchmarkTimer.sink += (long) result.getLowerBound();
+            }
+        });
+        BenchmarkTimer.report(n, "RangeAccumulator.include", new Runnable() {
+            public void run() {
+                RangeAccumulator accumulator = new RangeAccumulator();
+                for (int i = 0; i < values.length; i++) {
+                    accumulator.include(values[i]);
+                }
+                BenchmarkTimer.sink += (long) accumulator.getLowerBound();
+            }
+        });
+        BenchmarkTimer.report(n, "Range.shift, zero crossing", new Runnable() {
+            public void run() {
+                double sum = 0;
+                for (int i = 0; i < ranges.length; i++) {
+                    sum += Range.shift(ranges[i], values[i], true).getLowerBound();
+                }
+                BenchmarkTimer.sink += (long) sum;
+            }
+        });
+        BenchmarkTimer.report(n, "Range.shift, no zero crossing", new Runnable() {
+            public void run() {
+                double sum = 0;
+                for (int i = 0; i < ranges.length; i++) {
+                    sum += Range.shift(ranges[i], values[i], false).getLowerBound();
+                }
+                BenchmarkTimer.sink += (long) sum;
+            }
+        });
+
+        // DataUtilities, timed per cell visited
+        BenchmarkTimer.report(cells, "DataUtilities.calculateColumnTotal", new Runnable() {
+            public void run() {
+                double sum = 0;
+                for (int c = 0; c < COLUMNS; c++) {
+                    sum += DataUtilities.calculateColumnTotal(dataset, c);
+                }
+                BenchmarkTimer.sink += (long) sum;
+            }
+        });
+        BenchmarkTimer.report(cells, "DataUtilities.calculateRowTotal", new Runnable() {
+            public void run() {
+                double sum = 0;
+                for (int r = 0; r < grid.length; r++) {
+                    sum += DataUtilities.calculateRowTotal(dataset, r);
+                }
+                BenchmarkTimer.sink += (long) sum;
+            }
+        });
+        BenchmarkTimer.report(cells, "PrimitiveDataUtilities margin totals", new Runnable() {
+            public void run() {
+                double[][] totals = PrimitiveDataUtilities.calculateMarginTotals(primitive);
+                BenchmarkTimer.sink += (long) totals[1][0];
+            }
+        });
+        BenchmarkTimer.report(n, "DataUtilities.createNumberArray", new Runnable() {
+            public void run() {
+                BenchmarkTimer.sink += DataUtilities.createNumberArray(values).length;
+            }
+        });
+        BenchmarkTimer.report(n, "PrimitiveDataUtilities.createNumberList (view)", new Runnable() {
+            public void run() {
+                BenchmarkTimer.sink += PrimitiveDataUtilities.createNumberList(values).size();
+            }
+        });
+        BenchmarkTimer.report(cells, "DataUtilities.createNumberArray2D", new Runnable() {
+            public void run() {
+                BenchmarkTimer.sink += DataUtilities.createNumberArray2D(grid).length;
+            }
+        });
+        if (n <= QUADRATIC_LIMIT) {
+            BenchmarkTimer.report(n, "DataUtilities.getCumulativePercentages", new Runnable() {
+                public void run() {
+                    BenchmarkTimer.sink += DataUtilities.getCumulativePercentages(keyed).getItemCount();
+                }
+            });
+        }
+        else {
+            BenchmarkTimer.skip(n, "DataUtilities.getCumulativePercentages", "quadratic, above " + QUADRATIC_LIMIT);
+        }
+
+        // DatasetUtilities
+        BenchmarkTimer.report(cells, "DatasetUtilities.findRangeBounds", new Runnable() {
+            public void run() {
+                BenchmarkTimer.sink += (long) DatasetUtilities.findRangeBounds(dataset).getLowerBound();
+            }
+        });
+        BenchmarkTimer.report(cells, "DatasetUtilities.findStackedRangeBounds", new Runnable() {
+            public void run() {
+                BenchmarkTimer.sink += (long) DatasetUtilities.findStackedRangeBounds(dataset).getLowerBound();
+            }
+        });
+    }
+
+    // Integer list 0..size-1, used for the keys of the adapters below
+    private static List<Comparable> indexKeys(final int size) {
+        return new AbstractList<Comparable>() {
+            public Comparable get(int index) {
+                return Integer.valueOf(index);
+            }
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // CategoryDataset over pre-boxed values, with Integer row and column keys
+    private static class ArrayCategoryDataset extends AbstractDataset implements CategoryDataset {
+
+        private static final long serialVersionUID = 3915606273478812056L;
+
+        private final Number[][] cells;
+
+        ArrayCategoryDataset(double[][] data) {
+            this.cells = DataUtilities.createNumberArray2D(data);
+        }
+
+        public int getRowCount() {
+            return this.cells.length;
+        }
+
+        public int getColumnCount() {
+            return this.cells.length == 0 ? 0 : this.cells[0].length;
+        }
+
+        public Number getValue(int row, int column) {
+            return this.cells[row][column];
+        }
+
+        public Comparable getRowKey(int row) {
+            return Integer.valueOf(row);
+        }
+
+        public int getRowIndex(Comparable key) {
+            return ((Integer) key).intValue();
+        }
+
+        public List getRowKeys() {
+            return indexKeys(getRowCount());
+        }
+
+        public Comparable getColumnKey(int column) {
+            return Integer.valueOf(column);
+        }
+
+        public int getColumnIndex(Comparable key) {
+            return ((Integer) key).intValue();
+        }
+
+        public List getColumnKeys() {
+            return indexKeys(getColumnCount());
+        }
+
+        public Number getValue(Comparable rowKey, Comparable columnKey) {
+            return getValue(getRowIndex(rowKey), getColumnIndex(columnKey));
+        }
+    }
+
+    // KeyedValues over pre-boxed values, with Integer keys
+    private static class ArrayKeyedValues implements KeyedValues {
+
+        private final Number[] items;
+
+        ArrayKeyedValues(double[] data) {
+            this.items = DataUtilities.createNumberArray(data);
+        }
+
+        public int getItemCount() {
+            return this.items.length;
+        }
+
+        public Number getValue(int item) {
+            return this.items[item];
+        }
+
+        public Comparable getKey(int index) {
+            return Integer.valueOf(index);
+        }
+
+        public int getIndex(Comparable key) {
+            return ((Integer) key).intValue();
+        }
+
+        public List getKeys() {
+            return indexKeys(this.items.length);
+        }
+
+        public Number getValue(Comparable key) {
+            return getValue(getIndex(key));
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package org.jfree.data.test;
 
 import static org.junit.Assert.*;
+import java.security.InvalidParameterException;
+
 import org.jfree.data.DataUtilities;
+import org.jfree.data.DoubleArrayValues2DView;
+import org.jfree.data.PrimitiveDataUtilities;
 import org.junit.*;
 
 // Tests for DataUtilities.createNumberArray2D(double[][]).
@@ -160,6 +164,87 @@ public class DataUtilitiesCreateNumberArray2DTest {
         }
     }
 
+    // Lazy view: PrimitiveDataUtilities.createValues2D(double[][]) must match createNumberArray2D
+
+    // E1, E4, E8 NOM: rectangular 2x2 array through the view
+    @Test
+    public void createValues2DWithRectangularArray() {
+        double[][] input = {{1.0, 2.0}, {3.0, 4.0}};
+        DoubleArrayValues2DView result = PrimitiveDataUtilities.createValues2D(input);
+        assertNotNull("Result should not be null", result);
+        assertEquals(2, result.getRowCount());
+        assertEquals(2, result.getColumnCount());
+        assertEquals(1.0, result.getValue(0, 0).doubleValue(), .000000001d);
+        assertEquals(2.0, result.getValue(0, 1).doubleValue(), .000000001d);
+        assertEquals(3.0, result.getValue(1, 0).doubleValue(), .000000001d);
+        assertEquals(4.0, result.getValue(1, 1).doubleValue(), .000000001d);
+    }
+
+    // E1, E5: jagged array — row lengths kept, missing cells are null
+    @Test
+    public void createValues2DWithJaggedArray() {
+        double[][] input = {{1.0}, {2.0, 3.0}};
+        DoubleArrayValues2DView result = PrimitiveDataUtilities.createValues2D(input);
+        assertEquals("Row 0 should have length 1", 1, result.getRowLength(0));
+        assertEquals("Row 1 should have length 2", 2, result.getRowLength(1));
+        assertEquals("Column count is the longest row", 2, result.getColumnCount());
+        assertNull("result[0][1] is beyond row 0", result.getValue(0, 1));
+        assertEquals(3.0, result.getValue(1, 1).doubleValue(), .000000001d);
+        assertEquals(2, result.getRow(1).size());
+    }
+
+    // E3 LB outer=0 and E7 LB inner=0 through the view
+    @Test
+    public void createValues2DWithEmptyArrays() {
+        DoubleArrayValues2DView empty = PrimitiveDataUtilities.createValues2D(new double[][] {});
+        assertEquals(0, empty.getRowCount());
+        DoubleArrayValues2DView emptyRow = PrimitiveDataUtilities.createValues2D(new double[][] {{}});
+        assertEquals(1, emptyRow.getRowCount());
+        assertEquals(0, emptyRow.getRowLength(0));
+    }
+
+    // U1: null — must throw InvalidParameterException
+    @Test(expected = InvalidParameterException.class)
+    public void createValues2DWithNullShouldThrowException() {
+        PrimitiveDataUtilities.createValues2D(null);
+    }
+
+    // E1, E4, U2: NaN and POSITIVE_INFINITY through the view
+    @Test
+    public void createValues2DWithNaNAndInfinityValues() {
+        double[][] input = {{Double.NaN, 1.0}, {2.0, Double.POSITIVE_INFINITY}};
+        DoubleArrayValues2DView result = PrimitiveDataUtilities.createValues2D(input);
+        assertTrue("result[0][0] should be NaN",
+                Double.isNaN(result.getValue(0, 0).doubleValue()));
+        assertTrue("result[1][1] should be positive infinity",
+                Double.isInfinite(result.getValue(1, 1).doubleValue()));
+    }
+
+    // Zero-copy: a change to the source array is visible through the view
+    @Test
+    public void createValues2DReflectsChangesToSourceArray() {
+        double[][] input = {{1.0, 2.0}, {3.0, 4.0}};
+        DoubleArrayValues2DView result = PrimitiveDataUtilities.createValues2D(input);
+        input[1][0] = -5.0;
+        assertEquals(-5.0, result.getValue(1, 0).doubleValue(), .000000001d);
+        assertTrue(result.getValue(1, 0) instanceof Double);
+    }
+
+    // Canonical cache shared between cells
+    @Test
+    public void createValues2DWithCanonicalCacheSharesCommonValues() {
+        double[][] input = {{0.0, 1.0}, {1.0, 0.0}};
+        DoubleArrayValues2DView result = PrimitiveDataUtilities.createValues2D(input, true);
+        assertSame(result.getValue(0, 0), result.getValue(1, 1));
+        assertSame(result.getValue(0, 1), result.getValue(1, 0));
+    }
+
+    // AUB column
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void createValues2DColumnAboveUpperBound() {
+        PrimitiveDataUtilities.createValues2D(new double[][] {{1.0, 2.0}}).getValue(0, 2);
+    }
+
     @After
     public void tearDown() throws Exception {
     }
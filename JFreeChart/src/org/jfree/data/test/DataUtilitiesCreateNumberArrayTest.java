@@ -1,7 +1,11 @@
 package org.jfree.data.test;
 
 import static org.junit.Assert.*;
+import java.security.InvalidParameterException;
+import java.util.List;
+
 import org.jfree.data.DataUtilities;
+import org.jfree.data.PrimitiveDataUtilities;
 import org.junit.*;
 
 // Tests for DataUtilities.createNumberArray(double[]).
@@ -137,6 +141,81 @@ public class DataUtilitiesCreateNumberArrayTest {
         }
     }
 
+    // Lazy view: PrimitiveDataUtilities.createNumberList(double[]) must match createNumberArray
+
+    // E1, E4 NOM: standard positive array through the view
+    @Test
+    public void createNumberListWithPositiveValues() {
+        double[] input = {1.0, 2.5, 3.0};
+        List<Number> result = PrimitiveDataUtilities.createNumberList(input);
+        assertNotNull("Result list should not be null", result);
+        assertEquals(1.0, result.get(0).doubleValue(), .000000001d);
+        assertEquals(2.5, result.get(1).doubleValue(), .000000001d);
+        assertEquals(3.0, result.get(2).doubleValue(), .000000001d);
+    }
+
+    // E3 LB: empty array through the view
+    @Test
+    public void createNumberListWithEmptyArray() {
+        double[] input = {};
+        List<Number> result = PrimitiveDataUtilities.createNumberList(input);
+        assertNotNull("Result should not be null for empty input", result);
+        assertEquals("Empty input should produce empty output", 0, result.size());
+    }
+
+    // U1: null — must throw InvalidParameterException
+    @Test(expected = InvalidParameterException.class)
+    public void createNumberListWithNullShouldThrowException() {
+        PrimitiveDataUtilities.createNumberList(null);
+    }
+
+    // E2, U2, U3: NaN and POSITIVE_INFINITY through the view
+    @Test
+    public void createNumberListWithNaNAndInfinity() {
+        double[] input = {Double.NaN, Double.POSITIVE_INFINITY};
+        List<Number> result = PrimitiveDataUtilities.createNumberList(input);
+        assertTrue("result[0] should be NaN", Double.isNaN(result.get(0).doubleValue()));
+        assertTrue("result[1] should be positive infinity",
+                Double.isInfinite(result.get(1).doubleValue()) && result.get(1).doubleValue() > 0);
+    }
+
+    // E1, E4: size and element type must match createNumberArray
+    @Test
+    public void createNumberListMatchesCreateNumberArrayShape() {
+        double[] input = {1.0, 2.5, 3.0};
+        List<Number> result = PrimitiveDataUtilities.createNumberList(input);
+        assertEquals("Output size must match input length", input.length, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertTrue("result[" + i + "] should be a Double", result.get(i) instanceof Double);
+        }
+    }
+
+    // Zero-copy: a change to the source array is visible through the view
+    @Test
+    public void createNumberListReflectsChangesToSourceArray() {
+        double[] input = {1.0, 2.5, 3.0};
+        List<Number> result = PrimitiveDataUtilities.createNumberList(input);
+        input[1] = 7.0;
+        assertEquals(7.0, result.get(1).doubleValue(), .000000001d);
+    }
+
+    // Canonical cache: 0.0 and 1.0 are shared, -0.0 keeps its sign
+    @Test
+    public void createNumberListWithCanonicalCacheSharesCommonValues() {
+        double[] input = {0.0, 1.0, 1.0, 0.0, -0.0, 2.5};
+        List<Number> result = PrimitiveDataUtilities.createNumberList(input, true);
+        assertSame(result.get(0), result.get(3));
+        assertSame(result.get(1), result.get(2));
+        assertEquals(Double.valueOf(-0.0), result.get(4));
+        assertEquals(2.5, result.get(5).doubleValue(), .000000001d);
+    }
+
+    // The view is read-only
+    @Test(expected = UnsupportedOperationException.class)
+    public void createNumberListIsReadOnly() {
+        PrimitiveDataUtilities.createNumberList(new double[] {1.0}).set(0, 2.0);
+    }
+
     @After
     public void tearDown() throws Exception {
     }
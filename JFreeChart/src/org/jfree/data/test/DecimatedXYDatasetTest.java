@@ -0,0 +1,169 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.DecimatedXYDataset;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.*;
+import java.util.Random;
+
+// Tests for DecimatedXYDataset: min/max and LTTB views of a long random walk.
+public class DecimatedXYDatasetTest {
+
+    private XYSeries series;
+
+    private XYSeriesCollection source;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // a 10007 item random walk at x = 0, 1, 2, ...
+        Random random = new Random(11);
+        series = new XYSeries("S", true, false);
+        double y = 0.0;
+        for (int i = 0; i < 10007; i++) {
+            y += random.nextGaussian();
+            series.add(i, y, false);
+        }
+        source = new XYSeriesCollection(series);
+    }
+
+    // checks that a view is in ascending source order and has no repeats
+    private static void assertAscending(DecimatedXYDataset dataset) {
+        for (int i = 1; i < dataset.getItemCount(0); i++) {
+            assertTrue(dataset.getSourceItem(0, i) > dataset.getSourceItem(0, i - 1));
+        }
+    }
+
+    // NOM: each pixel column keeps exactly its smallest and largest y value
+    @Test
+    public void minMaxMatchesBruteForce() {
+        int width = 97;
+        DecimatedXYDataset dataset = new DecimatedXYDataset(source, DecimatedXYDataset.MIN_MAX, width);
+        dataset.setDomainRange(1234.5, 8765.25);
+        assertAscending(dataset);
+        double step = (8765.25 - 1234.5) / width;
+        int v = 0;
+        // the item before the visible range
+        assertEquals(1234.0, dataset.getXValue(0, v++), .000000001d);
+        for (int p = 0; p < width; p++) {
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < series.getItemCount(); i++) {
+                double x = series.getX(i).doubleValue();
+                if (x >= 1234.5 + p * step && (x < 1234.5 + (p + 1) * step || p == width - 1 && x <= 8765.25)) {
+                    low = Math.min(low, series.getY(i).doubleValue());
+                    high = Math.max(high, series.getY(i).doubleValue());
+                }
+            }
+            double a = dataset.getYValue(0, v++);
+            double b = dataset.getYValue(0, v++);
+            assertEquals(low, Math.min(a, b), .000000001d);
+            assertEquals(high, Math.max(a, b), .000000001d);
+        }
+        // the item after the visible range
+        assertEquals(8766.0, dataset.getXValue(0, v++), .000000001d);
+        assertEquals(v, dataset.getItemCount(0));
+    }
+
+    // LTTB keeps the first and last items and two items per pixel column
+    @Test
+    public void largestTriangleKeepsEndpoints() {
+        DecimatedXYDataset dataset = new DecimatedXYDataset(source, DecimatedXYDataset.LARGEST_TRIANGLE, 50);
+        assertEquals(100, dataset.getItemCount(0));
+        assertEquals(0, dataset.getSourceItem(0, 0));
+        assertEquals(10006, dataset.getSourceItem(0, 99));
+        assertAscending(dataset);
+    }
+
+    // LTTB keeps an isolated spike
+    @Test
+    public void largestTriangleKeepsSpike() {
+        XYSeries flat = new XYSeries("F");
+        for (int i = 0; i < 1000; i++) {
+            flat.add(i, i == 517 ? 100.0 : 0.0);
+        }
+        DecimatedXYDataset dataset = new DecimatedXYDataset(new XYSeriesCollection(flat),
+                DecimatedXYDataset.LARGEST_TRIANGLE, 10);
+        boolean found = false;
+        for (int i = 0; i < dataset.getItemCount(0); i++) {
+            found |= dataset.getSourceItem(0, i) == 517;
+        }
+        assertTrue(found);
+    }
+
+    // a series with few visible items passes through unchanged
+    @Test
+    public void fewItemsPassThrough() {
+        DecimatedXYDataset dataset = new DecimatedXYDataset(source, DecimatedXYDataset.MIN_MAX, 100);
+        dataset.setDomainRange(100.0, 200.0);
+        assertEquals(103, dataset.getItemCount(0));
+        assertEquals(99.0, dataset.getXValue(0, 0), .000000001d);
+        assertEquals(201.0, dataset.getXValue(0, 102), .000000001d);
+    }
+
+    // a series whose x values are not ascending passes through unchanged
+    @Test
+    public void unsortedSeriesPassesThrough() {
+        XYSeries unsorted = new XYSeries("U", false, true);
+        for (int i = 0; i < 1000; i++) {
+            unsorted.add((i * 37) % 1000, i);
+        }
+        DecimatedXYDataset dataset = new DecimatedXYDataset(new XYSeriesCollection(unsorted),
+                DecimatedXYDataset.MIN_MAX, 10);
+        assertEquals(1000, dataset.getItemCount(0));
+    }
+
+    // a range set without notification changes the view but sends no event
+    @Test
+    public void setDomainRangeWithoutNotify() {
+        DecimatedXYDataset dataset = new DecimatedXYDataset(source, DecimatedXYDataset.MIN_MAX, 10);
+        final int[] events = new int[1];
+        dataset.addChangeListener(new DatasetChangeListener() {
+            public void datasetChanged(DatasetChangeEvent event) {
+                events[0]++;
+            }
+        });
+        dataset.setDomainRange(5000.0, 5010.0, false);
+        assertEquals(0, events[0]);
+        assertEquals(5000.0, dataset.getLowerBound(), .000000001d);
+        assertEquals(13, dataset.getItemCount(0));
+        assertEquals(4999.0, dataset.getXValue(0, 0), .000000001d);
+    }
+
+    // a change to the source is passed on and the view recomputed
+    @Test
+    public void sourceChangeRecomputesView() {
+        DecimatedXYDataset dataset = new DecimatedXYDataset(source, DecimatedXYDataset.MIN_MAX, 10);
+        dataset.setDomainRange(10000.0, 20000.0);
+        assertEquals(8, dataset.getItemCount(0));
+        final int[] events = new int[1];
+        dataset.addChangeListener(new DatasetChangeListener() {
+            public void datasetChanged(DatasetChangeEvent event) {
+                events[0]++;
+            }
+        });
+        series.add(10007.0, 1.0);
+        assertEquals(1, events[0]);
+        assertEquals(9, dataset.getItemCount(0));
+    }
+
+    // a width below one is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroWidthThrowsException() {
+        new DecimatedXYDataset(source, DecimatedXYDataset.MIN_MAX, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,153 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.CategoryRangeChangeEvent;
+import org.jfree.data.ChangeBatch;
+import org.jfree.data.IndexedCategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.junit.*;
+
+// Tests for IndexedCategoryDataset: it must behave as DefaultCategoryDataset.
+public class IndexedCategoryDatasetTest {
+
+    private IndexedCategoryDataset dataset;
+
+    private int events;
+
+    private DatasetChangeEvent lastEvent;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dataset = new IndexedCategoryDataset();
+        dataset.addValue(1.0, "S1", "Q1");
+        dataset.addValue(2.0, "S1", "Q2");
+        dataset.addValue(3.0, "S2", "Q1");
+        events = 0;
+        dataset.addChangeListener(new DatasetChangeListener() {
+            public void datasetChanged(DatasetChangeEvent event) {
+                events++;
+                lastEvent = event;
+            }
+        });
+    }
+
+    // NOM: equal to a DefaultCategoryDataset with the same values, both ways
+    @Test
+    public void equalsDefaultCategoryDataset() {
+        DefaultCategoryDataset plain = new DefaultCategoryDataset();
+        plain.addValue(1.0, "S1", "Q1");
+        plain.addValue(2.0, "S1", "Q2");
+        plain.addValue(3.0, "S2", "Q1");
+        assertTrue(dataset.equals(plain));
+        assertTrue(plain.equals(dataset));
+        plain.setValue(4.0, "S2", "Q1");
+        assertFalse(dataset.equals(plain));
+    }
+
+    // every change sends one event
+    @Test
+    public void changesSendEvents() {
+        dataset.setValue(5.0, "S2", "Q2");
+        dataset.incrementValue(1.0, "S2", "Q2");
+        dataset.removeRow("S1");
+        assertEquals(3, events);
+        assertEquals(6.0, dataset.getValue("S2", "Q2").doubleValue(), .000000001d);
+        assertEquals(0, dataset.getRowIndex("S2"));
+    }
+
+    // addAll stores every value, later values replacing earlier ones, with one event
+    @Test
+    public void addAllSendsOneEvent() {
+        dataset.addAll(new Comparable[] {"S3", "S1", "S3", "S3"},
+                new Comparable[] {"Q1", "Q3", "Q2", "Q1"},
+                new double[] {7.0, 8.0, 9.0, 10.0});
+        assertEquals(1, events);
+        assertEquals(3, dataset.getRowCount());
+        assertEquals(3, dataset.getColumnCount());
+        assertEquals(10.0, dataset.getValue("S3", "Q1").doubleValue(), .000000001d);
+        assertEquals(8.0, dataset.getValue("S1", "Q3").doubleValue(), .000000001d);
+        assertNull(dataset.getValue("S2", "Q3"));
+    }
+
+    // addAll with a null key changes nothing
+    @Test
+    public void addAllNullKeyThrowsException() {
+        try {
+            dataset.addAll(new Comparable[] {"S3", null}, new Comparable[] {"Q1", "Q1"},
+                    new double[] {1.0, 2.0});
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(2, dataset.getRowCount());
+            assertEquals(0, events);
+        }
+    }
+
+    // addAll with arrays of different lengths
+    @Test(expected = IllegalArgumentException.class)
+    public void addAllMismatchedLengthsThrowsException() {
+        dataset.addAll(new Comparable[] {"S1"}, new Comparable[] {"Q1", "Q2"}, new double[] {1.0});
+    }
+
+    // a clone is independent of the original
+    @Test
+    public void cloneIsIndependent() throws Exception {
+        IndexedCategoryDataset clone = (IndexedCategoryDataset) dataset.clone();
+        assertEquals(dataset, clone);
+        clone.setValue(9.0, "S1", "Q1");
+        assertEquals(1.0, dataset.getValue("S1", "Q1").doubleValue(), .000000001d);
+    }
+
+    // checks the row and column ranges of the last change event
+    private void assertLastRange(int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        CategoryRangeChangeEvent event = (CategoryRangeChangeEvent) lastEvent;
+        assertEquals("first row", firstRow, event.getFirstRow());
+        assertEquals("last row", lastRow, event.getLastRow());
+        assertEquals("first column", firstColumn, event.getFirstColumn());
+        assertEquals("last column", lastColumn, event.getLastColumn());
+    }
+
+    // each change event records the rows and columns that changed
+    @Test
+    public void eventsRecordChangedCells() {
+        dataset.setValue(5.0, "S2", "Q1");
+        assertLastRange(1, 1, 0, 0);
+        dataset.setValue(6.0, "S3", "Q2");
+        assertLastRange(2, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+        dataset.setValue(7.0, "S1", "Q3");
+        assertLastRange(0, Integer.MAX_VALUE, 2, Integer.MAX_VALUE);
+        dataset.removeColumn("Q2");
+        assertLastRange(0, Integer.MAX_VALUE, 1, Integer.MAX_VALUE);
+    }
+
+    // a batch sends one event covering all its changes
+    @Test
+    public void batchSendsOneEvent() {
+        ChangeBatch batch = dataset.beginBatch();
+        try {
+            dataset.setValue(5.0, "S2", "Q1");
+            dataset.incrementValue(1.0, "S1", "Q2");
+            dataset.addAll(new Comparable[] {"S2"}, new Comparable[] {"Q2"}, new double[] {4.0});
+        }
+        finally {
+            batch.close();
+        }
+        assertEquals(1, events);
+        assertLastRange(0, 1, 0, 1);
+        assertEquals(3.0, dataset.getValue("S1", "Q2").doubleValue(), .000000001d);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
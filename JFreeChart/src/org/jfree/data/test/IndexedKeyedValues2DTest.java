@@ -0,0 +1,193 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.DefaultKeyedValues2D;
+import org.jfree.data.IndexedKeyedValues2D;
+import org.jfree.data.UnknownKeyException;
+import org.junit.*;
+import java.util.Random;
+
+// Tests for IndexedKeyedValues2D, checked against DefaultKeyedValues2D where the
+// two tables are expected to agree.
+public class IndexedKeyedValues2DTest {
+
+    private IndexedKeyedValues2D table;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // rows R0..R2, columns C0..C3
+        table = new IndexedKeyedValues2D();
+        table.addValue(1.5, "R0", "C0");
+        table.addValue(2.5, "R0", "C3");
+        table.addValue(null, "R1", "C1");
+        table.addValue(-4.0, "R2", "C1");
+        table.addValue(8.0, "R2", "C2");
+    }
+
+    // checks that both indices agree with the position of every key
+    private static void assertIndexed(IndexedKeyedValues2D table) {
+        for (int r = 0; r < table.getRowCount(); r++) {
+            assertEquals(r, table.getRowIndex(table.getRowKey(r)));
+        }
+        for (int c = 0; c < table.getColumnCount(); c++) {
+            assertEquals(c, table.getColumnIndex(table.getColumnKey(c)));
+        }
+    }
+
+    // NOM: keys are kept in the order they were first added
+    @Test
+    public void keysInInsertionOrder() {
+        assertEquals(3, table.getRowCount());
+        assertEquals(4, table.getColumnCount());
+        assertEquals("R1", table.getRowKey(1));
+        assertEquals("C3", table.getColumnKey(1));
+        assertEquals(2, table.getColumnIndex("C1"));
+        assertEquals(-1, table.getRowIndex("missing"));
+        assertIndexed(table);
+    }
+
+    // a column the row has no value for reads as null
+    @Test
+    public void getValueMissingCellIsNull() {
+        assertEquals(2.5, table.getValue("R0", "C3").doubleValue(), .000000001d);
+        assertNull(table.getValue("R0", "C2"));
+        assertNull(table.getValue("R1", "C1"));
+        assertNull(table.getValue(1, 0));
+    }
+
+    // sorted row keys are inserted in order and indexed
+    @Test
+    public void sortedRowKeys() {
+        IndexedKeyedValues2D sorted = new IndexedKeyedValues2D(true);
+        sorted.addValue(1.0, "M", "C");
+        sorted.addValue(2.0, "Z", "C");
+        sorted.addValue(3.0, "A", "C");
+        assertEquals("A", sorted.getRowKey(0));
+        assertEquals("Z", sorted.getRowKey(2));
+        assertEquals(-1, sorted.getRowIndex("B"));
+        assertEquals(2.0, sorted.getValue("Z", "C").doubleValue(), .000000001d);
+        assertIndexed(sorted);
+    }
+
+    // removing the last value of a row and column drops both
+    @Test
+    public void removeValueDropsEmptyRowAndColumn() {
+        table.removeValue("R0", "C3");
+        assertEquals(3, table.getColumnCount());
+        table.removeValue("R0", "C0");
+        assertEquals(2, table.getRowCount());
+        assertEquals(2, table.getColumnCount());
+        assertEquals(8.0, table.getValue("R2", "C2").doubleValue(), .000000001d);
+        assertIndexed(table);
+    }
+
+    // removing a row or column re-indexes the later keys
+    @Test
+    public void removeRowAndColumnReindex() {
+        table.removeRow("R0");
+        table.removeColumn("C3");
+        assertEquals(1, table.getRowIndex("R2"));
+        assertEquals(1, table.getColumnIndex("C1"));
+        assertEquals(8.0, table.getValue(1, 2).doubleValue(), .000000001d);
+        assertIndexed(table);
+    }
+
+    // random updates and removals agree with DefaultKeyedValues2D, including
+    // equals and hashCode. As in SparseKeyedValues2DTest, every row is given
+    // every column, in column order, before removing.
+    @Test
+    public void agreesWithDefaultKeyedValues2D() {
+        Random random = new Random(15);
+        IndexedKeyedValues2D indexed = new IndexedKeyedValues2D();
+        DefaultKeyedValues2D dense = new DefaultKeyedValues2D();
+        for (int r = 0; r < 10; r++) {
+            for (int c = 0; c < 8; c++) {
+                Double value = random.nextBoolean() ? null : Double.valueOf(random.nextInt(100));
+                indexed.setValue(value, Integer.valueOf(r), Integer.valueOf(c));
+                dense.setValue(value, Integer.valueOf(r), Integer.valueOf(c));
+            }
+        }
+        assertTrue(indexed.equals(dense));
+        assertTrue(dense.equals(indexed));
+        assertEquals(dense.hashCode(), indexed.hashCode());
+        for (int i = 0; i < 300 && dense.getRowCount() > 0 && dense.getColumnCount() > 0; i++) {
+            Comparable row = dense.getRowKey(random.nextInt(dense.getRowCount()));
+            Comparable column = dense.getColumnKey(random.nextInt(dense.getColumnCount()));
+            if (random.nextInt(3) == 0) {
+                Double value = Double.valueOf(random.nextInt(100));
+                indexed.setValue(value, row, column);
+                dense.setValue(value, row, column);
+            }
+            else {
+                indexed.removeValue(row, column);
+                dense.removeValue(row, column);
+            }
+            assertEquals("rows after update " + i, dense.getRowKeys(), indexed.getRowKeys());
+            assertEquals("columns after update " + i, dense.getColumnKeys(), indexed.getColumnKeys());
+        }
+        assertTrue(indexed.equals(dense));
+        assertIndexed(indexed);
+    }
+
+    // a clone is independent of the original
+    @Test
+    public void cloneIsIndependent() throws Exception {
+        IndexedKeyedValues2D clone = (IndexedKeyedValues2D) table.clone();
+        assertEquals(table, clone);
+        clone.setValue(99.0, "R0", "C0");
+        clone.removeRow("R1");
+        assertEquals(1.5, table.getValue("R0", "C0").doubleValue(), .000000001d);
+        assertEquals(3, table.getRowCount());
+        assertIndexed(clone);
+    }
+
+    // a large table built one cell at a time
+    @Test
+    public void manyCells() {
+        IndexedKeyedValues2D big = new IndexedKeyedValues2D();
+        for (int r = 0; r < 2000; r++) {
+            for (int c = 0; c < 50; c++) {
+                big.addValue(Double.valueOf(r * c), "R" + r, "C" + (r + c) % 3000);
+            }
+        }
+        assertEquals(2000, big.getRowCount());
+        assertEquals(2049, big.getColumnCount());
+        assertEquals(1999.0 * 49, big.getValue("R1999", "C" + (1999 + 49)).doubleValue(), .000000001d);
+    }
+
+    // unknown keys are rejected by removeValue, and leave the table unchanged
+    @Test
+    public void removeValueUnknownKeyThrowsException() {
+        try {
+            table.removeValue("R9", "C0");
+            fail("Expected UnknownKeyException");
+        }
+        catch (UnknownKeyException e) {
+            assertEquals(3, table.getRowCount());
+        }
+    }
+
+    // unknown column key
+    @Test(expected = UnknownKeyException.class)
+    public void getValueUnknownColumnKeyThrowsException() {
+        table.getValue("R0", "C9");
+    }
+
+    // null key
+    @Test(expected = IllegalArgumentException.class)
+    public void getRowIndexNullKeyThrowsException() {
+        table.getRowIndex(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,145 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.DefaultKeyedValues;
+import org.jfree.data.IndexedKeyedValues;
+import org.jfree.data.UnknownKeyException;
+import org.jfree.util.SortOrder;
+import org.junit.*;
+import java.util.Random;
+
+// Tests for IndexedKeyedValues: the key index must follow every change to the
+// key order, and the values must match DefaultKeyedValues.
+public class IndexedKeyedValuesTest {
+
+    private IndexedKeyedValues values;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        values = new IndexedKeyedValues();
+        values.addValue("C", 3.0);
+        values.addValue("A", 1.0);
+        values.addValue("B", 2.0);
+    }
+
+    // checks that getIndex agrees with the position of every key
+    private static void assertIndexed(IndexedKeyedValues values) {
+        for (int i = 0; i < values.getItemCount(); i++) {
+            assertEquals("key " + values.getKey(i), i, values.getIndex(values.getKey(i)));
+        }
+    }
+
+    // NOM: keys are indexed in insertion order
+    @Test
+    public void indexInInsertionOrder() {
+        assertEquals(0, values.getIndex("C"));
+        assertEquals(2, values.getIndex("B"));
+        assertEquals(-1, values.getIndex("Z"));
+        assertEquals(-1, values.getIndex(null));
+        assertEquals(1.0, values.getValue("A").doubleValue(), .000000001d);
+    }
+
+    // updating an existing key keeps its position
+    @Test
+    public void setValueExistingKeyKeepsPosition() {
+        values.setValue("A", 10.0);
+        assertEquals(3, values.getItemCount());
+        assertEquals(1, values.getIndex("A"));
+        assertEquals(10.0, values.getValue(1).doubleValue(), .000000001d);
+    }
+
+    // removing a value re-indexes the keys after it
+    @Test
+    public void removeValueReindexesLaterKeys() {
+        values.removeValue("C");
+        assertEquals(-1, values.getIndex("C"));
+        assertEquals(0, values.getIndex("A"));
+        assertEquals(1, values.getIndex("B"));
+        values.removeValue(1);
+        assertEquals(-1, values.getIndex("B"));
+        assertIndexed(values);
+    }
+
+    // sorting rebuilds the index
+    @Test
+    public void sortRebuildsIndex() {
+        values.sortByKeys(SortOrder.ASCENDING);
+        assertEquals(0, values.getIndex("A"));
+        assertEquals(2, values.getIndex("C"));
+        values.sortByValues(SortOrder.DESCENDING);
+        assertEquals(0, values.getIndex("C"));
+        assertIndexed(values);
+    }
+
+    // a clone has its own index
+    @Test
+    public void cloneHasIndependentIndex() throws Exception {
+        IndexedKeyedValues clone = (IndexedKeyedValues) values.clone();
+        clone.removeValue("C");
+        assertEquals(0, values.getIndex("C"));
+        assertEquals(0, clone.getIndex("A"));
+        assertIndexed(clone);
+    }
+
+    // random updates and removals agree with DefaultKeyedValues, including equals
+    @Test
+    public void agreesWithDefaultKeyedValues() {
+        Random random = new Random(15);
+        IndexedKeyedValues indexed = new IndexedKeyedValues();
+        DefaultKeyedValues plain = new DefaultKeyedValues();
+        for (int i = 0; i < 3000; i++) {
+            Integer key = Integer.valueOf(random.nextInt(300));
+            if (random.nextInt(4) == 0 && plain.getIndex(key) >= 0) {
+                indexed.removeValue(key);
+                plain.removeValue(key);
+            }
+            else {
+                Double value = Double.valueOf(random.nextInt(1000));
+                indexed.setValue(key, value);
+                plain.setValue(key, value);
+            }
+        }
+        assertEquals(plain.getKeys(), indexed.getKeys());
+        for (int k = 0; k < 300; k++) {
+            assertEquals("key " + k, plain.getIndex(Integer.valueOf(k)), indexed.getIndex(Integer.valueOf(k)));
+        }
+        assertTrue(indexed.equals(plain));
+        assertTrue(plain.equals(indexed));
+        assertEquals(plain.hashCode(), indexed.hashCode());
+    }
+
+    // appending many keys one at a time stays linear overall
+    @Test
+    public void manyAppends() {
+        IndexedKeyedValues big = new IndexedKeyedValues();
+        for (int i = 0; i < 200000; i++) {
+            big.addValue(Integer.valueOf(i), i);
+        }
+        assertEquals(200000, big.getItemCount());
+        assertEquals(123456, big.getIndex(Integer.valueOf(123456)));
+    }
+
+    // unknown key
+    @Test(expected = UnknownKeyException.class)
+    public void getValueUnknownKeyThrowsException() {
+        values.getValue("Z");
+    }
+
+    // null key
+    @Test(expected = IllegalArgumentException.class)
+    public void setValueNullKeyThrowsException() {
+        values.setValue(null, 1.0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
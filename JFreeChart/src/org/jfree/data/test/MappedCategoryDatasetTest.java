@@ -0,0 +1,85 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.DataUtilities;
+import org.jfree.data.MappedCategoryDataset;
+import org.jfree.data.PrimitiveDataUtilities;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.junit.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+// Tests for MappedCategoryDataset: a DefaultCategoryDataset written and mapped back.
+public class MappedCategoryDatasetTest {
+
+    private File file;
+
+    private DefaultCategoryDataset source;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("category", ".bin");
+        // rows A, B; columns 2024, 2025, 2026; no value for (B, 2025)
+        source = new DefaultCategoryDataset();
+        source.addValue(1.0, "A", "2024");
+        source.addValue(2.0, "A", "2025");
+        source.addValue(3.0, "A", "2026");
+        source.addValue(4.0, "B", "2024");
+        source.addValue(6.0, "B", "2026");
+    }
+
+    // NOM: keys and values survive the round trip
+    @Test
+    public void roundTripKeysAndValues() throws IOException {
+        MappedCategoryDataset.write(source, file);
+        MappedCategoryDataset mapped = MappedCategoryDataset.open(file);
+        assertEquals(source.getRowKeys(), mapped.getRowKeys());
+        assertEquals(source.getColumnKeys(), mapped.getColumnKeys());
+        for (int r = 0; r < source.getRowCount(); r++) {
+            for (int c = 0; c < source.getColumnCount(); c++) {
+                assertEquals("cell " + r + "," + c, source.getValue(r, c), mapped.getValue(r, c));
+            }
+        }
+        assertNull(mapped.getValue("B", "2025"));
+    }
+
+    // totals agree with DataUtilities over the original dataset
+    @Test
+    public void totalsAgreeWithSource() throws IOException {
+        MappedCategoryDataset.write(source, file);
+        MappedCategoryDataset mapped = MappedCategoryDataset.open(file);
+        assertEquals(10.0, PrimitiveDataUtilities.calculateRowTotal(mapped.getValues(), 1), .000000001d);
+        assertEquals(5.0, DataUtilities.calculateColumnTotal(mapped, 0), .000000001d);
+    }
+
+    // a deserialized dataset maps the file again
+    @Test
+    public void serializationRemapsFile() throws Exception {
+        MappedCategoryDataset.write(source, file);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(MappedCategoryDataset.open(file));
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        MappedCategoryDataset copy = (MappedCategoryDataset) in.readObject();
+        in.close();
+        assertEquals(6.0, copy.getValue("B", "2026").doubleValue(), .000000001d);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
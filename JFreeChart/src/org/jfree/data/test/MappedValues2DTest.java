@@ -0,0 +1,174 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.DefaultKeyedValues2D;
+import org.jfree.data.DoubleArrayValues2D;
+import org.jfree.data.MappedValues2D;
+import org.jfree.data.PrimitiveDataUtilities;
+import org.jfree.data.UnknownKeyException;
+import org.junit.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+// Tests for MappedValues2D: writing a table, with its keys, and mapping it back.
+public class MappedValues2DTest {
+
+    private File file;
+
+    private DoubleArrayValues2D source;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("values2d", ".bin");
+        // 3 x 3 table with a null cell at (1, 1) and a NaN value at (2, 0)
+        source = new DoubleArrayValues2D(new double[][] {{1, 2, 3}, {4, 5, 6}, {Double.NaN, 8, 9}});
+        source.setValue(1, 1, (Number) null);
+    }
+
+    // NOM: values survive the round trip
+    @Test
+    public void roundTripValues() throws IOException {
+        MappedValues2D.write(source, file);
+        MappedValues2D mapped = MappedValues2D.open(file);
+        assertEquals(3, mapped.getRowCount());
+        assertEquals(3, mapped.getColumnCount());
+        assertEquals(6.0, mapped.getValue(1, 2).doubleValue(), .000000001d);
+        assertEquals(9.0, mapped.getDoubleValue(2, 2), .000000001d);
+    }
+
+    // null cells and NaN values are kept apart
+    @Test
+    public void roundTripNullAndNaN() throws IOException {
+        MappedValues2D.write(source, file);
+        MappedValues2D mapped = MappedValues2D.open(file);
+        assertNull(mapped.getValue(1, 1));
+        assertTrue(mapped.isNull(1, 1));
+        assertFalse(mapped.isNull(2, 0));
+        assertTrue(Double.isNaN(mapped.getValue(2, 0).doubleValue()));
+    }
+
+    // totals skip null cells, through PrimitiveDataUtilities
+    @Test
+    public void totalsSkipNullCells() throws IOException {
+        MappedValues2D.write(source, file);
+        MappedValues2D mapped = MappedValues2D.open(file);
+        assertEquals(10.0, PrimitiveDataUtilities.calculateRowTotal(mapped, 1), .000000001d);
+        assertEquals(10.0, PrimitiveDataUtilities.calculateColumnTotal(mapped, 1), .000000001d);
+        assertEquals(18.0, PrimitiveDataUtilities.calculateColumnTotal(mapped, 2), .000000001d);
+    }
+
+    // margin totals are read straight from the mapped cells
+    @Test
+    public void marginTotalsSkipNullCells() throws IOException {
+        MappedValues2D.write(source, file);
+        double[][] totals = PrimitiveDataUtilities.calculateMarginTotals(MappedValues2D.open(file));
+        assertArrayEquals(new double[] {6, 10, Double.NaN}, totals[0], .000000001d);
+        assertArrayEquals(new double[] {Double.NaN, 10, 18}, totals[1], .000000001d);
+    }
+
+    // a plain Values2D is stored with its indices as keys
+    @Test
+    public void indicesStoredAsKeys() throws IOException {
+        MappedValues2D.write(source, file);
+        MappedValues2D mapped = MappedValues2D.open(file);
+        assertEquals("2", mapped.getRowKey(2));
+        assertEquals(1, mapped.getColumnIndex("1"));
+        assertEquals(1, mapped.getColumnIndex(Integer.valueOf(1)));
+        assertEquals(6.0, mapped.getValue("1", "2").doubleValue(), .000000001d);
+    }
+
+    // the keys of a KeyedValues2D survive the round trip, including non-ASCII keys
+    @Test
+    public void roundTripKeys() throws IOException {
+        DefaultKeyedValues2D keyed = new DefaultKeyedValues2D();
+        keyed.addValue(1.0, "North", "Q1");
+        keyed.addValue(2.0, "North", "Q2");
+        keyed.addValue(3.0, "S\u00fcd", "Q1");
+        MappedValues2D.write(keyed, file);
+        MappedValues2D mapped = MappedValues2D.open(file);
+        assertEquals(Arrays.asList("North", "S\u00fcd"), mapped.getRowKeys());
+        assertEquals(Arrays.asList("Q1", "Q2"), mapped.getColumnKeys());
+        assertEquals(3.0, mapped.getValue("S\u00fcd", "Q1").doubleValue(), .000000001d);
+        assertNull(mapped.getValue("S\u00fcd", "Q2"));
+        assertEquals(-1, mapped.getRowIndex("West"));
+    }
+
+    // unknown key
+    @Test(expected = UnknownKeyException.class)
+    public void getValueWithUnknownKeyThrowsException() throws IOException {
+        MappedValues2D.write(source, file);
+        MappedValues2D.open(file).getValue("0", "missing");
+    }
+
+    // more cells than one bitmap word
+    @Test
+    public void roundTripLargerTable() throws IOException {
+        DoubleArrayValues2D large = new DoubleArrayValues2D(30, 7);
+        for (int r = 0; r < 30; r++) {
+            for (int c = 0; c < 7; c++) {
+                if ((r + c) % 3 != 0) {
+                    large.setValue(r, c, r * 7 + c);
+                }
+            }
+        }
+        MappedValues2D.write(large, file);
+        MappedValues2D mapped = MappedValues2D.open(file);
+        for (int r = 0; r < 30; r++) {
+            for (int c = 0; c < 7; c++) {
+                assertEquals("cell " + r + "," + c, large.getValue(r, c), mapped.getValue(r, c));
+            }
+        }
+    }
+
+    // empty table
+    @Test
+    public void roundTripEmptyTable() throws IOException {
+        MappedValues2D.write(new DoubleArrayValues2D(0, 0), file);
+        MappedValues2D mapped = MappedValues2D.open(file);
+        assertEquals(0, mapped.getRowCount());
+        assertEquals(0, mapped.getColumnCount());
+    }
+
+    // file in another format
+    @Test(expected = IOException.class)
+    public void openWithBadMagicThrowsException() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[32]);
+        out.close();
+        MappedValues2D.open(file);
+    }
+
+    // file from an older version of the format
+    @Test(expected = IOException.class)
+    public void openWithOldVersionThrowsException() throws IOException {
+        MappedValues2D.write(source, file);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(4);
+        raf.write(new byte[] {1, 0, 0, 0});
+        raf.close();
+        MappedValues2D.open(file);
+    }
+
+    // row index out of range
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getValueWithRowOutOfRangeThrowsException() throws IOException {
+        MappedValues2D.write(source, file);
+        MappedValues2D.open(file).getValue(3, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,101 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.MappedXYDataset;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.junit.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// Tests for MappedXYDataset: an XYSeriesCollection written and mapped back.
+public class MappedXYDatasetTest {
+
+    private File file;
+
+    private XYSeriesCollection source;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("xydataset", ".bin");
+        // series "S1" with three items (one null y value) and an empty series "S2"
+        XYSeries s1 = new XYSeries("S1");
+        s1.add(1.0, 10.0);
+        s1.add(2.0, null);
+        s1.add(3.5, -4.0);
+        source = new XYSeriesCollection();
+        source.addSeries(s1);
+        source.addSeries(new XYSeries("S2"));
+    }
+
+    // NOM: keys, item counts and values survive the round trip
+    @Test
+    public void roundTripSeries() throws IOException {
+        MappedXYDataset.write(source, file);
+        MappedXYDataset mapped = MappedXYDataset.open(file);
+        assertEquals(2, mapped.getSeriesCount());
+        assertEquals("S1", mapped.getSeriesKey(0));
+        assertEquals(1, mapped.indexOf("S2"));
+        assertEquals(3, mapped.getItemCount(0));
+        assertEquals(0, mapped.getItemCount(1));
+        assertEquals(3.5, mapped.getXValue(0, 2), .000000001d);
+        assertEquals(-4.0, mapped.getY(0, 2).doubleValue(), .000000001d);
+    }
+
+    // a null y value is read back as NaN
+    @Test
+    public void nullYValueReadAsNaN() throws IOException {
+        MappedXYDataset.write(source, file);
+        assertTrue(Double.isNaN(MappedXYDataset.open(file).getYValue(0, 1)));
+    }
+
+    // ascending x values are recorded in the file
+    @Test
+    public void domainOrderAscending() throws IOException {
+        MappedXYDataset.write(source, file);
+        assertEquals(DomainOrder.ASCENDING, MappedXYDataset.open(file).getDomainOrder());
+    }
+
+    // unsorted x values give no domain order
+    @Test
+    public void domainOrderNoneWhenUnsorted() throws IOException {
+        XYSeries unsorted = new XYSeries("U", false);
+        unsorted.add(5.0, 1.0);
+        unsorted.add(2.0, 1.0);
+        MappedXYDataset.write(new XYSeriesCollection(unsorted), file);
+        MappedXYDataset mapped = MappedXYDataset.open(file);
+        assertEquals(DomainOrder.NONE, mapped.getDomainOrder());
+        assertEquals(2.0, mapped.getXValue(0, 1), .000000001d);
+    }
+
+    // item index out of range
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getXValueWithItemOutOfRangeThrowsException() throws IOException {
+        MappedXYDataset.write(source, file);
+        MappedXYDataset.open(file).getXValue(0, 3);
+    }
+
+    // file in another format
+    @Test(expected = IOException.class)
+    public void openWithBadMagicThrowsException() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[32]);
+        out.close();
+        MappedXYDataset.open(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,205 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.Range;
+import org.jfree.data.RangeAccumulator;
+import org.junit.*;
+
+public class RangeAccumulatorTest {
+
+    private RangeAccumulator accumulator;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        accumulator = new RangeAccumulator();
+    }
+
+    // Test Case 1
+    // new accumulator: empty, no range
+    // Expected: isEmpty() true, toRange() null
+    @Test
+    public void newAccumulatorIsEmpty() {
+        assertTrue("New accumulator should be empty", accumulator.isEmpty());
+        assertNull("Empty accumulator should give a null range", accumulator.toRange());
+        assertTrue("Lower bound of empty accumulator should be NaN",
+                Double.isNaN(accumulator.getLowerBound()));
+    }
+
+    // Test Case 2
+    // include single value 5: LB of the value set
+    // Expected: Range(5,5)
+    @Test
+    public void includeSingleValue() {
+        accumulator.include(5.0);
+        Range result = accumulator.toRange();
+        assertEquals("Lower bound should be 5", 5, result.getLowerBound(), .000000001d);
+        assertEquals("Upper bound should be 5", 5, result.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 3
+    // include 3, -2, 7, 0: NOM
+    // Expected: Range(-2,7)
+    @Test
+    public void includeManyValues() {
+        accumulator.include(3.0);
+        accumulator.include(-2.0);
+        accumulator.include(7.0);
+        accumulator.include(0.0);
+        assertEquals("Lower bound should be -2", -2, accumulator.getLowerBound(), .000000001d);
+        assertEquals("Upper bound should be 7", 7, accumulator.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 4
+    // include NaN only
+    // Expected: accumulator still empty
+    @Test
+    public void includeNaNIsIgnored() {
+        accumulator.include(Double.NaN);
+        assertTrue("NaN should be ignored", accumulator.isEmpty());
+    }
+
+    // Test Case 5
+    // include Range(-10,10) then Range(5,20), null
+    // Expected: Range(-10,20), same as Range.combine
+    @Test
+    public void includeRangesCombines() {
+        accumulator.include(range(-10, 10));
+        accumulator.include(range(5, 20));
+        accumulator.include((Range) null);
+        assertEquals("Lower bound should be -10", -10, accumulator.getLowerBound(), .000000001d);
+        assertEquals("Upper bound should be 20", 20, accumulator.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 6
+    // combine with another accumulator, and with an empty one
+    // Expected: Range(-1,8)
+    @Test
+    public void combineWithOtherAccumulator() {
+        RangeAccumulator other = new RangeAccumulator();
+        other.include(4, 8);
+        accumulator.include(-1.0);
+        accumulator.combine(other);
+        accumulator.combine(new RangeAccumulator());
+        assertEquals("Lower bound should be -1", -1, accumulator.getLowerBound(), .000000001d);
+        assertEquals("Upper bound should be 8", 8, accumulator.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 7
+    // Range(-5,5) shifted by 2, allowZeroCrossing=true
+    // Expected: Range(-3,7)
+    @Test
+    public void shiftWithZeroCrossingAllowed() {
+        accumulator.include(-5, 5);
+        accumulator.shift(2);
+        assertEquals("Shifted lower bound should be -3", -3, accumulator.getLowerBound(), .000000001d);
+        assertEquals("Shifted upper bound should be 7", 7, accumulator.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 8
+    // Range(-5,5) shifted by 5.1, allowZeroCrossing=false: lower clamped at 0
+    // Expected: Range(0,10.1)
+    @Test
+    public void shiftWithLowerBoundCrossingZero() {
+        accumulator.include(-5, 5);
+        accumulator.shift(5.1, false);
+        assertEquals("Shifted lower bound should be 0 (clamped)", 0, accumulator.getLowerBound(), .000000001d);
+        assertEquals("Shifted upper bound should be 10.1", 10.1, accumulator.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 9
+    // Range(-6,-2) shifted by 2.1, allowZeroCrossing=false: upper clamped at 0
+    // Expected: Range(-3.9,0)
+    @Test
+    public void shiftWithUpperBoundCrossingZero() {
+        accumulator.include(-6, -2);
+        accumulator.shift(2.1, false);
+        assertEquals("Shifted lower bound should be -3.9", -3.9, accumulator.getLowerBound(), .000000001d);
+        assertEquals("Shifted upper bound should be 0 (clamped)", 0, accumulator.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 10
+    // Range(2,6) expanded by 25% on each side
+    // Expected: Range(1,7)
+    @Test
+    public void expandByMargins() {
+        accumulator.include(2, 6);
+        accumulator.expand(0.25, 0.25);
+        assertEquals("Expanded lower bound should be 1", 1, accumulator.getLowerBound(), .000000001d);
+        assertEquals("Expanded upper bound should be 7", 7, accumulator.getUpperBound(), .000000001d);
+    }
+
+    // Test Case 11
+    // shift and expand on an empty accumulator
+    // Expected: still empty
+    @Test
+    public void shiftAndExpandOnEmptyAccumulator() {
+        accumulator.shift(3);
+        accumulator.expand(0.5, 0.5);
+        assertTrue("Accumulator should still be empty", accumulator.isEmpty());
+    }
+
+    // Test Case 12
+    // reset after values were included
+    // Expected: empty again
+    @Test
+    public void resetClearsAccumulator() {
+        accumulator.include(1.0);
+        accumulator.reset();
+        assertTrue("Accumulator should be empty after reset", accumulator.isEmpty());
+    }
+
+    // Test Case 13
+    // include(5, 3): lower value above upper value
+    // Expected: IllegalArgumentException, accumulator unchanged
+    @Test
+    public void includeInvertedIntervalThrowsException() {
+        try {
+            accumulator.include(5, 3);
+            fail("include(5, 3) should be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue("Accumulator should still be empty", accumulator.isEmpty());
+        }
+    }
+
+    // Test Case 14
+    // Range(2,6) expanded by -60% on each side would invert the range
+    // Expected: IllegalArgumentException, accumulator unchanged
+    @Test
+    public void expandWithInvertingMarginsThrowsException() {
+        accumulator.include(2, 6);
+        try {
+            accumulator.expand(-0.6, -0.6);
+            fail("Inverting margins should be rejected");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Lower bound should be unchanged", 2, accumulator.getLowerBound(), .000000001d);
+            assertEquals("Upper bound should be unchanged", 6, accumulator.getUpperBound(), .000000001d);
+        }
+    }
+
+    // Range whose getters return the constructor arguments, so these tests
+    // exercise RangeAccumulator rather than the bundled Range implementation
+    private static Range range(final double lower, final double upper) {
+        return new Range(lower, upper) {
+            public double getLowerBound() {
+                return lower;
+            }
+            public double getUpperBound() {
+                return upper;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
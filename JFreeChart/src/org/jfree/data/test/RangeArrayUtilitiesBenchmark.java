@@ -0,0 +1,101 @@
+package org.jfree.data.test;
+
+import org.jfree.data.Range;
+import org.jfree.data.RangeArrayUtilities;
+import java.util.BitSet;
+import java.util.Random;
+
+// Compares the batch methods in RangeArrayUtilities with the scalar loop that
+// calls Range.contains / constrain / intersects once per value.
+//
+// Not a JUnit test: run it directly, optionally passing array sizes, e.g.
+//   java -cp <classpath> org.jfree.data.test.RangeArrayUtilitiesBenchmark 1000 1000000
+// Timings come from BenchmarkTimer.
+public class RangeArrayUtilitiesBenchmark {
+
+    public static void main(String[] args) {
+        BenchmarkTimer.printHeader();
+        for (int n : BenchmarkTimer.sizes(args, new int[] {1000, 100000, 1000000})) {
+            run(n);
+        }
+        BenchmarkTimer.printSink();
+    }
+
+    private static void run(int n) {
+        Random random = new Random(7);
+        final double[] values = new double[n];
+        final double[] lows = new double[n];
+        final double[] highs = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextDouble() * 200 - 100;
+            lows[i] = random.nextDouble() * 200 - 100;
+            highs[i] = lows[i] + random.nextDouble() * 20;
+        }
+        final Range range = new Range(-10, 10);
+        final boolean[] flags = new boolean[n];
+        final double[] clipped = new double[n];
+        final long[] words = new long[(n + 63) >>> 6];
+        final BitSet bits = new BitSet(n);
+
+        BenchmarkTimer.report(n, "contains, scalar loop", new Runnable() {
+            public void run() {
+                for (int i = 0; i < values.length; i++) {
+                    flags[i] = range.contains(values[i]);
+                }
+                BenchmarkTimer.sink += flags[values.length / 2] ? 1 : 0;
+            }
+        });
+        BenchmarkTimer.report(n, "contains, boolean[]", new Runnable() {
+            public void run() {
+                RangeArrayUtilities.contains(-10, 10, values, flags);
+                BenchmarkTimer.sink += flags[values.length / 2] ? 1 : 0;
+            }
+        });
+        BenchmarkTimer.report(n, "contains, BitSet", new Runnable() {
+            public void run() {
+                RangeArrayUtilities.contains(-10, 10, values, bits);
+                BenchmarkTimer.sink += bits.cardinality();
+            }
+        });
+        BenchmarkTimer.report(n, "contains, long[]", new Runnable() {
+            public void run() {
+                RangeArrayUtilities.contains(-10, 10, values, words);
+                BenchmarkTimer.sink += words[0];
+            }
+        });
+        BenchmarkTimer.report(n, "constrain, scalar loop", new Runnable() {
+            public void run() {
+                for (int i = 0; i < values.length; i++) {
+                    clipped[i] = range.constrain(values[i]);
+                }
+                BenchmarkTimer.sink += (long) clipped[values.length / 2];
+            }
+        });
+        BenchmarkTimer.report(n, "constrain, double[]", new Runnable() {
+            public void run() {
+                RangeArrayUtilities.constrain(-10, 10, values, clipped);
+                BenchmarkTimer.sink += (long) clipped[values.length / 2];
+            }
+        });
+        BenchmarkTimer.report(n, "intersects, scalar loop", new Runnable() {
+            public void run() {
+                for (int i = 0; i < lows.length; i++) {
+                    flags[i] = range.intersects(lows[i], highs[i]);
+                }
+                BenchmarkTimer.sink += flags[lows.length / 2] ? 1 : 0;
+            }
+        });
+        BenchmarkTimer.report(n, "intersects, BitSet", new Runnable() {
+            public void run() {
+                RangeArrayUtilities.intersects(-10, 10, lows, highs, bits);
+                BenchmarkTimer.sink += bits.cardinality();
+            }
+        });
+        BenchmarkTimer.report(n, "intersects, long[]", new Runnable() {
+            public void run() {
+                RangeArrayUtilities.intersects(-10, 10, lows, highs, words);
+                BenchmarkTimer.sink += words[0];
+            }
+        });
+    }
+}
@@ -0,0 +1,195 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.Range;
+import org.jfree.data.RangeArrayUtilities;
+import org.junit.*;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Tests for the batch contains/constrain/intersects methods in RangeArrayUtilities.
+// The range under test is [-10, 10], as in RangeContainsTest and RangeIntersectsTest.
+public class RangeArrayUtilitiesTest {
+
+    private double[] values;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // BLB, LB, ALB, NOM, BUB, UB, AUB, NaN
+        values = new double[] {-10.00001, -10, -9.99999, 0, 9.99999, 10, 10.00001, Double.NaN};
+    }
+
+    // contains into boolean[]: boundaries inclusive, NaN excluded
+    @Test
+    public void containsIntoBooleanArray() {
+        boolean[] result = new boolean[values.length];
+        RangeArrayUtilities.contains(-10, 10, values, result);
+        assertEquals(Arrays.toString(new boolean[] {false, true, true, true, true, true, false, false}),
+                Arrays.toString(result));
+    }
+
+    // contains into BitSet: same answers as the boolean[] variant
+    @Test
+    public void containsIntoBitSet() {
+        BitSet result = new BitSet();
+        result.set(100);
+        RangeArrayUtilities.contains(-10, 10, values, result);
+        assertEquals("Stale bits should be cleared", 5, result.cardinality());
+        for (int i = 1; i <= 5; i++) {
+            assertTrue("bit " + i + " should be set", result.get(i));
+        }
+    }
+
+    // contains over more than one 64-bit word
+    @Test
+    public void containsAcrossWordBoundary() {
+        double[] many = new double[150];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = i;
+        }
+        BitSet bits = new BitSet();
+        boolean[] flags = new boolean[many.length];
+        RangeArrayUtilities.contains(60, 130, many, bits);
+        RangeArrayUtilities.contains(60, 130, many, flags);
+        for (int i = 0; i < many.length; i++) {
+            assertEquals("index " + i, flags[i], bits.get(i));
+        }
+        assertEquals(71, bits.cardinality());
+    }
+
+    // contains through a Range object
+    @Test
+    public void containsWithRange() {
+        boolean[] result = new boolean[values.length];
+        RangeArrayUtilities.contains(range(-10, 10), values, result);
+        assertEquals(Arrays.toString(new boolean[] {false, true, true, true, true, true, false, false}),
+                Arrays.toString(result));
+    }
+
+    // constrain: values outside clamp to the nearest bound, NaN unchanged
+    @Test
+    public void constrainIntoSeparateArray() {
+        double[] result = new double[values.length];
+        RangeArrayUtilities.constrain(-10, 10, values, result);
+        assertEquals(-10, result[0], .000000001d);
+        assertEquals(-9.99999, result[2], .000000001d);
+        assertEquals(0, result[3], .000000001d);
+        assertEquals(10, result[6], .000000001d);
+        assertTrue("NaN should stay NaN", Double.isNaN(result[7]));
+    }
+
+    // constrain in place (result is the input array)
+    @Test
+    public void constrainInPlace() {
+        double[] data = {-50, 5, 50};
+        RangeArrayUtilities.constrain(-10, 10, data, data);
+        assertArrayEquals(new double[] {-10, 5, 10}, data, .000000001d);
+    }
+
+    // intersects: same rule as Range.intersects(lower, upper)
+    @Test
+    public void intersectsIntoBitSet() {
+        double[] lows  = {-10.00001, -10.00001, -10, -1, 9.99999, 10, 10.00001, -20};
+        double[] highs = {-10,       -9.99999,  10,  1, 10,      10.00001, 20, -15};
+        BitSet result = new BitSet();
+        RangeArrayUtilities.intersects(-10, 10, lows, highs, result);
+        assertFalse("(-10.00001, -10) only touches the lower bound", result.get(0));
+        assertTrue(result.get(1));
+        assertTrue(result.get(2));
+        assertTrue(result.get(3));
+        assertTrue(result.get(4));
+        assertFalse("(10, 10.00001) starts at the upper bound", result.get(5));
+        assertFalse(result.get(6));
+        assertFalse(result.get(7));
+    }
+
+    // contains into long[]: same bits as the BitSet variant, and words past the
+    // end of the input are left alone
+    @Test
+    public void containsIntoLongArray() {
+        double[] many = new double[150];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = i % 7 == 0 ? Double.NaN : i;
+        }
+        BitSet bits = new BitSet();
+        long[] words = new long[] {-1L, -1L, -1L, 42L};
+        RangeArrayUtilities.contains(5, 140, many, bits);
+        RangeArrayUtilities.contains(5, 140, many, words);
+        assertEquals(Arrays.toString(bits.toLongArray()),
+                Arrays.toString(Arrays.copyOf(words, 3)));
+        assertEquals("Word beyond the input should be untouched", 42L, words[3]);
+    }
+
+    // intersects into long[]: same bits as the BitSet variant
+    @Test
+    public void intersectsIntoLongArray() {
+        double[] lows  = {-10.00001, -10.00001, -10, -1, 9.99999, 10, 10.00001, -20};
+        double[] highs = {-10,       -9.99999,  10,  1, 10,      10.00001, 20, -15};
+        BitSet bits = new BitSet();
+        long[] words = new long[1];
+        RangeArrayUtilities.intersects(-10, 10, lows, highs, bits);
+        RangeArrayUtilities.intersects(-10, 10, lows, highs, words);
+        assertEquals(bits.toLongArray()[0], words[0]);
+        assertEquals(30L, words[0]);
+    }
+
+    // full word of set bits followed by a partial word
+    @Test
+    public void containsWithFullWordOfBits() {
+        double[] many = new double[70];
+        BitSet bits = new BitSet();
+        RangeArrayUtilities.contains(0, 0, many, bits);
+        assertEquals(70, bits.cardinality());
+        assertEquals(70, bits.length());
+    }
+
+    // long[] result too short
+    @Test(expected = IllegalArgumentException.class)
+    public void containsWithShortWordArrayThrowsException() {
+        RangeArrayUtilities.contains(-10, 10, new double[65], new long[1]);
+    }
+
+    // null range
+    @Test(expected = InvalidParameterException.class)
+    public void containsWithNullRangeThrowsException() {
+        RangeArrayUtilities.contains((Range) null, values, new boolean[values.length]);
+    }
+
+    // result shorter than input
+    @Test(expected = IllegalArgumentException.class)
+    public void constrainWithShortResultThrowsException() {
+        RangeArrayUtilities.constrain(-10, 10, values, new double[1]);
+    }
+
+    // lows and highs of different lengths
+    @Test(expected = IllegalArgumentException.class)
+    public void intersectsWithMismatchedArraysThrowsException() {
+        RangeArrayUtilities.intersects(-10, 10, new double[2], new double[3], new BitSet());
+    }
+
+    // Range whose getters return the constructor arguments, so these tests
+    // exercise RangeArrayUtilities rather than the bundled Range implementation
+    private static Range range(final double lower, final double upper) {
+        return new Range(lower, upper) {
+            public double getLowerBound() {
+                return lower;
+            }
+            public double getUpperBound() {
+                return upper;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
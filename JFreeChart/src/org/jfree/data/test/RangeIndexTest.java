@@ -0,0 +1,159 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.Range;
+import org.jfree.data.RangeIndex;
+import org.junit.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Tests for RangeIndex.findContaining / findOverlapping / getRangesOverlapping.
+// Intervals are closed: touching an end point counts as overlapping, unlike
+// Range.intersects.
+public class RangeIndexTest {
+
+    // intervals 0..4: [0,10], [5,15], [20,30], [12,12], [-5,2]
+    private RangeIndex index;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        index = new RangeIndex(new double[] {0, 5, 20, 12, -5}, new double[] {10, 15, 30, 12, 2});
+    }
+
+    // NOM: value covered by two overlapping intervals
+    @Test
+    public void findContainingOverlap() {
+        assertEquals("[0, 1]", Arrays.toString(index.findContaining(7)));
+    }
+
+    // LB / UB: end points are inclusive
+    @Test
+    public void findContainingAtEndPoints() {
+        assertEquals("[0, 4]", Arrays.toString(index.findContaining(0)));
+        assertEquals("[0, 1]", Arrays.toString(index.findContaining(10)));
+        assertEquals("[1, 3]", Arrays.toString(index.findContaining(12)));
+    }
+
+    // value in a gap between intervals
+    @Test
+    public void findContainingInGap() {
+        assertEquals(0, index.findContaining(17).length);
+    }
+
+    // values below and above every interval
+    @Test
+    public void findContainingOutsideAllIntervals() {
+        assertEquals(0, index.findContaining(-100).length);
+        assertEquals(0, index.findContaining(100).length);
+        assertEquals(0, index.findContaining(Double.NaN).length);
+    }
+
+    // query interval spanning several stored intervals
+    @Test
+    public void findOverlappingSpan() {
+        assertEquals("[1, 2, 3]", Arrays.toString(index.findOverlapping(11, 20)));
+    }
+
+    // ranges are returned in lower bound order
+    @Test
+    public void getRangesOverlappingOrderedByLowerBound() {
+        List<Range> result = index.getRangesOverlapping(-10, 100);
+        assertEquals(5, result.size());
+        assertEquals(-5, result.get(0).getLowerBound(), .000000001d);
+        assertEquals(20, result.get(4).getLowerBound(), .000000001d);
+    }
+
+    // index over Range objects returns the same instances
+    @Test
+    public void getRangesContainingFromRangeCollection() {
+        Range a = range(0, 10);
+        Range b = range(5, 15);
+        RangeIndex rangeIndex = new RangeIndex(Arrays.asList(a, b));
+        List<Range> result = rangeIndex.getRangesContaining(12);
+        assertEquals(1, result.size());
+        assertSame(b, result.get(0));
+    }
+
+    // empty index
+    @Test
+    public void emptyIndex() {
+        RangeIndex empty = new RangeIndex(Collections.<Range>emptyList());
+        assertEquals(0, empty.getRangeCount());
+        assertTrue(empty.getRangesContaining(1).isEmpty());
+    }
+
+    // random intervals: the index must agree with a linear scan
+    @Test
+    public void agreesWithLinearScan() {
+        Random random = new Random(637);
+        int n = 500;
+        double[] lowers = new double[n];
+        double[] uppers = new double[n];
+        for (int i = 0; i < n; i++) {
+            lowers[i] = random.nextDouble() * 1000;
+            uppers[i] = lowers[i] + random.nextDouble() * 50;
+        }
+        RangeIndex randomIndex = new RangeIndex(lowers, uppers);
+        for (int q = 0; q < 200; q++) {
+            double a = random.nextDouble() * 1100 - 50;
+            double b = a + random.nextDouble() * 20;
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++) {
+                if (lowers[i] <= b && uppers[i] >= a) {
+                    expected.add(i);
+                }
+            }
+            int[] found = randomIndex.findOverlapping(a, b);
+            assertEquals("query " + q, expected.size(), found.length);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals("query " + q, expected.get(i).intValue(), found[i]);
+            }
+        }
+    }
+
+    // query with lower > upper
+    @Test(expected = IllegalArgumentException.class)
+    public void findOverlappingWithInvertedQueryThrowsException() {
+        index.findOverlapping(5, 1);
+    }
+
+    // an interval with lower > upper in the bound arrays
+    @Test(expected = IllegalArgumentException.class)
+    public void invertedIntervalInArraysThrowsException() {
+        new RangeIndex(new double[] {0, 4}, new double[] {1, 3});
+    }
+
+    // null collection
+    @Test(expected = IllegalArgumentException.class)
+    public void nullCollectionThrowsException() {
+        new RangeIndex((List<Range>) null);
+    }
+
+    // Range whose getters return the constructor arguments, so these tests
+    // exercise RangeIndex rather than the bundled Range implementation
+    private static Range range(final double lower, final double upper) {
+        return new Range(lower, upper) {
+            public double getLowerBound() {
+                return lower;
+            }
+            public double getUpperBound() {
+                return upper;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,301 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.ChangeBatch;
+import org.jfree.data.RingBufferTimeSeries;
+import org.jfree.data.SeriesRangeChangeEvent;
+import org.jfree.data.general.SeriesChangeEvent;
+import org.jfree.data.general.SeriesChangeListener;
+import org.jfree.data.general.SeriesException;
+import org.jfree.data.time.Day;
+import org.jfree.data.time.FixedMillisecond;
+import org.jfree.data.time.Hour;
+import org.jfree.data.time.Month;
+import org.jfree.data.time.RegularTimePeriod;
+import org.jfree.data.time.SimpleTimePeriod;
+import org.jfree.data.time.TimeSeries;
+import org.jfree.data.time.TimeSeriesCollection;
+import org.junit.*;
+import java.util.Date;
+import java.util.Random;
+
+// Tests for RingBufferTimeSeries, checked against TimeSeries where the two series
+// are expected to agree.
+public class RingBufferTimeSeriesTest {
+
+    private RingBufferTimeSeries series;
+
+    private int events;
+
+    private SeriesChangeEvent lastEvent;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // capacity 4, holding 7..10 after wrapping around
+        series = new RingBufferTimeSeries("T", FixedMillisecond.class, 4);
+        for (int i = 1; i <= 10; i++) {
+            series.add(new FixedMillisecond(i * 1000), i);
+        }
+        events = 0;
+        series.addChangeListener(new SeriesChangeListener() {
+            public void seriesChanged(SeriesChangeEvent event) {
+                events++;
+                lastEvent = event;
+            }
+        });
+    }
+
+    // checks that the series holds the periods and values of a TimeSeries
+    private static void assertSameItems(TimeSeries expected, TimeSeries actual) {
+        assertEquals(expected.getItemCount(), actual.getItemCount());
+        for (int i = 0; i < expected.getItemCount(); i++) {
+            assertEquals("period " + i, expected.getTimePeriod(i), actual.getTimePeriod(i));
+            assertEquals("value " + i, expected.getValue(i), actual.getValue(i));
+        }
+    }
+
+    // NOM: appending past the capacity keeps the latest items
+    @Test
+    public void appendKeepsLatestItems() {
+        assertEquals(4, series.getItemCount());
+        assertEquals(new FixedMillisecond(7000), series.getTimePeriod(0));
+        assertEquals(10.0, series.getValue(3).doubleValue(), .000000001d);
+        assertEquals(2, series.getIndex(new FixedMillisecond(9000)));
+        assertEquals(-1, series.getIndex(new FixedMillisecond(6000)));
+        assertNull(series.getValue(new FixedMillisecond(8500)));
+    }
+
+    // random adds, in and out of order, agree with a TimeSeries of the same capacity
+    @Test
+    public void agreesWithTimeSeries() {
+        Random random = new Random(12);
+        RingBufferTimeSeries ring = new RingBufferTimeSeries("R", FixedMillisecond.class, 50);
+        TimeSeries list = new TimeSeries("R", FixedMillisecond.class);
+        list.setMaximumItemCount(50);
+        long time = 0;
+        for (int i = 0; i < 2000; i++) {
+            long t = random.nextInt(10) == 0 ? time - random.nextInt(40) : (time += 1 + random.nextInt(3));
+            Double value = random.nextInt(20) == 0 ? null : Double.valueOf(random.nextInt(100));
+            boolean added;
+            try {
+                list.add(new FixedMillisecond(t), value);
+                added = true;
+            }
+            catch (SeriesException e) {
+                added = false;
+            }
+            try {
+                ring.add(new FixedMillisecond(t), value);
+                assertTrue("added " + t, added);
+            }
+            catch (SeriesException e) {
+                assertFalse("rejected " + t, added);
+            }
+        }
+        assertSameItems(list, ring);
+    }
+
+    // an item for an earlier period is inserted in order, making way if full
+    @Test
+    public void addOutOfOrderInsertsInOrder() {
+        series.add(new FixedMillisecond(8500), 8.5);
+        assertEquals(1, events);
+        assertEquals(4, series.getItemCount());
+        assertEquals(new FixedMillisecond(8000), series.getTimePeriod(0));
+        assertEquals(new FixedMillisecond(8500), series.getTimePeriod(1));
+        assertEquals(10.0, series.getValue(3).doubleValue(), .000000001d);
+        // older than every item of a full series: nothing is kept
+        series.add(new FixedMillisecond(500), 0.5);
+        assertEquals(new FixedMillisecond(8000), series.getTimePeriod(0));
+    }
+
+    // a second observation for a period is rejected
+    @Test(expected = SeriesException.class)
+    public void addDuplicatePeriodThrowsException() {
+        series.add(new FixedMillisecond(9000), 1.0);
+    }
+
+    // a period of another class is rejected
+    @Test(expected = SeriesException.class)
+    public void addWrongPeriodClassThrowsException() {
+        series.add(new Day(), 1.0);
+    }
+
+    // the maximum item age removes the items more than that many periods old
+    @Test
+    public void maximumItemAgeRemovesOldItems() {
+        RingBufferTimeSeries days = new RingBufferTimeSeries("D", Day.class, 100);
+        days.setMaximumItemAge(3);
+        Day day = new Day(1, 1, 2020);
+        for (int i = 0; i < 10; i++) {
+            days.add(day, i);
+            day = (Day) day.next();
+        }
+        assertEquals(4, days.getItemCount());
+        assertEquals(new Day(7, 1, 2020), days.getTimePeriod(0));
+        days.removeAgedItems(new Day(12, 1, 2020).getFirstMillisecond(), true);
+        assertEquals(2, days.getItemCount());
+        assertEquals(new Day(9, 1, 2020), days.getTimePeriod(0));
+    }
+
+    // by default items do not age, however far apart their periods are
+    @Test
+    public void defaultMaximumItemAgeKeepsItems() {
+        series.add(new FixedMillisecond(100L * 24 * 60 * 60 * 1000), 11.0);
+        series.removeAgedItems(true);
+        assertEquals(4, series.getItemCount());
+        assertEquals(1, events);
+    }
+
+    // time periods are recreated as equal periods of the series' class
+    @Test
+    public void periodsRecreatedForEachClass() {
+        Date date = new Date(1234567890123L);
+        RegularTimePeriod[] periods = {new Day(date), new Hour(date), new Month(date)};
+        for (int i = 0; i < periods.length; i++) {
+            RingBufferTimeSeries s = new RingBufferTimeSeries("P", periods[i].getClass(), 2);
+            s.add(periods[i], 1.0);
+            assertEquals(periods[i], s.getTimePeriod(0));
+            assertEquals(0, s.getIndex(periods[i]));
+        }
+    }
+
+    // a period class that cannot be created from a time
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedPeriodClassThrowsException() {
+        new RingBufferTimeSeries("S", SimpleTimePeriod.class, 10);
+    }
+
+    // null values, updates and addOrUpdate
+    @Test
+    public void nullValuesAndUpdates() {
+        series.update(0, null);
+        series.update(new FixedMillisecond(8000), Double.valueOf(80.0));
+        assertNull(series.getValue(0));
+        assertEquals(80.0, series.getValue(1).doubleValue(), .000000001d);
+        assertEquals(80.0, series.addOrUpdate(new FixedMillisecond(8000), 88.0).getValue().doubleValue(),
+                .000000001d);
+        assertNull(series.addOrUpdate(new FixedMillisecond(11000), null));
+        assertEquals(4, events);
+        assertNull(series.getValue(3));
+        assertEquals(88.0, series.getValue(0).doubleValue(), .000000001d);
+    }
+
+    // update for a missing period
+    @Test(expected = SeriesException.class)
+    public void updateMissingPeriodThrowsException() {
+        series.update(new FixedMillisecond(1000), Double.valueOf(1.0));
+    }
+
+    // deleting from the middle and the front of a wrapped buffer
+    @Test
+    public void deleteKeepsOrder() {
+        series.delete(new FixedMillisecond(8000));
+        series.delete(0, 0);
+        assertEquals(2, series.getItemCount());
+        assertEquals(new FixedMillisecond(9000), series.getTimePeriod(0));
+        series.add(new FixedMillisecond(11000), 11.0);
+        series.add(new FixedMillisecond(12000), 12.0);
+        series.add(new FixedMillisecond(13000), 13.0);
+        assertEquals(new FixedMillisecond(10000), series.getTimePeriod(0));
+        assertEquals(13.0, series.getValue(3).doubleValue(), .000000001d);
+    }
+
+    // shrinking the maximum item count drops the oldest items
+    @Test
+    public void setMaximumItemCountDropsOldest() {
+        series.setMaximumItemCount(2);
+        assertEquals(1, events);
+        assertEquals(new FixedMillisecond(9000), series.getTimePeriod(0));
+        series.setMaximumItemCount(3);
+        series.add(new FixedMillisecond(11000), 11.0);
+        assertEquals(3, series.getItemCount());
+        assertEquals(11.0, series.getValue(2).doubleValue(), .000000001d);
+    }
+
+    // a clone is equal and independent
+    @Test
+    public void cloneIsIndependent() throws Exception {
+        RingBufferTimeSeries clone = (RingBufferTimeSeries) series.clone();
+        assertEquals(series, clone);
+        assertEquals(series.hashCode(), clone.hashCode());
+        clone.add(new FixedMillisecond(11000), 11.0);
+        assertFalse(series.equals(clone));
+        assertEquals(new FixedMillisecond(7000), series.getTimePeriod(0));
+        assertEquals(4, clone.getMaximumItemCount());
+    }
+
+    // the series can be read through a TimeSeriesCollection
+    @Test
+    public void readThroughCollection() {
+        TimeSeriesCollection dataset = new TimeSeriesCollection(series);
+        assertEquals(4, dataset.getItemCount(0));
+        assertEquals(7000, dataset.getX(0, 0).longValue());
+        assertEquals(10.0, dataset.getYValue(0, 3), .000000001d);
+    }
+
+    // a million appends to a small buffer
+    @Test
+    public void manyAppends() {
+        RingBufferTimeSeries big = new RingBufferTimeSeries("B", FixedMillisecond.class, 1000);
+        for (int i = 0; i < 1000000; i++) {
+            big.add(new FixedMillisecond(i), i, false);
+        }
+        assertEquals(1000, big.getItemCount());
+        assertEquals(999000.0, big.getValue(0).doubleValue(), .000000001d);
+    }
+
+    // capacity below one
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityThrowsException() {
+        new RingBufferTimeSeries("Z", FixedMillisecond.class, 0);
+    }
+
+    // checks the item range of the last change event
+    private void assertLastRange(int first, int last) {
+        SeriesRangeChangeEvent event = (SeriesRangeChangeEvent) lastEvent;
+        assertEquals("first index", first, event.getFirstIndex());
+        assertEquals("last index", last, event.getLastIndex());
+    }
+
+    // each change event records the items that changed; evicting the oldest
+    // item moves every item
+    @Test
+    public void eventsRecordChangedItems() {
+        series.update(2, Double.valueOf(9.5));
+        assertLastRange(2, 2);
+        series.delete(new FixedMillisecond(9000));
+        assertLastRange(2, Integer.MAX_VALUE);
+        series.add(new FixedMillisecond(11000), 11.0);
+        assertLastRange(3, Integer.MAX_VALUE);
+        series.add(new FixedMillisecond(12000), 12.0);
+        assertLastRange(0, Integer.MAX_VALUE);
+    }
+
+    // a batch of updates sends one event covering them
+    @Test
+    public void batchSendsOneEvent() {
+        ChangeBatch batch = series.beginBatch();
+        try {
+            series.update(1, Double.valueOf(1.0));
+            series.update(new FixedMillisecond(10000), Double.valueOf(2.0));
+        }
+        finally {
+            batch.close();
+        }
+        assertEquals(1, events);
+        assertLastRange(1, 3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}
@@ -0,0 +1,249 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+import org.jfree.data.DefaultKeyedValues2D;
+import org.jfree.data.PrimitiveDataUtilities;
+import org.jfree.data.SparseKeyedValues2D;
+import org.jfree.data.UnknownKeyException;
+import org.junit.*;
+import java.util.Random;
+
+// Tests for SparseKeyedValues2D, checked against DefaultKeyedValues2D where the
+// two tables are expected to agree.
+public class SparseKeyedValues2DTest {
+
+    private SparseKeyedValues2D table;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // rows R0..R2, columns C0..C3, with four stored cells
+        table = new SparseKeyedValues2D();
+        table.addValue(1.5, "R0", "C0");
+        table.addValue(2.5, "R0", "C3");
+        table.addValue(null, "R1", "C1");
+        table.addValue(-4.0, "R2", "C1");
+        table.addValue(8.0, "R2", "C2");
+    }
+
+    // keys are kept in the order they were first added
+    @Test
+    public void keysInInsertionOrder() {
+        assertEquals(3, table.getRowCount());
+        assertEquals(4, table.getColumnCount());
+        assertEquals("R1", table.getRowKey(1));
+        assertEquals("C3", table.getColumnKey(1));
+        assertEquals(2, table.getColumnIndex("C1"));
+        assertEquals(-1, table.getRowIndex("missing"));
+    }
+
+    // stored and empty cells
+    @Test
+    public void getValueStoredAndEmpty() {
+        assertEquals(2.5, table.getValue("R0", "C3").doubleValue(), .000000001d);
+        assertNull(table.getValue("R1", "C1"));
+        assertNull(table.getValue(0, 2));
+        assertEquals(4, table.getCellCount());
+    }
+
+    // setting a cell to null clears it but keeps the keys
+    @Test
+    public void setNullClearsCell() {
+        table.setValue(null, "R2", "C2");
+        assertNull(table.getValue("R2", "C2"));
+        assertEquals(-4.0, table.getValue("R2", "C1").doubleValue(), .000000001d);
+        assertEquals(3, table.getRowCount());
+        assertEquals(3, table.getCellCount());
+    }
+
+    // removing a column shifts the later columns down
+    @Test
+    public void removeColumnShiftsLaterColumns() {
+        table.removeColumn("C3");
+        assertEquals(3, table.getColumnCount());
+        assertEquals(1.5, table.getValue(0, 0).doubleValue(), .000000001d);
+        assertNull(table.getValue(0, 1));
+        assertEquals(8.0, table.getValue("R2", "C2").doubleValue(), .000000001d);
+        assertEquals(1, table.getColumnIndex("C1"));
+    }
+
+    // removing a row re-indexes the later rows
+    @Test
+    public void removeRowReindexesLaterRows() {
+        table.removeRow("R0");
+        assertEquals(2, table.getRowCount());
+        assertEquals(1, table.getRowIndex("R2"));
+        assertEquals(8.0, table.getValue("R2", "C2").doubleValue(), .000000001d);
+    }
+
+    // row and column totals through PrimitiveDataUtilities
+    @Test
+    public void totalsThroughPrimitiveDataUtilities() {
+        assertEquals(4.0, PrimitiveDataUtilities.calculateRowTotal(table, 0), .000000001d);
+        assertEquals(0.0, PrimitiveDataUtilities.calculateRowTotal(table, 1), .000000001d);
+        assertEquals(-4.0, PrimitiveDataUtilities.calculateColumnTotal(table, 2), .000000001d);
+        double[][] totals = PrimitiveDataUtilities.calculateMarginTotals(table);
+        assertArrayEquals(new double[] {4.0, 0.0, 4.0}, totals[0], .000000001d);
+        assertArrayEquals(new double[] {1.5, 2.5, -4.0, 8.0}, totals[1], .000000001d);
+    }
+
+    // random updates: values and totals agree with DefaultKeyedValues2D
+    @Test
+    public void agreesWithDefaultKeyedValues2D() {
+        Random random = new Random(16);
+        SparseKeyedValues2D sparse = new SparseKeyedValues2D();
+        DefaultKeyedValues2D dense = new DefaultKeyedValues2D();
+        for (int i = 0; i < 2000; i++) {
+            Integer row = Integer.valueOf(random.nextInt(20));
+            Integer column = Integer.valueOf(random.nextInt(200));
+            Double value = random.nextInt(4) == 0 ? null : Double.valueOf(random.nextInt(100));
+            sparse.setValue(value, row, column);
+            dense.setValue(value, row, column);
+        }
+        assertAgrees(dense, sparse);
+    }
+
+    // random updates and removals on existing keys: rows and columns are
+    // dropped at the same points as DefaultKeyedValues2D. The bundled
+    // DefaultKeyedValues2D finds a column by its position within each row,
+    // so every row is given every column, in column order, before removing.
+    @Test
+    public void agreesWithDefaultKeyedValues2DAfterRemovals() {
+        Random random = new Random(17);
+        SparseKeyedValues2D sparse = new SparseKeyedValues2D();
+        DefaultKeyedValues2D dense = new DefaultKeyedValues2D();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 6; c++) {
+                Double value = random.nextBoolean() ? null : Double.valueOf(random.nextInt(100));
+                sparse.setValue(value, Integer.valueOf(r), Integer.valueOf(c));
+                dense.setValue(value, Integer.valueOf(r), Integer.valueOf(c));
+            }
+        }
+        int removals = 0;
+        for (int i = 0; i < 300 && dense.getRowCount() > 0 && dense.getColumnCount() > 0; i++) {
+            Comparable row = dense.getRowKey(random.nextInt(dense.getRowCount()));
+            Comparable column = dense.getColumnKey(random.nextInt(dense.getColumnCount()));
+            if (random.nextInt(3) == 0) {
+                Double value = Double.valueOf(random.nextInt(100));
+                sparse.setValue(value, row, column);
+                dense.setValue(value, row, column);
+            }
+            else {
+                sparse.removeValue(row, column);
+                dense.removeValue(row, column);
+                removals++;
+            }
+            assertEquals("rows after update " + i, dense.getRowKeys(), sparse.getRowKeys());
+            assertEquals("columns after update " + i, dense.getColumnKeys(), sparse.getColumnKeys());
+        }
+        assertTrue(removals > 0);
+        assertAgrees(dense, sparse);
+    }
+
+    // removeValue drops the row and the column once they hold no values
+    @Test
+    public void removeValueDropsEmptyRowAndColumn() {
+        table.removeValue("R0", "C3");
+        assertEquals(3, table.getRowCount());
+        assertEquals(-1, table.getColumnIndex("C3"));
+        table.removeValue("R0", "C0");
+        assertEquals(-1, table.getRowIndex("R0"));
+        assertEquals(-1, table.getColumnIndex("C0"));
+        assertEquals("R1", table.getRowKey(0));
+        assertEquals(2, table.getColumnCount());
+        assertEquals(8.0, table.getValue("R2", "C2").doubleValue(), .000000001d);
+    }
+
+    // removeValue keeps a column that another row still uses
+    @Test
+    public void removeValueKeepsColumnWithOtherValues() {
+        table.addValue(3.0, "R1", "C2");
+        table.removeValue("R2", "C2");
+        assertEquals(3, table.getRowCount());
+        assertEquals(4, table.getColumnCount());
+        assertNull(table.getValue("R2", "C2"));
+        assertEquals(3.0, table.getValue("R1", "C2").doubleValue(), .000000001d);
+    }
+
+    // removeValue rejects a row key the table does not have, and leaves the table unchanged
+    @Test
+    public void removeValueUnknownRowKeyThrowsException() {
+        try {
+            table.removeValue("R9", "C0");
+            fail("Expected UnknownKeyException");
+        }
+        catch (UnknownKeyException e) {
+            assertEquals(3, table.getRowCount());
+            assertEquals(-1, table.getRowIndex("R9"));
+        }
+    }
+
+    // removeValue rejects a column key the table does not have
+    @Test(expected = UnknownKeyException.class)
+    public void removeValueUnknownColumnKeyThrowsException() {
+        table.removeValue("R0", "C9");
+    }
+
+    // values and totals in sparse match the cells of dense
+    private static void assertAgrees(DefaultKeyedValues2D dense, SparseKeyedValues2D sparse) {
+        assertEquals(dense.getRowCount(), sparse.getRowCount());
+        assertEquals(dense.getColumnCount(), sparse.getColumnCount());
+        double[] columnTotals = new double[dense.getColumnCount()];
+        for (int r = 0; r < dense.getRowCount(); r++) {
+            double rowTotal = 0;
+            for (int c = 0; c < dense.getColumnCount(); c++) {
+                Number value = dense.getValue(r, c);
+                assertEquals("cell " + r + "," + c, value, sparse.getValue(r, c));
+                if (value != null) {
+                    rowTotal += value.doubleValue();
+                    columnTotals[c] += value.doubleValue();
+                }
+            }
+            assertEquals(rowTotal, PrimitiveDataUtilities.calculateRowTotal(sparse, r), .000000001d);
+        }
+        for (int c = 0; c < columnTotals.length; c++) {
+            assertEquals(columnTotals[c], PrimitiveDataUtilities.calculateColumnTotal(sparse, c), .000000001d);
+        }
+    }
+
+    // equal tables built in a different order
+    @Test
+    public void equalsIgnoresInsertionHistory() {
+        SparseKeyedValues2D other = new SparseKeyedValues2D();
+        other.addValue(99.0, "R0", "C0");
+        other.addValue(2.5, "R0", "C3");
+        other.addValue(1.5, "R0", "C0");
+        other.addValue(7.0, "R1", "C1");
+        other.setValue(null, "R1", "C1");
+        other.addValue(8.0, "R2", "C2");
+        assertFalse(table.equals(other));
+        other.removeColumn("C2");
+        other.addValue(-4.0, "R2", "C1");
+        other.addValue(8.0, "R2", "C2");
+        assertEquals(table, other);
+        assertEquals(table.hashCode(), other.hashCode());
+    }
+
+    // unknown key
+    @Test(expected = UnknownKeyException.class)
+    public void getValueWithUnknownKeyThrowsException() {
+        table.getValue("R0", "missing");
+    }
+
+    // column index out of range
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getValueWithColumnOutOfRangeThrowsException() {
+        table.getValue(0, 4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+}